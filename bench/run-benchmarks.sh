@@ -0,0 +1,34 @@
+#!/bin/bash
+# Builds the JMH benchmarks and runs them against a scratch PostgreSQL database.
+# Results go to bench/results/<time>-<commit>.json; when bench/results/baseline.json
+# exists the run is compared against it and the script fails on regressions.
+#
+# Database: BENCH_DB_URL (default jdbc:postgresql://localhost:5432/hospital_bench),
+# BENCH_DB_USER and BENCH_DB_PASSWORD. Create the database once with
+# `createdb hospital_bench`; the schema and data are set up by the benchmarks.
+# Arguments are passed to JMH, e.g. a name filter and `-p rows=10000`.
+
+cd "$(dirname "$0")/.." || exit 1
+
+DB_URL=${BENCH_DB_URL:-jdbc:postgresql://localhost:5432/hospital_bench}
+THRESHOLD=${BENCH_REGRESSION_PERCENT:-10}
+
+echo "Building benchmarks..."
+if ! mvn -B -q -f bench/pom.xml package; then
+    echo "ERROR: Failed to build benchmarks"
+    exit 1
+fi
+
+mkdir -p bench/results
+RESULT="bench/results/$(date +%Y%m%d-%H%M%S)-$(git rev-parse --short HEAD 2>/dev/null || echo local).json"
+
+DB_ARGS=(-Ddb.url="$DB_URL")
+[ -n "$BENCH_DB_USER" ] && DB_ARGS+=(-Ddb.user="$BENCH_DB_USER")
+[ -n "$BENCH_DB_PASSWORD" ] && DB_ARGS+=(-Ddb.password="$BENCH_DB_PASSWORD")
+
+java "${DB_ARGS[@]}" -jar bench/target/benchmarks.jar -rf json -rff "$RESULT" "$@" || exit 1
+echo "Results written to $RESULT"
+
+if [ -f bench/results/baseline.json ]; then
+    java -cp bench/target/benchmarks.jar bench.CompareResults bench/results/baseline.json "$RESULT" "$THRESHOLD"
+fi
@@ -0,0 +1,203 @@
+package bench;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import model.LatencyHistogram;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load test for the REST service (main.ApiTool), e.g.
+//   java -cp bench/target/benchmarks.jar bench.ApiLoadTest http://localhost:8080 64 30
+// (base URL, client threads, seconds). Each thread sends requests back to back from a
+// read-heavy mix: patient by id, patient search, doctor by id and free slots of a
+// doctor-day, with ids sampled from the service first. After a warmup it prints
+// requests per second and latency percentiles per request kind and overall.
+public class ApiLoadTest {
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmupSeconds", 5);
+    private static final String[] KINDS = {"patient by id", "patient search", "doctor by id", "availability"};
+    // Percent of requests of each kind
+    private static final int[] MIX = {40, 20, 20, 20};
+    private static final String[] SEARCH_TERMS = {"a", "an", "ma", "ra", "el", "jo", "sa", "li"};
+
+    private final String baseUrl;
+    private final List<String> patientIds;
+    private final List<String> doctorIds;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[KINDS.length];
+    private final LatencyHistogram overall = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    ApiLoadTest(String baseUrl, List<String> patientIds, List<String> doctorIds) {
+        this.baseUrl = baseUrl;
+        this.patientIds = patientIds;
+        this.doctorIds = doctorIds;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: ApiLoadTest <base url> [threads] [seconds]");
+            System.exit(2);
+        }
+        String baseUrl = args[0].endsWith("/") ? args[0].substring(0, args[0].length() - 1) : args[0];
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        List<String> patientIds = ids(baseUrl + "/api/patients?q=a&limit=500",
+                                      "patient_id");
+        List<String> doctorIds = ids(baseUrl + "/api/doctors", "doctor_id");
+        if (patientIds.isEmpty() || doctorIds.isEmpty()) {
+            System.err.println("The service has no patients or doctors to query; generate data first (main.GenerateTool)");
+            System.exit(1);
+        }
+        System.out.println("Sampled " + patientIds.size() + " patients and " + doctorIds.size() + " doctors; " +
+                           threads + " threads, " + WARMUP_SECONDS + "s warmup, " + seconds + "s measured");
+
+        ApiLoadTest test = new ApiLoadTest(baseUrl, patientIds, doctorIds);
+        test.run(threads, seconds);
+        System.exit(test.errors.get() > 0 ? 1 : 0);
+    }
+
+    private void run(int threads, int seconds) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final Random random = new Random(t);
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (running) {
+                            request(random);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "load-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        TimeUnit.SECONDS.sleep(WARMUP_SECONDS);
+        measuring = true;
+        long started = System.nanoTime();
+        TimeUnit.SECONDS.sleep(seconds);
+        measuring = false;
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        running = false;
+        done.await(30, TimeUnit.SECONDS);
+        report(elapsed);
+    }
+
+    private void request(Random random) {
+        int roll = random.nextInt(100);
+        int kind = 0;
+        while (roll >= MIX[kind]) {
+            roll -= MIX[kind];
+            kind++;
+        }
+        String path;
+        switch (kind) {
+            case 0:
+                path = "/api/patients/" + pick(patientIds, random);
+                break;
+            case 1:
+                path = "/api/patients?q=" + SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)] + "&limit=20";
+                break;
+            case 2:
+                path = "/api/doctors/" + pick(doctorIds, random);
+                break;
+            default:
+                path = "/api/availability?doctor_id=" + pick(doctorIds, random) +
+                       "&date=" + LocalDate.now().plusDays(random.nextInt(30));
+                break;
+        }
+        long started = System.nanoTime();
+        boolean ok;
+        try {
+            ok = get(baseUrl + path) != null;
+        } catch (IOException e) {
+            ok = false;
+        }
+        if (measuring) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+            latencies[kind].record(micros);
+            overall.record(micros);
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    private void report(double seconds) {
+        System.out.println(String.format("%-16s %10s %10s %10s %10s %10s %10s", "request", "req/s",
+                                         "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (int i = 0; i < KINDS.length; i++) {
+            print(KINDS[i], latencies[i].snapshot(), seconds);
+        }
+        print("total", overall.snapshot(), seconds);
+        System.out.println(errors.get() + " failed requests");
+    }
+
+    private static void print(String name, LatencyHistogram.Snapshot snapshot, double seconds) {
+        System.out.println(String.format("%-16s %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f", name,
+                                         snapshot.getCount() / seconds,
+                                         snapshot.getValueAtPercentile(50) / 1000.0,
+                                         snapshot.getValueAtPercentile(90) / 1000.0,
+                                         snapshot.getValueAtPercentile(99) / 1000.0,
+                                         snapshot.getValueAtPercentile(99.9) / 1000.0,
+                                         snapshot.getMax() / 1000.0));
+    }
+
+    private static String pick(List<String> ids, Random random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    // Body of a 2xx response, or null for any other status
+    private static String get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(30000);
+        int status = connection.getResponseCode();
+        InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        if (body != null) {
+            // Read to the end so the keep-alive connection can be reused
+            try (InputStream in = body) {
+                byte[] chunk = new byte[8192];
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    buffer.write(chunk, 0, read);
+                }
+            }
+        }
+        return status / 100 == 2 ? new String(buffer.toByteArray(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static List<String> ids(String url, String field) throws IOException {
+        List<String> ids = new ArrayList<>();
+        String body = get(url);
+        if (body == null) {
+            throw new IOException("GET " + url + " failed");
+        }
+        JsonArray array = JsonParser.parseString(body).getAsJsonArray();
+        for (JsonElement element : array) {
+            ids.add(element.getAsJsonObject().get(field).getAsString());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,80 @@
+package bench;
+
+import dao.DataGenerator;
+import model.DatabaseConnection;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Fixture for the database benchmarks: makes sure the scratch database named by
+// -Ddb.url has the schema and exactly `rows` patients and appointments, generated by
+// dao.DataGenerator with a fixed seed. Seeding truncates all three tables, so it
+// refuses to run against the default database.
+public final class BenchmarkDatabase {
+    public static final long SEED = 20240101L;
+
+    private static final String SCHEMA_FILE = System.getProperty("bench.schema", "database/schema_postgresql.sql");
+    private static final int THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private BenchmarkDatabase() {}
+
+    public static int doctorCountFor(int rows) {
+        return Math.max(10, rows / 1000);
+    }
+
+    // Generator with the settings the data was seeded with; its date range and the
+    // DataGenerator id/slot helpers describe what is in the tables
+    public static DataGenerator generator() {
+        return new DataGenerator(SEED, THREADS);
+    }
+
+    public static void seed(int rows) throws SQLException, IOException {
+        if (System.getProperty("db.url") == null) {
+            throw new IllegalStateException("Benchmarks truncate tables; point -Ddb.url at a scratch database");
+        }
+        try (Connection conn = DatabaseConnection.openDedicatedConnection();
+             Statement stmt = conn.createStatement()) {
+            ensureSchema(stmt);
+            if (count(stmt, "patients") == rows && count(stmt, "appointments") == rows) {
+                return;
+            }
+        }
+        long started = System.currentTimeMillis();
+        DataGenerator.truncateAll();
+        generator().generate(doctorCountFor(rows), rows, rows);
+        System.out.println("Seeded " + rows + " patients and appointments, " + doctorCountFor(rows) + " doctors in " +
+                           (System.currentTimeMillis() - started) + " ms");
+    }
+
+    private static void ensureSchema(Statement stmt) throws SQLException, IOException {
+        try (ResultSet rs = stmt.executeQuery("SELECT to_regclass('public.appointments')")) {
+            rs.next();
+            if (rs.getString(1) != null) {
+                return;
+            }
+        }
+        // The schema script creates and switches to hospital_management first; skip that part
+        Path schema = Paths.get(SCHEMA_FILE);
+        StringBuilder sql = new StringBuilder();
+        for (String line : Files.readAllLines(schema, StandardCharsets.UTF_8)) {
+            if (!line.startsWith("CREATE DATABASE") && !line.startsWith("\\c")) {
+                sql.append(line).append('\n');
+            }
+        }
+        stmt.execute(sql.toString());
+        System.out.println("Created schema from " + schema);
+    }
+
+    private static long count(Statement stmt, String table) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT count(*) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
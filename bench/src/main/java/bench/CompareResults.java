@@ -0,0 +1,77 @@
+package bench;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Compares two JMH JSON result files, e.g.
+//   java -cp bench/target/benchmarks.jar bench.CompareResults baseline.json current.json 10
+// and prints the change of every benchmark/parameter combination present in both.
+// Exits with 1 when any got worse by more than the threshold percentage (default 10);
+// for throughput higher is better, for every time-based mode lower is better.
+public class CompareResults {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: CompareResults <baseline.json> <current.json> [threshold %]");
+            System.exit(2);
+        }
+        double threshold = args.length == 3 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonObject> baseline = load(args[0]);
+        Map<String, JsonObject> current = load(args[1]);
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonObject> entry : current.entrySet()) {
+            JsonObject before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.println(String.format("%-90s %s", entry.getKey(), "new"));
+                continue;
+            }
+            JsonObject after = entry.getValue();
+            double old = score(before);
+            double now = score(after);
+            double change = old == 0 ? 0 : (now - old) * 100.0 / old;
+            boolean higherIsBetter = "thrpt".equals(after.get("mode").getAsString());
+            boolean regressed = higherIsBetter ? change < -threshold : change > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            String unit = after.getAsJsonObject("primaryMetric").get("scoreUnit").getAsString();
+            System.out.println(String.format("%-90s %12.3f -> %12.3f %-10s %+7.1f%%%s",
+                                             entry.getKey(), old, now, unit, change, regressed ? "  REGRESSION" : ""));
+        }
+        System.out.println(regressions + " regression(s) beyond " + threshold + "%");
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    // Keyed by benchmark name plus its parameters, e.g. "dao.X.mapPage {rows=10000}"
+    private static Map<String, JsonObject> load(String file) throws IOException {
+        Map<String, JsonObject> results = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            JsonArray array = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : array) {
+                JsonObject result = element.getAsJsonObject();
+                Map<String, String> params = new TreeMap<>();
+                if (result.has("params")) {
+                    for (Map.Entry<String, JsonElement> param : result.getAsJsonObject("params").entrySet()) {
+                        params.put(param.getKey(), param.getValue().getAsString());
+                    }
+                }
+                results.put(result.get("benchmark").getAsString() + " " + params, result);
+            }
+        }
+        return results;
+    }
+
+    private static double score(JsonObject result) {
+        return result.getAsJsonObject("primaryMetric").get("score").getAsDouble();
+    }
+}
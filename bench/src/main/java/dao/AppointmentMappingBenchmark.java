@@ -0,0 +1,80 @@
+package dao;
+
+import bench.BenchmarkDatabase;
+import model.Appointment;
+import model.DatabaseConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// ResultSet -> Appointment mapping. mapPage maps a page the driver already holds in
+// memory, so it measures AppointmentDAO.mapAppointment alone; streamAll reads the whole
+// table through streamAllAppointments, i.e. query, transfer and mapping together.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AppointmentMappingBenchmark {
+    private static final int PAGE_SIZE = 1000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private final AppointmentDAO dao = new AppointmentDAO();
+    private Connection connection;
+    private ResultSet page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.seed(rows);
+        connection = DatabaseConnection.openDedicatedConnection();
+        Statement stmt = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        page = stmt.executeQuery(
+            "SELECT a.*, p.name as patient_name, d.name as doctor_name " +
+            "FROM appointments a " +
+            "JOIN patients p ON a.patient_id = p.patient_id " +
+            "JOIN doctors d ON a.doctor_id = d.doctor_id " +
+            "ORDER BY a.appointment_date DESC, a.appointment_time DESC LIMIT " + PAGE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        DatabaseConnection.closeConnection();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void mapPage(Blackhole blackhole) throws SQLException {
+        page.beforeFirst();
+        while (page.next()) {
+            blackhole.consume(dao.mapAppointment(page));
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long streamAll() {
+        try (Stream<Appointment> appointments = dao.streamAllAppointments(ResultStreams.DEFAULT_FETCH_SIZE)) {
+            return appointments.count();
+        }
+    }
+}
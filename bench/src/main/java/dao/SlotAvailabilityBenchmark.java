@@ -0,0 +1,87 @@
+package dao;
+
+import bench.BenchmarkDatabase;
+import model.DatabaseConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// isTimeSlotAvailable from 8 threads at once, as when several dialogs validate
+// bookings. indexed answers from the warmed AvailabilityIndex; uncached drops the
+// doctor from the index first, so every call loads the doctor-day from the database
+// through the connection pool.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+public class SlotAvailabilityBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private final AppointmentDAO dao = new AppointmentDAO();
+    private int doctors;
+    private LocalDate firstDate;
+    private int days;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDatabase.seed(rows);
+        DataGenerator generator = BenchmarkDatabase.generator();
+        doctors = BenchmarkDatabase.doctorCountFor(rows);
+        firstDate = generator.getStartDate();
+        days = generator.getDays();
+        AvailabilityIndex.getInstance().clear();
+        dao.warmAvailabilityIndex(firstDate, firstDate.plusDays(days - 1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        AvailabilityIndex.getInstance().clear();
+        DatabaseConnection.closeConnection();
+    }
+
+    @Benchmark
+    public boolean indexed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return dao.isTimeSlotAvailable(doctorId(random), date(random), time(random));
+    }
+
+    @Benchmark
+    public boolean uncached() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String doctorId = doctorId(random);
+        AvailabilityIndex.getInstance().removeDoctor(doctorId);
+        return dao.isTimeSlotAvailable(doctorId, date(random), time(random));
+    }
+
+    private String doctorId(ThreadLocalRandom random) {
+        return DataGenerator.doctorId(random.nextInt(doctors));
+    }
+
+    private LocalDate date(ThreadLocalRandom random) {
+        return firstDate.plusDays(random.nextInt(days));
+    }
+
+    private LocalTime time(ThreadLocalRandom random) {
+        return DataGenerator.slotTime(random.nextInt(DataGenerator.SLOTS_PER_DAY));
+    }
+}
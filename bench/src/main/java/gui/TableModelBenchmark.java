@@ -0,0 +1,95 @@
+package gui;
+
+import model.Doctor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// CustomTableModel cell access on the doctors layout (text, int and decimal columns),
+// in memory only. paintViewport reads a random 40-row window through getValueAt, as the
+// stock JTable renderers do; paintViewportTyped reads the numeric columns the way
+// EntityTable does. scanAll touches every cell once.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TableModelBenchmark {
+    private static final int VIEWPORT_ROWS = 40;
+    private static final String[] COLUMNS = {"Doctor ID", "Name", "Specialization", "Phone", "Email",
+                                             "Qualification", "Experience", "Fee", "Available"};
+    private static final String[] SPECIALIZATIONS = {"Cardiology", "Neurology", "Pediatrics", "Orthopedics"};
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private CustomTableModel model;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Doctor> doctors = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Doctor doctor = new Doctor(String.format("BD%07d", i), "Dr. Bench " + i, SPECIALIZATIONS[i % 4],
+                                       "555-0100", "doctor@example.com", "MD", i % 40, 300 + (i % 10) * 50);
+            doctor.setAvailable(i % 7 != 0);
+            doctors.add(doctor);
+        }
+        model = new CustomTableModel(doctors, COLUMNS, Doctor.class);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void paintViewport(Blackhole blackhole) {
+        int first = ThreadLocalRandom.current().nextInt(rows - VIEWPORT_ROWS);
+        for (int row = first; row < first + VIEWPORT_ROWS; row++) {
+            for (int column = 0; column < COLUMNS.length; column++) {
+                blackhole.consume(model.getValueAt(row, column));
+            }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void paintViewportTyped(Blackhole blackhole) {
+        int first = ThreadLocalRandom.current().nextInt(rows - VIEWPORT_ROWS);
+        for (int row = first; row < first + VIEWPORT_ROWS; row++) {
+            for (int column = 0; column < COLUMNS.length; column++) {
+                switch (model.getColumnKind(column)) {
+                    case INT:
+                        blackhole.consume(EntityTable.NumberCellRenderer.format(model.getIntAt(row, column)));
+                        break;
+                    case DECIMAL:
+                        blackhole.consume(EntityTable.NumberCellRenderer.format(model.getDecimalAt(row, column)));
+                        break;
+                    default:
+                        blackhole.consume(model.getValueAt(row, column));
+                        break;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void scanAll(Blackhole blackhole) {
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < COLUMNS.length; column++) {
+                blackhole.consume(model.getValueAt(row, column));
+            }
+        }
+    }
+}
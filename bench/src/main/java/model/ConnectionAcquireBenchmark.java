@@ -0,0 +1,63 @@
+package model;
+
+import bench.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+// Cost of getting a connection: borrowing from the pool uncontended, borrowing with
+// more threads than db.pool.maxSize (so callers queue), and opening a physical one.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConnectionAcquireBenchmark {
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Only needs the schema; the smallest data set will do
+        BenchmarkDatabase.seed(10000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseConnection.closeConnection();
+    }
+
+    @Benchmark
+    public boolean pooled() throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            return connection.getAutoCommit();
+        }
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean pooledContended() throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            return connection.getAutoCommit();
+        }
+    }
+
+    @Benchmark
+    public boolean unpooled() throws SQLException {
+        try (Connection connection = DatabaseConnection.openDedicatedConnection()) {
+            return connection.getAutoCommit();
+        }
+    }
+}
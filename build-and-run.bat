@@ -69,10 +69,18 @@ if %errorlevel% neq 0 (
     exit /b 1
 )
 
-echo Step 4: Compiling main class...
-javac -cp ".;lib\*;bin" -d bin src\main\Main.java
+echo Step 4: Compiling API classes...
+javac -cp ".;lib\*;bin" -d bin src\api\*.java
 if %errorlevel% neq 0 (
-    echo ERROR: Failed to compile main class
+    echo ERROR: Failed to compile API classes
+    pause
+    exit /b 1
+)
+
+echo Step 5: Compiling main classes...
+javac -cp ".;lib\*;bin" -d bin src\main\*.java
+if %errorlevel% neq 0 (
+    echo ERROR: Failed to compile main classes
     pause
     exit /b 1
 )
@@ -67,10 +67,17 @@ if [ $? -ne 0 ]; then
     exit 1
 fi
 
-echo "Step 4: Compiling main class..."
-javac -cp ".:lib/*:bin" -d bin src/main/Main.java
+echo "Step 4: Compiling API classes..."
+javac -cp ".:lib/*:bin" -d bin src/api/*.java
 if [ $? -ne 0 ]; then
-    echo "ERROR: Failed to compile main class"
+    echo "ERROR: Failed to compile API classes"
+    exit 1
+fi
+
+echo "Step 5: Compiling main classes..."
+javac -cp ".:lib/*:bin" -d bin src/main/*.java
+if [ $? -ne 0 ]; then
+    echo "ERROR: Failed to compile main classes"
     exit 1
 fi
 
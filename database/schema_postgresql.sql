@@ -15,7 +15,8 @@ CREATE TABLE IF NOT EXISTS doctors (
     experience_years INTEGER,
     consultation_fee DECIMAL(10,2),
     available BOOLEAN DEFAULT TRUE,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
 -- Patients table
@@ -30,7 +31,8 @@ CREATE TABLE IF NOT EXISTS patients (
     address TEXT,
     blood_group VARCHAR(5),
     emergency_contact VARCHAR(15),
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
 -- Appointments table
@@ -47,6 +49,7 @@ CREATE TABLE IF NOT EXISTS appointments (
     prescription TEXT,
     fee DECIMAL(10,2),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (patient_id) REFERENCES patients(patient_id) ON DELETE CASCADE,
     FOREIGN KEY (doctor_id) REFERENCES doctors(doctor_id) ON DELETE CASCADE
 );
@@ -58,6 +61,171 @@ CREATE INDEX IF NOT EXISTS idx_appointments_patient ON appointments(patient_id);
 CREATE INDEX IF NOT EXISTS idx_doctors_specialization ON doctors(specialization);
 CREATE INDEX IF NOT EXISTS idx_patients_name ON patients(name);
 
+-- Change watermark: workstations fetch only rows touched since their last sync
+ALTER TABLE doctors ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE patients ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE appointments ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+
+CREATE OR REPLACE FUNCTION touch_updated_at() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at := CURRENT_TIMESTAMP;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_doctors_touch ON doctors;
+CREATE TRIGGER trg_doctors_touch BEFORE UPDATE ON doctors
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+DROP TRIGGER IF EXISTS trg_patients_touch ON patients;
+CREATE TRIGGER trg_patients_touch BEFORE UPDATE ON patients
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+DROP TRIGGER IF EXISTS trg_appointments_touch ON appointments;
+CREATE TRIGGER trg_appointments_touch BEFORE UPDATE ON appointments
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+CREATE INDEX IF NOT EXISTS idx_doctors_updated ON doctors(updated_at);
+CREATE INDEX IF NOT EXISTS idx_patients_updated ON patients(updated_at);
+CREATE INDEX IF NOT EXISTS idx_appointments_updated ON appointments(updated_at);
+
+-- Keyset pagination for the lazily loaded tables (scanned backwards for DESC order)
+CREATE INDEX IF NOT EXISTS idx_patients_created_id ON patients(created_at, id);
+CREATE INDEX IF NOT EXISTS idx_appointments_date_time_id ON appointments(appointment_date, appointment_time, id);
+
+-- End-of-day status sweep (dao.StatusTransition): finds the few appointments still
+-- Scheduled without walking the whole history
+CREATE INDEX IF NOT EXISTS idx_appointments_scheduled_date ON appointments(appointment_date, appointment_time)
+    WHERE status = 'Scheduled';
+
+-- A doctor can hold one live appointment per slot. Enforced here so the application's
+-- in-memory availability index is never the only guard against double booking.
+-- A database from before the index may hold double bookings already, which would make
+-- the index fail to build: all but the earliest live booking of such a slot are
+-- cancelled first, each reported with a NOTICE so the patients can be contacted.
+DO $$
+DECLARE
+    duplicate RECORD;
+BEGIN
+    FOR duplicate IN
+        UPDATE appointments a SET status = 'Cancelled'
+        FROM (SELECT id, row_number() OVER (PARTITION BY doctor_id, appointment_date, appointment_time
+                                            ORDER BY id) AS booking
+              FROM appointments WHERE status IS DISTINCT FROM 'Cancelled') d
+        WHERE a.id = d.id AND d.booking > 1
+        RETURNING a.appointment_id, a.patient_id, a.doctor_id, a.appointment_date, a.appointment_time
+    LOOP
+        RAISE NOTICE 'Cancelled double booking % (patient %, doctor % on % at %)',
+            duplicate.appointment_id, duplicate.patient_id, duplicate.doctor_id,
+            duplicate.appointment_date, duplicate.appointment_time;
+    END LOOP;
+END $$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_appointments_doctor_slot
+    ON appointments(doctor_id, appointment_date, appointment_time)
+    WHERE status IS DISTINCT FROM 'Cancelled';
+
+-- Id blocks for the application's hi/lo allocator (dao.IdGenerator): each nextval()
+-- reserves INCREMENT BY ids. Starting at 1000 keeps clear of PAT001-style ids.
+CREATE SEQUENCE IF NOT EXISTS patient_id_seq START WITH 1000 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS doctor_id_seq START WITH 1000 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS appointment_id_seq START WITH 1000 INCREMENT BY 50;
+
+-- Change notifications: committed row changes are announced on the hms_changes channel
+-- as "table,op,id,origin" (op I/U/D; origin is the writer's application_name) so other
+-- workstations can drop cached rows and update their tables. A statement touching more than 100 rows sends a
+-- single "table,*,,origin" instead of one notification per row.
+CREATE OR REPLACE FUNCTION notify_row_changes() RETURNS TRIGGER AS $$
+DECLARE
+    origin TEXT := current_setting('application_name');
+    changed_id TEXT;
+BEGIN
+    IF (SELECT count(*) FROM (SELECT 1 FROM changed_rows LIMIT 101) c) > 100 THEN
+        PERFORM pg_notify('hms_changes', TG_TABLE_NAME || ',*,,' || origin);
+    ELSE
+        FOR changed_id IN SELECT to_jsonb(c) ->> TG_ARGV[0] FROM changed_rows c LOOP
+            PERFORM pg_notify('hms_changes', TG_TABLE_NAME || ',' || left(TG_OP, 1) || ',' || changed_id || ',' || origin);
+        END LOOP;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_patients_notify_insert ON patients;
+CREATE TRIGGER trg_patients_notify_insert AFTER INSERT ON patients
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_changes('patient_id');
+DROP TRIGGER IF EXISTS trg_patients_notify_update ON patients;
+CREATE TRIGGER trg_patients_notify_update AFTER UPDATE ON patients
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_changes('patient_id');
+DROP TRIGGER IF EXISTS trg_patients_notify_delete ON patients;
+CREATE TRIGGER trg_patients_notify_delete AFTER DELETE ON patients
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_changes('patient_id');
+DROP TRIGGER IF EXISTS trg_doctors_notify_insert ON doctors;
+CREATE TRIGGER trg_doctors_notify_insert AFTER INSERT ON doctors
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_changes('doctor_id');
+DROP TRIGGER IF EXISTS trg_doctors_notify_update ON doctors;
+CREATE TRIGGER trg_doctors_notify_update AFTER UPDATE ON doctors
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_changes('doctor_id');
+DROP TRIGGER IF EXISTS trg_doctors_notify_delete ON doctors;
+CREATE TRIGGER trg_doctors_notify_delete AFTER DELETE ON doctors
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_changes('doctor_id');
+DROP TRIGGER IF EXISTS trg_appointments_notify_insert ON appointments;
+CREATE TRIGGER trg_appointments_notify_insert AFTER INSERT ON appointments
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_changes('appointment_id');
+DROP TRIGGER IF EXISTS trg_appointments_notify_update ON appointments;
+CREATE TRIGGER trg_appointments_notify_update AFTER UPDATE ON appointments
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_changes('appointment_id');
+DROP TRIGGER IF EXISTS trg_appointments_notify_delete ON appointments;
+CREATE TRIGGER trg_appointments_notify_delete AFTER DELETE ON appointments
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_row_changes('appointment_id');
+
+-- Tombstones: deletes leave no updated_at behind, so a workstation polling from its
+-- watermark (while it is not listening on hms_changes) reads them here. Rows older
+-- than a day are pruned as new ones are written.
+CREATE TABLE IF NOT EXISTS deleted_rows (
+    table_name VARCHAR(30) NOT NULL,
+    row_id VARCHAR(20) NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_deleted_rows_table_deleted ON deleted_rows(table_name, deleted_at);
+
+CREATE OR REPLACE FUNCTION record_deleted_rows() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO deleted_rows (table_name, row_id)
+        SELECT TG_TABLE_NAME, to_jsonb(c) ->> TG_ARGV[0] FROM changed_rows c;
+    DELETE FROM deleted_rows
+        WHERE table_name = TG_TABLE_NAME AND deleted_at < CURRENT_TIMESTAMP - INTERVAL '1 day';
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_patients_tombstone ON patients;
+CREATE TRIGGER trg_patients_tombstone AFTER DELETE ON patients
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION record_deleted_rows('patient_id');
+DROP TRIGGER IF EXISTS trg_doctors_tombstone ON doctors;
+CREATE TRIGGER trg_doctors_tombstone AFTER DELETE ON doctors
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION record_deleted_rows('doctor_id');
+DROP TRIGGER IF EXISTS trg_appointments_tombstone ON appointments;
+CREATE TRIGGER trg_appointments_tombstone AFTER DELETE ON appointments
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION record_deleted_rows('appointment_id');
+
+-- Typeahead search: trigram indexes let ILIKE '%term%' use an index scan
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_patients_name_trgm ON patients USING gin (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_patients_phone_trgm ON patients USING gin (phone gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_patients_patient_id_trgm ON patients USING gin (patient_id gin_trgm_ops);
+
 -- Sample data
 INSERT INTO doctors (doctor_id, name, specialization, phone, email, qualification, experience_years, consultation_fee) VALUES
 ('DOC001', 'Dr. Sarah Johnson', 'Cardiology', '123-456-7890', 'sarah.johnson@hospital.com', 'MD Cardiology', 15, 500.00),
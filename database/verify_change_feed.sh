@@ -0,0 +1,178 @@
+#!/bin/bash
+# Checks the change notification triggers of schema_postgresql.sql against a live
+# database, with a listening and a writing psql session:
+#   - each changed row arrives on hms_changes as "table,op,id,origin"
+#   - a statement touching 100 rows still sends one notification per row, one touching
+#     more sends a single "table,*,,origin"
+#   - origin is the writer's application_name, and main.ChangeMonitor skips the
+#     changes made under its own name (-Ddb.applicationName) but not anyone else's
+#   - deletes leave tombstones in deleted_rows
+# It creates and removes rows with VERIFY- ids. Connection settings come from PGHOST,
+# PGPORT, PGUSER, PGPASSWORD and PGDATABASE (default hospital_management). Compile
+# the application into bin/ first (see build-and-run.sh).
+
+cd "$(dirname "$0")/.." || exit 1
+
+export PGDATABASE=${PGDATABASE:-hospital_management}
+LISTENER=hms-verify-listener
+WRITER=hms-verify-writer
+MONITOR=hms-verify-monitor
+# Held by the writer while it writes; the listener queues behind it, then reads them all
+LOCK_KEY=48151623
+
+if [ ! -f bin/main/ChangeMonitor.class ]; then
+    echo "ERROR: bin/main/ChangeMonitor.class not found; compile the application first"
+    exit 1
+fi
+
+# Also clears leftovers of an interrupted run, which would announce themselves below
+cleanup_rows() {
+    PGAPPNAME=$WRITER psql -X -q -v ON_ERROR_STOP=1 <<'SQL'
+DELETE FROM patients WHERE patient_id LIKE 'VERIFY-%';
+DELETE FROM doctors WHERE doctor_id LIKE 'VERIFY-%';
+DELETE FROM deleted_rows WHERE row_id LIKE 'VERIFY-%';
+SQL
+}
+cleanup_rows || exit 1
+
+WORK=$(mktemp -d)
+MONITOR_PID=
+cleanup() {
+    [ -n "$MONITOR_PID" ] && kill "$MONITOR_PID" 2>/dev/null
+    cleanup_rows > /dev/null
+    rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+FAILED=0
+check() {
+    local description=$1 expected=$2 actual=$3
+    if [ "$expected" = "$actual" ]; then
+        echo "ok    $description"
+    else
+        echo "FAIL  $description: expected $expected, got $actual"
+        FAILED=1
+    fi
+}
+
+wait_for() {
+    local query=$1
+    for _ in $(seq 100); do
+        [ "$(psql -X -tA -c "$query")" = "t" ] && return 0
+        sleep 0.1
+    done
+    echo "ERROR: timed out waiting for: $query"
+    exit 1
+}
+
+echo "Triggers: one listening and one writing session..."
+
+PGAPPNAME=$WRITER psql -X -q -v ON_ERROR_STOP=1 > "$WORK/writer.log" 2>&1 <<SQL &
+SELECT pg_advisory_lock($LOCK_KEY);
+-- Start writing once the listener is subscribed and queued behind the lock
+DO \$\$
+BEGIN
+    FOR attempt IN 1..100 LOOP
+        IF EXISTS (SELECT 1 FROM pg_stat_activity
+                   WHERE application_name = '$LISTENER' AND wait_event_type = 'Lock') THEN
+            RETURN;
+        END IF;
+        PERFORM pg_sleep(0.1);
+    END LOOP;
+    RAISE EXCEPTION 'listener did not start';
+END
+\$\$;
+
+INSERT INTO doctors (doctor_id, name, specialization) VALUES ('VERIFY-D1', 'Verify Doctor', 'Verify');
+INSERT INTO patients (patient_id, name, age, gender) VALUES ('VERIFY-P1', 'Verify Patient', 40, 'Other');
+INSERT INTO appointments (appointment_id, patient_id, doctor_id, appointment_date, appointment_time)
+    VALUES ('VERIFY-A1', 'VERIFY-P1', 'VERIFY-D1', CURRENT_DATE + 1, '09:00');
+UPDATE appointments SET status = 'Cancelled' WHERE appointment_id = 'VERIFY-A1';
+DELETE FROM appointments WHERE appointment_id = 'VERIFY-A1';
+
+INSERT INTO patients (patient_id, name, age, gender)
+    SELECT 'VERIFY-C' || n, 'Verify Row', 30, 'Other' FROM generate_series(1, 100) n;
+INSERT INTO patients (patient_id, name, age, gender)
+    SELECT 'VERIFY-B' || n, 'Verify Bulk', 30, 'Other' FROM generate_series(1, 101) n;
+UPDATE patients SET age = 31 WHERE patient_id LIKE 'VERIFY-B%';
+DELETE FROM patients WHERE patient_id LIKE 'VERIFY-%';
+DELETE FROM doctors WHERE doctor_id = 'VERIFY-D1';
+
+SELECT count(*) AS appointment_tombstones FROM deleted_rows
+    WHERE table_name = 'appointments' AND row_id = 'VERIFY-A1' \gset
+SELECT count(*) AS patient_tombstones FROM deleted_rows
+    WHERE table_name = 'patients' AND row_id LIKE 'VERIFY-%' \gset
+\echo tombstones :appointment_tombstones :patient_tombstones
+SQL
+WRITER_PID=$!
+
+wait_for "SELECT EXISTS (SELECT 1 FROM pg_locks WHERE locktype = 'advisory' AND objid = $LOCK_KEY AND granted)"
+
+PGAPPNAME=$LISTENER psql -X -q -v ON_ERROR_STOP=1 > "$WORK/listener.log" 2>&1 <<SQL
+LISTEN hms_changes;
+SELECT pg_advisory_lock($LOCK_KEY);
+SELECT pg_advisory_unlock($LOCK_KEY);
+SQL
+
+if ! wait "$WRITER_PID"; then
+    echo "ERROR: writer failed:"
+    cat "$WORK/writer.log"
+    exit 1
+fi
+
+sed -n 's/^Asynchronous notification "hms_changes" with payload "\(.*\)" received from server process with PID [0-9]*\.$/\1/p' \
+    "$WORK/listener.log" > "$WORK/payloads"
+payloads() {
+    grep -c -x -e "$1" "$WORK/payloads"
+}
+
+check "insert announced as table,I,id,origin" 1 "$(payloads "doctors,I,VERIFY-D1,$WRITER")"
+check "appointment insert, update and delete" 3 "$(payloads "appointments,[IUD],VERIFY-A1,$WRITER")"
+check "delete announced as table,D,id,origin" 1 "$(payloads "doctors,D,VERIFY-D1,$WRITER")"
+check "100 rows in one statement: one notification per row" 100 "$(payloads "patients,I,VERIFY-C[0-9]*,$WRITER")"
+check "more than 100 rows: no per-row notifications" 0 "$(payloads "patients,[IUD],VERIFY-B[0-9]*,$WRITER")"
+check "more than 100 rows: table,*,,origin per statement" 3 "$(payloads "patients,\*,,$WRITER")"
+check "every origin is the writer's application_name" 0 "$(grep -c -v -e ",$WRITER\$" "$WORK/payloads")"
+check "tombstones for the deleted appointment and patients" "tombstones 1 202" \
+    "$(grep '^tombstones' "$WORK/writer.log")"
+
+echo "Change feed: main.ChangeMonitor running as $MONITOR..."
+
+JAVA_ARGS=(-Ddb.url="jdbc:postgresql://${PGHOST:-localhost}:${PGPORT:-5432}/$PGDATABASE"
+           -Ddb.user="${PGUSER:-postgres}" -Ddb.applicationName=$MONITOR)
+[ -n "$PGPASSWORD" ] && JAVA_ARGS+=(-Ddb.password="$PGPASSWORD")
+java "${JAVA_ARGS[@]}" -cp "bin:lib/*" main.ChangeMonitor > "$WORK/monitor.log" 2>&1 &
+MONITOR_PID=$!
+for _ in $(seq 200); do
+    grep -q "resync" "$WORK/monitor.log" && break
+    sleep 0.1
+done
+if ! grep -q "resync" "$WORK/monitor.log"; then
+    echo "ERROR: ChangeMonitor did not start listening:"
+    cat "$WORK/monitor.log"
+    exit 1
+fi
+
+PGAPPNAME=$MONITOR psql -X -q -v ON_ERROR_STOP=1 <<'SQL' || exit 1
+INSERT INTO doctors (doctor_id, name, specialization) VALUES ('VERIFY-D2', 'Verify Own', 'Verify');
+DELETE FROM doctors WHERE doctor_id = 'VERIFY-D2';
+SQL
+PGAPPNAME=$WRITER psql -X -q -v ON_ERROR_STOP=1 <<'SQL' || exit 1
+INSERT INTO doctors (doctor_id, name, specialization) VALUES ('VERIFY-D3', 'Verify Other', 'Verify');
+DELETE FROM doctors WHERE doctor_id = 'VERIFY-D3';
+SQL
+# Notifications arrive in commit order, so once D3's delete is in, D2's would be too
+for _ in $(seq 100); do
+    grep -q -F "[doctors D VERIFY-D3]" "$WORK/monitor.log" && break
+    sleep 0.1
+done
+
+check "another workstation's insert is delivered" 1 "$(grep -c -F "[doctors I VERIFY-D3]" "$WORK/monitor.log")"
+check "another workstation's delete is delivered" 1 "$(grep -c -F "[doctors D VERIFY-D3]" "$WORK/monitor.log")"
+check "own changes are skipped" 0 "$(grep -c -F "VERIFY-D2" "$WORK/monitor.log")"
+
+if [ "$FAILED" -ne 0 ]; then
+    echo "Change feed verification FAILED"
+    exit 1
+fi
+echo "Change feed verification passed"
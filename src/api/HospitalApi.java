@@ -0,0 +1,843 @@
+package api;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import dao.AppointmentDAO;
+import dao.AvailabilityIndex;
+import dao.BookingAllocator;
+import dao.ChangeCoalescer;
+import dao.ChangeFeed;
+import dao.DataAccessException;
+import dao.DoctorDAO;
+import dao.IdGenerator;
+import dao.PatientDAO;
+import dao.RecordMapper;
+import dao.RecordReader;
+import dao.SlotFinder;
+import dao.UnitOfWork;
+import model.Appointment;
+import model.DatabaseConnection;
+import model.Doctor;
+import model.Metrics;
+import model.Patient;
+import model.RecordValidator;
+import model.TaskExecutors;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Embedded HTTP/JSON service over the DAOs, built on the JDK's com.sun.net.httpserver so
+// no application server is needed. Each request runs on its own virtual thread where the
+// runtime has them (TaskExecutors) and borrows a pooled connection like the GUI does.
+// Full lists are streamed from a server-side cursor with chunked encoding, so memory use
+// does not grow with the table. There is no authentication: bind it to localhost or a
+// trusted network only. See the REST Service section of README.md for the endpoints.
+//
+// The availability index behind /api/availability, /api/slots and booking is kept
+// current from the change feed like the GUI's, and bounded to a window of days around
+// today; while the feed is down it is cleared on every housekeeping pass instead.
+public class HospitalApi {
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
+    private static final int MAX_SEARCH_LIMIT = 500;
+    // Default slot grid for /api/availability and /api/slots
+    private static final LocalTime FIRST_SLOT = SlotFinder.DEFAULT_DAY_START;
+    private static final LocalTime LAST_SLOT_END = SlotFinder.DEFAULT_DAY_END;
+    private static final int SLOT_MINUTES = SlotFinder.DEFAULT_SLOT_MINUTES;
+    private static final int DEFAULT_SLOT_COUNT = 10;
+    private static final int MAX_SLOT_COUNT = 200;
+    private static final int MAX_SLOT_DAYS = 366;
+    // Doctors tried for one booking by specialization when picked slots keep getting taken
+    private static final int MAX_ALLOCATION_ATTEMPTS = 5;
+    // Days from today kept in the availability index between housekeeping passes
+    private static final int AVAILABILITY_DAYS = Integer.getInteger("api.availabilityDays", 90);
+    private static final long HOUSEKEEPING_INTERVAL_SECONDS = 15;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final PatientDAO patientDAO = new PatientDAO();
+    private final DoctorDAO doctorDAO = new DoctorDAO();
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private final AvailabilityIndex availabilityIndex = AvailabilityIndex.getInstance();
+    private final ScheduledExecutorService housekeeper =
+        Executors.newSingleThreadScheduledExecutor(TaskExecutors.daemonThreadFactory("api-housekeeping"));
+    private ChangeCoalescer changeCoalescer;
+
+    public HospitalApi(InetSocketAddress address, int backlog) throws IOException {
+        server = HttpServer.create(address, backlog);
+        executor = TaskExecutors.newExecutor("api");
+        server.setExecutor(executor);
+        server.createContext("/api/health", new Endpoint("/api/health") {
+            @Override
+            void handle(Request request) throws IOException {
+                health(request);
+            }
+        });
+        server.createContext("/api/patients", new Endpoint("/api/patients") {
+            @Override
+            void handle(Request request) throws IOException {
+                patients(request);
+            }
+        });
+        server.createContext("/api/doctors", new Endpoint("/api/doctors") {
+            @Override
+            void handle(Request request) throws IOException {
+                doctors(request);
+            }
+        });
+        server.createContext("/api/appointments", new Endpoint("/api/appointments") {
+            @Override
+            void handle(Request request) throws IOException {
+                appointments(request);
+            }
+        });
+        server.createContext("/api/availability", new Endpoint("/api/availability") {
+            @Override
+            void handle(Request request) throws IOException {
+                availability(request);
+            }
+        });
+        server.createContext("/api/slots", new Endpoint("/api/slots") {
+            @Override
+            void handle(Request request) throws IOException {
+                slots(request);
+            }
+        });
+    }
+
+    public void start() {
+        changeCoalescer = new ChangeCoalescer(ChangeCoalescer.DEFAULT_WINDOW_MS, ChangeCoalescer.DEFAULT_MAX_PENDING,
+            new Consumer<ChangeCoalescer.Batch>() {
+                @Override
+                public void accept(ChangeCoalescer.Batch batch) {
+                    applyPushedChanges(batch);
+                }
+            });
+        ChangeFeed.getInstance().addListener(changeCoalescer);
+        ChangeFeed.getInstance().start();
+        housekeeper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                trimAvailability();
+            }
+        }, HOUSEKEEPING_INTERVAL_SECONDS, HOUSEKEEPING_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        server.start();
+    }
+
+    // Waits up to delaySeconds for requests in flight
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        housekeeper.shutdownNow();
+        if (changeCoalescer != null) {
+            ChangeFeed.getInstance().removeListener(changeCoalescer);
+            changeCoalescer.shutdown();
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    // Runs on the coalescer's thread. Re-reading inserted and updated appointments
+    // applies their slots to the index; a delete carries only the id and we keep no
+    // copy of the row, so the index is cleared and days reload as they are checked.
+    private void applyPushedChanges(ChangeCoalescer.Batch batch) {
+        for (ChangeFeed.Change change : batch.getChanges("doctors")) {
+            if (change.getOperation() == 'D') {
+                availabilityIndex.removeDoctor(change.getId());
+            }
+        }
+        if (batch.isReloadRequired("appointments")) {
+            availabilityIndex.clear();
+            return;
+        }
+        List<String> changed = new ArrayList<>();
+        for (ChangeFeed.Change change : batch.getChanges("appointments")) {
+            if (change.getOperation() == 'D') {
+                availabilityIndex.clear();
+                return;
+            }
+            changed.add(change.getId());
+        }
+        // Fewer rows than ids: deleted since, or the read failed
+        if (appointmentDAO.getChangedAppointments(changed).size() < changed.size()) {
+            availabilityIndex.clear();
+        }
+    }
+
+    private void trimAvailability() {
+        try {
+            if (!ChangeFeed.getInstance().isConnected()) {
+                // Nothing tells us about other writers: do not answer from old days
+                availabilityIndex.clear();
+                return;
+            }
+            LocalDate today = LocalDate.now();
+            availabilityIndex.retainBetween(today, today.plusDays(AVAILABILITY_DAYS));
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next pass tries again
+            System.err.println("Error trimming availability index: " + e.getMessage());
+        }
+    }
+
+    private void health(Request request) throws IOException {
+        request.requireMethod("GET");
+        final String connection = DatabaseConnection.getConnectionInfo();
+        request.respond(200, new JsonBody() {
+            @Override
+            public void write(JsonWriter json) throws IOException {
+                json.beginObject()
+                    .field("status", "ok")
+                    .field("virtual_threads", TaskExecutors.isVirtualThreadSupported())
+                    .field("database", connection)
+                    .endObject();
+            }
+        });
+    }
+
+    // GET /api/patients[?q=term&limit=n], GET|PUT|DELETE /api/patients/{id}, POST /api/patients
+    private void patients(Request request) throws IOException {
+        String id = request.id;
+        if (id == null) {
+            if ("GET".equals(request.method)) {
+                String term = request.query.get("q");
+                if (term == null) {
+                    request.stream(patientDAO.streamAllPatients(STREAM_FETCH_SIZE), PATIENT);
+                } else {
+                    request.list(patientDAO.searchPatients(term, request.limit()), PATIENT);
+                }
+                return;
+            }
+            request.requireMethod("POST");
+            Map<String, String> body = request.body();
+            if (RecordMapper.text(body, "patient_id").isEmpty()) {
+                body.put("patient_id", IdGenerator.patients().nextId());
+            }
+            Patient patient = RecordMapper.toPatient(body);
+            request.validate(RecordValidator.validatePatient(patient));
+            if (patientDAO.getPatientById(patient.getPatientId()) != null) {
+                throw new ApiException(409, "Patient " + patient.getPatientId() + " already exists");
+            }
+            if (!patientDAO.addPatient(patient)) {
+                throw new ApiException(500, "Could not add patient");
+            }
+            request.entity(201, patientDAO.getPatientById(patient.getPatientId()), PATIENT);
+            return;
+        }
+
+        Patient existing = patientDAO.getPatientById(id);
+        if (existing == null) {
+            throw new ApiException(404, "No patient " + id);
+        }
+        if ("GET".equals(request.method)) {
+            request.entity(200, existing, PATIENT);
+        } else if ("PUT".equals(request.method)) {
+            Map<String, String> body = request.body();
+            body.put("patient_id", id);
+            Patient patient = RecordMapper.toPatient(body);
+            request.validate(RecordValidator.validatePatient(patient));
+            if (!patientDAO.updatePatient(patient)) {
+                throw new ApiException(500, "Could not update patient " + id);
+            }
+            request.entity(200, patientDAO.getPatientById(id), PATIENT);
+        } else if ("DELETE".equals(request.method)) {
+            if (!patientDAO.deletePatient(id)) {
+                throw new ApiException(500, "Could not delete patient " + id);
+            }
+            request.noContent();
+        } else {
+            throw new ApiException(405, "Use GET, PUT or DELETE on " + request.path);
+        }
+    }
+
+    // GET /api/doctors[?specialization=s], GET|PUT|DELETE /api/doctors/{id}, POST /api/doctors
+    private void doctors(Request request) throws IOException {
+        String id = request.id;
+        if (id == null) {
+            if ("GET".equals(request.method)) {
+                String specialization = request.query.get("specialization");
+                if (specialization == null) {
+                    request.stream(doctorDAO.streamAllDoctors(STREAM_FETCH_SIZE), DOCTOR);
+                } else {
+                    request.list(doctorDAO.getDoctorsBySpecialization(specialization), DOCTOR);
+                }
+                return;
+            }
+            request.requireMethod("POST");
+            Map<String, String> body = request.body();
+            if (RecordMapper.text(body, "doctor_id").isEmpty()) {
+                body.put("doctor_id", IdGenerator.doctors().nextId());
+            }
+            Doctor doctor = toDoctor(body);
+            request.validate(RecordValidator.validateDoctor(doctor));
+            if (doctorDAO.getDoctorById(doctor.getDoctorId()) != null) {
+                throw new ApiException(409, "Doctor " + doctor.getDoctorId() + " already exists");
+            }
+            if (!doctorDAO.addDoctor(doctor)) {
+                throw new ApiException(500, "Could not add doctor");
+            }
+            request.entity(201, doctorDAO.getDoctorById(doctor.getDoctorId()), DOCTOR);
+            return;
+        }
+
+        Doctor existing = doctorDAO.getDoctorById(id);
+        if (existing == null) {
+            throw new ApiException(404, "No doctor " + id);
+        }
+        if ("GET".equals(request.method)) {
+            request.entity(200, existing, DOCTOR);
+        } else if ("PUT".equals(request.method)) {
+            Map<String, String> body = request.body();
+            body.put("doctor_id", id);
+            Doctor doctor = toDoctor(body);
+            request.validate(RecordValidator.validateDoctor(doctor));
+            if (!doctorDAO.updateDoctor(doctor)) {
+                throw new ApiException(500, "Could not update doctor " + id);
+            }
+            request.entity(200, doctorDAO.getDoctorById(id), DOCTOR);
+        } else if ("DELETE".equals(request.method)) {
+            if (!doctorDAO.deleteDoctor(id)) {
+                throw new ApiException(500, "Could not delete doctor " + id);
+            }
+            request.noContent();
+        } else {
+            throw new ApiException(405, "Use GET, PUT or DELETE on " + request.path);
+        }
+    }
+
+    private static Doctor toDoctor(Map<String, String> body) {
+        Doctor doctor = RecordMapper.toDoctor(body);
+        String available = RecordMapper.text(body, "available");
+        if (!available.isEmpty()) {
+            doctor.setAvailable(Boolean.parseBoolean(available));
+        }
+        return doctor;
+    }
+
+    // GET /api/appointments[?date=YYYY-MM-DD], GET|PUT|DELETE /api/appointments/{id},
+    // POST /api/appointments
+    private void appointments(Request request) throws IOException {
+        String id = request.id;
+        if (id == null) {
+            if ("GET".equals(request.method)) {
+                LocalDate date = request.date("date");
+                request.stream(date == null
+                    ? appointmentDAO.streamAllAppointments(STREAM_FETCH_SIZE)
+                    : appointmentDAO.streamAppointmentsByDate(date, STREAM_FETCH_SIZE), APPOINTMENT);
+                return;
+            }
+            request.requireMethod("POST");
+            Map<String, String> body = request.body();
+            if (RecordMapper.text(body, "appointment_id").isEmpty()) {
+                body.put("appointment_id", IdGenerator.appointments().nextId());
+            }
+            // A first visit carries the patient's fields (name, age, ...) instead of a
+            // patient_id; patient and appointment are then written in one transaction
+            Patient newPatient = null;
+            if (RecordMapper.text(body, "patient_id").isEmpty() && !RecordMapper.text(body, "name").isEmpty()) {
+                body.put("patient_id", IdGenerator.patients().nextId());
+                newPatient = RecordMapper.toPatient(body);
+                request.validate(RecordValidator.validatePatient(newPatient));
+            }
+            // Booking by specialization: when the picked slot is taken before the insert
+            // lands, it is now marked booked, so picking again yields the next best one
+            boolean allocate = RecordMapper.text(body, "doctor_id").isEmpty() &&
+                !RecordMapper.text(body, "specialization").isEmpty();
+            LocalTime requestedTime = RecordMapper.time(body, "appointment_time");
+            Appointment appointment;
+            for (int attempt = 1; ; attempt++) {
+                if (allocate) {
+                    allocateDoctor(body, requestedTime);
+                }
+                appointment = RecordMapper.toAppointment(body);
+                request.validate(RecordValidator.validateAppointment(appointment));
+                if (newPatient == null && patientDAO.getPatientById(appointment.getPatientId()) == null) {
+                    throw new ApiException(400, "No patient " + appointment.getPatientId());
+                }
+                if (doctorDAO.getDoctorById(appointment.getDoctorId()) == null) {
+                    throw new ApiException(400, "No doctor " + appointment.getDoctorId());
+                }
+                if (book(newPatient, appointment)) {
+                    break;
+                }
+                if (!allocate || attempt == MAX_ALLOCATION_ATTEMPTS) {
+                    throw new ApiException(409, "The doctor already has an appointment at this time");
+                }
+            }
+            request.entity(201, appointmentDAO.getAppointmentById(appointment.getAppointmentId()), APPOINTMENT);
+            return;
+        }
+
+        Appointment existing = appointmentDAO.getAppointmentById(id);
+        if (existing == null) {
+            throw new ApiException(404, "No appointment " + id);
+        }
+        if ("GET".equals(request.method)) {
+            request.entity(200, existing, APPOINTMENT);
+        } else if ("PUT".equals(request.method)) {
+            // Only the outcome of an appointment can change; any field left out is kept
+            Map<String, String> body = request.body();
+            if (body.containsKey("status")) {
+                existing.setStatus(RecordMapper.text(body, "status"));
+            }
+            if (body.containsKey("diagnosis")) {
+                existing.setDiagnosis(body.get("diagnosis"));
+            }
+            if (body.containsKey("prescription")) {
+                existing.setPrescription(body.get("prescription"));
+            }
+            if (body.containsKey("fee")) {
+                existing.setFee(RecordMapper.decimal(body, "fee"));
+            }
+            if (!RecordValidator.APPOINTMENT_STATUSES.contains(existing.getStatus())) {
+                throw new ApiException(400, "Status must be one of " + RecordValidator.APPOINTMENT_STATUSES);
+            }
+            if (!appointmentDAO.updateAppointmentDetails(existing)) {
+                throw new ApiException(500, "Could not update appointment " + id);
+            }
+            request.entity(200, appointmentDAO.getAppointmentById(id), APPOINTMENT);
+        } else if ("DELETE".equals(request.method)) {
+            if (!appointmentDAO.deleteAppointment(id)) {
+                throw new ApiException(500, "Could not delete appointment " + id);
+            }
+            request.noContent();
+        } else {
+            throw new ApiException(405, "Use GET, PUT or DELETE on " + request.path);
+        }
+    }
+
+    // Inserts the appointment, with its new patient if there is one. False when the slot
+    // is taken; an insert that lost the race has then marked it booked in the index.
+    private boolean book(Patient newPatient, Appointment appointment) {
+        if (!appointmentDAO.isTimeSlotAvailable(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                                                appointment.getAppointmentTime())) {
+            return false;
+        }
+        if (newPatient != null) {
+            return addWithPatient(newPatient, appointment);
+        }
+        if (appointmentDAO.addAppointment(appointment)) {
+            return true;
+        }
+        // A failed insert on a slot taken meanwhile has just marked it booked
+        if (!appointmentDAO.isTimeSlotAvailable(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                                                appointment.getAppointmentTime())) {
+            return false;
+        }
+        throw new ApiException(500, "Could not add appointment");
+    }
+
+    private boolean addWithPatient(Patient patient, Appointment appointment) {
+        UnitOfWork unit = new UnitOfWork();
+        unit.addPatient(patient);
+        unit.addAppointment(appointment);
+        try {
+            unit.commit();
+            return true;
+        } catch (DataAccessException e) {
+            if (e.getMessage().contains("uq_appointments_doctor_slot")) {
+                // Booked elsewhere meanwhile; remember that locally, as addAppointment does
+                AvailabilityIndex.getInstance().markBooked(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                                                           appointment.getAppointmentTime());
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    // A booking by specialization gets the doctor BookingAllocator ranks first on
+    // appointment_date, at their next free slot from the requested time (or from now)
+    private void allocateDoctor(Map<String, String> body, LocalTime time) {
+        String specialization = RecordMapper.text(body, "specialization");
+        LocalDate date = RecordMapper.date(body, "appointment_date");
+        if (date == null) {
+            throw new ApiException(400, "appointment_date is required");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime notBefore = time != null ? date.atTime(time) : date.atStartOfDay();
+        if (date.equals(now.toLocalDate()) && notBefore.isBefore(now)) {
+            notBefore = now;
+        }
+        BookingAllocator.Suggestion best = new BookingAllocator(appointmentDAO, doctorDAO).pick(specialization, notBefore);
+        if (best == null) {
+            throw new ApiException(409, "No " + specialization + " doctor has a free slot on " + date);
+        }
+        body.put("doctor_id", best.getDoctor().getDoctorId());
+        body.put("appointment_time", best.getNextFreeSlot().toString());
+    }
+
+    // GET /api/availability?doctor_id=D&date=YYYY-MM-DD[&from=08:00&to=17:00&step=15]
+    private void availability(Request request) throws IOException {
+        request.requireMethod("GET");
+        final String doctorId = request.query.get("doctor_id");
+        final LocalDate date = request.date("date");
+        if (doctorId == null || date == null) {
+            throw new ApiException(400, "doctor_id and date are required");
+        }
+        LocalTime from = request.time("from", FIRST_SLOT);
+        LocalTime to = request.time("to", LAST_SLOT_END);
+        int step = request.integer("step", SLOT_MINUTES);
+        if (step <= 0 || !from.isBefore(to)) {
+            throw new ApiException(400, "Expected from < to and a positive step");
+        }
+        if (doctorDAO.getDoctorById(doctorId) == null) {
+            throw new ApiException(404, "No doctor " + doctorId);
+        }
+        final List<LocalTime> free = new ArrayList<>();
+        int end = to.toSecondOfDay() / 60;
+        for (int minute = from.toSecondOfDay() / 60; minute < end; minute += step) {
+            LocalTime time = LocalTime.ofSecondOfDay(minute * 60L);
+            if (appointmentDAO.isTimeSlotAvailable(doctorId, date, time)) {
+                free.add(time);
+            }
+        }
+        request.respond(200, new JsonBody() {
+            @Override
+            public void write(JsonWriter json) throws IOException {
+                json.beginObject().field("doctor_id", doctorId).field("date", date).name("free").beginArray();
+                for (LocalTime time : free) {
+                    json.value(time);
+                }
+                json.endArray().endObject();
+            }
+        });
+    }
+
+    // GET /api/slots?doctor_id=D|specialization=S[&date=YYYY-MM-DD&count=10&days=30&from=08:00&to=17:00&step=15]
+    // Earliest free slots from date on (from now when date is today or absent)
+    private void slots(Request request) throws IOException {
+        request.requireMethod("GET");
+        String doctorId = request.query.get("doctor_id");
+        String specialization = request.query.get("specialization");
+        if ((doctorId == null) == (specialization == null)) {
+            throw new ApiException(400, "Exactly one of doctor_id and specialization is required");
+        }
+        int count = request.integer("count", DEFAULT_SLOT_COUNT);
+        if (count <= 0 || count > MAX_SLOT_COUNT) {
+            throw new ApiException(400, "count must be between 1 and " + MAX_SLOT_COUNT);
+        }
+        int days = request.integer("days", SlotFinder.DEFAULT_HORIZON_DAYS);
+        if (days <= 0 || days > MAX_SLOT_DAYS) {
+            throw new ApiException(400, "days must be between 1 and " + MAX_SLOT_DAYS);
+        }
+        // Setters reject a bad grid with IllegalArgumentException, i.e. a 400
+        SlotFinder finder = new SlotFinder(appointmentDAO, doctorDAO);
+        finder.setWorkingHours(request.time("from", FIRST_SLOT), request.time("to", LAST_SLOT_END));
+        finder.setSlotMinutes(request.integer("step", SLOT_MINUTES));
+        finder.setHorizonDays(days);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate date = request.date("date");
+        LocalDateTime notBefore = date == null || !date.atStartOfDay().isAfter(now) ? now : date.atStartOfDay();
+
+        final List<SlotFinder.Slot> slots;
+        if (doctorId != null) {
+            if (doctorDAO.getDoctorById(doctorId) == null) {
+                throw new ApiException(404, "No doctor " + doctorId);
+            }
+            slots = finder.findForDoctor(doctorId, notBefore, count);
+        } else {
+            slots = finder.findForSpecialization(specialization, notBefore, count);
+        }
+        request.respond(200, new JsonBody() {
+            @Override
+            public void write(JsonWriter json) throws IOException {
+                json.beginArray();
+                for (SlotFinder.Slot slot : slots) {
+                    json.beginObject()
+                        .field("doctor_id", slot.getDoctorId())
+                        .field("doctor_name", slot.getDoctorName())
+                        .field("specialization", slot.getSpecialization())
+                        .field("date", slot.getDate())
+                        .field("time", slot.getTime())
+                        .endObject();
+                }
+                json.endArray();
+            }
+        });
+    }
+
+    // Writes one entity as JSON
+    private interface Format<T> {
+        void write(JsonWriter json, T item) throws IOException;
+    }
+
+    private static final Format<Patient> PATIENT = new Format<Patient>() {
+        @Override
+        public void write(JsonWriter json, Patient patient) throws IOException {
+            json.patient(patient);
+        }
+    };
+
+    private static final Format<Doctor> DOCTOR = new Format<Doctor>() {
+        @Override
+        public void write(JsonWriter json, Doctor doctor) throws IOException {
+            json.doctor(doctor);
+        }
+    };
+
+    private static final Format<Appointment> APPOINTMENT = new Format<Appointment>() {
+        @Override
+        public void write(JsonWriter json, Appointment appointment) throws IOException {
+            json.appointment(appointment);
+        }
+    };
+
+    interface JsonBody {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    // An error the client should see, with its HTTP status
+    static class ApiException extends RuntimeException {
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // Times every request into Metrics (e.g. "api GET /api/patients/{id}") and turns
+    // failures into JSON error responses
+    private abstract static class Endpoint implements HttpHandler {
+        private final String context;
+
+        Endpoint(String context) {
+            this.context = context;
+        }
+
+        abstract void handle(Request request) throws IOException;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            long started = System.nanoTime();
+            boolean failed = false;
+            Request request = null;
+            try {
+                request = new Request(exchange, context);
+                handle(request);
+            } catch (ApiException e) {
+                failed = e.status >= 500;
+                sendError(exchange, request, e.status, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, request, 400, e.getMessage());
+            } catch (DataAccessException e) {
+                failed = true;
+                System.err.println("Error serving " + exchange.getRequestURI() + ": " + e.getMessage());
+                sendError(exchange, request, 503, "Database unavailable");
+            } catch (IOException e) {
+                // Client went away; nothing left to tell it
+                failed = true;
+            } catch (RuntimeException e) {
+                failed = true;
+                StackTraceElement[] trace = e.getStackTrace();
+                System.err.println("Error serving " + exchange.getRequestURI() + ": " + e +
+                                   (trace.length > 0 ? " at " + trace[0] : ""));
+                sendError(exchange, request, 500, "Internal error");
+            } finally {
+                exchange.close();
+                String route = context + (request != null && request.id != null ? "/{id}" : "");
+                Metrics.record("api " + exchange.getRequestMethod() + " " + route, System.nanoTime() - started, failed);
+            }
+        }
+
+        private static void sendError(HttpExchange exchange, Request request, final int status, final String message) {
+            if (request != null && request.responded) {
+                // Status already sent (e.g. a stream that failed midway); the truncated body says it all
+                return;
+            }
+            try {
+                Request.send(exchange, status, new JsonBody() {
+                    @Override
+                    public void write(JsonWriter json) throws IOException {
+                        json.beginObject().field("status", status).field("error", message).endObject();
+                    }
+                });
+            } catch (IOException e) {
+                // Client went away
+            }
+        }
+    }
+
+    private static final class Request {
+        final HttpExchange exchange;
+        final String method;
+        final String path;
+        // Path segment after the context, e.g. PAT1000 in /api/patients/PAT1000
+        final String id;
+        final Map<String, String> query;
+        boolean responded;
+
+        Request(HttpExchange exchange, String context) throws UnsupportedEncodingException {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod();
+            this.path = exchange.getRequestURI().getPath();
+            // The context matches by prefix, so /api/patientsX also lands here
+            String rest = "";
+            if (path.length() > context.length()) {
+                if (path.charAt(context.length()) != '/') {
+                    throw new ApiException(404, "No such resource: " + path);
+                }
+                rest = path.substring(context.length() + 1);
+            }
+            if (rest.contains("/")) {
+                throw new ApiException(404, "No such resource: " + path);
+            }
+            this.id = rest.isEmpty() ? null : rest;
+            this.query = parseQuery(exchange.getRequestURI().getRawQuery());
+        }
+
+        private static Map<String, String> parseQuery(String raw) throws UnsupportedEncodingException {
+            Map<String, String> parameters = new HashMap<>();
+            if (raw == null || raw.isEmpty()) {
+                return parameters;
+            }
+            for (String pair : raw.split("&")) {
+                int equals = pair.indexOf('=');
+                String name = equals < 0 ? pair : pair.substring(0, equals);
+                String value = equals < 0 ? "" : pair.substring(equals + 1);
+                parameters.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            }
+            return parameters;
+        }
+
+        void requireMethod(String expected) {
+            if (!expected.equals(method)) {
+                throw new ApiException(405, "Use " + expected + " on " + path);
+            }
+        }
+
+        void validate(String error) {
+            if (error != null) {
+                throw new ApiException(400, error);
+            }
+        }
+
+        // Request body as one flat JSON object keyed by column name
+        Map<String, String> body() throws IOException {
+            RecordReader reader = RecordReader.json(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+            Map<String, String> record;
+            try {
+                record = reader.next();
+            } catch (IOException e) {
+                throw new ApiException(400, "Malformed JSON: " + e.getMessage());
+            }
+            if (record == null) {
+                throw new ApiException(400, "Expected a JSON object in the request body");
+            }
+            return record;
+        }
+
+        int limit() {
+            return Math.min(MAX_SEARCH_LIMIT, Math.max(1, integer("limit", DEFAULT_SEARCH_LIMIT)));
+        }
+
+        int integer(String name, int defaultValue) {
+            String value = query.get(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Invalid number for " + name + ": '" + value + "'");
+            }
+        }
+
+        LocalDate date(String name) {
+            return query.containsKey(name) ? RecordMapper.date(query, name) : null;
+        }
+
+        LocalTime time(String name, LocalTime defaultValue) {
+            return query.containsKey(name) ? RecordMapper.time(query, name) : defaultValue;
+        }
+
+        <T> void entity(int status, final T item, final Format<T> format) throws IOException {
+            if (item == null) {
+                throw new ApiException(500, "Could not read back " + path);
+            }
+            respond(status, new JsonBody() {
+                @Override
+                public void write(JsonWriter json) throws IOException {
+                    format.write(json, item);
+                }
+            });
+        }
+
+        <T> void list(final List<T> items, final Format<T> format) throws IOException {
+            respond(200, new JsonBody() {
+                @Override
+                public void write(JsonWriter json) throws IOException {
+                    json.beginArray();
+                    for (T item : items) {
+                        format.write(json, item);
+                    }
+                    json.endArray();
+                }
+            });
+        }
+
+        // Chunked response written as rows arrive; the stream (and its connection) is
+        // closed however the response ends
+        <T> void stream(Stream<T> rows, Format<T> format) throws IOException {
+            try (Stream<T> open = rows) {
+                Headers headers = exchange.getResponseHeaders();
+                headers.set("Content-Type", "application/json; charset=utf-8");
+                responded = true;
+                exchange.sendResponseHeaders(200, 0);
+                Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+                JsonWriter json = new JsonWriter(out);
+                json.beginArray();
+                Iterator<T> it = open.iterator();
+                while (it.hasNext()) {
+                    format.write(json, it.next());
+                }
+                json.endArray();
+                json.flush();
+            }
+        }
+
+        void respond(int status, JsonBody body) throws IOException {
+            responded = true;
+            send(exchange, status, body);
+        }
+
+        void noContent() throws IOException {
+            responded = true;
+            exchange.sendResponseHeaders(204, -1);
+        }
+
+        // Small bodies are buffered so they go out with a Content-Length
+        static void send(HttpExchange exchange, int status, JsonBody body) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+            JsonWriter json = new JsonWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8));
+            body.write(json);
+            json.flush();
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, buffer.size());
+            buffer.writeTo(exchange.getResponseBody());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package api;
+
+import model.Appointment;
+import model.Doctor;
+import model.Patient;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+// Minimal streaming JSON writer: values go straight to the underlying writer, so a
+// list of any length is written with constant memory. Entities use the database
+// column names as keys, the same names the service accepts in request bodies.
+public class JsonWriter implements Closeable {
+    private static final int MAX_DEPTH = 32;
+
+    private final Writer out;
+    // Whether the array/object at each depth already has an element (needs a comma)
+    private final boolean[] hasElements = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        separate();
+        if (value == null) {
+            out.write("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        separate();
+        out.write(Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    // Any other value (dates, times) as its toString() text
+    public JsonWriter value(Object value) throws IOException {
+        return value(value == null ? null : value.toString());
+    }
+
+    public JsonWriter field(String name, String value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, long value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, double value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, boolean value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, Object value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter patient(Patient patient) throws IOException {
+        return beginObject()
+            .field("patient_id", patient.getPatientId())
+            .field("name", patient.getName())
+            .field("age", patient.getAge())
+            .field("gender", patient.getGender())
+            .field("phone", patient.getPhone())
+            .field("email", patient.getEmail())
+            .field("address", patient.getAddress())
+            .field("blood_group", patient.getBloodGroup())
+            .field("emergency_contact", patient.getEmergencyContact())
+            .field("created_at", patient.getCreatedAt())
+            .field("updated_at", patient.getUpdatedAt())
+            .endObject();
+    }
+
+    public JsonWriter doctor(Doctor doctor) throws IOException {
+        return beginObject()
+            .field("doctor_id", doctor.getDoctorId())
+            .field("name", doctor.getName())
+            .field("specialization", doctor.getSpecialization())
+            .field("phone", doctor.getPhone())
+            .field("email", doctor.getEmail())
+            .field("qualification", doctor.getQualification())
+            .field("experience_years", doctor.getExperienceYears())
+            .field("consultation_fee", doctor.getConsultationFee())
+            .field("available", doctor.isAvailable())
+            .field("created_at", doctor.getCreatedAt())
+            .field("updated_at", doctor.getUpdatedAt())
+            .endObject();
+    }
+
+    public JsonWriter appointment(Appointment appointment) throws IOException {
+        return beginObject()
+            .field("appointment_id", appointment.getAppointmentId())
+            .field("patient_id", appointment.getPatientId())
+            .field("patient_name", appointment.getPatientName())
+            .field("doctor_id", appointment.getDoctorId())
+            .field("doctor_name", appointment.getDoctorName())
+            .field("appointment_date", appointment.getAppointmentDate())
+            .field("appointment_time", appointment.getAppointmentTime())
+            .field("status", appointment.getStatus())
+            .field("reason", appointment.getReason())
+            .field("diagnosis", appointment.getDiagnosis())
+            .field("prescription", appointment.getPrescription())
+            .field("fee", appointment.getFee())
+            .field("created_at", appointment.getCreatedAt())
+            .field("updated_at", appointment.getUpdatedAt())
+            .endObject();
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private JsonWriter open(char bracket) throws IOException {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested deeper than " + MAX_DEPTH);
+        }
+        separate();
+        out.write(bracket);
+        hasElements[depth++] = false;
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        depth--;
+        out.write(bracket);
+        return this;
+    }
+
+    // Comma before every element but the first; nothing between a name and its value
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasElements[depth - 1]) {
+                out.write(',');
+            }
+            hasElements[depth - 1] = true;
+        }
+    }
+
+    private void string(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escape;
+            if (c == '"') {
+                escape = "\\\"";
+            } else if (c == '\\') {
+                escape = "\\\\";
+            } else if (c == '\n') {
+                escape = "\\n";
+            } else if (c == '\r') {
+                escape = "\\r";
+            } else if (c == '\t') {
+                escape = "\\t";
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                escape = String.format("\\u%04x", (int) c);
+            } else {
+                continue;
+            }
+            out.write(value, start, i - start);
+            out.write(escape);
+            start = i + 1;
+        }
+        out.write(value, start, length - start);
+        out.write('"');
+    }
+}
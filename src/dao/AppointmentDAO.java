@@ -4,30 +4,52 @@ import model.Appointment;
 import model.DatabaseConnection;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;  // Add this import
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class AppointmentDAO {
+    // SQLSTATE for unique_violation; raised by uq_appointments_doctor_slot on a double booking
+    private static final String UNIQUE_VIOLATION = "23505";
+    
+    // Shared with BulkImporter so single and batched inserts write the same columns
+    static final String INSERT_SQL = "INSERT INTO appointments (appointment_id, patient_id, doctor_id, appointment_date, appointment_time, status, reason) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // Shared with UnitOfWork
+    static final String UPDATE_DETAILS_SQL = "UPDATE appointments SET diagnosis = ?, prescription = ?, fee = ?, status = ? WHERE appointment_id = ?";
+    // Whether any live row holds the appointment's slot, for rows read back from other workstations
+    private static final String SLOT_TAKEN_COLUMN = "EXISTS (SELECT 1 FROM appointments b " +
+                    "WHERE b.doctor_id = a.doctor_id AND b.appointment_date = a.appointment_date " +
+                    "AND b.appointment_time = a.appointment_time AND b.status IS DISTINCT FROM 'Cancelled') AS slot_taken";
+    
+    private final AvailabilityIndex availability = AvailabilityIndex.getInstance();
     
     public boolean addAppointment(Appointment appointment) {
-        String sql = "INSERT INTO appointments (appointment_id, patient_id, doctor_id, appointment_date, appointment_time, status, reason) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
             
-            pstmt.setString(1, appointment.getAppointmentId());
-            pstmt.setString(2, appointment.getPatientId());
-            pstmt.setString(3, appointment.getDoctorId());
-            pstmt.setDate(4, Date.valueOf(appointment.getAppointmentDate()));
-            pstmt.setTime(5, Time.valueOf(appointment.getAppointmentTime()));
-            pstmt.setString(6, appointment.getStatus());
-            pstmt.setString(7, appointment.getReason());
-            
-            return pstmt.executeUpdate() > 0;
+            bindInsert(pstmt, appointment);
+            boolean added = pstmt.executeUpdate() > 0;
+            if (added) {
+                applySlot(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                          appointment.getAppointmentTime(), null, appointment.getStatus());
+            }
+            return added;
             
         } catch (SQLException e) {
-            System.err.println("Error adding appointment: " + e.getMessage());
+            if (UNIQUE_VIOLATION.equals(e.getSQLState()) && e.getMessage().contains("uq_appointments_doctor_slot")) {
+                // Another workstation booked the slot first; remember that locally
+                availability.markBooked(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                                        appointment.getAppointmentTime());
+                System.err.println("Time slot already booked: " + appointment.getDoctorId() + " " +
+                                   appointment.getAppointmentDate() + " " + appointment.getAppointmentTime());
+            } else {
+                System.err.println("Error adding appointment: " + e.getMessage());
+            }
             return false;
         }
     }
@@ -45,21 +67,7 @@ public class AppointmentDAO {
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                Appointment appointment = new Appointment();
-                appointment.setId(rs.getInt("id"));
-                appointment.setAppointmentId(rs.getString("appointment_id"));
-                appointment.setPatientId(rs.getString("patient_id"));
-                appointment.setDoctorId(rs.getString("doctor_id"));
-                appointment.setAppointmentDate(rs.getDate("appointment_date").toLocalDate());
-                appointment.setAppointmentTime(rs.getTime("appointment_time").toLocalTime());
-                appointment.setStatus(rs.getString("status"));
-                appointment.setReason(rs.getString("reason"));
-                appointment.setDiagnosis(rs.getString("diagnosis"));
-                appointment.setPrescription(rs.getString("prescription"));
-                appointment.setFee(rs.getDouble("fee"));
-                appointment.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                appointment.setPatientName(rs.getString("patient_name"));
-                appointment.setDoctorName(rs.getString("doctor_name"));
+                Appointment appointment = mapAppointment(rs);
                 
                 appointments.add(appointment);
             }
@@ -72,51 +80,55 @@ public class AppointmentDAO {
     }
     
     public List<Appointment> getAppointmentsByDate(LocalDate date) {
+        try {
+            return queryAppointmentsBetween(date, date);
+        } catch (SQLException e) {
+            System.err.println("Error retrieving appointments by date: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    // All appointments from one date to another (inclusive) in a single query on
+    // idx_appointments_date, ordered by date and time
+    public List<Appointment> getAppointmentsBetween(LocalDate from, LocalDate to) {
+        try {
+            return queryAppointmentsBetween(from, to);
+        } catch (SQLException e) {
+            System.err.println("Error retrieving appointments between dates: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    // Throwing variant for ScheduleCache, which must not mistake a failed read for empty days
+    List<Appointment> queryAppointmentsBetween(LocalDate from, LocalDate to) throws SQLException {
         List<Appointment> appointments = new ArrayList<>();
         String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name " +
                     "FROM appointments a " +
                     "JOIN patients p ON a.patient_id = p.patient_id " +
                     "JOIN doctors d ON a.doctor_id = d.doctor_id " +
-                    "WHERE a.appointment_date = ? " +
-                    "ORDER BY a.appointment_time";
+                    "WHERE a.appointment_date BETWEEN ? AND ? " +
+                    "ORDER BY a.appointment_date, a.appointment_time";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setDate(1, Date.valueOf(date));
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Appointment appointment = new Appointment();
-                appointment.setId(rs.getInt("id"));
-                appointment.setAppointmentId(rs.getString("appointment_id"));
-                appointment.setPatientId(rs.getString("patient_id"));
-                appointment.setDoctorId(rs.getString("doctor_id"));
-                appointment.setAppointmentDate(rs.getDate("appointment_date").toLocalDate());
-                appointment.setAppointmentTime(rs.getTime("appointment_time").toLocalTime());
-                appointment.setStatus(rs.getString("status"));
-                appointment.setReason(rs.getString("reason"));
-                appointment.setDiagnosis(rs.getString("diagnosis"));
-                appointment.setPrescription(rs.getString("prescription"));
-                appointment.setFee(rs.getDouble("fee"));
-                appointment.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                appointment.setPatientName(rs.getString("patient_name"));
-                appointment.setDoctorName(rs.getString("doctor_name"));
-                
-                appointments.add(appointment);
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setDate(1, Date.valueOf(from));
+                pstmt.setDate(2, Date.valueOf(to));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        appointments.add(mapAppointment(rs));
+                    }
+                }
             }
-            
-            rs.close();
-            
-        } catch (SQLException e) {
-            System.err.println("Error retrieving appointments by date: " + e.getMessage());
         }
         
         return appointments;
     }
     
     public boolean updateAppointmentStatus(String appointmentId, String status) {
-        String sql = "UPDATE appointments SET status = ? WHERE appointment_id = ?";
+        String sql = "UPDATE appointments a SET status = ? " +
+                    "FROM (SELECT id, status FROM appointments WHERE appointment_id = ? FOR UPDATE) prev " +
+                    "WHERE a.id = prev.id " +
+                    "RETURNING a.doctor_id, a.appointment_date, a.appointment_time, prev.status AS old_status, a.status";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -124,7 +136,7 @@ public class AppointmentDAO {
             pstmt.setString(1, status);
             pstmt.setString(2, appointmentId);
             
-            return pstmt.executeUpdate() > 0;
+            return applyReturnedSlots(pstmt) > 0;
             
         } catch (SQLException e) {
             System.err.println("Error updating appointment status: " + e.getMessage());
@@ -133,18 +145,17 @@ public class AppointmentDAO {
     }
     
     public boolean updateAppointmentDetails(Appointment appointment) {
-        String sql = "UPDATE appointments SET diagnosis = ?, prescription = ?, fee = ?, status = ? WHERE appointment_id = ?";
+        // Same parameters as UPDATE_DETAILS_SQL, also returning the status it replaced
+        String sql = "UPDATE appointments a SET diagnosis = ?, prescription = ?, fee = ?, status = ? " +
+                    "FROM (SELECT id, status FROM appointments WHERE appointment_id = ? FOR UPDATE) prev " +
+                    "WHERE a.id = prev.id " +
+                    "RETURNING a.doctor_id, a.appointment_date, a.appointment_time, prev.status AS old_status, a.status";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setString(1, appointment.getDiagnosis());
-            pstmt.setString(2, appointment.getPrescription());
-            pstmt.setDouble(3, appointment.getFee());
-            pstmt.setString(4, appointment.getStatus());
-            pstmt.setString(5, appointment.getAppointmentId());
-            
-            return pstmt.executeUpdate() > 0;
+            bindUpdateDetails(pstmt, appointment);
+            return applyReturnedSlots(pstmt) > 0;
             
         } catch (SQLException e) {
             System.err.println("Error updating appointment details: " + e.getMessage());
@@ -153,13 +164,14 @@ public class AppointmentDAO {
     }
     
     public boolean deleteAppointment(String appointmentId) {
-        String sql = "DELETE FROM appointments WHERE appointment_id = ?";
+        String sql = "DELETE FROM appointments WHERE appointment_id = ? " +
+                    "RETURNING doctor_id, appointment_date, appointment_time, status AS old_status, NULL AS status";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, appointmentId);
-            return pstmt.executeUpdate() > 0;
+            return applyReturnedSlots(pstmt) > 0;
             
         } catch (SQLException e) {
             System.err.println("Error deleting appointment: " + e.getMessage());
@@ -167,28 +179,454 @@ public class AppointmentDAO {
         }
     }
     
-    // Check if time slot is available for a doctor
+    static void bindUpdateDetails(PreparedStatement pstmt, Appointment appointment) throws SQLException {
+        pstmt.setString(1, appointment.getDiagnosis());
+        pstmt.setString(2, appointment.getPrescription());
+        pstmt.setDouble(3, appointment.getFee());
+        pstmt.setString(4, appointment.getStatus());
+        pstmt.setString(5, appointment.getAppointmentId());
+    }
+    
+    static void bindInsert(PreparedStatement pstmt, Appointment appointment) throws SQLException {
+        pstmt.setString(1, appointment.getAppointmentId());
+        pstmt.setString(2, appointment.getPatientId());
+        pstmt.setString(3, appointment.getDoctorId());
+        pstmt.setDate(4, Date.valueOf(appointment.getAppointmentDate()));
+        pstmt.setTime(5, Time.valueOf(appointment.getAppointmentTime()));
+        pstmt.setString(6, appointment.getStatus());
+        pstmt.setString(7, appointment.getReason());
+    }
+    
+    // Check if time slot is available for a doctor. Answered from the in-memory
+    // availability index; a doctor-day not yet in the index is loaded with one query.
     public boolean isTimeSlotAvailable(String doctorId, LocalDate date, LocalTime time) {
-        String sql = "SELECT COUNT(*) FROM appointments WHERE doctor_id = ? AND appointment_date = ? AND appointment_time = ? AND status != 'Cancelled'";
+        if (availability.isLoaded(doctorId, date)) {
+            return !availability.isBooked(doctorId, date, time);
+        }
+        List<LocalTime> booked = loadDoctorDay(doctorId, date);
+        if (booked == null) {
+            return false;
+        }
+        // Answered from the rows just read, even if a concurrent write kept them out of the index
+        for (LocalTime bookedTime : booked) {
+            if (bookedTime.getHour() == time.getHour() && bookedTime.getMinute() == time.getMinute()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // The doctor-day's booked times, or null when they cannot be read
+    private List<LocalTime> loadDoctorDay(String doctorId, LocalDate date) {
+        String sql = "SELECT appointment_time FROM appointments " +
+                    "WHERE doctor_id = ? AND appointment_date = ? AND status IS DISTINCT FROM 'Cancelled'";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, doctorId);
             pstmt.setDate(2, Date.valueOf(date));
-            pstmt.setTime(3, Time.valueOf(time));
+            long since = availability.writeStamp();
+            List<LocalTime> booked = new ArrayList<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    booked.add(rs.getTime(1).toLocalTime());
+                }
+            }
+            availability.loadDay(doctorId, date, booked, since);
+            return booked;
+            
+        } catch (SQLException e) {
+            System.err.println("Error checking time slot availability: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    // Loads every booking in [from, to] into the availability index with one range query
+    public boolean warmAvailabilityIndex(LocalDate from, LocalDate to) {
+        String sql = "SELECT doctor_id, appointment_date, appointment_time FROM appointments " +
+                    "WHERE appointment_date BETWEEN ? AND ? AND status IS DISTINCT FROM 'Cancelled'";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setDate(1, Date.valueOf(from));
+            pstmt.setDate(2, Date.valueOf(to));
+            long since = availability.writeStamp();
+            // Gather whole doctor-days first so each one is published complete
+            Map<String, Map<LocalDate, List<LocalTime>>> booked = new HashMap<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String doctorId = rs.getString("doctor_id");
+                    LocalDate date = rs.getDate("appointment_date").toLocalDate();
+                    Map<LocalDate, List<LocalTime>> days = booked.get(doctorId);
+                    if (days == null) {
+                        days = new HashMap<>();
+                        booked.put(doctorId, days);
+                    }
+                    List<LocalTime> times = days.get(date);
+                    if (times == null) {
+                        times = new ArrayList<>();
+                        days.put(date, times);
+                    }
+                    times.add(rs.getTime("appointment_time").toLocalTime());
+                }
+            }
+            for (Map.Entry<String, Map<LocalDate, List<LocalTime>>> doctor : booked.entrySet()) {
+                for (Map.Entry<LocalDate, List<LocalTime>> day : doctor.getValue().entrySet()) {
+                    availability.loadDay(doctor.getKey(), day.getKey(), day.getValue(), since);
+                }
+            }
+            // Refused when bookings changed during the query; days then load lazily instead
+            if (!availability.markWarmed(from, to, since)) {
+                System.err.println("Availability index not warmed for " + from + " to " + to +
+                                   ": appointments changed while loading");
+            }
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error warming availability index: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // Loads the bookings of the given doctors in [from, to] into the availability index
+    // with one range query, unless every one of those doctor-days is loaded already
+    public boolean loadAvailability(Collection<String> doctorIds, LocalDate from, LocalDate to) {
+        List<String> missing = new ArrayList<>();
+        for (String doctorId : doctorIds) {
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                if (!availability.isLoaded(doctorId, date)) {
+                    missing.add(doctorId);
+                    break;
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return true;
+        }
+        String sql = "SELECT doctor_id, appointment_date, appointment_time FROM appointments " +
+                    "WHERE doctor_id = ANY(?) AND appointment_date BETWEEN ? AND ? " +
+                    "AND status IS DISTINCT FROM 'Cancelled'";
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            long since = availability.writeStamp();
+            Map<String, List<LocalTime>> booked = new HashMap<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setArray(1, conn.createArrayOf("varchar", missing.toArray()));
+                pstmt.setDate(2, Date.valueOf(from));
+                pstmt.setDate(3, Date.valueOf(to));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        String key = rs.getString("doctor_id") + "\n" + rs.getDate("appointment_date").toLocalDate();
+                        List<LocalTime> times = booked.get(key);
+                        if (times == null) {
+                            times = new ArrayList<>();
+                            booked.put(key, times);
+                        }
+                        times.add(rs.getTime("appointment_time").toLocalTime());
+                    }
+                }
+            }
+            // Every doctor-day is published, including free ones, so it counts as loaded.
+            // Days written during the query are left out and come back null from the index.
+            List<LocalTime> none = new ArrayList<>();
+            for (String doctorId : missing) {
+                for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                    List<LocalTime> times = booked.get(doctorId + "\n" + date);
+                    availability.loadDay(doctorId, date, times != null ? times : none, since);
+                }
+            }
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error loading availability: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // Executes an UPDATE/DELETE ... RETURNING doctor_id, appointment_date, appointment_time,
+    // old_status, status and mirrors the affected slots into the availability index
+    private int applyReturnedSlots(PreparedStatement pstmt) throws SQLException {
+        int rows = 0;
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                applySlot(rs.getString("doctor_id"),
+                          rs.getDate("appointment_date").toLocalDate(),
+                          rs.getTime("appointment_time").toLocalTime(),
+                          rs.getString("old_status"), rs.getString("status"));
+                rows++;
+            }
+        }
+        return rows;
+    }
+    
+    // Mirrors one row's status change into the availability index; oldStatus is null for
+    // an inserted row and newStatus null for a deleted one. A slot is only freed when a
+    // live row leaves it: a row that was cancelled already may share its slot with a
+    // live booking. Also used by StatusTransition and UnitOfWork for the rows they write.
+    void applySlot(String doctorId, LocalDate date, LocalTime time, String oldStatus, String newStatus) {
+        if (isLive(newStatus)) {
+            availability.markBooked(doctorId, date, time);
+        } else if (isLive(oldStatus)) {
+            availability.markFree(doctorId, date, time);
+        }
+    }
+    
+    private static boolean isLive(String status) {
+        return status != null && !"Cancelled".equals(status);
+    }
+    
+    // Rows another workstation changed carry no previous status, so the slot follows
+    // slot_taken (SLOT_TAKEN_COLUMN) as read with the row
+    private void applyReadSlot(Appointment appointment, boolean slotTaken) {
+        if (slotTaken) {
+            availability.markBooked(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                                    appointment.getAppointmentTime());
+        } else {
+            availability.markFree(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                                  appointment.getAppointmentTime());
+        }
+    }
+    
+    public Appointment getAppointmentById(String appointmentId) {
+        String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name " +
+                    "FROM appointments a " +
+                    "JOIN patients p ON a.patient_id = p.patient_id " +
+                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
+                    "WHERE a.appointment_id = ?";
+        Appointment appointment = null;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, appointmentId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    appointment = mapAppointment(rs);
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving appointment: " + e.getMessage());
+        }
+        
+        return appointment;
+    }
+    
+    // Re-reads rows another workstation changed (see ChangeFeed), keeping the
+    // availability index in step; ids without a row were deleted meanwhile
+    public List<Appointment> getChangedAppointments(List<String> appointmentIds) {
+        List<Appointment> appointments = new ArrayList<>();
+        if (appointmentIds.isEmpty()) {
+            return appointments;
+        }
+        String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name, " + SLOT_TAKEN_COLUMN + " " +
+                    "FROM appointments a " +
+                    "JOIN patients p ON a.patient_id = p.patient_id " +
+                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
+                    "WHERE a.appointment_id = ANY(?)";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setArray(1, conn.createArrayOf("varchar", appointmentIds.toArray()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Appointment appointment = mapAppointment(rs);
+                    applyReadSlot(appointment, rs.getBoolean("slot_taken"));
+                    appointments.add(appointment);
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving changed appointments: " + e.getMessage());
+        }
+        
+        return appointments;
+    }
+    
+    // Rows inserted or updated after the given watermark, for incremental refresh
+    public List<Appointment> getAppointmentsChangedSince(LocalDateTime since) {
+        List<Appointment> appointments = new ArrayList<>();
+        String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name, " + SLOT_TAKEN_COLUMN + " " +
+                    "FROM appointments a " +
+                    "JOIN patients p ON a.patient_id = p.patient_id " +
+                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
+                    "WHERE a.updated_at > ? " +
+                    "ORDER BY a.updated_at";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setTimestamp(1, Timestamp.valueOf(since));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Appointment appointment = mapAppointment(rs);
+                    // Changes from other workstations also keep the availability index current
+                    applyReadSlot(appointment, rs.getBoolean("slot_taken"));
+                    appointments.add(appointment);
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving changed appointments: " + e.getMessage());
+        }
+        
+        return appointments;
+    }
+    
+    public int countAppointments() {
+        String sql = "SELECT COUNT(*) FROM appointments";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
             
-            ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                return rs.getInt(1) == 0;
+                return rs.getInt(1);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error counting appointments: " + e.getMessage());
+        }
+        
+        return -1;
+    }
+    
+    // Keyset pagination in list order (latest first). Pass the last row of the previous
+    // page, or null for the first page; seeks on (appointment_date, appointment_time, id).
+    public List<Appointment> getAppointmentsAfter(Appointment last, int limit) {
+        List<Appointment> appointments = new ArrayList<>();
+        String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name " +
+                    "FROM appointments a " +
+                    "JOIN patients p ON a.patient_id = p.patient_id " +
+                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
+                    (last == null ? "" : "WHERE (a.appointment_date, a.appointment_time, a.id) < (?, ?, ?) ") +
+                    "ORDER BY a.appointment_date DESC, a.appointment_time DESC, a.id DESC LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            if (last != null) {
+                pstmt.setDate(index++, Date.valueOf(last.getAppointmentDate()));
+                pstmt.setTime(index++, Time.valueOf(last.getAppointmentTime()));
+                pstmt.setInt(index++, last.getId());
+            }
+            pstmt.setInt(index, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    appointments.add(mapAppointment(rs));
+                }
             }
             
-            rs.close();
+        } catch (SQLException e) {
+            System.err.println("Error retrieving appointment page: " + e.getMessage());
+        }
+        
+        return appointments;
+    }
+    
+    // Row at an absolute position, used as the seek anchor when the viewport jumps
+    public Appointment getAppointmentAtOffset(int offset) {
+        String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name " +
+                    "FROM appointments a " +
+                    "JOIN patients p ON a.patient_id = p.patient_id " +
+                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
+                    "ORDER BY a.appointment_date DESC, a.appointment_time DESC, a.id DESC OFFSET ? LIMIT 1";
+        Appointment appointment = null;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, offset);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    appointment = mapAppointment(rs);
+                }
+            }
             
         } catch (SQLException e) {
-            System.err.println("Error checking time slot availability: " + e.getMessage());
+            System.err.println("Error retrieving appointment at offset: " + e.getMessage());
+        }
+        
+        return appointment;
+    }
+    
+    public LocalDateTime getLatestAppointmentUpdate() {
+        String sql = "SELECT MAX(updated_at) FROM appointments";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            
+            if (rs.next() && rs.getTimestamp(1) != null) {
+                return rs.getTimestamp(1).toLocalDateTime();
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving latest appointment update: " + e.getMessage());
         }
         
-        return false;
+        return null;
+    }
+    
+    // Streaming variants of getAllAppointments() and getAppointmentsByDate() for exports and
+    // reports: rows arrive through a server-side cursor fetchSize at a time. Close the
+    // stream to release the connection.
+    public Stream<Appointment> streamAllAppointments(int fetchSize) {
+        String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name " +
+                    "FROM appointments a " +
+                    "JOIN patients p ON a.patient_id = p.patient_id " +
+                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
+                    "ORDER BY a.appointment_date DESC, a.appointment_time DESC";
+        return ResultStreams.stream(sql, fetchSize, appointmentMapper());
+    }
+    
+    public Stream<Appointment> streamAppointmentsByDate(final LocalDate date, int fetchSize) {
+        String sql = "SELECT a.*, p.name as patient_name, d.name as doctor_name " +
+                    "FROM appointments a " +
+                    "JOIN patients p ON a.patient_id = p.patient_id " +
+                    "JOIN doctors d ON a.doctor_id = d.doctor_id " +
+                    "WHERE a.appointment_date = ? " +
+                    "ORDER BY a.appointment_time";
+        return ResultStreams.stream(sql, new ResultStreams.ParameterBinder() {
+            @Override
+            public void bind(PreparedStatement pstmt) throws SQLException {
+                pstmt.setDate(1, Date.valueOf(date));
+            }
+        }, fetchSize, appointmentMapper());
+    }
+    
+    private ResultStreams.RowMapper<Appointment> appointmentMapper() {
+        return new ResultStreams.RowMapper<Appointment>() {
+            @Override
+            public Appointment map(ResultSet rs) throws SQLException {
+                return mapAppointment(rs);
+            }
+        };
+    }
+    
+    // Package-private for the mapping benchmark (bench/)
+    Appointment mapAppointment(ResultSet rs) throws SQLException {
+        Appointment appointment = new Appointment();
+        appointment.setId(rs.getInt("id"));
+        appointment.setAppointmentId(rs.getString("appointment_id"));
+        appointment.setPatientId(rs.getString("patient_id"));
+        appointment.setDoctorId(rs.getString("doctor_id"));
+        appointment.setAppointmentDate(rs.getDate("appointment_date").toLocalDate());
+        appointment.setAppointmentTime(rs.getTime("appointment_time").toLocalTime());
+        appointment.setStatus(rs.getString("status"));
+        appointment.setReason(rs.getString("reason"));
+        appointment.setDiagnosis(rs.getString("diagnosis"));
+        appointment.setPrescription(rs.getString("prescription"));
+        appointment.setFee(rs.getDouble("fee"));
+        appointment.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        appointment.setUpdatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : appointment.getCreatedAt());
+        appointment.setPatientName(rs.getString("patient_name"));
+        appointment.setDoctorName(rs.getString("doctor_name"));
+        return appointment;
     }
 }
\ No newline at end of file
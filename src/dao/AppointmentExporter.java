@@ -0,0 +1,157 @@
+package dao;
+
+import model.DatabaseConnection;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Headless export of the full appointment history (appointments joined with patient and
+// doctor names) for billing and audits. Rows stream from the server straight to disk,
+// so memory use does not depend on the number of appointments.
+public class AppointmentExporter {
+    public static final int DEFAULT_ROW_GROUP_SIZE = 65536;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final String HISTORY_SQL =
+        "SELECT a.appointment_id, a.appointment_date, a.appointment_time, a.status, " +
+        "a.patient_id, p.name AS patient_name, a.doctor_id, d.name AS doctor_name, d.specialization, " +
+        "a.reason, a.diagnosis, a.prescription, a.fee, a.created_at, a.updated_at " +
+        "FROM appointments a " +
+        "JOIN patients p ON a.patient_id = p.patient_id " +
+        "JOIN doctors d ON a.doctor_id = d.doctor_id " +
+        "ORDER BY a.appointment_date, a.appointment_time, a.id";
+
+    private static final String[] COLUMNS = {
+        "appointment_id", "appointment_date", "appointment_time", "status",
+        "patient_id", "patient_name", "doctor_id", "doctor_name", "specialization",
+        "reason", "diagnosis", "prescription", "fee", "created_at", "updated_at"
+    };
+
+    private static final ColumnarWriter.Type[] TYPES = {
+        ColumnarWriter.Type.STRING, ColumnarWriter.Type.DATE, ColumnarWriter.Type.TIME, ColumnarWriter.Type.STRING,
+        ColumnarWriter.Type.STRING, ColumnarWriter.Type.STRING, ColumnarWriter.Type.STRING, ColumnarWriter.Type.STRING,
+        ColumnarWriter.Type.STRING, ColumnarWriter.Type.STRING, ColumnarWriter.Type.STRING, ColumnarWriter.Type.STRING,
+        ColumnarWriter.Type.DECIMAL, ColumnarWriter.Type.TIMESTAMP, ColumnarWriter.Type.TIMESTAMP
+    };
+
+    // CSV with a header row, produced by the server with COPY ... TO STDOUT. The bytes
+    // are written to the file channel as they arrive, optionally gzip-compressed.
+    public long exportCsv(Path file, boolean gzip) throws IOException {
+        Path part = partFile(file);
+        boolean published = false;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            CopyManager copy = conn.unwrap(PGConnection.class).getCopyAPI();
+            long rows;
+            try (OutputStream out = openOutput(part, gzip)) {
+                rows = copy.copyOut("COPY (" + HISTORY_SQL + ") TO STDOUT WITH (FORMAT csv, HEADER)", out);
+            }
+            publish(part, file);
+            published = true;
+            return rows;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error exporting appointments: " + e.getMessage(), e);
+        } finally {
+            if (!published) {
+                discard(part);
+            }
+        }
+    }
+
+    // Column-oriented binary file (see ColumnarWriter) fed from a server-side cursor;
+    // at most one cursor batch and one row group are held in memory
+    public long exportColumnar(Path file, int rowGroupSize) throws IOException {
+        Path part = partFile(file);
+        boolean published = false;
+        try {
+            long rowCount;
+            try (ColumnarWriter writer = new ColumnarWriter(part, COLUMNS, TYPES, rowGroupSize);
+                 Stream<Object[]> rows = ResultStreams.stream(HISTORY_SQL, ResultStreams.DEFAULT_FETCH_SIZE, new ResultStreams.RowMapper<Object[]>() {
+                     @Override
+                     public Object[] map(ResultSet rs) throws SQLException {
+                         return toRow(rs);
+                     }
+                 })) {
+                Iterator<Object[]> it = rows.iterator();
+                while (it.hasNext()) {
+                    writer.writeRow(it.next());
+                }
+                rowCount = writer.getRowCount();
+            }
+            publish(part, file);
+            published = true;
+            return rowCount;
+        } finally {
+            if (!published) {
+                discard(part);
+            }
+        }
+    }
+
+    private static Object[] toRow(ResultSet rs) throws SQLException {
+        Object[] row = new Object[COLUMNS.length];
+        row[0] = rs.getString("appointment_id");
+        row[1] = rs.getDate("appointment_date").toLocalDate();
+        row[2] = rs.getTime("appointment_time").toLocalTime();
+        row[3] = rs.getString("status");
+        row[4] = rs.getString("patient_id");
+        row[5] = rs.getString("patient_name");
+        row[6] = rs.getString("doctor_id");
+        row[7] = rs.getString("doctor_name");
+        row[8] = rs.getString("specialization");
+        row[9] = rs.getString("reason");
+        row[10] = rs.getString("diagnosis");
+        row[11] = rs.getString("prescription");
+        row[12] = rs.getBigDecimal("fee");
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        row[13] = createdAt != null ? createdAt.toLocalDateTime() : null;
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        row[14] = updatedAt != null ? updatedAt.toLocalDateTime() : null;
+        return row;
+    }
+
+    // Exports are written next to the target and only moved into place once complete,
+    // so a failed run never leaves a truncated file that looks like a finished export
+    private static Path partFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".part");
+    }
+
+    private static void publish(Path part, Path file) throws IOException {
+        try {
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void discard(Path part) {
+        try {
+            Files.deleteIfExists(part);
+        } catch (IOException e) {
+            System.err.println("Could not remove partial export " + part + ": " + e.getMessage());
+        }
+    }
+
+    private static OutputStream openOutput(Path file, boolean gzip) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        return gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+    }
+}
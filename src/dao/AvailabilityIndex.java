@@ -0,0 +1,311 @@
+package dao;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// In-process index of booked appointment slots, keyed by doctor and day. Each doctor-day
+// is a bitset with one bit per minute of the day (23 longs), so a slot check is a single
+// array read. Cancelled appointments do not occupy a slot. The index is only an
+// accelerator: the unique index uq_appointments_doctor_slot in the database remains the
+// authority, and AppointmentDAO marks a slot booked whenever an insert hits it.
+//
+// Loads race with writes: a SELECT may miss a booking or cancellation that is marked
+// while the rows are in flight, and a write to a day not yet loaded is dropped. So a
+// loader takes writeStamp() before its query and hands it to loadDay()/markWarmed(),
+// which discard the snapshot when a write hit the same day (or stripe of days) since.
+// A discarded day simply stays unloaded and is read again on its next check.
+public class AvailabilityIndex {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int WORDS_PER_DAY = (MINUTES_PER_DAY + 63) / 64;
+    // Doctor-days share write stamps per stripe; a collision only discards a load early
+    private static final int STAMP_STRIPES = 4096;
+
+    private static final AvailabilityIndex INSTANCE = new AvailabilityIndex();
+
+    // doctorId -> epoch day -> booked minutes; a present entry means the day is loaded
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Long, AtomicLongArray>> doctors = new ConcurrentHashMap<>();
+
+    // Date range warmed for every doctor at once (inclusive epoch days, empty when from > to)
+    private volatile long warmedFrom = 1;
+    private volatile long warmedTo = 0;
+
+    // Sequence of every write and the last one seen per stripe of doctor-days
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final AtomicLongArray stripeStamps = new AtomicLongArray(STAMP_STRIPES);
+    // Sequence of the last clear(); older snapshots are not published
+    private volatile long clearedAt;
+
+    private AvailabilityIndex() {}
+
+    public static AvailabilityIndex getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isLoaded(String doctorId, LocalDate date) {
+        long day = date.toEpochDay();
+        if (day >= warmedFrom && day <= warmedTo) {
+            return true;
+        }
+        ConcurrentHashMap<Long, AtomicLongArray> days = doctors.get(doctorId);
+        return days != null && days.containsKey(day);
+    }
+
+    // Only meaningful once isLoaded() is true for the doctor-day
+    public boolean isBooked(String doctorId, LocalDate date, LocalTime time) {
+        ConcurrentHashMap<Long, AtomicLongArray> days = doctors.get(doctorId);
+        AtomicLongArray bits = days != null ? days.get(date.toEpochDay()) : null;
+        if (bits == null) {
+            return false;
+        }
+        int minute = minuteOf(time);
+        return (bits.get(minute >>> 6) & (1L << minute)) != 0;
+    }
+
+    // Copy of the doctor-day's booked minutes as a bitset (see hasBookingBetween), or
+    // null while the day is not loaded. Warmed days without bookings come back empty.
+    public long[] getBookedMinutes(String doctorId, LocalDate date) {
+        ConcurrentHashMap<Long, AtomicLongArray> days = doctors.get(doctorId);
+        AtomicLongArray bits = days != null ? days.get(date.toEpochDay()) : null;
+        if (bits == null) {
+            return isLoaded(doctorId, date) ? new long[WORDS_PER_DAY] : null;
+        }
+        long[] copy = new long[WORDS_PER_DAY];
+        for (int word = 0; word < WORDS_PER_DAY; word++) {
+            copy[word] = bits.get(word);
+        }
+        return copy;
+    }
+
+    // Bookings on the doctor-day, or -1 while the day is not loaded. The bitset is kept
+    // current by every write, so this is a popcount of its 23 words, not a query.
+    public int getBookedCount(String doctorId, LocalDate date) {
+        ConcurrentHashMap<Long, AtomicLongArray> days = doctors.get(doctorId);
+        AtomicLongArray bits = days != null ? days.get(date.toEpochDay()) : null;
+        if (bits == null) {
+            return isLoaded(doctorId, date) ? 0 : -1;
+        }
+        int count = 0;
+        for (int word = 0; word < WORDS_PER_DAY; word++) {
+            count += Long.bitCount(bits.get(word));
+        }
+        return count;
+    }
+
+    // Whether any booking in the bitset starts in [fromMinute, toMinute), tested a word
+    // (64 minutes) at a time
+    public static boolean hasBookingBetween(long[] bookedMinutes, int fromMinute, int toMinute) {
+        int from = Math.max(0, fromMinute);
+        int to = Math.min(MINUTES_PER_DAY, toMinute);
+        if (from >= to) {
+            return false;
+        }
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        for (int word = firstWord; word <= lastWord; word++) {
+            long mask = -1L;
+            if (word == firstWord) {
+                mask &= -1L << from;
+            }
+            if (word == lastWord) {
+                mask &= -1L >>> (63 - ((to - 1) & 63));
+            }
+            if ((bookedMinutes[word] & mask) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Taken before the query of a load, see loadDay
+    public long writeStamp() {
+        return writeSequence.get();
+    }
+
+    // Writes only touch days already in the index; an unloaded day is read fresh from
+    // the database on its first check, which already includes this change. Either way
+    // the day is stamped first, so a load in flight cannot publish a snapshot without it.
+    public void markBooked(String doctorId, LocalDate date, LocalTime time) {
+        stamp(doctorId, date.toEpochDay());
+        AtomicLongArray bits = loadedSlots(doctorId, date);
+        if (bits == null) {
+            return;
+        }
+        int minute = minuteOf(time);
+        long mask = 1L << minute;
+        int word = minute >>> 6;
+        long current;
+        do {
+            current = bits.get(word);
+        } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+    }
+
+    public void markFree(String doctorId, LocalDate date, LocalTime time) {
+        stamp(doctorId, date.toEpochDay());
+        AtomicLongArray bits = loadedSlots(doctorId, date);
+        if (bits == null) {
+            return;
+        }
+        int minute = minuteOf(time);
+        long mask = 1L << minute;
+        int word = minute >>> 6;
+        long current;
+        do {
+            current = bits.get(word);
+        } while ((current & mask) != 0 && !bits.compareAndSet(word, current, current & ~mask));
+    }
+
+    // Publishes every booking of one doctor-day at once, so a concurrent check never
+    // sees a half-loaded day. since is writeStamp() from before the query; when the day
+    // was written meanwhile the snapshot may be stale and is dropped (returns false). A
+    // day loaded already is kept as it is, since every write has been applied to it.
+    public boolean loadDay(String doctorId, LocalDate date, List<LocalTime> booked, long since) {
+        long day = date.toEpochDay();
+        if (isStale(doctorId, day, since)) {
+            return false;
+        }
+        AtomicLongArray loaded = new AtomicLongArray(WORDS_PER_DAY);
+        for (LocalTime time : booked) {
+            int minute = minuteOf(time);
+            loaded.set(minute >>> 6, loaded.get(minute >>> 6) | (1L << minute));
+        }
+        ConcurrentHashMap<Long, AtomicLongArray> days = days(doctorId);
+        if (days.putIfAbsent(day, loaded) != null) {
+            return true;
+        }
+        // A write stamped after the check above either saw this entry and applied
+        // itself, or ran before it was published and was lost: take it back then
+        if (isStale(doctorId, day, since)) {
+            days.remove(day, loaded);
+            return false;
+        }
+        return true;
+    }
+
+    // Declares that every booking in [from, to] has been loaded for all doctors, from a
+    // query started at since. Refused when anything was written meanwhile, because a
+    // write to a day without bookings was dropped and the range would claim it free.
+    public synchronized boolean markWarmed(LocalDate from, LocalDate to, long since) {
+        if (writeSequence.get() != since || clearedAt > since) {
+            return false;
+        }
+        long previousFrom = warmedFrom;
+        long previousTo = warmedTo;
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        if (warmedFrom <= warmedTo && fromDay <= warmedTo + 1 && toDay >= warmedFrom - 1) {
+            // Overlapping or adjacent: widen the existing range
+            warmedFrom = Math.min(warmedFrom, fromDay);
+            warmedTo = Math.max(warmedTo, toDay);
+        } else {
+            warmedFrom = fromDay;
+            warmedTo = toDay;
+        }
+        if (writeSequence.get() == since) {
+            return true;
+        }
+        // Raced with a write: restore the range, then drop the days written meanwhile,
+        // which may have been created empty from the range while it was visible
+        warmedFrom = previousFrom;
+        warmedTo = previousTo;
+        for (Map.Entry<String, ConcurrentHashMap<Long, AtomicLongArray>> doctor : doctors.entrySet()) {
+            for (long day = fromDay; day <= toDay; day++) {
+                if ((day < previousFrom || day > previousTo) && isStale(doctor.getKey(), day, since)) {
+                    doctor.getValue().remove(day);
+                }
+            }
+        }
+        return false;
+    }
+
+    public void removeDoctor(String doctorId) {
+        doctors.remove(doctorId);
+    }
+
+    // Drops the doctor-days outside [from, to] and narrows the warmed range to it, so a
+    // long-running process does not keep every day it was ever asked about. A dropped
+    // day is simply read again if it is checked later.
+    public synchronized void retainBetween(LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        for (ConcurrentHashMap<Long, AtomicLongArray> days : doctors.values()) {
+            Iterator<Long> it = days.keySet().iterator();
+            while (it.hasNext()) {
+                long day = it.next();
+                if (day < fromDay || day > toDay) {
+                    it.remove();
+                }
+            }
+        }
+        warmedFrom = Math.max(warmedFrom, fromDay);
+        warmedTo = Math.min(warmedTo, toDay);
+    }
+
+    // Forgets everything; days are lazily reloaded from the database on the next check
+    public synchronized void clear() {
+        clearedAt = writeSequence.incrementAndGet();
+        doctors.clear();
+        warmedFrom = 1;
+        warmedTo = 0;
+    }
+
+    public int getLoadedDayCount() {
+        int total = 0;
+        for (ConcurrentHashMap<Long, AtomicLongArray> days : doctors.values()) {
+            total += days.size();
+        }
+        return total;
+    }
+
+    private void stamp(String doctorId, long day) {
+        long sequence = writeSequence.incrementAndGet();
+        int stripe = stripe(doctorId, day);
+        long current;
+        do {
+            current = stripeStamps.get(stripe);
+        } while (current < sequence && !stripeStamps.compareAndSet(stripe, current, sequence));
+    }
+
+    private boolean isStale(String doctorId, long day, long since) {
+        return clearedAt > since || stripeStamps.get(stripe(doctorId, day)) > since;
+    }
+
+    private static int stripe(String doctorId, long day) {
+        int hash = doctorId.hashCode() * 31 + (int) (day ^ (day >>> 32));
+        return (hash ^ (hash >>> 16)) & (STAMP_STRIPES - 1);
+    }
+
+    private AtomicLongArray loadedSlots(String doctorId, LocalDate date) {
+        long day = date.toEpochDay();
+        ConcurrentHashMap<Long, AtomicLongArray> days = doctors.get(doctorId);
+        AtomicLongArray bits = days != null ? days.get(day) : null;
+        if (bits != null || day < warmedFrom || day > warmedTo) {
+            return bits;
+        }
+        // Warmed days without bookings have no entry yet
+        AtomicLongArray created = new AtomicLongArray(WORDS_PER_DAY);
+        bits = days(doctorId).putIfAbsent(day, created);
+        return bits != null ? bits : created;
+    }
+
+    private ConcurrentHashMap<Long, AtomicLongArray> days(String doctorId) {
+        ConcurrentHashMap<Long, AtomicLongArray> days = doctors.get(doctorId);
+        if (days == null) {
+            ConcurrentHashMap<Long, AtomicLongArray> created = new ConcurrentHashMap<>();
+            days = doctors.putIfAbsent(doctorId, created);
+            if (days == null) {
+                days = created;
+            }
+        }
+        return days;
+    }
+
+    private static int minuteOf(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
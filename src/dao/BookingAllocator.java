@@ -0,0 +1,156 @@
+package dao;
+
+import model.Doctor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+// Spreads new bookings over the available doctors of a specialization instead of
+// whoever is listed first. Each doctor is scored for the day from three parts, each
+// scaled to 0..1 with lower being better: how full the day already is, how long until
+// the doctor's next free slot, and the consultation fee relative to the dearest
+// candidate. The day's booking count and bitset come straight from the
+// AvailabilityIndex, which every write keeps current, so scoring a doctor costs a
+// fixed amount of work and no query once the day is loaded (days warmed at startup
+// always are). Doctors with no free slot left that day are not suggested.
+public class BookingAllocator {
+    public static final double DEFAULT_LOAD_WEIGHT = 0.5;
+    public static final double DEFAULT_WAIT_WEIGHT = 0.3;
+    public static final double DEFAULT_FEE_WEIGHT = 0.2;
+
+    private final AppointmentDAO appointmentDAO;
+    private final DoctorDAO doctorDAO;
+    private final AvailabilityIndex availability = AvailabilityIndex.getInstance();
+    // Working hours and slot length
+    private final SlotFinder grid;
+    private double loadWeight = DEFAULT_LOAD_WEIGHT;
+    private double waitWeight = DEFAULT_WAIT_WEIGHT;
+    private double feeWeight = DEFAULT_FEE_WEIGHT;
+
+    public BookingAllocator(AppointmentDAO appointmentDAO, DoctorDAO doctorDAO) {
+        this.appointmentDAO = appointmentDAO;
+        this.doctorDAO = doctorDAO;
+        this.grid = new SlotFinder(appointmentDAO, doctorDAO);
+    }
+
+    public void setWorkingHours(LocalTime dayStart, LocalTime dayEnd) {
+        grid.setWorkingHours(dayStart, dayEnd);
+    }
+
+    public void setSlotMinutes(int slotMinutes) {
+        grid.setSlotMinutes(slotMinutes);
+    }
+
+    // Relative importance of day load, wait for the next free slot and fee
+    public void setWeights(double loadWeight, double waitWeight, double feeWeight) {
+        if (loadWeight < 0 || waitWeight < 0 || feeWeight < 0 || loadWeight + waitWeight + feeWeight == 0) {
+            throw new IllegalArgumentException("Weights must be non-negative and not all zero");
+        }
+        this.loadWeight = loadWeight;
+        this.waitWeight = waitWeight;
+        this.feeWeight = feeWeight;
+    }
+
+    // Best doctor of the specialization for a booking on notBefore's day, or null when
+    // none has a free slot left
+    public Suggestion pick(String specialization, LocalDateTime notBefore) {
+        List<Suggestion> ranked = suggest(specialization, notBefore);
+        return ranked.isEmpty() ? null : ranked.get(0);
+    }
+
+    // Doctors of the specialization with a free slot on notBefore's day, best first
+    public List<Suggestion> suggest(String specialization, LocalDateTime notBefore) {
+        return rank(doctorDAO.getDoctorsBySpecialization(specialization), notBefore);
+    }
+
+    // Empty when the day's bookings cannot be read, rather than guessing
+    public List<Suggestion> rank(List<Doctor> doctors, LocalDateTime notBefore) {
+        List<Suggestion> ranked = new ArrayList<>();
+        if (doctors.isEmpty()) {
+            return ranked;
+        }
+        LocalDate date = notBefore.toLocalDate();
+        List<String> doctorIds = new ArrayList<>(doctors.size());
+        double maxFee = 0;
+        for (Doctor doctor : doctors) {
+            doctorIds.add(doctor.getDoctorId());
+            maxFee = Math.max(maxFee, doctor.getConsultationFee());
+        }
+        if (!appointmentDAO.loadAvailability(doctorIds, date, date)) {
+            return ranked;
+        }
+
+        int dayStart = SlotFinder.minuteOf(grid.getDayStart());
+        int dayEnd = SlotFinder.minuteOf(grid.getDayEnd());
+        int slotsPerDay = Math.max(1, (dayEnd - dayStart) / grid.getSlotMinutes());
+        int fromMinute = SlotFinder.minuteOf(notBefore.toLocalTime()) + (notBefore.getSecond() > 0 ? 1 : 0);
+        // Waiting is measured from the later of notBefore and opening time
+        int waitFrom = Math.max(fromMinute, dayStart);
+        int waitRange = Math.max(1, dayEnd - waitFrom);
+        for (Doctor doctor : doctors) {
+            long[] booked = availability.getBookedMinutes(doctor.getDoctorId(), date);
+            if (booked == null) {
+                continue;
+            }
+            int nextFree = grid.firstFreeMinute(booked, fromMinute);
+            if (nextFree < 0) {
+                continue;
+            }
+            int bookings = availability.getBookedCount(doctor.getDoctorId(), date);
+            double load = Math.min(1.0, bookings / (double) slotsPerDay);
+            double wait = (nextFree - waitFrom) / (double) waitRange;
+            double fee = maxFee > 0 ? doctor.getConsultationFee() / maxFee : 0;
+            double score = (loadWeight * load + waitWeight * wait + feeWeight * fee) /
+                           (loadWeight + waitWeight + feeWeight);
+            ranked.add(new Suggestion(doctor, bookings, date, LocalTime.of(nextFree / 60, nextFree % 60), score));
+        }
+        Collections.sort(ranked, BY_SCORE);
+        return ranked;
+    }
+
+    // Lowest score first; ties go to the emptier day, then the earlier slot
+    private static final Comparator<Suggestion> BY_SCORE = new Comparator<Suggestion>() {
+        @Override
+        public int compare(Suggestion a, Suggestion b) {
+            int byScore = Double.compare(a.score, b.score);
+            if (byScore != 0) {
+                return byScore;
+            }
+            int byLoad = Integer.compare(a.bookings, b.bookings);
+            return byLoad != 0 ? byLoad : a.nextFreeSlot.compareTo(b.nextFreeSlot);
+        }
+    };
+
+    public static class Suggestion {
+        private final Doctor doctor;
+        private final int bookings;
+        private final LocalDate date;
+        private final LocalTime nextFreeSlot;
+        private final double score;
+
+        Suggestion(Doctor doctor, int bookings, LocalDate date, LocalTime nextFreeSlot, double score) {
+            this.doctor = doctor;
+            this.bookings = bookings;
+            this.date = date;
+            this.nextFreeSlot = nextFreeSlot;
+            this.score = score;
+        }
+
+        public Doctor getDoctor() { return doctor; }
+        public int getBookings() { return bookings; }
+        public LocalDate getDate() { return date; }
+        public LocalTime getNextFreeSlot() { return nextFreeSlot; }
+        public double getScore() { return score; }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s): %d booked on %s, free at %s, fee %.2f, score %.3f",
+                                 doctor.getName(), doctor.getDoctorId(), bookings, date, nextFreeSlot,
+                                 doctor.getConsultationFee(), score);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package dao;
+
+import model.Appointment;
+import model.DatabaseConnection;
+import model.Doctor;
+import model.Patient;
+import model.RecordValidator;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Loads patients, doctors or appointments from a RecordReader with JDBC batching.
+// Records are validated with the same rules as the management dialogs, inserted in
+// chunks of chunkSize rows and committed per chunk. When a chunk fails, it is replayed
+// row by row behind savepoints so only the offending rows are rejected. Rejected rows
+// are written to the error writer as CSV: line,error,record.
+public class BulkImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final int chunkSize;
+    private final Writer errors;
+    private Consumer<ImportResult> progressListener;
+
+    public BulkImporter(int chunkSize, Writer errors) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.errors = errors;
+        errors.write("line,error,record\n");
+    }
+
+    // Called after every committed chunk with the running totals
+    public void setProgressListener(Consumer<ImportResult> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public ImportResult importPatients(RecordReader reader) throws IOException {
+        return run(reader, new RecordType<Patient>(PatientDAO.INSERT_SQL) {
+            @Override
+            Patient parse(Map<String, String> record) {
+                return RecordMapper.toPatient(record);
+            }
+
+            @Override
+            String validate(Patient patient) {
+                return RecordValidator.validatePatient(patient);
+            }
+
+            @Override
+            void bind(PreparedStatement pstmt, Patient patient) throws SQLException {
+                PatientDAO.bindInsert(pstmt, patient);
+            }
+
+            @Override
+            void committed(Patient patient) {
+                PatientSearchIndex.getInstance().upsert(patient);
+            }
+        });
+    }
+
+    public ImportResult importDoctors(RecordReader reader) throws IOException {
+        return run(reader, new RecordType<Doctor>(DoctorDAO.INSERT_SQL) {
+            @Override
+            Doctor parse(Map<String, String> record) {
+                return RecordMapper.toDoctor(record);
+            }
+
+            @Override
+            String validate(Doctor doctor) {
+                return RecordValidator.validateDoctor(doctor);
+            }
+
+            @Override
+            void bind(PreparedStatement pstmt, Doctor doctor) throws SQLException {
+                DoctorDAO.bindInsert(pstmt, doctor);
+            }
+        });
+    }
+
+    public ImportResult importAppointments(RecordReader reader) throws IOException {
+        final AvailabilityIndex availability = AvailabilityIndex.getInstance();
+        return run(reader, new RecordType<Appointment>(AppointmentDAO.INSERT_SQL) {
+            @Override
+            Appointment parse(Map<String, String> record) {
+                return RecordMapper.toAppointment(record);
+            }
+
+            @Override
+            String validate(Appointment appointment) {
+                return RecordValidator.validateAppointment(appointment);
+            }
+
+            @Override
+            void bind(PreparedStatement pstmt, Appointment appointment) throws SQLException {
+                AppointmentDAO.bindInsert(pstmt, appointment);
+            }
+
+            @Override
+            void committed(Appointment appointment) {
+                if (!"Cancelled".equals(appointment.getStatus())) {
+                    availability.markBooked(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                                            appointment.getAppointmentTime());
+                }
+            }
+        });
+    }
+
+    private <T> ImportResult run(RecordReader reader, RecordType<T> type) throws IOException {
+        ImportResult result = new ImportResult();
+        List<Row<T>> chunk = new ArrayList<>(chunkSize);
+        while (true) {
+            Map<String, String> record;
+            try {
+                record = reader.next();
+            } catch (RecordReader.MalformedRecordException e) {
+                result.read++;
+                reject(result, reader.getRecordLine(), e.getMessage(), reader.getRawRecord());
+                continue;
+            }
+            if (record == null) {
+                break;
+            }
+            result.read++;
+            T item;
+            String error;
+            try {
+                item = type.parse(record);
+                error = type.validate(item);
+            } catch (IllegalArgumentException e) {
+                item = null;
+                error = e.getMessage();
+            }
+            if (error != null) {
+                reject(result, reader.getRecordLine(), error, reader.getRawRecord());
+                continue;
+            }
+            chunk.add(new Row<T>(item, reader.getRecordLine(), reader.getRawRecord()));
+            if (chunk.size() == chunkSize) {
+                flush(type, chunk, result);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flush(type, chunk, result);
+        }
+        errors.flush();
+        result.finish();
+        return result;
+    }
+
+    // One pooled connection per chunk, so a long import never trips leak detection
+    private <T> void flush(RecordType<T> type, List<Row<T>> chunk, ImportResult result) throws IOException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(type.sql)) {
+                try {
+                    for (Row<T> row : chunk) {
+                        type.bind(pstmt, row.item);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                    conn.commit();
+                    for (Row<T> row : chunk) {
+                        type.committed(row.item);
+                    }
+                    result.imported += chunk.size();
+                } catch (BatchUpdateException e) {
+                    conn.rollback();
+                    pstmt.clearBatch();
+                    replayRows(conn, pstmt, type, chunk, result);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error importing rows: " + e.getMessage(), e);
+        }
+        chunk.clear();
+        result.chunks++;
+        if (progressListener != null) {
+            progressListener.accept(result.snapshot());
+        }
+    }
+
+    // Slow path for a chunk containing bad rows: each row behind its own savepoint
+    private <T> void replayRows(Connection conn, PreparedStatement pstmt, RecordType<T> type,
+                                List<Row<T>> chunk, ImportResult result) throws SQLException, IOException {
+        List<T> inserted = new ArrayList<>();
+        for (Row<T> row : chunk) {
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                type.bind(pstmt, row.item);
+                pstmt.executeUpdate();
+                conn.releaseSavepoint(savepoint);
+                inserted.add(row.item);
+            } catch (SQLException e) {
+                conn.rollback(savepoint);
+                reject(result, row.line, e.getMessage(), row.raw);
+            }
+        }
+        conn.commit();
+        for (T item : inserted) {
+            type.committed(item);
+        }
+        result.imported += inserted.size();
+    }
+
+    private void reject(ImportResult result, int line, String error, String raw) throws IOException {
+        result.rejected++;
+        errors.write(line + "," + csv(error) + "," + csv(raw) + "\n");
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    // Per-entity parsing, validation and binding; parse() throws IllegalArgumentException
+    private abstract static class RecordType<T> {
+        final String sql;
+
+        RecordType(String sql) {
+            this.sql = sql;
+        }
+
+        abstract T parse(Map<String, String> record);
+
+        abstract String validate(T item);
+
+        abstract void bind(PreparedStatement pstmt, T item) throws SQLException;
+
+        void committed(T item) {}
+    }
+
+    private static class Row<T> {
+        final T item;
+        final int line;
+        final String raw;
+
+        Row(T item, int line, String raw) {
+            this.item = item;
+            this.line = line;
+            this.raw = raw;
+        }
+    }
+
+    public static class ImportResult {
+        private final long startedAt = System.currentTimeMillis();
+        private long elapsedMillis;
+        long read;
+        long imported;
+        long rejected;
+        long chunks;
+
+        void finish() {
+            elapsedMillis = System.currentTimeMillis() - startedAt;
+        }
+
+        ImportResult snapshot() {
+            ImportResult copy = new ImportResult();
+            copy.read = read;
+            copy.imported = imported;
+            copy.rejected = rejected;
+            copy.chunks = chunks;
+            copy.elapsedMillis = System.currentTimeMillis() - startedAt;
+            return copy;
+        }
+
+        public long getRead() { return read; }
+        public long getImported() { return imported; }
+        public long getRejected() { return rejected; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public double getRowsPerSecond() {
+            return elapsedMillis == 0 ? imported : imported * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("read=%d, imported=%d, rejected=%d in %.1fs (%.0f rows/s)",
+                               read, imported, rejected, elapsedMillis / 1000.0, getRowsPerSecond());
+        }
+    }
+}
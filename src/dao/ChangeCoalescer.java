@@ -0,0 +1,150 @@
+package dao;
+
+import model.TaskExecutors;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Collects ChangeFeed events into batches so a burst (a bulk import, a cascade delete)
+// becomes one round of row reloads instead of one per notification. The first event
+// opens a window of windowMs; at its end everything pending is handed to the sink on
+// the coalescer's own thread, so the sink may query the database directly.
+//
+// Several events for the same row keep only the latest. At most maxPending rows are
+// held: when a table overflows, its rows are dropped and the table is flagged for a
+// reload instead, which keeps memory bounded however long the burst.
+public class ChangeCoalescer implements ChangeFeed.Listener {
+    public static final long DEFAULT_WINDOW_MS = 250;
+    public static final int DEFAULT_MAX_PENDING = 2000;
+
+    public static final class Batch {
+        private final Map<String, Map<String, ChangeFeed.Change>> changes;
+        private final Set<String> reloadTables;
+        private final boolean resync;
+
+        Batch(Map<String, Map<String, ChangeFeed.Change>> changes, Set<String> reloadTables, boolean resync) {
+            this.changes = changes;
+            this.reloadTables = reloadTables;
+            this.resync = resync;
+        }
+
+        // Latest change per row for the table, in arrival order
+        public Collection<ChangeFeed.Change> getChanges(String table) {
+            Map<String, ChangeFeed.Change> rows = changes.get(table);
+            return rows != null ? rows.values() : Collections.<ChangeFeed.Change>emptyList();
+        }
+
+        // True when individual rows are unknown and the whole table must be re-read
+        public boolean isReloadRequired(String table) {
+            return resync || reloadTables.contains(table);
+        }
+
+        // The feed reconnected and may have missed anything
+        public boolean isResync() {
+            return resync;
+        }
+    }
+
+    private final long windowMs;
+    private final int maxPending;
+    private final Consumer<Batch> sink;
+    private final ScheduledExecutorService flusher =
+        Executors.newSingleThreadScheduledExecutor(TaskExecutors.daemonThreadFactory("change-flush"));
+
+    // Guarded by this
+    private Map<String, Map<String, ChangeFeed.Change>> pending = new HashMap<>();
+    private Set<String> reloadTables = new HashSet<>();
+    private int pendingCount;
+    private boolean resync;
+    private boolean flushScheduled;
+
+    public ChangeCoalescer(long windowMs, int maxPending, Consumer<Batch> sink) {
+        this.windowMs = windowMs;
+        this.maxPending = maxPending;
+        this.sink = sink;
+    }
+
+    @Override
+    public synchronized void rowChanged(ChangeFeed.Change change) {
+        String table = change.getTable();
+        if (!resync && !reloadTables.contains(table)) {
+            if (change.isBulk()) {
+                reload(table);
+            } else {
+                Map<String, ChangeFeed.Change> rows = pending.get(table);
+                if (rows == null) {
+                    rows = new LinkedHashMap<>();
+                    pending.put(table, rows);
+                }
+                // Re-insert so the row moves to the end: arrival order of the latest change
+                if (rows.remove(change.getId()) == null) {
+                    pendingCount++;
+                }
+                rows.put(change.getId(), change);
+                if (pendingCount > maxPending) {
+                    reload(table);
+                }
+            }
+        }
+        scheduleFlush();
+    }
+
+    @Override
+    public synchronized void resync() {
+        resync = true;
+        pending.clear();
+        reloadTables.clear();
+        pendingCount = 0;
+        scheduleFlush();
+    }
+
+    public void shutdown() {
+        flusher.shutdownNow();
+    }
+
+    private void reload(String table) {
+        Map<String, ChangeFeed.Change> dropped = pending.remove(table);
+        if (dropped != null) {
+            pendingCount -= dropped.size();
+        }
+        reloadTables.add(table);
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        flusher.schedule(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        Batch batch;
+        synchronized (this) {
+            batch = new Batch(pending, reloadTables, resync);
+            pending = new HashMap<>();
+            reloadTables = new HashSet<>();
+            pendingCount = 0;
+            resync = false;
+            flushScheduled = false;
+        }
+        try {
+            sink.accept(batch);
+        } catch (RuntimeException e) {
+            System.err.println("Error applying change batch: " + e.getMessage());
+        }
+    }
+}
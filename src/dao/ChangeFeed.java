@@ -0,0 +1,206 @@
+package dao;
+
+import model.DatabaseConnection;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Listens on the hms_changes channel, where the notify_row_changes() triggers announce
+// every committed change as "table,op,id,origin" (see schema_postgresql.sql). Runs on
+// one daemon thread with its own unpooled connection and reconnects after failures.
+// Changes made by this process are skipped; the DAOs already applied them.
+//
+// While the feed is connected the entity caches are trusted; while it is down they
+// are switched off, since nothing would tell them about other workstations' changes.
+// Listeners are called on the feed thread in registration order, after the caches
+// have dropped the changed rows; ChangeCoalescer batches events for slower consumers.
+public class ChangeFeed {
+    public static final String CHANNEL = "hms_changes";
+
+    private static final ChangeFeed INSTANCE = new ChangeFeed();
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final long RECONNECT_DELAY_MS = Long.getLong("changes.reconnectDelayMs", 5000);
+
+    public interface Listener {
+        void rowChanged(Change change);
+
+        // Notifications may have been lost (the feed just (re)connected); treat everything as changed
+        void resync();
+    }
+
+    public static final class Change {
+        private final String table;
+        private final char operation;
+        private final String id;
+
+        Change(String table, char operation, String id) {
+            this.table = table;
+            this.operation = operation;
+            this.id = id;
+        }
+
+        public String getTable() { return table; }
+        // 'I', 'U' or 'D'; '*' when one statement changed too many rows to list
+        public char getOperation() { return operation; }
+        // Business id (patient_id, doctor_id, ...); null for '*'
+        public String getId() { return id; }
+        public boolean isBulk() { return operation == '*'; }
+
+        @Override
+        public String toString() {
+            return table + " " + operation + (id != null ? " " + id : "");
+        }
+    }
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Thread thread;
+    private volatile boolean connected;
+
+    private ChangeFeed() {
+        addListener(new Listener() {
+            @Override
+            public void rowChanged(Change change) {
+                if ("patients".equals(change.getTable()) && change.getOperation() == 'D') {
+                    PatientSearchIndex.getInstance().remove(change.getId());
+                }
+                EntityCache<?> cache = cacheFor(change.getTable());
+                if (cache == null) {
+                    return;
+                }
+                if (change.isBulk()) {
+                    cache.invalidateAll();
+                } else {
+                    cache.invalidate(change.getId());
+                }
+            }
+
+            @Override
+            public void resync() {
+                EntityCache.patients().invalidateAll();
+                EntityCache.doctors().invalidateAll();
+            }
+        });
+    }
+
+    public static ChangeFeed getInstance() {
+        return INSTANCE;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                listen();
+            }
+        }, "change-feed");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        Thread current = thread;
+        thread = null;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (thread == Thread.currentThread()) {
+            try (Connection conn = DatabaseConnection.openDedicatedConnection()) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("LISTEN " + CHANNEL);
+                }
+                // Anything committed before LISTEN took effect (startup, or while
+                // disconnected) was never announced to us
+                fireResync();
+                setConnected(true);
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                while (thread == Thread.currentThread()) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (thread != Thread.currentThread()) {
+                    break;
+                }
+                System.err.println("Change feed disconnected, retrying in " + RECONNECT_DELAY_MS + " ms: " + e.getMessage());
+            } finally {
+                setConnected(false);
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY_MS);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    private void setConnected(boolean value) {
+        connected = value;
+        EntityCache.patients().setEnabled(value);
+        EntityCache.doctors().setEnabled(value);
+    }
+
+    private void dispatch(String payload) {
+        String[] fields = payload.split(",", 4);
+        if (fields.length < 4 || fields[1].isEmpty()) {
+            System.err.println("Ignoring malformed change notification: " + payload);
+            return;
+        }
+        if (fields[3].equals(DatabaseConnection.getApplicationName())) {
+            return;
+        }
+        char operation = fields[1].charAt(0);
+        Change change = new Change(fields[0], operation, operation == '*' ? null : fields[2]);
+        for (Listener listener : listeners) {
+            try {
+                listener.rowChanged(change);
+            } catch (RuntimeException e) {
+                System.err.println("Error handling change " + change + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void fireResync() {
+        for (Listener listener : listeners) {
+            try {
+                listener.resync();
+            } catch (RuntimeException e) {
+                System.err.println("Error resynchronising after reconnect: " + e.getMessage());
+            }
+        }
+    }
+
+    private static EntityCache<?> cacheFor(String table) {
+        if ("patients".equals(table)) {
+            return EntityCache.patients();
+        } else if ("doctors".equals(table)) {
+            return EntityCache.doctors();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,297 @@
+package dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+// Writes rows to a compact column-oriented file, buffering at most one row group.
+// Layout (all integers big-endian):
+//
+//   "HMSC" version:int columnCount:int { name:string type:byte }*
+//   row group*:   rowCount:int { encoding:byte rawLength:int length:int deflated-bytes }*  (one per column)
+//   footer:       groupCount:int { offset:long rowCount:int }* totalRows:long
+//   footerOffset:long "HMSC"
+//
+// A string is a varint byte length followed by UTF-8. Inside a column chunk every
+// value starts with a presence byte (0 = null). String columns are plain or, when
+// repetitive, dictionary encoded (dictionary strings first, then varint indexes).
+// Dates, times and timestamps are zig-zag varint deltas of epoch day, second of day
+// and epoch millis (UTC); decimals are zig-zag varint deltas in hundredths.
+public class ColumnarWriter implements Closeable {
+    public enum Type { STRING, DATE, TIME, TIMESTAMP, DECIMAL }
+
+    private static final byte[] MAGIC = "HMSC".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final byte PLAIN = 0;
+    private static final byte DICTIONARY = 1;
+
+    private final FileChannel channel;
+    private final Type[] types;
+    private final int rowGroupSize;
+    private final List<Object[]> group;
+    private final List<long[]> groupIndex = new ArrayList<>();
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final Encoder encoder = new Encoder();
+    private long totalRows;
+
+    public ColumnarWriter(Path file, String[] names, Type[] types, int rowGroupSize) throws IOException {
+        if (names.length != types.length) {
+            throw new IllegalArgumentException("Every column needs a type");
+        }
+        if (rowGroupSize <= 0) {
+            throw new IllegalArgumentException("Row group size must be positive: " + rowGroupSize);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING);
+        this.types = types.clone();
+        this.rowGroupSize = rowGroupSize;
+        this.group = new ArrayList<>(rowGroupSize);
+
+        Encoder header = new Encoder();
+        header.bytes(MAGIC);
+        header.int32(VERSION);
+        header.int32(names.length);
+        for (int i = 0; i < names.length; i++) {
+            header.string(names[i]);
+            header.write(types[i].ordinal());
+        }
+        writeFully(header.buffer());
+    }
+
+    public void writeRow(Object... values) throws IOException {
+        if (values.length != types.length) {
+            throw new IllegalArgumentException("Expected " + types.length + " values but got " + values.length);
+        }
+        group.add(values);
+        if (group.size() == rowGroupSize) {
+            flushGroup();
+        }
+    }
+
+    public long getRowCount() {
+        return totalRows + group.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushGroup();
+            long footerOffset = channel.position();
+            Encoder footer = new Encoder();
+            footer.int32(groupIndex.size());
+            for (long[] entry : groupIndex) {
+                footer.int64(entry[0]);
+                footer.int32((int) entry[1]);
+            }
+            footer.int64(totalRows);
+            footer.int64(footerOffset);
+            footer.bytes(MAGIC);
+            writeFully(footer.buffer());
+            channel.force(false);
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    private void flushGroup() throws IOException {
+        if (group.isEmpty()) {
+            return;
+        }
+        groupIndex.add(new long[] { channel.position(), group.size() });
+        Encoder header = new Encoder();
+        header.int32(group.size());
+        writeFully(header.buffer());
+        for (int column = 0; column < types.length; column++) {
+            writeColumnChunk(column);
+        }
+        totalRows += group.size();
+        group.clear();
+    }
+
+    private void writeColumnChunk(int column) throws IOException {
+        encoder.reset();
+        byte encoding = PLAIN;
+        switch (types[column]) {
+            case STRING:
+                encoding = encodeStrings(column);
+                break;
+            case DATE:
+            case TIME:
+            case TIMESTAMP:
+            case DECIMAL:
+                long previous = 0;
+                for (Object[] row : group) {
+                    Object value = row[column];
+                    encoder.write(value == null ? 0 : 1);
+                    if (value != null) {
+                        long current = toLong(types[column], value);
+                        encoder.zigzag(current - previous);
+                        previous = current;
+                    }
+                }
+                break;
+        }
+
+        ByteBuffer raw = encoder.buffer();
+        int rawLength = raw.remaining();
+        deflater.reset();
+        deflater.setInput(raw.array(), 0, rawLength);
+        deflater.finish();
+        byte[] compressed = new byte[Math.max(64, rawLength + rawLength / 1000 + 64)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+
+        ByteBuffer chunkHeader = ByteBuffer.allocate(9).order(ByteOrder.BIG_ENDIAN);
+        chunkHeader.put(encoding).putInt(rawLength).putInt(length).flip();
+        writeFully(chunkHeader);
+        writeFully(ByteBuffer.wrap(compressed, 0, length));
+    }
+
+    // Dictionary encoding pays off for columns like status or doctor name
+    private byte encodeStrings(int column) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        int limit = Math.max(1, group.size() / 4);
+        for (Object[] row : group) {
+            Object value = row[column];
+            if (value != null && !dictionary.containsKey(value.toString())) {
+                if (entries.size() == limit) {
+                    entries = null;
+                    break;
+                }
+                dictionary.put(value.toString(), entries.size());
+                entries.add(value.toString());
+            }
+        }
+        if (entries != null) {
+            encoder.varint(entries.size());
+            for (String entry : entries) {
+                encoder.string(entry);
+            }
+            for (Object[] row : group) {
+                Object value = row[column];
+                encoder.write(value == null ? 0 : 1);
+                if (value != null) {
+                    encoder.varint(dictionary.get(value.toString()));
+                }
+            }
+            return DICTIONARY;
+        }
+        for (Object[] row : group) {
+            Object value = row[column];
+            encoder.write(value == null ? 0 : 1);
+            if (value != null) {
+                encoder.string(value.toString());
+            }
+        }
+        return PLAIN;
+    }
+
+    private static long toLong(Type type, Object value) {
+        switch (type) {
+            case DATE:
+                return ((LocalDate) value).toEpochDay();
+            case TIME:
+                return ((LocalTime) value).toSecondOfDay();
+            case TIMESTAMP:
+                return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+            case DECIMAL:
+                return ((BigDecimal) value).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            default:
+                throw new IllegalArgumentException("Not a numeric column type: " + type);
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Growable big-endian byte buffer
+    private static final class Encoder {
+        private byte[] bytes = new byte[1 << 16];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(bytes, 0, size);
+        }
+
+        void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void bytes(byte[] data) {
+            ensure(data.length);
+            System.arraycopy(data, 0, bytes, size, data.length);
+            size += data.length;
+        }
+
+        void int32(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void int64(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void string(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            bytes(utf8);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package dao;
+
+// Unchecked wrapper for SQL failures that cannot be reported as a false/empty return:
+// while a result stream is being consumed, or when a bulk import has to abort
+public class DataAccessException extends RuntimeException {
+    
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
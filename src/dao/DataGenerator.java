@@ -0,0 +1,565 @@
+package dao;
+
+import model.DatabaseConnection;
+import model.RecordValidator;
+import model.TaskExecutors;
+import org.postgresql.PGConnection;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Fills the database with synthetic doctors, patients and appointments for load and
+// scale testing. Output depends only on the seed and the settings, never on the thread
+// count: every row (for appointments, every doctor's schedule) draws from its own
+// random stream. Rows are loaded in chunks with COPY, several chunks in parallel.
+//
+// Generated ids (GD/GP/GA + digits) cannot collide with the application's PAT/DOC/APT
+// ids. Genders and statuses come from RecordValidator, appointments only reference
+// generated patients and doctors, and a doctor never has two appointments in one slot.
+//
+// Skew: doctor i gets a share of the appointments proportional to 1/(i+1)^doctorSkew,
+// so low-numbered doctors are the busy ones, up to a full schedule. Days are weighted
+// the same way over a shuffled order, with doctorSkew replaced by dateSkew, and
+// weekends are quieter. A skew of 0 spreads appointments evenly. Appointments in the
+// first half of the date range are in the past: completed, cancelled or no-shows.
+public class DataGenerator {
+    public static final int DEFAULT_CHUNK_SIZE = 50000;
+    public static final LocalDate DEFAULT_START_DATE = LocalDate.of(2024, 1, 1);
+    public static final int DEFAULT_DAYS = 730;
+    public static final double DEFAULT_DOCTOR_SKEW = 1.0;
+    public static final double DEFAULT_DATE_SKEW = 0.5;
+
+    // Bookable slots: every 15 minutes from 08:00 to 16:45
+    public static final LocalTime FIRST_SLOT = LocalTime.of(8, 0);
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 36;
+
+    // Random stream ids, mixed into each row's seed
+    private static final long DOCTORS = 1;
+    private static final long PATIENTS = 2;
+    private static final long SCHEDULES = 3;
+    private static final long LAYOUT = 4;
+
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+        "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+        "Aarav", "Priya", "Wei", "Mei", "Omar", "Fatima", "Carlos", "Sofia", "Hiroshi", "Yuki",
+        "Kwame", "Amara", "Ivan", "Olga", "Liam", "Emma", "Noah", "Olivia", "Lucas", "Ava"
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin", "Lee",
+        "Sharma", "Patel", "Chen", "Wang", "Khan", "Ali", "Silva", "Santos", "Tanaka", "Sato",
+        "Mensah", "Okafor", "Ivanov", "Petrova", "Murphy", "O'Brien", "Nguyen", "Kim", "Schmidt", "Rossi"
+    };
+    private static final String[] STREETS = {
+        "Main St", "Oak Ave", "Pine Rd", "Maple Dr", "Cedar Ln", "Elm St", "Lake View", "Hill Rd", "Park Ave", "River Rd"
+    };
+    private static final String[] CITIES = {
+        "Springfield", "Riverside", "Fairview", "Greenville", "Madison", "Georgetown", "Franklin", "Clinton"
+    };
+    private static final String[] BLOOD_GROUPS = {"O+", "A+", "B+", "AB+", "O-", "A-", "B-", "AB-"};
+    // Rough population frequencies, in percent, for BLOOD_GROUPS
+    private static final int[] BLOOD_GROUP_PERCENT = {38, 34, 9, 3, 7, 6, 2, 1};
+    private static final String[] SPECIALIZATIONS = {
+        "Cardiology", "Neurology", "Pediatrics", "Orthopedics", "Dermatology", "General Medicine",
+        "Gynecology", "Ophthalmology", "ENT", "Psychiatry", "Oncology", "Endocrinology"
+    };
+    private static final String[] REASONS = {
+        "Routine checkup", "Follow-up visit", "Chest pain", "Headache", "Fever", "Back pain", "Skin rash",
+        "Vaccination", "Blood pressure review", "Lab results discussion", "Joint pain", "Allergy symptoms"
+    };
+    private static final String[] DIAGNOSES = {
+        "Healthy", "Hypertension", "Migraine", "Viral infection", "Muscle strain", "Dermatitis",
+        "Type 2 diabetes", "Seasonal allergy", "Osteoarthritis", "Anxiety"
+    };
+    private static final String[] PRESCRIPTIONS = {
+        "Rest and fluids", "Paracetamol 500mg", "Ibuprofen 400mg", "Amlodipine 5mg", "Metformin 500mg",
+        "Cetirizine 10mg", "Topical hydrocortisone", "Physiotherapy", "None"
+    };
+
+    private final long seed;
+    private final int threads;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private LocalDate startDate = DEFAULT_START_DATE;
+    private int days = DEFAULT_DAYS;
+    private double doctorSkew = DEFAULT_DOCTOR_SKEW;
+    private double dateSkew = DEFAULT_DATE_SKEW;
+    private Consumer<Result> progressListener;
+
+    public DataGenerator(long seed, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.seed = seed;
+        this.threads = threads;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    // Appointments fall on days [startDate, startDate + days)
+    public void setDateRange(LocalDate startDate, int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("Day count must be positive: " + days);
+        }
+        this.startDate = startDate;
+        this.days = days;
+    }
+
+    public void setDoctorSkew(double doctorSkew) {
+        this.doctorSkew = doctorSkew;
+    }
+
+    public void setDateSkew(double dateSkew) {
+        this.dateSkew = dateSkew;
+    }
+
+    // Called after every loaded chunk with the running totals for the table
+    public void setProgressListener(Consumer<Result> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public LocalDate getStartDate() { return startDate; }
+    public int getDays() { return days; }
+
+    public static String doctorId(int index) {
+        return id("GD", index, 6);
+    }
+
+    public static String patientId(int index) {
+        return id("GP", index, 8);
+    }
+
+    public static String appointmentId(long index) {
+        return id("GA", index, 9);
+    }
+
+    public static LocalTime slotTime(int slot) {
+        return FIRST_SLOT.plusMinutes((long) SLOT_MINUTES * slot);
+    }
+
+    // Empties all three tables; for scratch databases only
+    public static void truncateAll() {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("TRUNCATE appointments, patients, doctors RESTART IDENTITY CASCADE");
+        } catch (SQLException e) {
+            throw new DataAccessException("Error truncating tables: " + e.getMessage(), e);
+        }
+    }
+
+    // Doctors and patients first (appointments reference them), then ANALYZE
+    public List<Result> generate(int doctors, int patients, long appointments) {
+        List<Result> results = new ArrayList<>();
+        results.add(generateDoctors(doctors));
+        results.add(generatePatients(patients));
+        results.add(generateAppointments(appointments, doctors, patients));
+        analyze();
+        return results;
+    }
+
+    public Result generateDoctors(final int count) {
+        List<Chunk> chunks = new ArrayList<>();
+        for (int first = 0; first < count; first += chunkSize) {
+            final int from = first;
+            final int to = Math.min(count, first + chunkSize);
+            chunks.add(new Chunk() {
+                @Override
+                void write(StringBuilder out) {
+                    for (int i = from; i < to; i++) {
+                        appendDoctor(out, i);
+                    }
+                }
+            });
+        }
+        return load("doctors", "doctors (doctor_id, name, specialization, phone, email, qualification, " +
+                    "experience_years, consultation_fee, available)", chunks);
+    }
+
+    public Result generatePatients(final int count) {
+        List<Chunk> chunks = new ArrayList<>();
+        for (int first = 0; first < count; first += chunkSize) {
+            final int from = first;
+            final int to = Math.min(count, first + chunkSize);
+            chunks.add(new Chunk() {
+                @Override
+                void write(StringBuilder out) {
+                    for (int i = from; i < to; i++) {
+                        appendPatient(out, i);
+                    }
+                }
+            });
+        }
+        return load("patients", "patients (patient_id, name, age, gender, phone, email, address, blood_group, " +
+                    "emergency_contact, created_at, updated_at)", chunks);
+    }
+
+    // References patients [0, patients) and doctors [0, doctors), which must already exist.
+    // Each chunk holds whole doctor schedules, so slots are allocated without coordination.
+    public Result generateAppointments(long count, int doctors, final int patients) {
+        if (doctors <= 0 || patients <= 0) {
+            throw new IllegalArgumentException("Appointments need at least one doctor and one patient");
+        }
+        final long[] perDoctor = appointmentsPerDoctor(count, doctors);
+        final double[] dayWeights = cumulative(dayWeights());
+        List<Chunk> chunks = new ArrayList<>();
+        long firstId = 0;
+        int firstDoctor = 0;
+        long chunkRows = 0;
+        for (int d = 0; d < doctors; d++) {
+            chunkRows += perDoctor[d];
+            if (chunkRows >= chunkSize || d == doctors - 1) {
+                final int fromDoctor = firstDoctor;
+                final int toDoctor = d + 1;
+                final long fromId = firstId;
+                chunks.add(new Chunk() {
+                    @Override
+                    void write(StringBuilder out) {
+                        long id = fromId;
+                        for (int doctor = fromDoctor; doctor < toDoctor; doctor++) {
+                            appendSchedule(out, doctor, perDoctor[doctor], id, patients, dayWeights);
+                            id += perDoctor[doctor];
+                        }
+                    }
+                });
+                firstId += chunkRows;
+                firstDoctor = d + 1;
+                chunkRows = 0;
+            }
+        }
+        return load("appointments", "appointments (appointment_id, patient_id, doctor_id, appointment_date, " +
+                    "appointment_time, status, reason, diagnosis, prescription, fee, created_at, updated_at)", chunks);
+    }
+
+    public void analyze() {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE doctors, patients, appointments");
+        } catch (SQLException e) {
+            throw new DataAccessException("Error analyzing tables: " + e.getMessage(), e);
+        }
+    }
+
+    private void appendDoctor(StringBuilder out, int index) {
+        SplittableRandom random = random(DOCTORS, index);
+        String first = pick(random, FIRST_NAMES);
+        String last = pick(random, LAST_NAMES);
+        String specialization = pick(random, SPECIALIZATIONS);
+        out.append(doctorId(index)).append('\t');
+        out.append("Dr. ").append(first).append(' ').append(last).append('\t');
+        out.append(specialization).append('\t');
+        appendPhone(out, random).append('\t');
+        appendEmail(out, first, last, index, "hospital.example.com").append('\t');
+        out.append(random.nextInt(4) == 0 ? "DM " : "MD ").append(specialization).append('\t');
+        out.append(1 + random.nextInt(40)).append('\t');
+        out.append(doctorFee(index)).append(".00").append('\t');
+        out.append(random.nextInt(10) == 0 ? 'f' : 't').append('\n');
+    }
+
+    private void appendPatient(StringBuilder out, int index) {
+        SplittableRandom random = random(PATIENTS, index);
+        String first = pick(random, FIRST_NAMES);
+        String last = pick(random, LAST_NAMES);
+        int genderRoll = random.nextInt(100);
+        String gender = RecordValidator.GENDERS.get(genderRoll < 49 ? 0 : genderRoll < 98 ? 1 : 2);
+        // Registered at some point in the five years before the date range
+        LocalDateTime registered = startDate.atStartOfDay().minusSeconds(random.nextLong(5L * 365 * 86400));
+        out.append(patientId(index)).append('\t');
+        out.append(first).append(' ').append(last).append('\t');
+        out.append(random.nextInt(96)).append('\t');
+        out.append(gender).append('\t');
+        appendPhone(out, random).append('\t');
+        appendEmail(out, first, last, index, "example.com").append('\t');
+        out.append(1 + random.nextInt(9999)).append(' ').append(pick(random, STREETS)).append(", ")
+           .append(pick(random, CITIES)).append('\t');
+        out.append(bloodGroup(random)).append('\t');
+        appendPhone(out, random).append('\t');
+        out.append(registered).append('\t');
+        out.append(registered).append('\n');
+    }
+
+    // count appointments for one doctor, on distinct (day, slot) pairs
+    private void appendSchedule(StringBuilder out, int doctor, long count, long firstId, int patients,
+                                double[] dayWeights) {
+        SplittableRandom random = random(SCHEDULES, doctor);
+        String doctorId = doctorId(doctor);
+        int fee = doctorFee(doctor);
+        long[] booked = new long[days];
+        for (long n = 0; n < count; n++) {
+            int day = sample(random, dayWeights);
+            while (Long.bitCount(booked[day]) == SLOTS_PER_DAY) {
+                day = (day + 1) % days;
+            }
+            int slot = random.nextInt(SLOTS_PER_DAY);
+            while ((booked[day] & (1L << slot)) != 0) {
+                slot = (slot + 1) % SLOTS_PER_DAY;
+            }
+            booked[day] |= 1L << slot;
+
+            LocalDate date = startDate.plusDays(day);
+            LocalTime time = slotTime(slot);
+            String status = status(random, day < days / 2);
+            boolean completed = "Completed".equals(status);
+            LocalDateTime bookedAt = date.atTime(time).minusDays(1 + random.nextInt(30));
+            out.append(appointmentId(firstId + n)).append('\t');
+            out.append(patientId(random.nextInt(patients))).append('\t');
+            out.append(doctorId).append('\t');
+            out.append(date).append('\t');
+            out.append(time).append('\t');
+            out.append(status).append('\t');
+            out.append(pick(random, REASONS)).append('\t');
+            out.append(completed ? pick(random, DIAGNOSES) : "\\N").append('\t');
+            out.append(completed ? pick(random, PRESCRIPTIONS) : "\\N").append('\t');
+            out.append(fee).append(".00").append('\t');
+            out.append(bookedAt).append('\t');
+            out.append(bookedAt).append('\n');
+        }
+    }
+
+    private static String status(SplittableRandom random, boolean past) {
+        int roll = random.nextInt(100);
+        List<String> statuses = RecordValidator.APPOINTMENT_STATUSES;
+        if (past) {
+            return statuses.get(roll < 80 ? 1 : roll < 92 ? 2 : 3);
+        }
+        return statuses.get(roll < 90 ? 0 : 2);
+    }
+
+    // Zipf shares of count, capped at a full schedule per doctor; whatever the busy
+    // doctors cannot take goes to the others
+    private long[] appointmentsPerDoctor(long count, int doctors) {
+        long capacity = (long) days * SLOTS_PER_DAY;
+        if (count > capacity * doctors) {
+            throw new IllegalArgumentException(count + " appointments do not fit in " + doctors + " doctors' schedules (" +
+                                               capacity + " slots each over " + days + " days)");
+        }
+        double[] weights = new double[doctors];
+        double total = 0;
+        for (int d = 0; d < doctors; d++) {
+            weights[d] = 1.0 / Math.pow(d + 1, doctorSkew);
+            total += weights[d];
+        }
+        long[] perDoctor = new long[doctors];
+        long assigned = 0;
+        for (int d = 0; d < doctors; d++) {
+            perDoctor[d] = Math.min(capacity, (long) Math.floor(count * weights[d] / total));
+            assigned += perDoctor[d];
+        }
+        // Rounding and capping leave a remainder; hand it out from the busiest doctor down
+        while (assigned < count) {
+            for (int d = 0; d < doctors && assigned < count; d++) {
+                long extra = Math.min(capacity - perDoctor[d], Math.max(1, (count - assigned) / doctors));
+                perDoctor[d] += extra;
+                assigned += extra;
+            }
+        }
+        return perDoctor;
+    }
+
+    private double[] dayWeights() {
+        // Shuffle which days are the busy ones, deterministically
+        SplittableRandom random = random(LAYOUT, 0);
+        int[] rank = new int[days];
+        for (int i = 0; i < days; i++) {
+            rank[i] = i;
+        }
+        for (int i = days - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = rank[i];
+            rank[i] = rank[j];
+            rank[j] = swap;
+        }
+        double[] weights = new double[days];
+        for (int day = 0; day < days; day++) {
+            DayOfWeek dayOfWeek = startDate.plusDays(day).getDayOfWeek();
+            double weekday = dayOfWeek == DayOfWeek.SUNDAY ? 0.1 : dayOfWeek == DayOfWeek.SATURDAY ? 0.4 : 1.0;
+            weights[day] = weekday / Math.pow(rank[day] + 1, dateSkew);
+        }
+        return weights;
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] sums = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            sums[i] = total;
+        }
+        return sums;
+    }
+
+    private static int sample(SplittableRandom random, double[] cumulative) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] <= target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int doctorFee(int index) {
+        return 200 + 50 * random(DOCTORS, -1 - index).nextInt(27);
+    }
+
+    private static String bloodGroup(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < BLOOD_GROUPS.length; i++) {
+            roll -= BLOOD_GROUP_PERCENT[i];
+            if (roll < 0) {
+                return BLOOD_GROUPS[i];
+            }
+        }
+        return BLOOD_GROUPS[0];
+    }
+
+    private static StringBuilder appendPhone(StringBuilder out, SplittableRandom random) {
+        out.append(200 + random.nextInt(800)).append('-');
+        pad(out, random.nextInt(1000), 3).append('-');
+        return pad(out, random.nextInt(10000), 4);
+    }
+
+    private static StringBuilder appendEmail(StringBuilder out, String first, String last, int index, String domain) {
+        out.append(first.toLowerCase()).append('.');
+        for (int i = 0; i < last.length(); i++) {
+            char c = last.charAt(i);
+            if (Character.isLetter(c)) {
+                out.append(Character.toLowerCase(c));
+            }
+        }
+        return out.append(index).append('@').append(domain);
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String id(String prefix, long index, int digits) {
+        return pad(new StringBuilder(prefix), index + 1, digits).toString();
+    }
+
+    private static StringBuilder pad(StringBuilder out, long value, int digits) {
+        String text = Long.toString(value);
+        for (int i = text.length(); i < digits; i++) {
+            out.append('0');
+        }
+        return out.append(text);
+    }
+
+    private SplittableRandom random(long stream, long index) {
+        // SplitMix64 finalizer over (seed, stream, index) so neighbouring rows are unrelated
+        long z = seed * 0x9E3779B97F4A7C15L + stream * 0xBF58476D1CE4E5B9L + index * 0x94D049BB133111EBL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    // One COPY worth of rows in PostgreSQL's text format
+    private abstract static class Chunk {
+        abstract void write(StringBuilder out);
+    }
+
+    private Result load(String table, String target, List<Chunk> chunks) {
+        final String sql = "COPY " + target + " FROM STDIN";
+        final Result result = new Result(table);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, TaskExecutors.daemonThreadFactory("generate-" + table));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (final Chunk chunk : chunks) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws SQLException, IOException {
+                        StringBuilder out = new StringBuilder(1 << 20);
+                        chunk.write(out);
+                        try (Connection conn = DatabaseConnection.getConnection()) {
+                            long rows = conn.unwrap(PGConnection.class).getCopyAPI()
+                                .copyIn(sql, new StringReader(out.toString()));
+                            chunkLoaded(result, rows);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new DataAccessException("Error loading " + table + ": " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while loading " + table, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return result.snapshot();
+    }
+
+    private void chunkLoaded(Result result, long rows) {
+        Result progress;
+        synchronized (result) {
+            result.rows += rows;
+            progress = result.snapshot();
+        }
+        if (progressListener != null) {
+            progressListener.accept(progress);
+        }
+    }
+
+    public static class Result {
+        private final String table;
+        private final long started;
+        private long rows;
+        private long elapsedMillis;
+
+        Result(String table) {
+            this.table = table;
+            this.started = System.currentTimeMillis();
+        }
+
+        synchronized Result snapshot() {
+            Result copy = new Result(table);
+            copy.rows = rows;
+            copy.elapsedMillis = System.currentTimeMillis() - started;
+            return copy;
+        }
+
+        public String getTable() { return table; }
+        public long getRows() { return rows; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public double getRowsPerSecond() {
+            return elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d rows in %.1fs (%.0f rows/s)", table, rows, elapsedMillis / 1000.0, getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package dao;
+
+import model.DatabaseConnection;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Reads the deleted_rows tombstones the record_deleted_rows() triggers write (see
+// schema_postgresql.sql), so polling workstations see deletes as well as the inserts
+// and updates the updated_at watermark finds. Tombstones are kept for a day.
+public class DeletedRows {
+    public static final String PATIENTS = "patients";
+    public static final String DOCTORS = "doctors";
+    public static final String APPOINTMENTS = "appointments";
+
+    private DeletedRows() {
+    }
+
+    // Ids deleted from the table after the watermark, with their delete time, oldest first
+    public static Map<String, LocalDateTime> deletedSince(String table, LocalDateTime since) {
+        Map<String, LocalDateTime> deleted = new LinkedHashMap<>();
+        String sql = "SELECT row_id, deleted_at FROM deleted_rows " +
+                    "WHERE table_name = ? AND deleted_at > ? ORDER BY deleted_at";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, table);
+            pstmt.setTimestamp(2, Timestamp.valueOf(since));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    deleted.put(rs.getString("row_id"), rs.getTimestamp("deleted_at").toLocalDateTime());
+                }
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Error retrieving deleted " + table + ": " + e.getMessage());
+        }
+
+        return deleted;
+    }
+}
@@ -3,27 +3,39 @@ package dao;
 import model.Doctor;
 import model.DatabaseConnection;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class DoctorDAO {
     
+    // Shared with BulkImporter so single and batched inserts write the same columns
+    static final String INSERT_SQL = "INSERT INTO doctors (doctor_id, name, specialization, phone, email, qualification, experience_years, consultation_fee) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    // Shared with UnitOfWork
+    static final String UPDATE_SQL = "UPDATE doctors SET name = ?, specialization = ?, phone = ?, email = ?, qualification = ?, experience_years = ?, consultation_fee = ?, available = ? WHERE doctor_id = ?";
+    // Doctor lists are ordered by name independently of the database locale (see BY_NAME)
+    private static final String ORDER_BY_NAME = "ORDER BY name COLLATE \"C\", doctor_id";
+    
+    private final EntityCache<Doctor> cache = EntityCache.doctors();
+    
     public boolean addDoctor(Doctor doctor) {
-        String sql = "INSERT INTO doctors (doctor_id, name, specialization, phone, email, qualification, experience_years, consultation_fee) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL + " RETURNING *")) {
             
-            pstmt.setString(1, doctor.getDoctorId());
-            pstmt.setString(2, doctor.getName());
-            pstmt.setString(3, doctor.getSpecialization());
-            pstmt.setString(4, doctor.getPhone());
-            pstmt.setString(5, doctor.getEmail());
-            pstmt.setString(6, doctor.getQualification());
-            pstmt.setInt(7, doctor.getExperienceYears());
-            pstmt.setDouble(8, doctor.getConsultationFee());
-            
-            return pstmt.executeUpdate() > 0;
+            bindInsert(pstmt, doctor);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                Doctor stored = mapDoctor(rs);
+                cache.put(stored.getDoctorId(), stored);
+                return true;
+            }
             
         } catch (SQLException e) {
             System.err.println("Error adding doctor: " + e.getMessage());
@@ -31,30 +43,39 @@ public class DoctorDAO {
         }
     }
     
+    static void bindInsert(PreparedStatement pstmt, Doctor doctor) throws SQLException {
+        pstmt.setString(1, doctor.getDoctorId());
+        pstmt.setString(2, doctor.getName());
+        pstmt.setString(3, doctor.getSpecialization());
+        pstmt.setString(4, doctor.getPhone());
+        pstmt.setString(5, doctor.getEmail());
+        pstmt.setString(6, doctor.getQualification());
+        pstmt.setInt(7, doctor.getExperienceYears());
+        pstmt.setDouble(8, doctor.getConsultationFee());
+    }
+    
     public List<Doctor> getAllDoctors() {
-        List<Doctor> doctors = new ArrayList<>();
-        String sql = "SELECT * FROM doctors ORDER BY name";
+        List<Doctor> doctors = cache.getAll();
+        if (doctors != null) {
+            Collections.sort(doctors, BY_NAME);
+            return doctors;
+        }
+        doctors = new ArrayList<>();
+        String sql = "SELECT * FROM doctors " + ORDER_BY_NAME;
+        long cacheVersion = cache.getVersion();
         
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
+            Map<String, Doctor> byId = new HashMap<>();
             while (rs.next()) {
-                Doctor doctor = new Doctor();
-                doctor.setId(rs.getInt("id"));
-                doctor.setDoctorId(rs.getString("doctor_id"));
-                doctor.setName(rs.getString("name"));
-                doctor.setSpecialization(rs.getString("specialization"));
-                doctor.setPhone(rs.getString("phone"));
-                doctor.setEmail(rs.getString("email"));
-                doctor.setQualification(rs.getString("qualification"));
-                doctor.setExperienceYears(rs.getInt("experience_years"));
-                doctor.setConsultationFee(rs.getDouble("consultation_fee"));
-                doctor.setAvailable(rs.getBoolean("available"));
-                doctor.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                Doctor doctor = mapDoctor(rs);
                 
                 doctors.add(doctor);
+                byId.put(doctor.getDoctorId(), doctor);
             }
+            cache.putAll(byId, cacheVersion);
             
         } catch (SQLException e) {
             System.err.println("Error retrieving doctors: " + e.getMessage());
@@ -64,8 +85,19 @@ public class DoctorDAO {
     }
     
     public List<Doctor> getDoctorsBySpecialization(String specialization) {
+        List<Doctor> cached = cache.getAll();
+        if (cached != null) {
+            List<Doctor> matching = new ArrayList<>();
+            for (Doctor doctor : cached) {
+                if (doctor.isAvailable() && specialization.equals(doctor.getSpecialization())) {
+                    matching.add(doctor);
+                }
+            }
+            Collections.sort(matching, BY_NAME);
+            return matching;
+        }
         List<Doctor> doctors = new ArrayList<>();
-        String sql = "SELECT * FROM doctors WHERE specialization = ? AND available = TRUE ORDER BY name";
+        String sql = "SELECT * FROM doctors WHERE specialization = ? AND available = TRUE " + ORDER_BY_NAME;
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -74,18 +106,7 @@ public class DoctorDAO {
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                Doctor doctor = new Doctor();
-                doctor.setId(rs.getInt("id"));
-                doctor.setDoctorId(rs.getString("doctor_id"));
-                doctor.setName(rs.getString("name"));
-                doctor.setSpecialization(rs.getString("specialization"));
-                doctor.setPhone(rs.getString("phone"));
-                doctor.setEmail(rs.getString("email"));
-                doctor.setQualification(rs.getString("qualification"));
-                doctor.setExperienceYears(rs.getInt("experience_years"));
-                doctor.setConsultationFee(rs.getDouble("consultation_fee"));
-                doctor.setAvailable(rs.getBoolean("available"));
-                doctor.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                Doctor doctor = mapDoctor(rs);
                 
                 doctors.add(doctor);
             }
@@ -100,22 +121,18 @@ public class DoctorDAO {
     }
     
     public boolean updateDoctor(Doctor doctor) {
-        String sql = "UPDATE doctors SET name = ?, specialization = ?, phone = ?, email = ?, qualification = ?, experience_years = ?, consultation_fee = ?, available = ? WHERE doctor_id = ?";
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL + " RETURNING *")) {
             
-            pstmt.setString(1, doctor.getName());
-            pstmt.setString(2, doctor.getSpecialization());
-            pstmt.setString(3, doctor.getPhone());
-            pstmt.setString(4, doctor.getEmail());
-            pstmt.setString(5, doctor.getQualification());
-            pstmt.setInt(6, doctor.getExperienceYears());
-            pstmt.setDouble(7, doctor.getConsultationFee());
-            pstmt.setBoolean(8, doctor.isAvailable());
-            pstmt.setString(9, doctor.getDoctorId());
-            
-            return pstmt.executeUpdate() > 0;
+            bindUpdate(pstmt, doctor);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                Doctor stored = mapDoctor(rs);
+                cache.put(stored.getDoctorId(), stored);
+                return true;
+            }
             
         } catch (SQLException e) {
             System.err.println("Error updating doctor: " + e.getMessage());
@@ -123,6 +140,18 @@ public class DoctorDAO {
         }
     }
     
+    static void bindUpdate(PreparedStatement pstmt, Doctor doctor) throws SQLException {
+        pstmt.setString(1, doctor.getName());
+        pstmt.setString(2, doctor.getSpecialization());
+        pstmt.setString(3, doctor.getPhone());
+        pstmt.setString(4, doctor.getEmail());
+        pstmt.setString(5, doctor.getQualification());
+        pstmt.setInt(6, doctor.getExperienceYears());
+        pstmt.setDouble(7, doctor.getConsultationFee());
+        pstmt.setBoolean(8, doctor.isAvailable());
+        pstmt.setString(9, doctor.getDoctorId());
+    }
+    
     public boolean deleteDoctor(String doctorId) {
         String sql = "DELETE FROM doctors WHERE doctor_id = ?";
         
@@ -130,7 +159,13 @@ public class DoctorDAO {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, doctorId);
-            return pstmt.executeUpdate() > 0;
+            boolean deleted = pstmt.executeUpdate() > 0;
+            if (deleted) {
+                cache.remove(doctorId);
+                // Appointments cascade with the doctor
+                AvailabilityIndex.getInstance().removeDoctor(doctorId);
+            }
+            return deleted;
             
         } catch (SQLException e) {
             System.err.println("Error deleting doctor: " + e.getMessage());
@@ -157,4 +192,110 @@ public class DoctorDAO {
         
         return specializations;
     }
+    
+    public Doctor getDoctorById(String doctorId) {
+        Doctor doctor = cache.get(doctorId);
+        if (doctor != null) {
+            return doctor;
+        }
+        String sql = "SELECT * FROM doctors WHERE doctor_id = ?";
+        long cacheVersion = cache.getVersion();
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setString(1, doctorId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    doctor = mapDoctor(rs);
+                    cache.putLoaded(doctorId, doctor, cacheVersion);
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving doctor: " + e.getMessage());
+        }
+        
+        return doctor;
+    }
+    
+    // Rows inserted or updated after the given watermark, for incremental refresh
+    public List<Doctor> getDoctorsChangedSince(LocalDateTime since) {
+        List<Doctor> doctors = new ArrayList<>();
+        String sql = "SELECT * FROM doctors WHERE updated_at > ? ORDER BY updated_at";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setTimestamp(1, Timestamp.valueOf(since));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    doctors.add(mapDoctor(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving changed doctors: " + e.getMessage());
+        }
+        
+        return doctors;
+    }
+    
+    public int countDoctors() {
+        String sql = "SELECT COUNT(*) FROM doctors";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error counting doctors: " + e.getMessage());
+        }
+        
+        return -1;
+    }
+    
+    // Streaming variant of getAllDoctors(); close the stream to release the connection
+    public Stream<Doctor> streamAllDoctors(int fetchSize) {
+        String sql = "SELECT * FROM doctors " + ORDER_BY_NAME;
+        return ResultStreams.stream(sql, fetchSize, new ResultStreams.RowMapper<Doctor>() {
+            @Override
+            public Doctor map(ResultSet rs) throws SQLException {
+                return mapDoctor(rs);
+            }
+        });
+    }
+    
+    // Same order as ORDER_BY_NAME, for lists served from the cache and the doctors table.
+    // The "C" collation compares code points like String.compareTo, whatever the
+    // database's locale, and doctor_id breaks ties between namesakes.
+    public static final Comparator<Doctor> BY_NAME = new Comparator<Doctor>() {
+        @Override
+        public int compare(Doctor a, Doctor b) {
+            int byName = a.getName().compareTo(b.getName());
+            return byName != 0 ? byName : a.getDoctorId().compareTo(b.getDoctorId());
+        }
+    };
+    
+    static Doctor mapDoctor(ResultSet rs) throws SQLException {
+        Doctor doctor = new Doctor();
+        doctor.setId(rs.getInt("id"));
+        doctor.setDoctorId(rs.getString("doctor_id"));
+        doctor.setName(rs.getString("name"));
+        doctor.setSpecialization(rs.getString("specialization"));
+        doctor.setPhone(rs.getString("phone"));
+        doctor.setEmail(rs.getString("email"));
+        doctor.setQualification(rs.getString("qualification"));
+        doctor.setExperienceYears(rs.getInt("experience_years"));
+        doctor.setConsultationFee(rs.getDouble("consultation_fee"));
+        doctor.setAvailable(rs.getBoolean("available"));
+        doctor.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        doctor.setUpdatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : doctor.getCreatedAt());
+        return doctor;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package dao;
+
+import model.Doctor;
+import model.Patient;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Process-wide cache of patient and doctor rows keyed by business id, shared by every
+// DAO instance. DAOs read through it, write through it after successful writes, and
+// ChangeFeed drops entries other workstations change. Least recently used entries are
+// evicted beyond maxSize. Cached objects are shared, so callers must not modify them.
+//
+// Reads only hit while the cache is enabled, i.e. while ChangeFeed is listening;
+// otherwise every read goes to the database (tools that don't start the feed, or
+// while it reconnects).
+public class EntityCache<T> {
+    private static final EntityCache<Patient> PATIENTS =
+        new EntityCache<>("patients", Integer.getInteger("cache.patients.maxSize", 10000));
+    private static final EntityCache<Doctor> DOCTORS =
+        new EntityCache<>("doctors", Integer.getInteger("cache.doctors.maxSize", 5000));
+
+    private final String name;
+    private final int maxSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // Guarded by this
+    private final LinkedHashMap<String, T> entries;
+    // Bumped by every write, so a load that raced with one is not cached
+    private long version;
+    // True while entries hold every row of the table (see putAll)
+    private boolean complete;
+    private boolean enabled;
+
+    private EntityCache(String name, final int maxSize) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<String, T>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    complete = false;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static EntityCache<Patient> patients() { return PATIENTS; }
+    public static EntityCache<Doctor> doctors() { return DOCTORS; }
+
+    public synchronized T get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        T value = entries.get(key);
+        (value != null ? hits : misses).incrementAndGet();
+        return value;
+    }
+
+    // Every cached row, or null unless the whole table has been loaded with putAll
+    public synchronized List<T> getAll() {
+        if (!enabled) {
+            return null;
+        }
+        if (!complete) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return new ArrayList<>(entries.values());
+    }
+
+    // Read the version before querying and pass it to putLoaded/putAll afterwards
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized void putLoaded(String key, T value, long loadVersion) {
+        if (enabled && loadVersion == version) {
+            entries.put(key, value);
+        }
+    }
+
+    // Replaces the contents with a full table read; too large a table is not cached
+    public synchronized void putAll(Map<String, T> rows, long loadVersion) {
+        if (!enabled || loadVersion != version || rows.size() > maxSize) {
+            return;
+        }
+        entries.clear();
+        entries.putAll(rows);
+        complete = true;
+    }
+
+    // Write-through of a row this process just stored
+    public synchronized void put(String key, T value) {
+        version++;
+        if (enabled) {
+            entries.put(key, value);
+        }
+    }
+
+    // Write-through of a row this process just deleted
+    public synchronized void remove(String key) {
+        version++;
+        entries.remove(key);
+    }
+
+    // Another process changed the row; its new state is unknown
+    public synchronized void invalidate(String key) {
+        version++;
+        entries.remove(key);
+        complete = false;
+        invalidations.incrementAndGet();
+    }
+
+    public synchronized void invalidateAll() {
+        version++;
+        entries.clear();
+        complete = false;
+        invalidations.incrementAndGet();
+    }
+
+    // Either way the contents start over: rows read while the feed was down (or before it
+    // was listening) may have missed changes
+    public synchronized void setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            version++;
+            entries.clear();
+            complete = false;
+            this.enabled = enabled;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public String getStatistics() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return String.format("EntityCache(%s)[size=%d/%d, hits=%d, misses=%d, evictions=%d, invalidations=%d, hitRate=%.1f%%]",
+                             name, size(), maxSize, hitCount, misses.get(), evictions.get(), invalidations.get(),
+                             total == 0 ? 0.0 : hitCount * 100.0 / total);
+    }
+}
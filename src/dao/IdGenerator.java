@@ -0,0 +1,152 @@
+package dao;
+
+import model.DatabaseConnection;
+import model.TaskExecutors;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Hands out business ids (PAT1000, DOC1000, APT1000, ...) from blocks reserved with a
+// single nextval() on a PostgreSQL sequence (hi/lo): the sequence's INCREMENT BY is the
+// block size, so workstations never overlap. Within a block ids come from an atomic
+// counter without locks or database calls, and the next block is fetched in the
+// background once most of the current one is used. If the sequence can't be reached,
+// ids fall back to time-ordered values that are unique without the database.
+public class IdGenerator {
+    // Declared before the generators, whose constructors use it
+    private static final Block EMPTY = new Block(0, 0);
+
+    private static final IdGenerator PATIENTS = new IdGenerator("PAT", "patient_id_seq");
+    private static final IdGenerator DOCTORS = new IdGenerator("DOC", "doctor_id_seq");
+    private static final IdGenerator APPOINTMENTS = new IdGenerator("APT", "appointment_id_seq");
+
+    // Fallback ids: 41 bits of millis since 2020-01-01 UTC, 10 bits of random node id,
+    // 12 bits of sequence
+    private static final long EPOCH_MILLIS = 1577836800000L;
+    private static final long NODE_ID = new SecureRandom().nextInt(1 << 10);
+    private static final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+    private final String prefix;
+    private final String sequence;
+    private final AtomicReference<Block> current = new AtomicReference<>(EMPTY);
+    private final AtomicReference<Block> spare = new AtomicReference<>();
+    private final AtomicBoolean prefetching = new AtomicBoolean();
+    private volatile boolean warnedFallback;
+
+    private IdGenerator(String prefix, String sequence) {
+        this.prefix = prefix;
+        this.sequence = sequence;
+    }
+
+    public static IdGenerator patients() { return PATIENTS; }
+    public static IdGenerator doctors() { return DOCTORS; }
+    public static IdGenerator appointments() { return APPOINTMENTS; }
+
+    public String nextId() {
+        while (true) {
+            Block block = current.get();
+            long id = block.next.getAndIncrement();
+            if (id < block.end) {
+                if (id == block.prefetchAt) {
+                    prefetch();
+                }
+                return prefix + id;
+            }
+            // Block used up: take the prefetched one, or reserve a new one now
+            Block fresh = spare.getAndSet(null);
+            if (fresh == null) {
+                fresh = reserveBlock();
+            }
+            if (fresh == null) {
+                return timeOrderedId();
+            }
+            if (!current.compareAndSet(block, fresh)) {
+                // Another thread installed a block first; keep ours for later if there's room
+                spare.compareAndSet(null, fresh);
+            }
+        }
+    }
+
+    private void prefetch() {
+        if (!prefetching.compareAndSet(false, true)) {
+            return;
+        }
+        TaskExecutors.background().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Block block = reserveBlock();
+                    if (block != null) {
+                        spare.compareAndSet(null, block);
+                    }
+                } finally {
+                    prefetching.set(false);
+                }
+            }
+        });
+    }
+
+    private Block reserveBlock() {
+        String sql = "SELECT nextval(?::regclass), seqincrement FROM pg_sequence WHERE seqrelid = ?::regclass";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, sequence);
+                pstmt.setString(2, sequence);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        long start = rs.getLong(1);
+                        return new Block(start, start + rs.getLong(2));
+                    }
+                }
+            }
+
+        } catch (SQLException e) {
+            warnFallback(e.getMessage());
+        }
+        return null;
+    }
+
+    private void warnFallback(String reason) {
+        if (!warnedFallback) {
+            warnedFallback = true;
+            System.err.println("Error reserving ids from " + sequence + ", using time-ordered ids: " + reason);
+        }
+    }
+
+    // Prefix plus 13 base-36 digits, e.g. APT0JZ3K8QW1C2X4 (16 chars, fits VARCHAR(20))
+    private String timeOrderedId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << 12;
+        long previous;
+        long next;
+        do {
+            previous = lastTimeAndSequence.get();
+            next = Math.max(previous + 1, now);
+        } while (!lastTimeAndSequence.compareAndSet(previous, next));
+        long millis = next >>> 12;
+        long sequenceNumber = next & 0xFFF;
+        long value = (millis << 22) | (NODE_ID << 12) | sequenceNumber;
+        StringBuilder digits = new StringBuilder(Long.toString(value, 36).toUpperCase());
+        while (digits.length() < 13) {
+            digits.insert(0, '0');
+        }
+        return prefix + digits;
+    }
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+        final long prefetchAt;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+            this.prefetchAt = start + (end - start) * 3 / 4;
+        }
+    }
+}
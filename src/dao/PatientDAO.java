@@ -3,28 +3,35 @@ package dao;
 import model.Patient;
 import model.DatabaseConnection;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class PatientDAO {
+    // Shared with BulkImporter so single and batched inserts write the same columns
+    static final String INSERT_SQL = "INSERT INTO patients (patient_id, name, age, gender, phone, email, address, blood_group, emergency_contact) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // Shared with UnitOfWork
+    static final String UPDATE_SQL = "UPDATE patients SET name = ?, age = ?, gender = ?, phone = ?, email = ?, address = ?, blood_group = ?, emergency_contact = ? WHERE patient_id = ?";
+    
+    private final PatientSearchIndex searchIndex = PatientSearchIndex.getInstance();
+    private final EntityCache<Patient> cache = EntityCache.patients();
     
     public boolean addPatient(Patient patient) {
-        String sql = "INSERT INTO patients (patient_id, name, age, gender, phone, email, address, blood_group, emergency_contact) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, patient.getPatientId());
-            pstmt.setString(2, patient.getName());
-            pstmt.setInt(3, patient.getAge());
-            pstmt.setString(4, patient.getGender());
-            pstmt.setString(5, patient.getPhone());
-            pstmt.setString(6, patient.getEmail());
-            pstmt.setString(7, patient.getAddress());
-            pstmt.setString(8, patient.getBloodGroup());
-            pstmt.setString(9, patient.getEmergencyContact());
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL + " RETURNING *")) {
             
-            return pstmt.executeUpdate() > 0;
+            bindInsert(pstmt, patient);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                stored(mapPatient(rs));
+                return true;
+            }
             
         } catch (SQLException e) {
             System.err.println("Error adding patient: " + e.getMessage());
@@ -32,6 +39,24 @@ public class PatientDAO {
         }
     }
     
+    // Write-through of the row as stored, with its database timestamps
+    void stored(Patient patient) {
+        cache.put(patient.getPatientId(), patient);
+        searchIndex.upsert(patient);
+    }
+    
+    static void bindInsert(PreparedStatement pstmt, Patient patient) throws SQLException {
+        pstmt.setString(1, patient.getPatientId());
+        pstmt.setString(2, patient.getName());
+        pstmt.setInt(3, patient.getAge());
+        pstmt.setString(4, patient.getGender());
+        pstmt.setString(5, patient.getPhone());
+        pstmt.setString(6, patient.getEmail());
+        pstmt.setString(7, patient.getAddress());
+        pstmt.setString(8, patient.getBloodGroup());
+        pstmt.setString(9, patient.getEmergencyContact());
+    }
+    
     public List<Patient> getAllPatients() {
         List<Patient> patients = new ArrayList<>();
         String sql = "SELECT * FROM patients ORDER BY created_at DESC";
@@ -41,18 +66,7 @@ public class PatientDAO {
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                Patient patient = new Patient();
-                patient.setId(rs.getInt("id"));
-                patient.setPatientId(rs.getString("patient_id"));
-                patient.setName(rs.getString("name"));
-                patient.setAge(rs.getInt("age"));
-                patient.setGender(rs.getString("gender"));
-                patient.setPhone(rs.getString("phone"));
-                patient.setEmail(rs.getString("email"));
-                patient.setAddress(rs.getString("address"));
-                patient.setBloodGroup(rs.getString("blood_group"));
-                patient.setEmergencyContact(rs.getString("emergency_contact"));
-                patient.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                Patient patient = mapPatient(rs);
                 
                 patients.add(patient);
             }
@@ -65,8 +79,12 @@ public class PatientDAO {
     }
     
     public Patient getPatientById(String patientId) {
+        Patient patient = cache.get(patientId);
+        if (patient != null) {
+            return patient;
+        }
         String sql = "SELECT * FROM patients WHERE patient_id = ?";
-        Patient patient = null;
+        long cacheVersion = cache.getVersion();
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -75,18 +93,8 @@ public class PatientDAO {
             ResultSet rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                patient = new Patient();
-                patient.setId(rs.getInt("id"));
-                patient.setPatientId(rs.getString("patient_id"));
-                patient.setName(rs.getString("name"));
-                patient.setAge(rs.getInt("age"));
-                patient.setGender(rs.getString("gender"));
-                patient.setPhone(rs.getString("phone"));
-                patient.setEmail(rs.getString("email"));
-                patient.setAddress(rs.getString("address"));
-                patient.setBloodGroup(rs.getString("blood_group"));
-                patient.setEmergencyContact(rs.getString("emergency_contact"));
-                patient.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                patient = mapPatient(rs);
+                cache.putLoaded(patientId, patient, cacheVersion);
             }
             
             rs.close();
@@ -99,22 +107,17 @@ public class PatientDAO {
     }
     
     public boolean updatePatient(Patient patient) {
-        String sql = "UPDATE patients SET name = ?, age = ?, gender = ?, phone = ?, email = ?, address = ?, blood_group = ?, emergency_contact = ? WHERE patient_id = ?";
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, patient.getName());
-            pstmt.setInt(2, patient.getAge());
-            pstmt.setString(3, patient.getGender());
-            pstmt.setString(4, patient.getPhone());
-            pstmt.setString(5, patient.getEmail());
-            pstmt.setString(6, patient.getAddress());
-            pstmt.setString(7, patient.getBloodGroup());
-            pstmt.setString(8, patient.getEmergencyContact());
-            pstmt.setString(9, patient.getPatientId());
+             PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL + " RETURNING *")) {
             
-            return pstmt.executeUpdate() > 0;
+            bindUpdate(pstmt, patient);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                stored(mapPatient(rs));
+                return true;
+            }
             
         } catch (SQLException e) {
             System.err.println("Error updating patient: " + e.getMessage());
@@ -122,14 +125,48 @@ public class PatientDAO {
         }
     }
     
+    static void bindUpdate(PreparedStatement pstmt, Patient patient) throws SQLException {
+        pstmt.setString(1, patient.getName());
+        pstmt.setInt(2, patient.getAge());
+        pstmt.setString(3, patient.getGender());
+        pstmt.setString(4, patient.getPhone());
+        pstmt.setString(5, patient.getEmail());
+        pstmt.setString(6, patient.getAddress());
+        pstmt.setString(7, patient.getBloodGroup());
+        pstmt.setString(8, patient.getEmergencyContact());
+        pstmt.setString(9, patient.getPatientId());
+    }
+    
     public boolean deletePatient(String patientId) {
-        String sql = "DELETE FROM patients WHERE patient_id = ?";
+        // The patient's appointments cascade; capture their slots so the availability index can free them
+        String sql = "WITH freed AS (SELECT doctor_id, appointment_date, appointment_time FROM appointments " +
+                    "WHERE patient_id = ? AND status IS DISTINCT FROM 'Cancelled'), " +
+                    "deleted AS (DELETE FROM patients WHERE patient_id = ? RETURNING patient_id) " +
+                    "SELECT f.doctor_id, f.appointment_date, f.appointment_time, d.patient_id " +
+                    "FROM deleted d LEFT JOIN freed f ON TRUE";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, patientId);
-            return pstmt.executeUpdate() > 0;
+            pstmt.setString(2, patientId);
+            boolean deleted = false;
+            AvailabilityIndex availability = AvailabilityIndex.getInstance();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    deleted = true;
+                    String doctorId = rs.getString("doctor_id");
+                    if (doctorId != null) {
+                        availability.markFree(doctorId, rs.getDate("appointment_date").toLocalDate(),
+                                              rs.getTime("appointment_time").toLocalTime());
+                    }
+                }
+            }
+            if (deleted) {
+                cache.remove(patientId);
+                searchIndex.remove(patientId);
+            }
+            return deleted;
             
         } catch (SQLException e) {
             System.err.println("Error deleting patient: " + e.getMessage());
@@ -149,18 +186,7 @@ public class PatientDAO {
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                Patient patient = new Patient();
-                patient.setId(rs.getInt("id"));
-                patient.setPatientId(rs.getString("patient_id"));
-                patient.setName(rs.getString("name"));
-                patient.setAge(rs.getInt("age"));
-                patient.setGender(rs.getString("gender"));
-                patient.setPhone(rs.getString("phone"));
-                patient.setEmail(rs.getString("email"));
-                patient.setAddress(rs.getString("address"));
-                patient.setBloodGroup(rs.getString("blood_group"));
-                patient.setEmergencyContact(rs.getString("emergency_contact"));
-                patient.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                Patient patient = mapPatient(rs);
                 
                 patients.add(patient);
             }
@@ -173,4 +199,255 @@ public class PatientDAO {
         
         return patients;
     }
+    
+    // Typeahead search over names, patient ids and phone numbers, best matches first.
+    // Served from the in-memory index once it is built, otherwise by pg_trgm in the database.
+    public List<Patient> searchPatients(String term, int limit) {
+        if (searchIndex.isLoaded()) {
+            return getPatientsByIds(searchIndex.search(term, limit));
+        }
+        List<Patient> patients = new ArrayList<>();
+        String sql = "SELECT * FROM patients " +
+                    "WHERE name ILIKE ? OR patient_id ILIKE ? OR phone ILIKE ? " +
+                    "ORDER BY name ILIKE ? DESC, similarity(name, ?) DESC, name LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            String query = term.trim();
+            pstmt.setString(1, "%" + query + "%");
+            pstmt.setString(2, "%" + query + "%");
+            pstmt.setString(3, "%" + query + "%");
+            pstmt.setString(4, query + "%");
+            pstmt.setString(5, query);
+            pstmt.setInt(6, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapPatient(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error searching patients: " + e.getMessage());
+        }
+        
+        return patients;
+    }
+    
+    // Rows for the given ids in the same order; ids that no longer exist are skipped.
+    // Cached rows are used as they are and only the rest is queried.
+    public List<Patient> getPatientsByIds(List<String> patientIds) {
+        Map<String, Patient> byId = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String patientId : patientIds) {
+            Patient patient = cache.get(patientId);
+            if (patient != null) {
+                byId.put(patientId, patient);
+            } else {
+                missing.add(patientId);
+            }
+        }
+        
+        if (!missing.isEmpty()) {
+            String sql = "SELECT * FROM patients WHERE patient_id = ANY(?)";
+            long cacheVersion = cache.getVersion();
+            
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                
+                pstmt.setArray(1, conn.createArrayOf("varchar", missing.toArray()));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Patient patient = mapPatient(rs);
+                        byId.put(patient.getPatientId(), patient);
+                        cache.putLoaded(patient.getPatientId(), patient, cacheVersion);
+                    }
+                }
+                
+            } catch (SQLException e) {
+                System.err.println("Error retrieving patients: " + e.getMessage());
+            }
+        }
+        
+        List<Patient> patients = new ArrayList<>(patientIds.size());
+        for (String patientId : patientIds) {
+            Patient patient = byId.get(patientId);
+            if (patient != null) {
+                patients.add(patient);
+            }
+        }
+        return patients;
+    }
+    
+    // Re-reads rows another workstation changed (see ChangeFeed), keeping the search
+    // index in step; ids without a row were deleted meanwhile
+    public List<Patient> getChangedPatients(List<String> patientIds) {
+        List<Patient> patients = getPatientsByIds(patientIds);
+        searchIndex.upsertAll(patients);
+        return patients;
+    }
+    
+    // Fills the search index from a cursor in batches, so live edits interleave with the load
+    public boolean buildSearchIndex() {
+        try (Stream<Patient> patients = streamAllPatients(ResultStreams.DEFAULT_FETCH_SIZE)) {
+            List<Patient> batch = new ArrayList<>(ResultStreams.DEFAULT_FETCH_SIZE);
+            Iterator<Patient> it = patients.iterator();
+            while (it.hasNext()) {
+                batch.add(it.next());
+                if (batch.size() == ResultStreams.DEFAULT_FETCH_SIZE) {
+                    searchIndex.upsertAll(batch);
+                    batch.clear();
+                }
+            }
+            searchIndex.upsertAll(batch);
+            searchIndex.markLoaded();
+            return true;
+            
+        } catch (DataAccessException e) {
+            System.err.println("Error building patient search index: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // Rows inserted or updated after the given watermark, for incremental refresh
+    public List<Patient> getPatientsChangedSince(LocalDateTime since) {
+        List<Patient> patients = new ArrayList<>();
+        String sql = "SELECT * FROM patients WHERE updated_at > ? ORDER BY updated_at";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setTimestamp(1, Timestamp.valueOf(since));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapPatient(rs));
+                }
+            }
+            // Edits from other workstations keep the search index current too
+            searchIndex.upsertAll(patients);
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving changed patients: " + e.getMessage());
+        }
+        
+        return patients;
+    }
+    
+    public int countPatients() {
+        String sql = "SELECT COUNT(*) FROM patients";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error counting patients: " + e.getMessage());
+        }
+        
+        return -1;
+    }
+    
+    // Keyset pagination in list order (newest first). Pass the last row of the
+    // previous page, or null for the first page; seeks on (created_at, id).
+    public List<Patient> getPatientsAfter(Patient last, int limit) {
+        List<Patient> patients = new ArrayList<>();
+        String sql = last == null
+            ? "SELECT * FROM patients ORDER BY created_at DESC, id DESC LIMIT ?"
+            : "SELECT * FROM patients WHERE (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            if (last != null) {
+                pstmt.setTimestamp(index++, Timestamp.valueOf(last.getCreatedAt()));
+                pstmt.setInt(index++, last.getId());
+            }
+            pstmt.setInt(index, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    patients.add(mapPatient(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving patient page: " + e.getMessage());
+        }
+        
+        return patients;
+    }
+    
+    // Row at an absolute position, used as the seek anchor when the viewport jumps
+    public Patient getPatientAtOffset(int offset) {
+        String sql = "SELECT * FROM patients ORDER BY created_at DESC, id DESC OFFSET ? LIMIT 1";
+        Patient patient = null;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, offset);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    patient = mapPatient(rs);
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving patient at offset: " + e.getMessage());
+        }
+        
+        return patient;
+    }
+    
+    public LocalDateTime getLatestPatientUpdate() {
+        String sql = "SELECT MAX(updated_at) FROM patients";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            
+            if (rs.next() && rs.getTimestamp(1) != null) {
+                return rs.getTimestamp(1).toLocalDateTime();
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error retrieving latest patient update: " + e.getMessage());
+        }
+        
+        return null;
+    }
+    
+    // Streaming variant of getAllPatients() for exports and reports: rows arrive through a
+    // server-side cursor fetchSize at a time. Close the stream to release the connection.
+    public Stream<Patient> streamAllPatients(int fetchSize) {
+        String sql = "SELECT * FROM patients ORDER BY created_at DESC";
+        return ResultStreams.stream(sql, fetchSize, new ResultStreams.RowMapper<Patient>() {
+            @Override
+            public Patient map(ResultSet rs) throws SQLException {
+                return mapPatient(rs);
+            }
+        });
+    }
+    
+    static Patient mapPatient(ResultSet rs) throws SQLException {
+        Patient patient = new Patient();
+        patient.setId(rs.getInt("id"));
+        patient.setPatientId(rs.getString("patient_id"));
+        patient.setName(rs.getString("name"));
+        patient.setAge(rs.getInt("age"));
+        patient.setGender(rs.getString("gender"));
+        patient.setPhone(rs.getString("phone"));
+        patient.setEmail(rs.getString("email"));
+        patient.setAddress(rs.getString("address"));
+        patient.setBloodGroup(rs.getString("blood_group"));
+        patient.setEmergencyContact(rs.getString("emergency_contact"));
+        patient.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        patient.setUpdatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : patient.getCreatedAt());
+        return patient;
+    }
 }
\ No newline at end of file
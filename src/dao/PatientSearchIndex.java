@@ -0,0 +1,367 @@
+package dao;
+
+import model.Patient;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory index over patient names, ids and phone numbers for typeahead search.
+// Matches are returned in three tiers, best first:
+//   1. the full name, patient id or phone number starts with the query
+//   2. a later word of the name starts with the query
+//   3. the query appears anywhere (like ILIKE '%term%'; three characters or more)
+// Tiers 1 and 2 walk sorted word dictionaries from the query onwards, so results come
+// out alphabetically and the walk stops as soon as enough are found. Tier 3
+// intersects trigram posting lists and verifies candidates against the stored text.
+//
+// Documents are append-only: an update appends a new document and retires the old
+// one, so posting lists stay sorted without rewriting. The index is compacted once
+// a quarter of it is retired. Only ids and search text are kept; callers load the
+// matching rows from the database.
+public class PatientSearchIndex {
+    private static final PatientSearchIndex INSTANCE = new PatientSearchIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All state below is guarded by lock
+    private String[] ids = new String[1024];
+    private String[] names = new String[1024];
+    private String[] phones = new String[1024];
+    private LocalDateTime[] updatedAts = new LocalDateTime[1024];
+    private int documentCount;
+    private int retiredCount;
+    private final Map<String, Integer> documentByPatient = new HashMap<>();
+    private final TreeMap<String, Postings> leadingWords = new TreeMap<>();
+    private final TreeMap<String, Postings> innerWords = new TreeMap<>();
+    private final Map<Long, Postings> trigrams = new HashMap<>();
+
+    private volatile boolean loaded;
+
+    private PatientSearchIndex() {}
+
+    public static PatientSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // False until the initial load has finished; searches should go to the database until then
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentByPatient.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Adds or replaces patients. A row older than the indexed version is ignored, so
+    // a bulk load racing with live edits can't resurrect stale data.
+    public void upsertAll(List<Patient> patients) {
+        lock.writeLock().lock();
+        try {
+            for (Patient patient : patients) {
+                upsertLocked(patient);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsert(Patient patient) {
+        upsertAll(Collections.singletonList(patient));
+    }
+
+    public void remove(String patientId) {
+        lock.writeLock().lock();
+        try {
+            Integer document = documentByPatient.remove(patientId);
+            if (document != null) {
+                retire(document);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            reset(1024);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Patient ids of the best matches, best first
+    public List<String> search(String term, int limit) {
+        String query = normalizeQuery(term);
+        List<String> result = new ArrayList<>();
+        if (query.isEmpty() || limit <= 0) {
+            return result;
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<Integer> found = new HashSet<>();
+            collectPrefixMatches(leadingWords, query, limit, found, result);
+            collectPrefixMatches(innerWords, query, limit, found, result);
+            if (result.size() < limit && query.length() >= 3) {
+                collectSubstringMatches(query, limit, found, result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collectPrefixMatches(TreeMap<String, Postings> words, String query, int limit,
+                                      Set<Integer> found, List<String> result) {
+        for (Map.Entry<String, Postings> entry : words.tailMap(query, true).entrySet()) {
+            if (result.size() >= limit || !entry.getKey().startsWith(query)) {
+                return;
+            }
+            Postings postings = entry.getValue();
+            for (int i = 0; i < postings.size && result.size() < limit; i++) {
+                int document = postings.documents[i];
+                if (ids[document] != null && found.add(document)) {
+                    result.add(ids[document]);
+                }
+            }
+        }
+    }
+
+    private void collectSubstringMatches(String query, int limit, Set<Integer> found, List<String> result) {
+        Postings[] lists = new Postings[query.length() - 2];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = trigrams.get(gram(query, i));
+            if (lists[i] == null) {
+                return;
+            }
+        }
+        Arrays.sort(lists, new Comparator<Postings>() {
+            @Override
+            public int compare(Postings a, Postings b) {
+                return Integer.compare(a.size, b.size);
+            }
+        });
+        Postings smallest = lists[0];
+        for (int i = 0; i < smallest.size && result.size() < limit; i++) {
+            int document = smallest.documents[i];
+            if (ids[document] == null || found.contains(document) || !containsAll(lists, document)) {
+                continue;
+            }
+            // Trigrams can all be present without the query being contiguous
+            if (names[document].contains(query) || phones[document].contains(query) ||
+                ids[document].toLowerCase(Locale.ROOT).contains(query)) {
+                found.add(document);
+                result.add(ids[document]);
+            }
+        }
+    }
+
+    private boolean containsAll(Postings[] lists, int document) {
+        for (int i = 1; i < lists.length; i++) {
+            if (Arrays.binarySearch(lists[i].documents, 0, lists[i].size, document) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void upsertLocked(Patient patient) {
+        String patientId = patient.getPatientId();
+        if (patientId == null) {
+            return;
+        }
+        Integer existing = documentByPatient.get(patientId);
+        if (existing != null) {
+            LocalDateTime indexed = updatedAts[existing];
+            LocalDateTime incoming = patient.getUpdatedAt();
+            if (indexed != null && incoming != null && incoming.isBefore(indexed)) {
+                return;
+            }
+            retire(existing);
+        }
+        add(patientId, lower(patient.getName()), digits(patient.getPhone()), patient.getUpdatedAt());
+    }
+
+    private void add(String patientId, String name, String phone, LocalDateTime updatedAt) {
+        int document = documentCount++;
+        ensureCapacity(documentCount);
+        ids[document] = patientId;
+        names[document] = name;
+        phones[document] = phone;
+        updatedAts[document] = updatedAt;
+        documentByPatient.put(patientId, document);
+
+        String id = lower(patientId);
+        addWord(leadingWords, id, document);
+        addWord(leadingWords, name, document);
+        addWord(leadingWords, phone, document);
+        String[] words = name.split(" ");
+        for (int i = 1; i < words.length; i++) {
+            addWord(innerWords, words[i], document);
+        }
+        addTrigrams(id, document);
+        addTrigrams(name, document);
+        addTrigrams(phone, document);
+    }
+
+    // Retired documents keep their postings until compaction; lookups skip them
+    private void retire(int document) {
+        ids[document] = null;
+        names[document] = null;
+        phones[document] = null;
+        updatedAts[document] = null;
+        retiredCount++;
+    }
+
+    private void compactIfNeeded() {
+        if (retiredCount < 1024 || retiredCount < documentCount / 4) {
+            return;
+        }
+        String[] oldIds = ids;
+        String[] oldNames = names;
+        String[] oldPhones = phones;
+        LocalDateTime[] oldUpdatedAts = updatedAts;
+        int oldCount = documentCount;
+
+        reset(Math.max(1024, documentByPatient.size() * 2));
+        for (int old = 0; old < oldCount; old++) {
+            if (oldIds[old] != null) {
+                add(oldIds[old], oldNames[old], oldPhones[old], oldUpdatedAts[old]);
+            }
+        }
+    }
+
+    private void reset(int capacity) {
+        ids = new String[capacity];
+        names = new String[capacity];
+        phones = new String[capacity];
+        updatedAts = new LocalDateTime[capacity];
+        documentCount = 0;
+        retiredCount = 0;
+        documentByPatient.clear();
+        leadingWords.clear();
+        innerWords.clear();
+        trigrams.clear();
+    }
+
+    private static void addWord(TreeMap<String, Postings> words, String word, int document) {
+        if (word.isEmpty()) {
+            return;
+        }
+        Postings postings = words.get(word);
+        if (postings == null) {
+            postings = new Postings();
+            words.put(word, postings);
+        }
+        postings.add(document);
+    }
+
+    private void addTrigrams(String text, int document) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            long gram = gram(text, i);
+            Postings postings = trigrams.get(gram);
+            if (postings == null) {
+                postings = new Postings();
+                trigrams.put(gram, postings);
+            }
+            postings.add(document);
+        }
+    }
+
+    private static long gram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    // Phone-like queries are matched on digits only, so "555-01" finds "(555) 012-3456"
+    private static String normalizeQuery(String term) {
+        String query = lower(term);
+        if (!query.isEmpty() && query.matches("[0-9()+\\-. ]+") && query.matches(".*[0-9].*")) {
+            return digits(query);
+        }
+        return query;
+    }
+
+    // Lower case with runs of whitespace collapsed to one space
+    private static String lower(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder(value.length());
+        boolean space = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = text.length() > 0;
+            } else {
+                if (space) {
+                    text.append(' ');
+                    space = false;
+                }
+                text.append(Character.toLowerCase(c));
+            }
+        }
+        return text.toString();
+    }
+
+    private static String digits(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isDigit(value.charAt(i))) {
+                digits.append(value.charAt(i));
+            }
+        }
+        return digits.toString();
+    }
+
+    private void ensureCapacity(int count) {
+        if (count > ids.length) {
+            int capacity = Math.max(count, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            phones = Arrays.copyOf(phones, capacity);
+            updatedAts = Arrays.copyOf(updatedAts, capacity);
+        }
+    }
+
+    // Ascending document numbers; repeats of the latest document are dropped
+    private static final class Postings {
+        int[] documents = new int[2];
+        int size;
+
+        void add(int document) {
+            if (size > 0 && documents[size - 1] == document) {
+                return;
+            }
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+    }
+}
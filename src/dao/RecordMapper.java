@@ -0,0 +1,103 @@
+package dao;
+
+import model.Appointment;
+import model.Doctor;
+import model.Patient;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+// Builds entities from flat records keyed by database column name, as read by
+// RecordReader (bulk import) or sent to the REST service. Unparseable values throw
+// IllegalArgumentException with a message fit to show to whoever sent the record;
+// RecordValidator checks the result.
+public class RecordMapper {
+
+    private RecordMapper() {}
+
+    public static Patient toPatient(Map<String, String> record) {
+        return new Patient(
+            text(record, "patient_id"),
+            text(record, "name"),
+            integer(record, "age"),
+            nullIfEmpty(text(record, "gender")),
+            text(record, "phone"),
+            text(record, "email"),
+            text(record, "address"),
+            text(record, "blood_group"),
+            text(record, "emergency_contact"));
+    }
+
+    public static Doctor toDoctor(Map<String, String> record) {
+        return new Doctor(
+            text(record, "doctor_id"),
+            text(record, "name"),
+            text(record, "specialization"),
+            text(record, "phone"),
+            text(record, "email"),
+            text(record, "qualification"),
+            integer(record, "experience_years"),
+            decimal(record, "consultation_fee"));
+    }
+
+    public static Appointment toAppointment(Map<String, String> record) {
+        Appointment appointment = new Appointment(
+            text(record, "appointment_id"),
+            text(record, "patient_id"),
+            text(record, "doctor_id"),
+            date(record, "appointment_date"),
+            time(record, "appointment_time"),
+            text(record, "reason"));
+        String status = text(record, "status");
+        if (!status.isEmpty()) {
+            appointment.setStatus(status);
+        }
+        return appointment;
+    }
+
+    public static String text(Map<String, String> record, String column) {
+        String value = record.get(column);
+        return value == null ? "" : value.trim();
+    }
+
+    private static String nullIfEmpty(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    public static int integer(Map<String, String> record, String column) {
+        String value = text(record, column);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + column + ": '" + value + "'");
+        }
+    }
+
+    public static double decimal(Map<String, String> record, String column) {
+        String value = text(record, column);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + column + ": '" + value + "'");
+        }
+    }
+
+    public static LocalDate date(Map<String, String> record, String column) {
+        String value = text(record, column);
+        try {
+            return value.isEmpty() ? null : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date for " + column + " (expected YYYY-MM-DD): '" + value + "'");
+        }
+    }
+
+    public static LocalTime time(Map<String, String> record, String column) {
+        String value = text(record, column);
+        try {
+            return value.isEmpty() ? null : LocalTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time for " + column + " (expected HH:MM): '" + value + "'");
+        }
+    }
+}
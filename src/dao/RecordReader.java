@@ -0,0 +1,305 @@
+package dao;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Streams flat records out of a CSV file (first row is the header) or a JSON file
+// (an array of objects, or one object per line). Keys are the column names used in
+// the database, e.g. patient_id. Only the current record is held in memory.
+public abstract class RecordReader implements Closeable {
+
+    // A single record that cannot be read; the rest of the input is still usable
+    public static class MalformedRecordException extends IOException {
+        public MalformedRecordException(String message) {
+            super(message);
+        }
+    }
+
+    protected final Reader in;
+    private int pushedBack = -2;
+    protected int line = 1;
+    protected int recordLine;
+    protected final StringBuilder raw = new StringBuilder();
+
+    protected RecordReader(Reader in) {
+        this.in = in;
+    }
+
+    public static RecordReader open(File file) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 1 << 16);
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".json") || name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return new JsonRecordReader(reader);
+        }
+        return new CsvRecordReader(reader);
+    }
+
+    // JSON records from any source, e.g. an HTTP request body
+    public static RecordReader json(Reader in) {
+        return new JsonRecordReader(in);
+    }
+
+    // Next record, or null at end of input
+    public abstract Map<String, String> next() throws IOException;
+
+    // Line on which the last record returned (or rejected) started
+    public int getRecordLine() {
+        return recordLine;
+    }
+
+    // Source text of the last record, for the error file
+    public String getRawRecord() {
+        return raw.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    protected int read() throws IOException {
+        int c;
+        if (pushedBack != -2) {
+            c = pushedBack;
+            pushedBack = -2;
+        } else {
+            c = in.read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+        if (c != -1) {
+            raw.append((char) c);
+        }
+        return c;
+    }
+
+    protected void unread(int c) {
+        pushedBack = c;
+        if (c == '\n') {
+            line--;
+        }
+        if (c != -1) {
+            raw.setLength(raw.length() - 1);
+        }
+    }
+
+    static class CsvRecordReader extends RecordReader {
+        private List<String> header;
+
+        CsvRecordReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            if (header == null) {
+                List<String> names = readRow();
+                if (names == null) {
+                    return null;
+                }
+                header = new ArrayList<>();
+                for (String name : names) {
+                    header.add(name.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            List<String> values = readRow();
+            if (values == null) {
+                return null;
+            }
+            if (values.size() != header.size()) {
+                throw new MalformedRecordException("Expected " + header.size() + " fields but found " + values.size());
+            }
+            Map<String, String> record = new LinkedHashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                record.put(header.get(i), values.get(i));
+            }
+            return record;
+        }
+
+        // RFC 4180: quoted fields may contain separators, "" escapes and line breaks
+        private List<String> readRow() throws IOException {
+            int c;
+            do {
+                raw.setLength(0);
+                recordLine = line;
+                c = read();
+            } while (c == '\n' || c == '\r');
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            unread(next);
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r' || c == -1) {
+                    if (c == '\r') {
+                        int next = read();
+                        if (next != '\n') {
+                            unread(next);
+                        }
+                    }
+                    fields.add(field.toString());
+                    trimLineBreak();
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private void trimLineBreak() {
+            int end = raw.length();
+            while (end > 0 && (raw.charAt(end - 1) == '\n' || raw.charAt(end - 1) == '\r')) {
+                end--;
+            }
+            raw.setLength(end);
+        }
+    }
+
+    static class JsonRecordReader extends RecordReader {
+        JsonRecordReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            // Skip whitespace, the enclosing array brackets and separators between objects
+            int c;
+            do {
+                raw.setLength(0);
+                recordLine = line;
+                c = read();
+            } while (c != -1 && (Character.isWhitespace(c) || c == '[' || c == ']' || c == ','));
+            if (c == -1) {
+                return null;
+            }
+            if (c != '{') {
+                throw new IOException("Expected '{' on line " + line + " but found '" + (char) c + "'");
+            }
+            Map<String, String> record = new LinkedHashMap<>();
+            c = skipWhitespace();
+            if (c == '}') {
+                return record;
+            }
+            while (true) {
+                if (c != '"') {
+                    throw new IOException("Expected a field name on line " + line);
+                }
+                String key = readString().toLowerCase(Locale.ROOT);
+                if (skipWhitespace() != ':') {
+                    throw new IOException("Expected ':' after \"" + key + "\" on line " + line);
+                }
+                record.put(key, readValue(skipWhitespace()));
+                c = skipWhitespace();
+                if (c == '}') {
+                    return record;
+                }
+                if (c != ',') {
+                    throw new IOException("Expected ',' or '}' on line " + line);
+                }
+                c = skipWhitespace();
+            }
+        }
+
+        private String readValue(int c) throws IOException {
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                throw new IOException("Nested values are not supported (line " + line + ")");
+            }
+            // Number, true, false or null: taken verbatim
+            StringBuilder token = new StringBuilder();
+            while (c != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                token.append((char) c);
+                c = read();
+            }
+            unread(c);
+            String value = token.toString();
+            if (value.isEmpty()) {
+                throw new IOException("Missing value on line " + line);
+            }
+            return "null".equals(value) ? null : value;
+        }
+
+        private String readString() throws IOException {
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    throw new IOException("Unterminated string starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c == '\\') {
+                    int escaped = read();
+                    switch (escaped) {
+                        case 'n': value.append('\n'); break;
+                        case 't': value.append('\t'); break;
+                        case 'r': value.append('\r'); break;
+                        case 'b': value.append('\b'); break;
+                        case 'f': value.append('\f'); break;
+                        case 'u':
+                            char[] hex = new char[4];
+                            for (int i = 0; i < 4; i++) {
+                                hex[i] = (char) read();
+                            }
+                            try {
+                                value.append((char) Integer.parseInt(new String(hex), 16));
+                            } catch (NumberFormatException e) {
+                                throw new IOException("Invalid \\u escape on line " + line);
+                            }
+                            break;
+                        case -1:
+                            throw new IOException("Unterminated string starting on line " + recordLine);
+                        default: value.append((char) escaped);
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            }
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c;
+            do {
+                c = read();
+            } while (c != -1 && Character.isWhitespace(c));
+            return c;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package dao;
+
+import model.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Streams query results through a server-side cursor so the driver holds at most
+// fetchSize rows at a time. PostgreSQL only uses a cursor when autocommit is off and
+// a fetch size is set; the pool restores autocommit when the connection is returned.
+// Streams hold a pooled connection until closed, so always use try-with-resources.
+public class ResultStreams {
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+    
+    public interface ParameterBinder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+    
+    private static final ParameterBinder NO_PARAMETERS = new ParameterBinder() {
+        @Override
+        public void bind(PreparedStatement pstmt) {
+        }
+    };
+    
+    private ResultStreams() {}
+    
+    public static <T> Stream<T> stream(String sql, int fetchSize, RowMapper<T> mapper) {
+        return stream(sql, NO_PARAMETERS, fetchSize, mapper);
+    }
+    
+    public static <T> Stream<T> stream(String sql, ParameterBinder binder, int fetchSize, final RowMapper<T> mapper) {
+        final Connection conn;
+        try {
+            conn = DatabaseConnection.getConnection();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error opening result stream: " + e.getMessage(), e);
+        }
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn.setAutoCommit(false);
+            // Not the single-argument prepareStatement, so the statement bypasses the cache
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE);
+            binder.bind(pstmt);
+            rs = pstmt.executeQuery();
+            final PreparedStatement openStatement = pstmt;
+            final ResultSet openRows = rs;
+            
+            Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!openRows.next()) {
+                            return false;
+                        }
+                        action.accept(mapper.map(openRows));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new DataAccessException("Error reading streamed rows: " + e.getMessage(), e);
+                    }
+                }
+            };
+            return StreamSupport.stream(rows, false).onClose(new Runnable() {
+                @Override
+                public void run() {
+                    closeQuietly(openRows, openStatement, conn);
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(rs, pstmt, conn);
+            throw new DataAccessException("Error opening result stream: " + e.getMessage(), e);
+        }
+    }
+    
+    private static void closeQuietly(ResultSet rs, PreparedStatement pstmt, Connection conn) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (pstmt != null) {
+                pstmt.close();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error closing result stream: " + e.getMessage());
+        } finally {
+            try {
+                // Read-only cursor: nothing to commit, the pool rolls back and resets autocommit
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Error releasing streamed connection: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package dao;
+
+import model.Appointment;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Whole days of appointments for the schedule view. The days of a range that are not
+// cached yet are read with one query on idx_appointments_date, and the neighbouring
+// ranges are prefetched in the background, so paging through a week is served from
+// memory. Only maxDays around the range last asked for are kept; days further away
+// are evicted as the view slides. Changes from this and other workstations are
+// patched in, so cached days stay current without being re-read.
+public class ScheduleCache {
+    private final AppointmentDAO appointmentDAO;
+    private final Executor prefetcher;
+    private final int maxDays;
+
+    // Guarded by this; epoch day -> that day's appointments ordered by time
+    private final TreeMap<Long, List<Appointment>> days = new TreeMap<>();
+    // Days a prefetch is reading, so overlapping prefetches don't read them twice
+    private final Set<Long> prefetching = new HashSet<>();
+    // Bumped by every change, so a read that raced with one is not cached
+    private long version;
+    // Middle of the range last asked for; eviction keeps the days around it
+    private long focus;
+
+    public ScheduleCache(AppointmentDAO appointmentDAO, Executor prefetcher, int maxDays) {
+        this.appointmentDAO = appointmentDAO;
+        this.prefetcher = prefetcher;
+        this.maxDays = Math.max(1, maxDays);
+    }
+
+    // The range's appointments if every day of it is cached, otherwise null
+    public synchronized List<Appointment> getCached(LocalDate from, LocalDate to) {
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        for (long day = first; day <= last; day++) {
+            if (!days.containsKey(day)) {
+                return null;
+            }
+        }
+        focus = (first + last) / 2;
+        return collect(first, last, null);
+    }
+
+    // Reads the days of the range that are not cached; blocks on the database, so
+    // call it off the EDT. Throws DataAccessException if the read fails.
+    public List<Appointment> load(LocalDate from, LocalDate to) {
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        long[] missing;
+        long before;
+        synchronized (this) {
+            focus = (first + last) / 2;
+            missing = missingSpan(first, last, false);
+            if (missing == null) {
+                return collect(first, last, null);
+            }
+            before = version;
+        }
+        Map<Long, List<Appointment>> loaded = read(missing[0], missing[1]);
+        synchronized (this) {
+            // Changed while reading: show what was read, but don't cache it
+            if (version == before) {
+                store(loaded);
+            }
+            return collect(first, last, loaded);
+        }
+    }
+
+    // Reads the range in the background if any of it is missing
+    public void prefetch(LocalDate from, LocalDate to) {
+        final long[] missing;
+        final long before;
+        synchronized (this) {
+            missing = missingSpan(from.toEpochDay(), to.toEpochDay(), true);
+            if (missing == null) {
+                return;
+            }
+            for (long day = missing[0]; day <= missing[1]; day++) {
+                prefetching.add(day);
+            }
+            before = version;
+        }
+        prefetcher.execute(new Runnable() {
+            @Override
+            public void run() {
+                Map<Long, List<Appointment>> loaded = null;
+                try {
+                    loaded = read(missing[0], missing[1]);
+                } catch (DataAccessException e) {
+                    System.err.println("Error prefetching schedule: " + e.getMessage());
+                }
+                synchronized (ScheduleCache.this) {
+                    for (long day = missing[0]; day <= missing[1]; day++) {
+                        prefetching.remove(day);
+                    }
+                    if (loaded != null && version == before) {
+                        store(loaded);
+                    }
+                }
+            }
+        });
+    }
+
+    public synchronized boolean isCached(LocalDate date) {
+        return days.containsKey(date.toEpochDay());
+    }
+
+    // Puts a new or changed appointment on its (possibly new) day
+    public synchronized void appointmentChanged(Appointment appointment) {
+        version++;
+        remove(appointment.getAppointmentId());
+        List<Appointment> day = days.get(appointment.getAppointmentDate().toEpochDay());
+        if (day == null) {
+            return;
+        }
+        int index = 0;
+        while (index < day.size() &&
+               !day.get(index).getAppointmentTime().isAfter(appointment.getAppointmentTime())) {
+            index++;
+        }
+        day.add(index, appointment);
+    }
+
+    // Cached copy of the appointment, or null when its day is not cached
+    public synchronized Appointment find(String appointmentId) {
+        for (List<Appointment> day : days.values()) {
+            for (Appointment appointment : day) {
+                if (appointmentId.equals(appointment.getAppointmentId())) {
+                    return appointment;
+                }
+            }
+        }
+        return null;
+    }
+
+    public synchronized void appointmentDeleted(String appointmentId) {
+        version++;
+        remove(appointmentId);
+    }
+
+    // Deleted patients and doctors take their appointments with them
+    public synchronized void removeIf(Predicate<Object> filter) {
+        version++;
+        for (List<Appointment> day : days.values()) {
+            Iterator<Appointment> it = day.iterator();
+            while (it.hasNext()) {
+                if (filter.test(it.next())) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    // Renamed patients and doctors
+    public synchronized void updateIf(Predicate<Object> filter, Consumer<Object> update) {
+        version++;
+        for (List<Appointment> day : days.values()) {
+            for (Appointment appointment : day) {
+                if (filter.test(appointment)) {
+                    update.accept(appointment);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        version++;
+        days.clear();
+    }
+
+    private Map<Long, List<Appointment>> read(long first, long last) {
+        List<Appointment> rows;
+        try {
+            rows = appointmentDAO.queryAppointmentsBetween(LocalDate.ofEpochDay(first), LocalDate.ofEpochDay(last));
+        } catch (SQLException e) {
+            throw new DataAccessException("Error loading schedule: " + e.getMessage(), e);
+        }
+        Map<Long, List<Appointment>> loaded = new HashMap<>();
+        for (long day = first; day <= last; day++) {
+            loaded.put(day, new ArrayList<Appointment>());
+        }
+        for (Appointment appointment : rows) {
+            loaded.get(appointment.getAppointmentDate().toEpochDay()).add(appointment);
+        }
+        return loaded;
+    }
+
+    // First and last day of the range not cached (nor being prefetched, if asked), or
+    // null when there are none. Cached days in between are read again with the rest.
+    private long[] missingSpan(long first, long last, boolean skipPrefetching) {
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        for (long day = first; day <= last; day++) {
+            if (!days.containsKey(day) && !(skipPrefetching && prefetching.contains(day))) {
+                from = Math.min(from, day);
+                to = day;
+            }
+        }
+        return from > to ? null : new long[] { from, to };
+    }
+
+    private void store(Map<Long, List<Appointment>> loaded) {
+        days.putAll(loaded);
+        // Slide: drop the days furthest from the focus beyond maxDays
+        while (days.size() > maxDays) {
+            if (focus - days.firstKey() >= days.lastKey() - focus) {
+                days.pollFirstEntry();
+            } else {
+                days.pollLastEntry();
+            }
+        }
+    }
+
+    // Days from the cache, or from fresh when given and it has the day
+    private List<Appointment> collect(long first, long last, Map<Long, List<Appointment>> fresh) {
+        List<Appointment> appointments = new ArrayList<>();
+        for (long day = first; day <= last; day++) {
+            List<Appointment> rows = fresh != null && fresh.containsKey(day) ? fresh.get(day) : days.get(day);
+            if (rows != null) {
+                appointments.addAll(rows);
+            }
+        }
+        return appointments;
+    }
+
+    private void remove(String appointmentId) {
+        for (List<Appointment> day : days.values()) {
+            Iterator<Appointment> it = day.iterator();
+            while (it.hasNext()) {
+                if (appointmentId.equals(it.next().getAppointmentId())) {
+                    it.remove();
+                    return;
+                }
+            }
+        }
+    }
+}
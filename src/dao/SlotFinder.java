@@ -0,0 +1,175 @@
+package dao;
+
+import model.Doctor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Finds the earliest free appointment slots for a doctor, or for every available doctor
+// of a specialization, over the coming days. The doctors' bookings for the whole search
+// window are brought into the AvailabilityIndex with at most one range query (none when
+// the window was warmed at startup). The search itself then runs in memory: a booking
+// occupies slotMinutes from its start, so a candidate slot is free when no booking
+// starts within slotMinutes either side of it, which is a bit-range test on a copy of
+// the doctor-day. Results come in time order, earliest first; ties go to the doctor
+// listed first.
+public class SlotFinder {
+    public static final LocalTime DEFAULT_DAY_START = LocalTime.of(8, 0);
+    public static final LocalTime DEFAULT_DAY_END = LocalTime.of(17, 0);
+    public static final int DEFAULT_SLOT_MINUTES = 15;
+    public static final int DEFAULT_HORIZON_DAYS = 30;
+
+    private final AppointmentDAO appointmentDAO;
+    private final DoctorDAO doctorDAO;
+    private final AvailabilityIndex availability = AvailabilityIndex.getInstance();
+    private LocalTime dayStart = DEFAULT_DAY_START;
+    private LocalTime dayEnd = DEFAULT_DAY_END;
+    private int slotMinutes = DEFAULT_SLOT_MINUTES;
+    private int horizonDays = DEFAULT_HORIZON_DAYS;
+
+    public SlotFinder(AppointmentDAO appointmentDAO, DoctorDAO doctorDAO) {
+        this.appointmentDAO = appointmentDAO;
+        this.doctorDAO = doctorDAO;
+    }
+
+    // Slots start at dayStart and end by dayEnd
+    public void setWorkingHours(LocalTime dayStart, LocalTime dayEnd) {
+        if (!dayStart.isBefore(dayEnd)) {
+            throw new IllegalArgumentException("Working hours must start before they end: " + dayStart + "-" + dayEnd);
+        }
+        this.dayStart = dayStart;
+        this.dayEnd = dayEnd;
+    }
+
+    public LocalTime getDayStart() { return dayStart; }
+    public LocalTime getDayEnd() { return dayEnd; }
+    public int getSlotMinutes() { return slotMinutes; }
+
+    public void setSlotMinutes(int slotMinutes) {
+        if (slotMinutes <= 0 || slotMinutes > 24 * 60) {
+            throw new IllegalArgumentException("Slot length must be between 1 and 1440 minutes: " + slotMinutes);
+        }
+        this.slotMinutes = slotMinutes;
+    }
+
+    // Number of days searched, starting with the first day asked for
+    public void setHorizonDays(int horizonDays) {
+        if (horizonDays <= 0) {
+            throw new IllegalArgumentException("Horizon must be at least one day: " + horizonDays);
+        }
+        this.horizonDays = horizonDays;
+    }
+
+    public List<Slot> findForDoctor(String doctorId, LocalDateTime notBefore, int count) {
+        Doctor doctor = doctorDAO.getDoctorById(doctorId);
+        if (doctor == null) {
+            return new ArrayList<>();
+        }
+        return find(Collections.singletonList(doctor), notBefore, count);
+    }
+
+    public List<Slot> findForSpecialization(String specialization, LocalDateTime notBefore, int count) {
+        return find(doctorDAO.getDoctorsBySpecialization(specialization), notBefore, count);
+    }
+
+    // Earliest count free slots among the doctors, none starting before notBefore. Empty
+    // when the bookings cannot be read, rather than offering slots that may be taken.
+    public List<Slot> find(List<Doctor> doctors, LocalDateTime notBefore, int count) {
+        List<Slot> slots = new ArrayList<>();
+        if (doctors.isEmpty() || count <= 0) {
+            return slots;
+        }
+        LocalDate firstDay = notBefore.toLocalDate();
+        LocalDate lastDay = firstDay.plusDays(horizonDays - 1);
+        List<String> doctorIds = new ArrayList<>(doctors.size());
+        for (Doctor doctor : doctors) {
+            doctorIds.add(doctor.getDoctorId());
+        }
+        if (!appointmentDAO.loadAvailability(doctorIds, firstDay, lastDay)) {
+            return slots;
+        }
+
+        int firstMinute = minuteOf(dayStart);
+        // The last slot has to end by dayEnd
+        int lastMinute = minuteOf(dayEnd) - slotMinutes;
+        int earliestToday = minuteOf(notBefore.toLocalTime()) + (notBefore.getSecond() > 0 ? 1 : 0);
+        long[][] booked = new long[doctors.size()][];
+        for (LocalDate date = firstDay; !date.isAfter(lastDay); date = date.plusDays(1)) {
+            // One copy of each doctor's day, then plain array tests per slot
+            for (int i = 0; i < booked.length; i++) {
+                booked[i] = availability.getBookedMinutes(doctorIds.get(i), date);
+            }
+            for (int minute = firstMinute; minute <= lastMinute; minute += slotMinutes) {
+                if (date.equals(firstDay) && minute < earliestToday) {
+                    continue;
+                }
+                for (int i = 0; i < booked.length; i++) {
+                    // A day dropped from the index meanwhile is skipped, not guessed
+                    if (booked[i] != null && isFree(booked[i], minute)) {
+                        slots.add(new Slot(doctors.get(i), date, LocalTime.of(minute / 60, minute % 60)));
+                        if (slots.size() == count) {
+                            return slots;
+                        }
+                    }
+                }
+            }
+        }
+        return slots;
+    }
+
+    // Earliest free slot of a doctor-day from fromMinute on (rounded up to the grid),
+    // or -1 when the rest of the day is full
+    int firstFreeMinute(long[] bookedMinutes, int fromMinute) {
+        int firstMinute = minuteOf(dayStart);
+        int lastMinute = minuteOf(dayEnd) - slotMinutes;
+        int minute = firstMinute;
+        if (fromMinute > firstMinute) {
+            minute += (fromMinute - firstMinute + slotMinutes - 1) / slotMinutes * slotMinutes;
+        }
+        for (; minute <= lastMinute; minute += slotMinutes) {
+            if (isFree(bookedMinutes, minute)) {
+                return minute;
+            }
+        }
+        return -1;
+    }
+
+    // Free unless a booking starts in (minute - slotMinutes, minute + slotMinutes)
+    private boolean isFree(long[] bookedMinutes, int minute) {
+        return !AvailabilityIndex.hasBookingBetween(bookedMinutes, minute - slotMinutes + 1, minute + slotMinutes);
+    }
+
+    static int minuteOf(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    public static class Slot {
+        private final String doctorId;
+        private final String doctorName;
+        private final String specialization;
+        private final LocalDate date;
+        private final LocalTime time;
+
+        Slot(Doctor doctor, LocalDate date, LocalTime time) {
+            this.doctorId = doctor.getDoctorId();
+            this.doctorName = doctor.getName();
+            this.specialization = doctor.getSpecialization();
+            this.date = date;
+            this.time = time;
+        }
+
+        public String getDoctorId() { return doctorId; }
+        public String getDoctorName() { return doctorName; }
+        public String getSpecialization() { return specialization; }
+        public LocalDate getDate() { return date; }
+        public LocalTime getTime() { return time; }
+
+        @Override
+        public String toString() {
+            return date + " " + time + " - " + doctorName + " (" + doctorId + ")";
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package dao;
+
+import model.DatabaseConnection;
+import model.RecordValidator;
+import model.TaskExecutors;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Moves every appointment matching a Criteria to a new status, e.g. the end-of-day sweep
+// of leftover Scheduled appointments to No-Show. Each step is one set-based UPDATE of up
+// to chunkSize rows, committed on its own, so locks are held briefly and a failure loses
+// at most one chunk. Several workers run at once; each claims its rows with
+// FOR UPDATE SKIP LOCKED, so they never wait on each other, and stops when nothing is
+// left to claim. Rows already moved no longer match the criteria's current statuses,
+// which is what makes the loop terminate. Rows another transaction holds locked at that
+// moment (e.g. an open edit) are left for the next run. Every changed row is written to
+// the change log as CSV (see CHANGE_LOG_HEADER).
+public class StatusTransition {
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+    public static final String CHANGE_LOG_HEADER =
+        "appointment_id,doctor_id,appointment_date,appointment_time,old_status,new_status,changed_at\n";
+
+    private final int chunkSize;
+    private final int threads;
+    private final Writer changeLog;
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private Consumer<Result> progressListener;
+
+    // changeLog may be null when no per-row record is wanted
+    public StatusTransition(int chunkSize, int threads, Writer changeLog) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+        this.changeLog = changeLog;
+    }
+
+    // Called after every committed chunk with the running totals
+    public void setProgressListener(Consumer<Result> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public Result run(Criteria criteria, String toStatus) throws IOException {
+        if (!RecordValidator.APPOINTMENT_STATUSES.contains(toStatus)) {
+            throw new IllegalArgumentException("Status must be one of " + RecordValidator.APPOINTMENT_STATUSES);
+        }
+        if (criteria.statuses.contains(toStatus)) {
+            throw new IllegalArgumentException("Appointments already " + toStatus + " cannot be moved to " + toStatus);
+        }
+        final List<Object> params = new ArrayList<>();
+        params.add(toStatus);
+        final String sql = "UPDATE appointments a SET status = ? " +
+                    "FROM (SELECT id, status FROM appointments WHERE " + criteria.where(params) +
+                    " LIMIT ? FOR UPDATE SKIP LOCKED) s " +
+                    "WHERE a.id = s.id " +
+                    "RETURNING a.appointment_id, a.doctor_id, a.appointment_date, a.appointment_time, " +
+                    "s.status AS old_status, a.status, a.updated_at";
+        params.add(chunkSize);
+
+        final Result result = new Result();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, TaskExecutors.daemonThreadFactory("status-transition"));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws SQLException, IOException {
+                        int claimed;
+                        do {
+                            claimed = runChunk(sql, params, result);
+                        } while (claimed > 0 && !Thread.currentThread().isInterrupted());
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new DataAccessException("Error updating appointment status: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while updating appointment status", e);
+        } finally {
+            executor.shutdownNow();
+            if (changeLog != null) {
+                changeLog.flush();
+            }
+        }
+        return result.snapshot();
+    }
+
+    // One pooled connection per chunk, so a long run never trips leak detection
+    private int runChunk(String sql, List<Object> params, Result result) throws SQLException, IOException {
+        List<Object[]> changed = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < params.size(); i++) {
+                    pstmt.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        changed.add(new Object[] {
+                            rs.getString("appointment_id"), rs.getString("doctor_id"),
+                            rs.getDate("appointment_date").toLocalDate(), rs.getTime("appointment_time").toLocalTime(),
+                            rs.getString("old_status"), rs.getString("status"),
+                            rs.getTimestamp("updated_at").toLocalDateTime()
+                        });
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+
+        for (Object[] row : changed) {
+            appointmentDAO.applySlot((String) row[1], (LocalDate) row[2], (LocalTime) row[3],
+                                    (String) row[4], (String) row[5]);
+        }
+        if (changeLog != null) {
+            StringBuilder lines = new StringBuilder(changed.size() * 96);
+            for (Object[] row : changed) {
+                for (int i = 0; i < row.length; i++) {
+                    lines.append(i == 0 ? "" : ",").append(row[i]);
+                }
+                lines.append('\n');
+            }
+            synchronized (changeLog) {
+                changeLog.write(lines.toString());
+            }
+        }
+        Result progress;
+        synchronized (result) {
+            result.changed += changed.size();
+            result.chunks++;
+            progress = result.snapshot();
+        }
+        if (progressListener != null) {
+            progressListener.accept(progress);
+        }
+        return changed.size();
+    }
+
+    // Which appointments to move: those in one of the given current statuses, optionally
+    // narrowed to a date range, a doctor and appointments that started before a moment
+    public static class Criteria {
+        private final List<String> statuses;
+        private LocalDate fromDate;
+        private LocalDate toDate;
+        private String doctorId;
+        private LocalDateTime startedBefore;
+
+        public Criteria(String... statuses) {
+            if (statuses.length == 0) {
+                throw new IllegalArgumentException("At least one current status is required");
+            }
+            for (String status : statuses) {
+                if (!RecordValidator.APPOINTMENT_STATUSES.contains(status)) {
+                    throw new IllegalArgumentException("Status must be one of " + RecordValidator.APPOINTMENT_STATUSES);
+                }
+            }
+            this.statuses = Arrays.asList(statuses.clone());
+        }
+
+        // Inclusive; either end may be null
+        public void setDateRange(LocalDate fromDate, LocalDate toDate) {
+            this.fromDate = fromDate;
+            this.toDate = toDate;
+        }
+
+        public void setDoctorId(String doctorId) {
+            this.doctorId = doctorId;
+        }
+
+        public void setStartedBefore(LocalDateTime startedBefore) {
+            this.startedBefore = startedBefore;
+        }
+
+        // SQL condition; appends its parameters in order
+        String where(List<Object> params) {
+            StringBuilder where = new StringBuilder("status IN (");
+            for (int i = 0; i < statuses.size(); i++) {
+                where.append(i == 0 ? "?" : ", ?");
+                params.add(statuses.get(i));
+            }
+            where.append(')');
+            if (fromDate != null) {
+                where.append(" AND appointment_date >= ?");
+                params.add(Date.valueOf(fromDate));
+            }
+            if (toDate != null) {
+                where.append(" AND appointment_date <= ?");
+                params.add(Date.valueOf(toDate));
+            }
+            if (doctorId != null) {
+                where.append(" AND doctor_id = ?");
+                params.add(doctorId);
+            }
+            if (startedBefore != null) {
+                // The date bound alone can use idx_appointments_date; the OR settles the last day
+                Date day = Date.valueOf(startedBefore.toLocalDate());
+                where.append(" AND appointment_date <= ? AND (appointment_date < ? OR appointment_time < ?)");
+                params.add(day);
+                params.add(day);
+                params.add(Time.valueOf(startedBefore.toLocalTime()));
+            }
+            return where.toString();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.join("/", statuses) + " appointments");
+            if (fromDate != null) {
+                text.append(" from ").append(fromDate);
+            }
+            if (toDate != null) {
+                text.append(" to ").append(toDate);
+            }
+            if (doctorId != null) {
+                text.append(" of doctor ").append(doctorId);
+            }
+            if (startedBefore != null) {
+                text.append(" that started before ").append(startedBefore.withNano(0));
+            }
+            return text.toString();
+        }
+    }
+
+    public static class Result {
+        private final long started;
+        private long changed;
+        private long chunks;
+        private long elapsedMillis;
+
+        Result() {
+            this.started = System.currentTimeMillis();
+        }
+
+        Result snapshot() {
+            Result copy = new Result();
+            copy.changed = changed;
+            copy.chunks = chunks;
+            copy.elapsedMillis = System.currentTimeMillis() - started;
+            return copy;
+        }
+
+        public long getChanged() { return changed; }
+        public long getChunks() { return chunks; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public double getRowsPerSecond() {
+            return elapsedMillis == 0 ? changed : changed * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("changed=%d in %d chunks, %.1fs (%.0f rows/s)",
+                                 changed, chunks, elapsedMillis / 1000.0, getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package dao;
+
+import model.Appointment;
+import model.DatabaseConnection;
+import model.Doctor;
+import model.Metrics;
+import model.Patient;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Groups writes across patients, doctors and appointments into one transaction, e.g.
+// registering a patient and booking their first appointment, so either all of them
+// happen or none. Writes are queued, then commit() sends them on one connection with
+// each kind of write as a single JDBC batch, in a fixed order that satisfies the
+// foreign keys: inserts (patients, doctors, appointments), then updates, then deletes
+// (appointments, patients, doctors). A serialization failure or deadlock rolls
+// everything back and replays the whole unit, up to maxRetries times. Caches and the
+// availability index only see the changes after the commit succeeds.
+//
+// Updates and deletes must match a row; one that matches nothing fails the unit.
+// A unit is used by one thread and committed once.
+public class UnitOfWork {
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final String DEADLOCK_DETECTED = "40P01";
+    private static final String COMMIT_METRIC = "unit-of-work.commit";
+
+    private final List<Patient> newPatients = new ArrayList<>();
+    private final List<Patient> changedPatients = new ArrayList<>();
+    private final List<String> deletedPatients = new ArrayList<>();
+    private final List<Doctor> newDoctors = new ArrayList<>();
+    private final List<Doctor> changedDoctors = new ArrayList<>();
+    private final List<String> deletedDoctors = new ArrayList<>();
+    private final List<Appointment> newAppointments = new ArrayList<>();
+    private final List<Appointment> changedAppointments = new ArrayList<>();
+    private final List<Appointment> deletedAppointments = new ArrayList<>();
+
+    private final PatientDAO patientDAO = new PatientDAO();
+    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
+    private int isolation = Connection.TRANSACTION_READ_COMMITTED;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private boolean committed;
+
+    // One of Connection.TRANSACTION_READ_COMMITTED (default), _REPEATABLE_READ or
+    // _SERIALIZABLE; the stricter levels can fail with serialization errors, which
+    // commit() retries
+    public void setIsolation(int isolation) {
+        if (isolation != Connection.TRANSACTION_READ_COMMITTED &&
+            isolation != Connection.TRANSACTION_REPEATABLE_READ &&
+            isolation != Connection.TRANSACTION_SERIALIZABLE) {
+            throw new IllegalArgumentException("Unsupported isolation level: " + isolation);
+        }
+        this.isolation = isolation;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Retry count must not be negative: " + maxRetries);
+        }
+        this.maxRetries = maxRetries;
+    }
+
+    public void addPatient(Patient patient) {
+        pending(newPatients).add(patient);
+    }
+
+    public void updatePatient(Patient patient) {
+        pending(changedPatients).add(patient);
+    }
+
+    // The patient's appointments are deleted with them
+    public void deletePatient(String patientId) {
+        pending(deletedPatients).add(patientId);
+    }
+
+    public void addDoctor(Doctor doctor) {
+        pending(newDoctors).add(doctor);
+    }
+
+    public void updateDoctor(Doctor doctor) {
+        pending(changedDoctors).add(doctor);
+    }
+
+    // The doctor's appointments are deleted with them
+    public void deleteDoctor(String doctorId) {
+        pending(deletedDoctors).add(doctorId);
+    }
+
+    public void addAppointment(Appointment appointment) {
+        pending(newAppointments).add(appointment);
+    }
+
+    // Status, diagnosis, prescription and fee, as AppointmentDAO.updateAppointmentDetails
+    public void updateAppointment(Appointment appointment) {
+        pending(changedAppointments).add(appointment);
+    }
+
+    // Takes the appointment rather than its id so its slot can be freed after the commit
+    public void deleteAppointment(Appointment appointment) {
+        pending(deletedAppointments).add(appointment);
+    }
+
+    public int getPendingCount() {
+        return newPatients.size() + changedPatients.size() + deletedPatients.size() +
+               newDoctors.size() + changedDoctors.size() + deletedDoctors.size() +
+               newAppointments.size() + changedAppointments.size() + deletedAppointments.size();
+    }
+
+    private <T> List<T> pending(List<T> writes) {
+        checkNotCommitted();
+        return writes;
+    }
+
+    private void checkNotCommitted() {
+        if (committed) {
+            throw new IllegalStateException("Unit of work already committed");
+        }
+    }
+
+    // Writes everything queued in one transaction. Throws DataAccessException when it
+    // could not be committed, in which case nothing was written.
+    public Result commit() {
+        checkNotCommitted();
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    Flush flush = attempt();
+                    committed = true;
+                    flush.apply();
+                    failed = false;
+                    return new Result(getPendingCount(), flush.batches, attempt, (System.nanoTime() - started) / 1000000);
+                } catch (SQLException e) {
+                    if (attempt > maxRetries || !isRetryable(e)) {
+                        throw new DataAccessException("Error committing unit of work: " + message(e), e);
+                    }
+                    backOff(attempt);
+                }
+            }
+        } finally {
+            Metrics.record(COMMIT_METRIC, System.nanoTime() - started, failed);
+        }
+    }
+
+    private Flush attempt() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(isolation);
+            try {
+                Flush flush = new Flush();
+                flush.write(conn);
+                conn.commit();
+                return flush;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackFailure) {
+                    // The pool discards a connection it cannot reset
+                }
+                throw e;
+            }
+        }
+    }
+
+    // Pause before a retry, growing with each attempt and jittered so two units that
+    // collided don't collide again
+    private static void backOff(int attempt) {
+        long millis = (10L << Math.min(attempt, 6)) + ThreadLocalRandom.current().nextLong(10);
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while retrying unit of work", e);
+        }
+    }
+
+    // The real cause of a failed batch is chained behind the BatchUpdateException
+    private static boolean isRetryable(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            if (SERIALIZATION_FAILURE.equals(cause.getSQLState()) || DEADLOCK_DETECTED.equals(cause.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String message(SQLException e) {
+        SQLException next = e instanceof BatchUpdateException ? e.getNextException() : null;
+        return next != null ? next.getMessage() : e.getMessage();
+    }
+
+    // One attempt's writes and what they changed, applied to the caches once committed
+    private final class Flush {
+        int batches;
+        final List<Patient> storedPatients = new ArrayList<>();
+        final List<Doctor> storedDoctors = new ArrayList<>();
+        // Slots of appointments that went with a deleted patient
+        final List<Object[]> freedSlots = new ArrayList<>();
+        // Status of each updated or deleted appointment before this unit's write
+        final Map<String, String> oldStatuses = new HashMap<>();
+
+        void write(Connection conn) throws SQLException {
+            batch(conn, PatientDAO.INSERT_SQL, newPatients, false, new Binder<Patient>() {
+                @Override
+                public void bind(PreparedStatement pstmt, Patient patient) throws SQLException {
+                    PatientDAO.bindInsert(pstmt, patient);
+                }
+            });
+            batch(conn, DoctorDAO.INSERT_SQL, newDoctors, false, new Binder<Doctor>() {
+                @Override
+                public void bind(PreparedStatement pstmt, Doctor doctor) throws SQLException {
+                    DoctorDAO.bindInsert(pstmt, doctor);
+                }
+            });
+            batch(conn, AppointmentDAO.INSERT_SQL, newAppointments, false, new Binder<Appointment>() {
+                @Override
+                public void bind(PreparedStatement pstmt, Appointment appointment) throws SQLException {
+                    AppointmentDAO.bindInsert(pstmt, appointment);
+                }
+            });
+
+            batch(conn, PatientDAO.UPDATE_SQL, changedPatients, true, new Binder<Patient>() {
+                @Override
+                public void bind(PreparedStatement pstmt, Patient patient) throws SQLException {
+                    PatientDAO.bindUpdate(pstmt, patient);
+                }
+            });
+            batch(conn, DoctorDAO.UPDATE_SQL, changedDoctors, true, new Binder<Doctor>() {
+                @Override
+                public void bind(PreparedStatement pstmt, Doctor doctor) throws SQLException {
+                    DoctorDAO.bindUpdate(pstmt, doctor);
+                }
+            });
+            if (!changedAppointments.isEmpty() || !deletedAppointments.isEmpty()) {
+                readOldStatuses(conn);
+            }
+            batch(conn, AppointmentDAO.UPDATE_DETAILS_SQL, changedAppointments, true, new Binder<Appointment>() {
+                @Override
+                public void bind(PreparedStatement pstmt, Appointment appointment) throws SQLException {
+                    AppointmentDAO.bindUpdateDetails(pstmt, appointment);
+                }
+            });
+
+            batch(conn, "DELETE FROM appointments WHERE appointment_id = ?", deletedAppointments, true,
+                  new Binder<Appointment>() {
+                @Override
+                public void bind(PreparedStatement pstmt, Appointment appointment) throws SQLException {
+                    pstmt.setString(1, appointment.getAppointmentId());
+                }
+            });
+            if (!deletedPatients.isEmpty()) {
+                readFreedSlots(conn);
+            }
+            batch(conn, "DELETE FROM patients WHERE patient_id = ?", deletedPatients, true, BIND_ID);
+            batch(conn, "DELETE FROM doctors WHERE doctor_id = ?", deletedDoctors, true, BIND_ID);
+
+            readBack(conn);
+        }
+
+        private <T> void batch(Connection conn, String sql, List<T> items, boolean mustMatch,
+                               Binder<T> binder) throws SQLException {
+            if (items.isEmpty()) {
+                return;
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (T item : items) {
+                    binder.bind(pstmt, item);
+                    pstmt.addBatch();
+                }
+                int[] counts = pstmt.executeBatch();
+                batches++;
+                if (mustMatch) {
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] == 0) {
+                            throw new SQLException("No row matched " + items.get(i) + " for: " + sql);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Locked until commit, so the statuses stay the ones these writes replace
+        private void readOldStatuses(Connection conn) throws SQLException {
+            List<String> appointmentIds = new ArrayList<>();
+            for (Appointment appointment : changedAppointments) {
+                appointmentIds.add(appointment.getAppointmentId());
+            }
+            for (Appointment appointment : deletedAppointments) {
+                appointmentIds.add(appointment.getAppointmentId());
+            }
+            String sql = "SELECT appointment_id, status FROM appointments WHERE appointment_id = ANY(?) FOR UPDATE";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setArray(1, conn.createArrayOf("varchar", appointmentIds.toArray()));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        oldStatuses.put(rs.getString("appointment_id"), rs.getString("status"));
+                    }
+                }
+            }
+            batches++;
+        }
+
+        // The cascade removes the patients' appointments, so their slots are read first
+        private void readFreedSlots(Connection conn) throws SQLException {
+            String sql = "SELECT doctor_id, appointment_date, appointment_time FROM appointments " +
+                        "WHERE patient_id = ANY(?) AND status IS DISTINCT FROM 'Cancelled'";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setArray(1, conn.createArrayOf("varchar", deletedPatients.toArray()));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        freedSlots.add(new Object[] {
+                            rs.getString("doctor_id"), rs.getDate("appointment_date").toLocalDate(),
+                            rs.getTime("appointment_time").toLocalTime()
+                        });
+                    }
+                }
+            }
+            batches++;
+        }
+
+        // Stored patient and doctor rows, with their database timestamps, for the
+        // write-through the single-row DAO methods do with RETURNING (one query per table)
+        private void readBack(Connection conn) throws SQLException {
+            List<String> patientIds = new ArrayList<>();
+            for (Patient patient : newPatients) {
+                patientIds.add(patient.getPatientId());
+            }
+            for (Patient patient : changedPatients) {
+                patientIds.add(patient.getPatientId());
+            }
+            if (!patientIds.isEmpty()) {
+                try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM patients WHERE patient_id = ANY(?)")) {
+                    pstmt.setArray(1, conn.createArrayOf("varchar", patientIds.toArray()));
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            storedPatients.add(PatientDAO.mapPatient(rs));
+                        }
+                    }
+                }
+                batches++;
+            }
+
+            List<String> doctorIds = new ArrayList<>();
+            for (Doctor doctor : newDoctors) {
+                doctorIds.add(doctor.getDoctorId());
+            }
+            for (Doctor doctor : changedDoctors) {
+                doctorIds.add(doctor.getDoctorId());
+            }
+            if (!doctorIds.isEmpty()) {
+                try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM doctors WHERE doctor_id = ANY(?)")) {
+                    pstmt.setArray(1, conn.createArrayOf("varchar", doctorIds.toArray()));
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            storedDoctors.add(DoctorDAO.mapDoctor(rs));
+                        }
+                    }
+                }
+                batches++;
+            }
+        }
+
+        // Same cache and index upkeep as the single-row DAO methods, in write order
+        void apply() {
+            for (Patient patient : storedPatients) {
+                patientDAO.stored(patient);
+            }
+            EntityCache<Doctor> doctorCache = EntityCache.doctors();
+            for (Doctor doctor : storedDoctors) {
+                doctorCache.put(doctor.getDoctorId(), doctor);
+            }
+            for (Appointment appointment : newAppointments) {
+                applySlot(appointment, null, appointment.getStatus());
+            }
+            for (Appointment appointment : changedAppointments) {
+                applySlot(appointment, oldStatuses.get(appointment.getAppointmentId()), appointment.getStatus());
+            }
+            for (Appointment appointment : deletedAppointments) {
+                applySlot(appointment, oldStatuses.get(appointment.getAppointmentId()), null);
+            }
+            AvailabilityIndex availability = AvailabilityIndex.getInstance();
+            for (Object[] slot : freedSlots) {
+                availability.markFree((String) slot[0], (LocalDate) slot[1], (LocalTime) slot[2]);
+            }
+            EntityCache<Patient> patientCache = EntityCache.patients();
+            PatientSearchIndex searchIndex = PatientSearchIndex.getInstance();
+            for (String patientId : deletedPatients) {
+                patientCache.remove(patientId);
+                searchIndex.remove(patientId);
+            }
+            for (String doctorId : deletedDoctors) {
+                doctorCache.remove(doctorId);
+                availability.removeDoctor(doctorId);
+            }
+        }
+
+        private void applySlot(Appointment appointment, String oldStatus, String newStatus) {
+            appointmentDAO.applySlot(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                                     appointment.getAppointmentTime(), oldStatus, newStatus);
+        }
+    }
+
+    private interface Binder<T> {
+        void bind(PreparedStatement pstmt, T item) throws SQLException;
+    }
+
+    private static final Binder<String> BIND_ID = new Binder<String>() {
+        @Override
+        public void bind(PreparedStatement pstmt, String id) throws SQLException {
+            pstmt.setString(1, id);
+        }
+    };
+
+    public static class Result {
+        private final int writes;
+        private final int batches;
+        private final int attempts;
+        private final long elapsedMillis;
+
+        Result(int writes, int batches, int attempts, long elapsedMillis) {
+            this.writes = writes;
+            this.batches = batches;
+            this.attempts = attempts;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getWrites() { return writes; }
+        // Statement round trips, not counting the commit
+        public int getBatches() { return batches; }
+        public int getAttempts() { return attempts; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        @Override
+        public String toString() {
+            return String.format("writes=%d in %d batches, %d attempt%s, %dms",
+                                 writes, batches, attempts, attempts == 1 ? "" : "s", elapsedMillis);
+        }
+    }
+}
@@ -3,23 +3,34 @@ package gui;
 import model.Appointment;
 import model.Patient;
 import model.Doctor;
+import model.RecordValidator;
+import model.TaskExecutors;
+import dao.IdGenerator;
 import dao.AppointmentDAO;
+import dao.BookingAllocator;
 import dao.PatientDAO;
 import dao.DoctorDAO;
+import dao.SlotFinder;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 public class AppointmentDialog extends JDialog {
     private JTextField appointmentIdField, dateField, timeField;
-    private JComboBox<String> patientComboBox, doctorComboBox, statusComboBox;
+    private EntityPicker<Patient> patientPicker;
+    private EntityPicker<Doctor> doctorPicker;
+    private JComboBox<String> statusComboBox;
     private JTextArea reasonArea, diagnosisArea, prescriptionArea;
     private JTextField feeField;
-    private JButton saveButton, cancelButton;
+    private JButton saveButton, cancelButton, findSlotButton, suggestDoctorButton;
     private AppointmentDAO appointmentDAO;
     private PatientDAO patientDAO;
     private DoctorDAO doctorDAO;
@@ -36,7 +47,6 @@ public class AppointmentDialog extends JDialog {
         initializeComponents();
         setupLayout();
         setupEventHandlers();
-        loadComboBoxData();
         pack();
         setLocationRelativeTo(parent);
         setSize(500, 400);
@@ -47,6 +57,9 @@ public class AppointmentDialog extends JDialog {
         this.isEditMode = true;
         this.existingAppointment = appointment;
         setTitle("Edit Appointment");
+        // The booked slot is fixed once scheduled
+        findSlotButton.setVisible(false);
+        suggestDoctorButton.setVisible(false);
         populateFields(appointment);
     }
 
@@ -54,8 +67,40 @@ public class AppointmentDialog extends JDialog {
         appointmentIdField = new JTextField(15);
         dateField = new JTextField(15);
         timeField = new JTextField(15);
-        patientComboBox = new JComboBox<>();
-        doctorComboBox = new JComboBox<>();
+        patientPicker = new EntityPicker<>(new EntityPicker.Source<Patient>() {
+            @Override
+            public List<Patient> search(String term, int limit) {
+                return patientDAO.searchPatients(term, limit);
+            }
+
+            @Override
+            public String idOf(Patient patient) {
+                return patient.getPatientId();
+            }
+
+            @Override
+            public String labelOf(Patient patient) {
+                return patient.getPatientId() + " - " + patient.getName();
+            }
+        }, 15);
+        doctorPicker = new EntityPicker<>(new EntityPicker.Source<Doctor>() {
+            @Override
+            public List<Doctor> search(String term, int limit) {
+                return searchDoctors(term, limit);
+            }
+
+            @Override
+            public String idOf(Doctor doctor) {
+                return doctor.getDoctorId();
+            }
+
+            @Override
+            public String labelOf(Doctor doctor) {
+                return doctor.getDoctorId() + " - " + doctor.getName() + " (" + doctor.getSpecialization() + ")";
+            }
+        }, 15);
+        patientPicker.setToolTipText("Type a name, patient ID or phone number");
+        doctorPicker.setToolTipText("Type a name, doctor ID or specialization");
         
         String[] statuses = {"Scheduled", "Completed", "Cancelled", "No-Show"};
         statusComboBox = new JComboBox<>(statuses);
@@ -71,6 +116,8 @@ public class AppointmentDialog extends JDialog {
         
         saveButton = new JButton(isEditMode ? "Update" : "Schedule");
         cancelButton = new JButton("Cancel");
+        findSlotButton = new JButton("Find Free Slot...");
+        suggestDoctorButton = new JButton("Suggest Doctor...");
 
         if (!isEditMode) {
             appointmentIdField.setText(generateAppointmentId());
@@ -100,12 +147,12 @@ public class AppointmentDialog extends JDialog {
         gbc.gridx = 0; gbc.gridy = row;
         panel.add(new JLabel("Patient:*"), gbc);
         gbc.gridx = 1;
-        panel.add(patientComboBox, gbc);
+        panel.add(patientPicker, gbc);
 
         gbc.gridx = 2;
         panel.add(new JLabel("Doctor:*"), gbc);
         gbc.gridx = 3;
-        panel.add(doctorComboBox, gbc);
+        panel.add(doctorPicker, gbc);
         row++;
 
         // Date and Time
@@ -120,6 +167,12 @@ public class AppointmentDialog extends JDialog {
         panel.add(timeField, gbc);
         row++;
 
+        gbc.gridx = 1; gbc.gridy = row;
+        panel.add(suggestDoctorButton, gbc);
+        gbc.gridx = 3;
+        panel.add(findSlotButton, gbc);
+        row++;
+
         // Status
         gbc.gridx = 0; gbc.gridy = row;
         panel.add(new JLabel("Status:"), gbc);
@@ -191,42 +244,144 @@ public class AppointmentDialog extends JDialog {
                 dispose();
             }
         });
+
+        findSlotButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                findFreeSlot();
+            }
+        });
+
+        suggestDoctorButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                suggestDoctor();
+            }
+        });
     }
 
-    private void loadComboBoxData() {
-        // Load patients
-        List<Patient> patients = patientDAO.getAllPatients();
-        for (Patient patient : patients) {
-            patientComboBox.addItem(patient.getPatientId() + " - " + patient.getName());
+    // Available doctors whose id, name or specialization contains the term. Runs on the
+    // picker's background thread; the doctor list normally comes from the shared cache.
+    private List<Doctor> searchDoctors(String term, int limit) {
+        String query = term.toLowerCase();
+        List<Doctor> matches = new ArrayList<>();
+        for (Doctor doctor : doctorDAO.getAllDoctors()) {
+            if (matches.size() == limit) {
+                break;
+            }
+            if (doctor.isAvailable() &&
+                (doctor.getDoctorId().toLowerCase().contains(query) ||
+                 doctor.getName().toLowerCase().contains(query) ||
+                 (doctor.getSpecialization() != null && doctor.getSpecialization().toLowerCase().contains(query)))) {
+                matches.add(doctor);
+            }
         }
+        return matches;
+    }
 
-        // Load doctors
-        List<Doctor> doctors = doctorDAO.getAllDoctors();
-        for (Doctor doctor : doctors) {
-            if (doctor.isAvailable()) {
-                doctorComboBox.addItem(doctor.getDoctorId() + " - " + doctor.getName() + " (" + doctor.getSpecialization() + ")");
+    // Picks doctor, date and time from the earliest free slots instead of trial and error
+    private void findFreeSlot() {
+        new SlotFinderDialog(this, doctorDAO, doctorPicker.getSelectedId(), bookingDate(), new Consumer<SlotFinder.Slot>() {
+            @Override
+            public void accept(SlotFinder.Slot slot) {
+                doctorPicker.setSelection(slot.getDoctorId(), slot.getDoctorId() + " - " + slot.getDoctorName() +
+                                          " (" + slot.getSpecialization() + ")");
+                dateField.setText(slot.getDate().toString());
+                timeField.setText(slot.getTime().toString());
+            }
+        }).setVisible(true);
+    }
+
+    // Offers the least loaded doctor of a specialization on the chosen day, weighing how
+    // full their day is, how soon they are free and their fee (see BookingAllocator)
+    private void suggestDoctor() {
+        suggestDoctorButton.setEnabled(false);
+        TaskExecutors.background().execute(new SwingWorker<List<String>, Void>() {
+            @Override
+            protected List<String> doInBackground() {
+                return doctorDAO.getAllSpecializations();
+            }
+
+            @Override
+            protected void done() {
+                suggestDoctorButton.setEnabled(true);
+                try {
+                    List<String> specializations = get();
+                    if (specializations.isEmpty()) {
+                        JOptionPane.showMessageDialog(AppointmentDialog.this, "No doctors are available!", "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    Object choice = JOptionPane.showInputDialog(AppointmentDialog.this, "Specialization:", "Suggest Doctor",
+                        JOptionPane.QUESTION_MESSAGE, null, specializations.toArray(), specializations.get(0));
+                    if (choice != null) {
+                        suggestDoctor((String) choice);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(AppointmentDialog.this, "Error: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
             }
+        });
+    }
+
+    private void suggestDoctor(final String specialization) {
+        final LocalDate date = bookingDate();
+        // No slots in the past when booking for today
+        LocalDateTime now = LocalDateTime.now();
+        final LocalDateTime notBefore = date.atStartOfDay().isBefore(now) ? now : date.atStartOfDay();
+        suggestDoctorButton.setEnabled(false);
+        TaskExecutors.background().execute(new SwingWorker<List<BookingAllocator.Suggestion>, Void>() {
+            @Override
+            protected List<BookingAllocator.Suggestion> doInBackground() {
+                return new BookingAllocator(appointmentDAO, doctorDAO).suggest(specialization, notBefore);
+            }
+
+            @Override
+            protected void done() {
+                suggestDoctorButton.setEnabled(true);
+                try {
+                    List<BookingAllocator.Suggestion> suggestions = get();
+                    if (suggestions.isEmpty()) {
+                        JOptionPane.showMessageDialog(AppointmentDialog.this, "No " + specialization +
+                            " doctor has a free slot on " + date + "!", "Suggest Doctor", JOptionPane.INFORMATION_MESSAGE);
+                        return;
+                    }
+                    BookingAllocator.Suggestion best = suggestions.get(0);
+                    Doctor doctor = best.getDoctor();
+                    doctorPicker.setSelection(doctor.getDoctorId(), doctor.getDoctorId() + " - " + doctor.getName() +
+                                              " (" + doctor.getSpecialization() + ")");
+                    dateField.setText(date.toString());
+                    timeField.setText(best.getNextFreeSlot().toString());
+                    StringBuilder message = new StringBuilder("Suggested:\n" + best);
+                    for (int i = 1; i < Math.min(4, suggestions.size()); i++) {
+                        message.append(i == 1 ? "\n\nAlso free:\n" : "\n").append(suggestions.get(i));
+                    }
+                    JOptionPane.showMessageDialog(AppointmentDialog.this, message.toString(), "Suggest Doctor",
+                                                  JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(AppointmentDialog.this, "Error: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+    }
+
+    // The date typed so far, or today while it is not a valid date
+    private LocalDate bookingDate() {
+        try {
+            return LocalDate.parse(dateField.getText().trim());
+        } catch (Exception e) {
+            return LocalDate.now();
         }
     }
 
     private void populateFields(Appointment appointment) {
         appointmentIdField.setText(appointment.getAppointmentId());
         
-        // Set patient
-        for (int i = 0; i < patientComboBox.getItemCount(); i++) {
-            if (patientComboBox.getItemAt(i).toString().startsWith(appointment.getPatientId())) {
-                patientComboBox.setSelectedIndex(i);
-                break;
-            }
-        }
-        
-        // Set doctor
-        for (int i = 0; i < doctorComboBox.getItemCount(); i++) {
-            if (doctorComboBox.getItemAt(i).toString().startsWith(appointment.getDoctorId())) {
-                doctorComboBox.setSelectedIndex(i);
-                break;
-            }
-        }
+        // The appointment row already carries both names, so nothing needs to be looked up
+        patientPicker.setSelection(appointment.getPatientId(),
+                                   appointment.getPatientId() + " - " + appointment.getPatientName());
+        doctorPicker.setSelection(appointment.getDoctorId(),
+                                  appointment.getDoctorId() + " - " + appointment.getDoctorName());
         
         dateField.setText(appointment.getAppointmentDate().toString());
         timeField.setText(appointment.getAppointmentTime().toString());
@@ -245,14 +400,14 @@ public class AppointmentDialog extends JDialog {
     }
 
     private String generateAppointmentId() {
-        return "APT" + String.format("%03d", (int)(Math.random() * 1000));
+        return IdGenerator.appointments().nextId();
     }
 
     private void saveAppointment() {
         try {
             // Validate inputs
-            if (patientComboBox.getSelectedItem() == null ||
-                doctorComboBox.getSelectedItem() == null ||
+            if (patientPicker.getSelectedId() == null ||
+                doctorPicker.getSelectedId() == null ||
                 dateField.getText().trim().isEmpty() ||
                 timeField.getText().trim().isEmpty() ||
                 reasonArea.getText().trim().isEmpty()) {
@@ -260,9 +415,8 @@ public class AppointmentDialog extends JDialog {
                 return;
             }
 
-            // Extract IDs from combo boxes
-            String patientId = patientComboBox.getSelectedItem().toString().split(" - ")[0];
-            String doctorId = doctorComboBox.getSelectedItem().toString().split(" - ")[0];
+            String patientId = patientPicker.getSelectedId();
+            String doctorId = doctorPicker.getSelectedId();
 
             if (isEditMode) {
                 // Update existing appointment
@@ -277,7 +431,7 @@ public class AppointmentDialog extends JDialog {
                 boolean success = appointmentDAO.updateAppointmentDetails(existingAppointment);
                 if (success) {
                     JOptionPane.showMessageDialog(this, "Appointment updated successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    parentFrame.refreshAllTables();
+                    parentFrame.appointmentSaved(existingAppointment.getAppointmentId());
                     dispose();
                 } else {
                     JOptionPane.showMessageDialog(this, "Failed to update appointment!", "Error", JOptionPane.ERROR_MESSAGE);
@@ -292,11 +446,22 @@ public class AppointmentDialog extends JDialog {
                     LocalTime.parse(timeField.getText().trim()),
                     reasonArea.getText().trim()
                 );
+                String error = RecordValidator.validateAppointment(appointment);
+                if (error != null) {
+                    JOptionPane.showMessageDialog(this, error, "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+
+                if (!appointmentDAO.isTimeSlotAvailable(doctorId, appointment.getAppointmentDate(),
+                                                        appointment.getAppointmentTime())) {
+                    JOptionPane.showMessageDialog(this, "The doctor already has an appointment at this time!", "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
 
                 boolean success = appointmentDAO.addAppointment(appointment);
                 if (success) {
                     JOptionPane.showMessageDialog(this, "Appointment scheduled successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    parentFrame.refreshAllTables();
+                    parentFrame.appointmentSaved(appointment.getAppointmentId());
                     dispose();
                 } else {
                     JOptionPane.showMessageDialog(this, "Failed to schedule appointment!", "Error", JOptionPane.ERROR_MESSAGE);
@@ -0,0 +1,289 @@
+package gui;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Row storage for the table models. Cell values are copied out of the entities once,
+// when a row is stored, into one array per column: numbers into int[]/double[], and
+// category text as int codes into a per-column dictionary, so repeated values such as
+// "Male" or "Scheduled" are held once. Painting a cell then reads an array slot
+// instead of calling entity getters and boxing numbers.
+//
+// The entities themselves are kept as well: dialogs and row filters need the whole
+// object. A row that is changed in place must be stored again with set().
+final class ColumnarRows {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NULL_CODE = -1;
+
+    private final EntityColumns columns;
+    private Object[] items;
+    // One array per column, by kind; the other kinds' slots are null
+    private final String[][] texts;
+    private final int[][] ints;         // INT values and CATEGORY codes
+    private final double[][] decimals;
+    private final Object[][] objects;
+    private final Dictionary[] dictionaries;
+    private int size;
+
+    // Distinct values of one CATEGORY column, numbered in order of first appearance
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int codeOf(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String valueOf(int code) {
+            return code == NULL_CODE ? null : values.get(code);
+        }
+
+        void clear() {
+            codes.clear();
+            values.clear();
+        }
+    }
+
+    ColumnarRows(EntityColumns columns) {
+        this(columns, INITIAL_CAPACITY);
+    }
+
+    ColumnarRows(EntityColumns columns, int capacity) {
+        this.columns = columns;
+        int count = columns.getColumnCount();
+        capacity = Math.max(capacity, 1);
+        items = new Object[capacity];
+        texts = new String[count][];
+        ints = new int[count][];
+        decimals = new double[count][];
+        objects = new Object[count][];
+        dictionaries = new Dictionary[count];
+        for (int column = 0; column < count; column++) {
+            switch (columns.getKind(column)) {
+                case TEXT:
+                    texts[column] = new String[capacity];
+                    break;
+                case CATEGORY:
+                    ints[column] = new int[capacity];
+                    dictionaries[column] = new Dictionary();
+                    break;
+                case INT:
+                    ints[column] = new int[capacity];
+                    break;
+                case DECIMAL:
+                    decimals[column] = new double[capacity];
+                    break;
+                default:
+                    objects[column] = new Object[capacity];
+                    break;
+            }
+        }
+    }
+
+    EntityColumns getColumns() {
+        return columns;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Object itemAt(int row) {
+        return items[row];
+    }
+
+    String textAt(int row, int column) {
+        if (dictionaries[column] != null) {
+            return dictionaries[column].valueOf(ints[column][row]);
+        }
+        return texts[column][row];
+    }
+
+    int intAt(int row, int column) {
+        return ints[column][row];
+    }
+
+    double decimalAt(int row, int column) {
+        return decimals[column][row];
+    }
+
+    // Boxes INT and DECIMAL cells; renderers should use intAt/decimalAt instead
+    Object valueAt(int row, int column) {
+        switch (columns.getKind(column)) {
+            case TEXT:
+            case CATEGORY:
+                return textAt(row, column);
+            case INT:
+                return ints[column][row];
+            case DECIMAL:
+                return decimals[column][row];
+            default:
+                return objects[column][row];
+        }
+    }
+
+    void add(Object item) {
+        insert(size, item);
+    }
+
+    void addAll(List<?> newItems) {
+        ensureCapacity(size + newItems.size());
+        for (Object item : newItems) {
+            store(size++, item);
+        }
+    }
+
+    void insert(int row, Object item) {
+        ensureCapacity(size + 1);
+        shift(row, row + 1, size - row);
+        size++;
+        store(row, item);
+    }
+
+    // Replaces the row, or re-reads it after its entity was changed in place
+    void set(int row, Object item) {
+        store(row, item);
+    }
+
+    void remove(int row) {
+        shift(row + 1, row, size - row - 1);
+        size--;
+        items[size] = null;
+        for (int column = 0; column < texts.length; column++) {
+            if (texts[column] != null) {
+                texts[column][size] = null;
+            } else if (objects[column] != null) {
+                objects[column][size] = null;
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(items, 0, size, null);
+        for (int column = 0; column < texts.length; column++) {
+            if (texts[column] != null) {
+                Arrays.fill(texts[column], 0, size, null);
+            } else if (objects[column] != null) {
+                Arrays.fill(objects[column], 0, size, null);
+            } else if (dictionaries[column] != null) {
+                dictionaries[column].clear();
+            }
+        }
+        size = 0;
+    }
+
+    int indexOfKey(String key) {
+        if (key == null) {
+            return -1;
+        }
+        for (int row = 0; row < size; row++) {
+            if (key.equals(columns.keyOf(items[row]))) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    // Insertion point for the item in the columns' sort order
+    int insertionPoint(Object item) {
+        Comparator<Object> order = columns.order();
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = order.compare(items[mid], item);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return low;
+    }
+
+    private void store(int row, Object item) {
+        items[row] = item;
+        for (int column = 0; column < texts.length; column++) {
+            switch (columns.getKind(column)) {
+                case TEXT:
+                    texts[column][row] = columns.text(item, column);
+                    break;
+                case CATEGORY:
+                    ints[column][row] = dictionaries[column].codeOf(columns.text(item, column));
+                    break;
+                case INT:
+                    ints[column][row] = columns.intValue(item, column);
+                    break;
+                case DECIMAL:
+                    decimals[column][row] = columns.decimalValue(item, column);
+                    break;
+                default:
+                    objects[column][row] = columns.objectValue(item, column);
+                    break;
+            }
+        }
+    }
+
+    private void shift(int from, int to, int length) {
+        if (length <= 0) {
+            return;
+        }
+        System.arraycopy(items, from, items, to, length);
+        for (int column = 0; column < texts.length; column++) {
+            System.arraycopy(columnArray(column), from, columnArray(column), to, length);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= items.length) {
+            return;
+        }
+        int grown = Math.max(capacity, items.length + (items.length >> 1));
+        items = grow(items, grown);
+        for (int column = 0; column < texts.length; column++) {
+            if (texts[column] != null) {
+                texts[column] = grow(texts[column], grown);
+            } else if (ints[column] != null) {
+                ints[column] = grow(ints[column], grown);
+            } else if (decimals[column] != null) {
+                decimals[column] = grow(decimals[column], grown);
+            } else {
+                objects[column] = grow(objects[column], grown);
+            }
+        }
+    }
+
+    private Object columnArray(int column) {
+        if (texts[column] != null) {
+            return texts[column];
+        } else if (ints[column] != null) {
+            return ints[column];
+        } else if (decimals[column] != null) {
+            return decimals[column];
+        }
+        return objects[column];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A> A grow(A array, int capacity) {
+        A grown = (A) Array.newInstance(array.getClass().getComponentType(), capacity);
+        System.arraycopy(array, 0, grown, 0, Array.getLength(array));
+        return grown;
+    }
+}
@@ -0,0 +1,17 @@
+package gui;
+
+import javax.swing.table.TableModel;
+
+// Typed cell access for EntityTable's renderers, so numeric cells are painted from
+// primitives instead of boxed getValueAt results
+interface ColumnarTableModel extends TableModel {
+
+    EntityColumns.Kind getColumnKind(int column);
+
+    // False while the row is not loaded yet (LazyTableModel); its cells are then blank
+    boolean isRowAvailable(int rowIndex);
+
+    int getIntAt(int rowIndex, int columnIndex);
+
+    double getDecimalAt(int rowIndex, int columnIndex);
+}
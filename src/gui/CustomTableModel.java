@@ -58,26 +58,25 @@
 // }
 package gui;
 
-import model.Patient;
-import model.Doctor;
-import model.Appointment;
 import javax.swing.table.AbstractTableModel;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
-public class CustomTableModel extends AbstractTableModel {
-    private final List<?> data;
+public class CustomTableModel extends AbstractTableModel implements EntityTableModel, ColumnarTableModel {
+    private final ColumnarRows rows;
     private final String[] columnNames;
-    private final Class<?> dataType;
     
     public CustomTableModel(List<?> data, String[] columnNames, Class<?> dataType) {
-        this.data = data;
+        this.rows = new ColumnarRows(EntityColumns.forType(dataType), data.size());
         this.columnNames = columnNames;
-        this.dataType = dataType;
+        rows.addAll(data);
     }
     
     @Override
     public int getRowCount() {
-        return data.size();
+        return rows.size();
     }
     
     @Override
@@ -90,70 +89,131 @@ public class CustomTableModel extends AbstractTableModel {
         return columnNames[column];
     }
     
+    // Numeric columns sort numerically under a row sorter
     @Override
-    public Object getValueAt(int rowIndex, int columnIndex) {
-        Object item = data.get(rowIndex);
-        
-        if (dataType == Patient.class) {
-            return getPatientValue((Patient) item, columnIndex);
-        } else if (dataType == Doctor.class) {
-            return getDoctorValue((Doctor) item, columnIndex);
-        } else if (dataType == Appointment.class) {
-            return getAppointmentValue((Appointment) item, columnIndex);
-        }
-        
-        return null;
-    }
-    
-    private Object getPatientValue(Patient patient, int columnIndex) {
-        switch (columnIndex) {
-            case 0: return patient.getPatientId();
-            case 1: return patient.getName();
-            case 2: return patient.getAge();
-            case 3: return patient.getGender();
-            case 4: return patient.getPhone();
-            case 5: return patient.getEmail();
-            case 6: return patient.getBloodGroup();
-            default: return null;
-        }
+    public Class<?> getColumnClass(int columnIndex) {
+        return columnClassOf(rows.getColumns().getKind(columnIndex));
     }
     
-    private Object getDoctorValue(Doctor doctor, int columnIndex) {
-        switch (columnIndex) {
-            case 0: return doctor.getDoctorId();
-            case 1: return doctor.getName();
-            case 2: return doctor.getSpecialization();
-            case 3: return doctor.getPhone();
-            case 4: return doctor.getEmail();
-            case 5: return doctor.getQualification();
-            case 6: return doctor.getExperienceYears();
-            case 7: return doctor.getConsultationFee();
-            case 8: return doctor.isAvailable() ? "Yes" : "No";
-            default: return null;
+    static Class<?> columnClassOf(EntityColumns.Kind kind) {
+        switch (kind) {
+            case INT: return Integer.class;
+            case DECIMAL: return Double.class;
+            default: return Object.class;
         }
     }
     
-    private Object getAppointmentValue(Appointment appointment, int columnIndex) {
-        switch (columnIndex) {
-            case 0: return appointment.getAppointmentId();
-            case 1: return appointment.getPatientName();
-            case 2: return appointment.getDoctorName();
-            case 3: return appointment.getAppointmentDate();
-            case 4: return appointment.getAppointmentTime();
-            case 5: return appointment.getStatus();
-            case 6: return appointment.getReason();
-            default: return null;
-        }
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return rows.valueAt(rowIndex, columnIndex);
     }
     
+    @Override
+    public EntityColumns.Kind getColumnKind(int column) {
+        return rows.getColumns().getKind(column);
+    }
+    
+    @Override
+    public boolean isRowAvailable(int rowIndex) {
+        return true;
+    }
+    
+    @Override
+    public int getIntAt(int rowIndex, int columnIndex) {
+        return rows.intAt(rowIndex, columnIndex);
+    }
+    
+    @Override
+    public double getDecimalAt(int rowIndex, int columnIndex) {
+        return rows.decimalAt(rowIndex, columnIndex);
+    }
+    
+    @Override
     public Object getItemAt(int rowIndex) {
-        return data.get(rowIndex);
+        return rows.itemAt(rowIndex);
     }
     
     public void updateData(List<?> newData) {
         // Clear current data and add new data
-        ((List<Object>) data).clear();
-        ((List<Object>) data).addAll(newData);
+        rows.clear();
+        rows.addAll(newData);
         fireTableDataChanged();
     }
+    
+    // Row-level updates, so a single mutation doesn't reload and repaint the whole table
+    @Override
+    public void upsertRow(Object item) {
+        EntityColumns columns = rows.getColumns();
+        int index = rows.indexOfKey(columns.keyOf(item));
+        if (index >= 0) {
+            if (columns.order().compare(rows.itemAt(index), item) == 0) {
+                rows.set(index, item);
+                fireTableRowsUpdated(index, index);
+                return;
+            }
+            // Sort key changed: move the row to its new position
+            rows.remove(index);
+            fireTableRowsDeleted(index, index);
+        }
+        int insertAt = rows.insertionPoint(item);
+        rows.insert(insertAt, item);
+        fireTableRowsInserted(insertAt, insertAt);
+    }
+    
+    @Override
+    public boolean removeRow(String key) {
+        int index = rows.indexOfKey(key);
+        if (index < 0) {
+            return false;
+        }
+        rows.remove(index);
+        fireTableRowsDeleted(index, index);
+        return true;
+    }
+    
+    @Override
+    public int removeRowsIf(Predicate<Object> filter) {
+        int removed = 0;
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            if (filter.test(rows.itemAt(i))) {
+                rows.remove(i);
+                fireTableRowsDeleted(i, i);
+                removed++;
+            }
+        }
+        return removed;
+    }
+    
+    @Override
+    public int updateRowsIf(Predicate<Object> filter, Consumer<Object> change) {
+        int updated = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            Object item = rows.itemAt(i);
+            if (filter.test(item)) {
+                change.accept(item);
+                rows.set(i, item);
+                fireTableRowsUpdated(i, i);
+                updated++;
+            }
+        }
+        return updated;
+    }
+    
+    public int indexOfKey(String key) {
+        return rows.indexOfKey(key);
+    }
+    
+    // Newest updated_at among the loaded rows; the watermark for incremental refresh
+    @Override
+    public LocalDateTime getLatestUpdate() {
+        EntityColumns columns = rows.getColumns();
+        LocalDateTime latest = null;
+        for (int i = 0; i < rows.size(); i++) {
+            LocalDateTime updatedAt = columns.updatedAtOf(rows.itemAt(i));
+            if (updatedAt != null && (latest == null || updatedAt.isAfter(latest))) {
+                latest = updatedAt;
+            }
+        }
+        return latest;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package gui;
+
+import model.Metrics;
+import model.OperationStats;
+import model.LatencyHistogram;
+import javax.swing.*;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Non-modal window showing which interactions froze the UI (EdtWatchdog) and how long
+// each database operation takes (Metrics)
+public class DiagnosticsDialog extends JDialog {
+    private static final String[] STALL_COLUMNS = {"UI Code", "Database Call", "Stalls", "Total ms", "Max ms", "Last Event"};
+    private static final String[] OPERATION_COLUMNS = {"Operation", "Count", "Errors", "Rows", "Mean \u00b5s",
+                                                       "p50 \u00b5s", "p90 \u00b5s", "p99 \u00b5s", "p99.9 \u00b5s", "Max \u00b5s"};
+
+    private final EdtWatchdog watchdog = EdtWatchdog.getInstance();
+    private DefaultTableModel stallModel, operationModel;
+    private JTable stallTable;
+    private JTextArea stackArea;
+    private JButton refreshButton, saveButton, clearButton, closeButton;
+    private List<EdtWatchdog.Stall> stalls = new ArrayList<>();
+
+    public DiagnosticsDialog(Frame parent) {
+        super(parent, "Diagnostics", false);
+        initializeComponents();
+        setupLayout();
+        setupEventHandlers();
+        refresh();
+        setSize(900, 550);
+        setLocationRelativeTo(parent);
+    }
+
+    private void initializeComponents() {
+        stallModel = readOnlyModel(STALL_COLUMNS);
+        operationModel = readOnlyModel(OPERATION_COLUMNS);
+        stallTable = new JTable(stallModel);
+        stallTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        stackArea = new JTextArea();
+        stackArea.setEditable(false);
+        stackArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        refreshButton = new JButton("Refresh");
+        saveButton = new JButton("Save Report...");
+        clearButton = new JButton("Clear Stalls");
+        closeButton = new JButton("Close");
+        saveButton.setEnabled(watchdog != null);
+        clearButton.setEnabled(watchdog != null);
+    }
+
+    private static DefaultTableModel readOnlyModel(String[] columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+
+    private void setupLayout() {
+        JTabbedPane tabs = new JTabbedPane();
+
+        JPanel stallPanel = new JPanel(new BorderLayout());
+        String heading = watchdog == null
+            ? "The EDT watchdog is switched off (-Dedt.watchdog=false)."
+            : "Events that kept the UI busy for " + watchdog.getThresholdMillis() + " ms or more:";
+        stallPanel.add(new JLabel(heading), BorderLayout.NORTH);
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+            new JScrollPane(stallTable), new JScrollPane(stackArea));
+        split.setResizeWeight(0.5);
+        stallPanel.add(split, BorderLayout.CENTER);
+        tabs.addTab("UI Stalls", stallPanel);
+
+        JPanel operationPanel = new JPanel(new BorderLayout());
+        operationPanel.add(new JLabel(Metrics.isEnabled()
+            ? "Database time per operation since startup:"
+            : "Query metrics are switched off (-Dmetrics.enabled=false)."), BorderLayout.NORTH);
+        operationPanel.add(new JScrollPane(new JTable(operationModel)), BorderLayout.CENTER);
+        tabs.addTab("Database", operationPanel);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout());
+        buttonPanel.add(refreshButton);
+        buttonPanel.add(saveButton);
+        buttonPanel.add(clearButton);
+        buttonPanel.add(closeButton);
+
+        setLayout(new BorderLayout());
+        add(tabs, BorderLayout.CENTER);
+        add(buttonPanel, BorderLayout.SOUTH);
+    }
+
+    private void setupEventHandlers() {
+        refreshButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refresh();
+            }
+        });
+
+        saveButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                saveReport();
+            }
+        });
+
+        clearButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                watchdog.clear();
+                refresh();
+            }
+        });
+
+        closeButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+
+        stallTable.getSelectionModel().addListSelectionListener(new ListSelectionListener() {
+            @Override
+            public void valueChanged(ListSelectionEvent e) {
+                showStack(stallTable.getSelectedRow());
+            }
+        });
+    }
+
+    private void refresh() {
+        stalls = watchdog == null ? new ArrayList<EdtWatchdog.Stall>() : watchdog.getStalls();
+        stallModel.setRowCount(0);
+        for (EdtWatchdog.Stall stall : stalls) {
+            stallModel.addRow(new Object[] {
+                stall.getUiCode(), stall.getDatabaseCall(), stall.getCount(),
+                stall.getTotalMillis(), stall.getMaxMillis(), stall.getLastEvent()
+            });
+        }
+        showStack(-1);
+
+        operationModel.setRowCount(0);
+        for (OperationStats stats : Metrics.getOperations()) {
+            LatencyHistogram.Snapshot latency = stats.getLatency();
+            operationModel.addRow(new Object[] {
+                stats.getName(), latency.getCount(), stats.getErrors(), stats.getRows(),
+                Math.round(latency.getMean()), latency.getValueAtPercentile(50), latency.getValueAtPercentile(90),
+                latency.getValueAtPercentile(99), latency.getValueAtPercentile(99.9), latency.getMax()
+            });
+        }
+    }
+
+    private void showStack(int row) {
+        if (row < 0 || row >= stalls.size()) {
+            stackArea.setText("");
+            return;
+        }
+        EdtWatchdog.Stall stall = stalls.get(row);
+        StringBuilder text = new StringBuilder("Stack sampled during the longest stall (" +
+                                               stall.getMaxMillis() + " ms, last seen " + stall.getLastSeen() + "):\n");
+        for (StackTraceElement frame : stall.getStack()) {
+            text.append("    at ").append(frame).append('\n');
+        }
+        stackArea.setText(text.toString());
+        stackArea.setCaretPosition(0);
+    }
+
+    private void saveReport() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("edt-stalls.txt"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        try {
+            watchdog.saveReport(file.getPath());
+            JOptionPane.showMessageDialog(this, "Report saved to " + file.getPath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Error saving report: " + e.getMessage(),
+                                          "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package gui;
 
 import model.Doctor;
+import model.RecordValidator;
+import dao.IdGenerator;
 import dao.DoctorDAO;
 import javax.swing.*;
 import java.awt.*;
@@ -169,7 +171,7 @@ public class DoctorManagementDialog extends JDialog {
     }
 
     private String generateDoctorId() {
-        return "DOC" + String.format("%03d", (int)(Math.random() * 1000));
+        return IdGenerator.doctors().nextId();
     }
 
     private void saveDoctor() {
@@ -197,6 +199,11 @@ public class DoctorManagementDialog extends JDialog {
                 Double.parseDouble(feeField.getText().trim())
             );
             doctor.setAvailable(availableCheckBox.isSelected());
+            String error = RecordValidator.validateDoctor(doctor);
+            if (error != null) {
+                JOptionPane.showMessageDialog(this, error, "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
 
             boolean success;
             if (isEditMode) {
@@ -209,7 +216,7 @@ public class DoctorManagementDialog extends JDialog {
                 JOptionPane.showMessageDialog(this, 
                     isEditMode ? "Doctor updated successfully!" : "Doctor added successfully!", 
                     "Success", JOptionPane.INFORMATION_MESSAGE);
-                parentFrame.refreshAllTables();
+                parentFrame.doctorSaved(doctor.getDoctorId());
                 dispose();
             } else {
                 JOptionPane.showMessageDialog(this, 
@@ -0,0 +1,359 @@
+package gui;
+
+import model.TaskExecutors;
+import javax.swing.AbstractButton;
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.InvocationEvent;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Watches the Event Dispatch Thread for events that keep it busy longer than
+// edt.stallThresholdMs. While an event overruns, a sampler thread takes the EDT's stack,
+// so each stall is attributed to the UI code and the DAO method that were running.
+// Stalls are aggregated by that pair for the diagnostics window and the report file.
+// A modal dialog's nested event loop counts as idle, not as part of the event that
+// opened it.
+public final class EdtWatchdog {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("edt.watchdog", "true"));
+    private static final long THRESHOLD_MS = Long.getLong("edt.stallThresholdMs", 200);
+    private static final String REPORT_FILE = System.getProperty("edt.stallReportFile");
+
+    static final String NO_DATABASE_CALL = "(no database call)";
+    static final String NOT_SAMPLED = "(not sampled)";
+    private static final int MAX_SAMPLES = 100;
+    private static final int MAX_GROUPS = 200;
+
+    private static EdtWatchdog instance;
+
+    private final long thresholdNanos;
+    // Guarded by this; written on the EDT, read by the diagnostics window and the report
+    private final Map<String, Stall> stalls = new LinkedHashMap<>();
+    private volatile Activity current;
+    private volatile Thread dispatchThread;
+
+    private EdtWatchdog(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    // Pushes the monitoring event queue; call once, before the UI is created
+    public static synchronized void install() {
+        if (!ENABLED || instance != null) {
+            return;
+        }
+        final EdtWatchdog watchdog = new EdtWatchdog(THRESHOLD_MS);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog.new MonitoredQueue());
+
+        ScheduledExecutorService sampler =
+            Executors.newSingleThreadScheduledExecutor(TaskExecutors.daemonThreadFactory("edt-watchdog"));
+        long period = Math.max(10, THRESHOLD_MS / 4);
+        sampler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                watchdog.sample();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+
+        if (REPORT_FILE != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        watchdog.saveReport(REPORT_FILE);
+                    } catch (IOException e) {
+                        System.err.println("Error writing EDT stall report: " + e.getMessage());
+                    }
+                }
+            }, "edt-watchdog-report"));
+        }
+        instance = watchdog;
+    }
+
+    // null when the watchdog is switched off (-Dedt.watchdog=false) or not installed
+    public static synchronized EdtWatchdog getInstance() {
+        return instance;
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    private void begin(AWTEvent event) {
+        current = new Activity(event, System.nanoTime());
+    }
+
+    private void end() {
+        Activity activity = current;
+        current = null;
+        if (activity == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - activity.startedAt;
+        if (elapsed >= thresholdNanos) {
+            record(activity, elapsed);
+        }
+    }
+
+    private void sample() {
+        Activity activity = current;
+        Thread thread = dispatchThread;
+        if (activity == null || thread == null || System.nanoTime() - activity.startedAt < thresholdNanos) {
+            return;
+        }
+        StackTraceElement[] stack = thread.getStackTrace();
+        synchronized (activity) {
+            // The event may have finished while the stack was taken
+            if (current == activity && activity.samples.size() < MAX_SAMPLES) {
+                activity.samples.add(stack);
+            }
+        }
+    }
+
+    // Attributes the stall to whatever the EDT was doing in most samples
+    private void record(Activity activity, long elapsed) {
+        List<StackTraceElement[]> samples;
+        synchronized (activity) {
+            samples = new ArrayList<>(activity.samples);
+        }
+        String uiCode = describe(activity.event);
+        String databaseCall = NOT_SAMPLED;
+        StackTraceElement[] stack = new StackTraceElement[0];
+        Map<String, Integer> votes = new HashMap<>();
+        int best = 0;
+        for (StackTraceElement[] sample : samples) {
+            String[] location = locate(sample);
+            String key = location[0] + "\n" + location[1];
+            Integer previous = votes.get(key);
+            int count = previous == null ? 1 : previous + 1;
+            votes.put(key, count);
+            if (count > best) {
+                best = count;
+                uiCode = location[0];
+                databaseCall = location[1];
+                stack = sample;
+            }
+        }
+
+        String key = uiCode + "\n" + databaseCall;
+        synchronized (this) {
+            Stall stall = stalls.get(key);
+            if (stall == null) {
+                if (stalls.size() >= MAX_GROUPS) {
+                    return;
+                }
+                stall = new Stall(uiCode, databaseCall);
+                stalls.put(key, stall);
+            }
+            stall.count++;
+            stall.totalNanos += elapsed;
+            stall.lastEvent = describe(activity.event);
+            stall.lastSeen = System.currentTimeMillis();
+            if (elapsed > stall.maxNanos) {
+                stall.maxNanos = elapsed;
+                stall.stack = stack;
+            }
+        }
+    }
+
+    // Innermost gui frame and innermost DAO frame, e.g. MainFrame.deletePatient and
+    // PatientDAO.deletePatient
+    private static String[] locate(StackTraceElement[] stack) {
+        String uiCode = null;
+        String databaseCall = null;
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (databaseCall == null && className.startsWith("dao.") && !className.startsWith("dao.ResultStreams")) {
+                databaseCall = methodName(frame);
+            }
+            if (uiCode == null && (className.startsWith("gui.") || className.startsWith("main."))
+                    && !className.startsWith("gui.EdtWatchdog")) {
+                uiCode = methodName(frame);
+            }
+        }
+        if (uiCode == null) {
+            uiCode = stack.length == 0 ? NOT_SAMPLED : "Swing " + methodName(stack[0]);
+        }
+        return new String[] { uiCode, databaseCall == null ? NO_DATABASE_CALL : databaseCall };
+    }
+
+    private static String methodName(StackTraceElement frame) {
+        String className = frame.getClassName();
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        int nested = simpleName.indexOf('$');
+        if (nested > 0) {
+            simpleName = simpleName.substring(0, nested);
+        }
+        return simpleName + "." + frame.getMethodName();
+    }
+
+    // e.g. MOUSE_RELEASED on JButton "Delete Patient"
+    static String describe(AWTEvent event) {
+        String params = event.paramString();
+        int comma = params.indexOf(',');
+        String kind = comma > 0 ? params.substring(0, comma) : params;
+        if (event instanceof InvocationEvent) {
+            int runnable = params.indexOf("runnable=");
+            if (runnable >= 0) {
+                String name = params.substring(runnable + "runnable=".length());
+                int end = name.indexOf(',');
+                name = end >= 0 ? name.substring(0, end) : name;
+                int hash = name.indexOf('@');
+                return "invokeLater " + (hash > 0 ? name.substring(0, hash) : name);
+            }
+        }
+        Object source = event.getSource();
+        if (source == null) {
+            return kind;
+        }
+        String sourceName = source.getClass().getName();
+        sourceName = sourceName.substring(sourceName.lastIndexOf('.') + 1);
+        if (source instanceof AbstractButton && ((AbstractButton) source).getText() != null) {
+            return kind + " on " + sourceName + " \"" + ((AbstractButton) source).getText() + "\"";
+        }
+        return kind + " on " + sourceName;
+    }
+
+    // Worst offenders (by total time blocked) first
+    public synchronized List<Stall> getStalls() {
+        List<Stall> copy = new ArrayList<>();
+        for (Stall stall : stalls.values()) {
+            copy.add(stall.copy());
+        }
+        Collections.sort(copy, new Comparator<Stall>() {
+            @Override
+            public int compare(Stall a, Stall b) {
+                return Long.compare(b.totalNanos, a.totalNanos);
+            }
+        });
+        return copy;
+    }
+
+    public synchronized void clear() {
+        stalls.clear();
+    }
+
+    public String getReport() {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        out.println("EDT stall report, threshold " + getThresholdMillis() + " ms, " +
+                    new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+        List<Stall> all = getStalls();
+        if (all.isEmpty()) {
+            out.println("No stalls recorded.");
+        }
+        for (Stall stall : all) {
+            out.println();
+            out.printf("%s -> %s: %d stalls, %d ms total, %d ms max%n", stall.getUiCode(), stall.getDatabaseCall(),
+                       stall.getCount(), stall.getTotalMillis(), stall.getMaxMillis());
+            out.println("    last event: " + stall.getLastEvent());
+            for (StackTraceElement frame : stall.getStack()) {
+                out.println("    at " + frame);
+            }
+        }
+        out.flush();
+        return text.toString();
+    }
+
+    public void saveReport(String file) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.print(getReport());
+        }
+    }
+
+    // Stalls that share UI code and DAO call
+    public static final class Stall {
+        private final String uiCode;
+        private final String databaseCall;
+        private int count;
+        private long totalNanos;
+        private long maxNanos;
+        private String lastEvent;
+        private long lastSeen;
+        private StackTraceElement[] stack = new StackTraceElement[0];
+
+        private Stall(String uiCode, String databaseCall) {
+            this.uiCode = uiCode;
+            this.databaseCall = databaseCall;
+        }
+
+        private Stall copy() {
+            Stall copy = new Stall(uiCode, databaseCall);
+            copy.count = count;
+            copy.totalNanos = totalNanos;
+            copy.maxNanos = maxNanos;
+            copy.lastEvent = lastEvent;
+            copy.lastSeen = lastSeen;
+            copy.stack = stack;
+            return copy;
+        }
+
+        public String getUiCode() { return uiCode; }
+        public String getDatabaseCall() { return databaseCall; }
+        public int getCount() { return count; }
+        public long getTotalMillis() { return TimeUnit.NANOSECONDS.toMillis(totalNanos); }
+        public long getMaxMillis() { return TimeUnit.NANOSECONDS.toMillis(maxNanos); }
+        public String getLastEvent() { return lastEvent; }
+        public Date getLastSeen() { return new Date(lastSeen); }
+        // Stack sampled during the longest of these stalls
+        public StackTraceElement[] getStack() { return stack.clone(); }
+    }
+
+    // One uninterrupted stretch of EDT work on an event
+    private static final class Activity {
+        final AWTEvent event;
+        final long startedAt;
+        final List<StackTraceElement[]> samples = new ArrayList<>(2);
+
+        Activity(AWTEvent event, long startedAt) {
+            this.event = event;
+            this.startedAt = startedAt;
+        }
+    }
+
+    private final class MonitoredQueue extends EventQueue {
+        // Events being dispatched, innermost first; only touched on the EDT
+        private final Deque<AWTEvent> dispatching = new ArrayDeque<>();
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            dispatchThread = Thread.currentThread();
+            dispatching.push(event);
+            begin(event);
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                end();
+                dispatching.pop();
+                // Back in the handler that opened a nested loop (e.g. a modal dialog)
+                AWTEvent outer = dispatching.peek();
+                if (outer != null) {
+                    begin(outer);
+                }
+            }
+        }
+
+        @Override
+        public AWTEvent getNextEvent() throws InterruptedException {
+            // Waiting for the next event, possibly inside a modal dialog: the EDT is idle
+            end();
+            return super.getNextEvent();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package gui;
+
+import model.Appointment;
+import model.Doctor;
+import model.Patient;
+import dao.DoctorDAO;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+// Column layout of the patient, doctor and appointment tables. Each column has a kind,
+// and values are read through the accessor for that kind, so numbers never get boxed.
+// One instance per entity type is resolved when a model is created, instead of
+// checking the entity class on every cell.
+abstract class EntityColumns {
+    enum Kind {
+        TEXT,       // free text, mostly unique per row
+        CATEGORY,   // text from a small set (gender, status, ...), stored as dictionary codes
+        INT,
+        DECIMAL,
+        OBJECT      // dates and times
+    }
+
+    private final Kind[] kinds;
+
+    private EntityColumns(Kind... kinds) {
+        this.kinds = kinds;
+    }
+
+    static EntityColumns forType(Class<?> dataType) {
+        if (dataType == Patient.class) {
+            return PATIENTS;
+        } else if (dataType == Doctor.class) {
+            return DOCTORS;
+        } else if (dataType == Appointment.class) {
+            return APPOINTMENTS;
+        }
+        throw new IllegalArgumentException("No table columns for " + dataType);
+    }
+
+    int getColumnCount() {
+        return kinds.length;
+    }
+
+    Kind getKind(int column) {
+        return kinds[column];
+    }
+
+    // TEXT and CATEGORY columns
+    String text(Object item, int column) {
+        throw new IllegalArgumentException("Column " + column + " is not text");
+    }
+
+    int intValue(Object item, int column) {
+        throw new IllegalArgumentException("Column " + column + " is not an int");
+    }
+
+    double decimalValue(Object item, int column) {
+        throw new IllegalArgumentException("Column " + column + " is not a decimal");
+    }
+
+    Object objectValue(Object item, int column) {
+        throw new IllegalArgumentException("Column " + column + " is not an object");
+    }
+
+    abstract String keyOf(Object item);
+
+    abstract LocalDateTime updatedAtOf(Object item);
+
+    abstract LocalDateTime createdAtOf(Object item);
+
+    // Same ordering the DAO list queries use, so inserted rows land where a reload would put them
+    abstract Comparator<Object> order();
+
+    static final EntityColumns PATIENTS = new EntityColumns(
+            Kind.TEXT, Kind.TEXT, Kind.INT, Kind.CATEGORY, Kind.TEXT, Kind.TEXT, Kind.CATEGORY) {
+        @Override
+        String text(Object item, int column) {
+            Patient patient = (Patient) item;
+            switch (column) {
+                case 0: return patient.getPatientId();
+                case 1: return patient.getName();
+                case 3: return patient.getGender();
+                case 4: return patient.getPhone();
+                case 5: return patient.getEmail();
+                case 6: return patient.getBloodGroup();
+                default: return super.text(item, column);
+            }
+        }
+
+        @Override
+        int intValue(Object item, int column) {
+            return column == 2 ? ((Patient) item).getAge() : super.intValue(item, column);
+        }
+
+        @Override
+        String keyOf(Object item) {
+            return ((Patient) item).getPatientId();
+        }
+
+        @Override
+        LocalDateTime updatedAtOf(Object item) {
+            return ((Patient) item).getUpdatedAt();
+        }
+
+        @Override
+        LocalDateTime createdAtOf(Object item) {
+            return ((Patient) item).getCreatedAt();
+        }
+
+        @Override
+        Comparator<Object> order() {
+            return PATIENT_ORDER;
+        }
+    };
+
+    static final EntityColumns DOCTORS = new EntityColumns(
+            Kind.TEXT, Kind.TEXT, Kind.CATEGORY, Kind.TEXT, Kind.TEXT, Kind.CATEGORY, Kind.INT, Kind.DECIMAL,
+            Kind.CATEGORY) {
+        @Override
+        String text(Object item, int column) {
+            Doctor doctor = (Doctor) item;
+            switch (column) {
+                case 0: return doctor.getDoctorId();
+                case 1: return doctor.getName();
+                case 2: return doctor.getSpecialization();
+                case 3: return doctor.getPhone();
+                case 4: return doctor.getEmail();
+                case 5: return doctor.getQualification();
+                case 8: return doctor.isAvailable() ? "Yes" : "No";
+                default: return super.text(item, column);
+            }
+        }
+
+        @Override
+        int intValue(Object item, int column) {
+            return column == 6 ? ((Doctor) item).getExperienceYears() : super.intValue(item, column);
+        }
+
+        @Override
+        double decimalValue(Object item, int column) {
+            return column == 7 ? ((Doctor) item).getConsultationFee() : super.decimalValue(item, column);
+        }
+
+        @Override
+        String keyOf(Object item) {
+            return ((Doctor) item).getDoctorId();
+        }
+
+        @Override
+        LocalDateTime updatedAtOf(Object item) {
+            return ((Doctor) item).getUpdatedAt();
+        }
+
+        @Override
+        LocalDateTime createdAtOf(Object item) {
+            return ((Doctor) item).getCreatedAt();
+        }
+
+        @Override
+        Comparator<Object> order() {
+            return DOCTOR_ORDER;
+        }
+    };
+
+    static final EntityColumns APPOINTMENTS = new EntityColumns(
+            Kind.TEXT, Kind.TEXT, Kind.CATEGORY, Kind.OBJECT, Kind.OBJECT, Kind.CATEGORY, Kind.TEXT) {
+        @Override
+        String text(Object item, int column) {
+            Appointment appointment = (Appointment) item;
+            switch (column) {
+                case 0: return appointment.getAppointmentId();
+                case 1: return appointment.getPatientName();
+                case 2: return appointment.getDoctorName();
+                case 5: return appointment.getStatus();
+                case 6: return appointment.getReason();
+                default: return super.text(item, column);
+            }
+        }
+
+        @Override
+        Object objectValue(Object item, int column) {
+            Appointment appointment = (Appointment) item;
+            switch (column) {
+                case 3: return appointment.getAppointmentDate();
+                case 4: return appointment.getAppointmentTime();
+                default: return super.objectValue(item, column);
+            }
+        }
+
+        @Override
+        String keyOf(Object item) {
+            return ((Appointment) item).getAppointmentId();
+        }
+
+        @Override
+        LocalDateTime updatedAtOf(Object item) {
+            return ((Appointment) item).getUpdatedAt();
+        }
+
+        @Override
+        LocalDateTime createdAtOf(Object item) {
+            return ((Appointment) item).getCreatedAt();
+        }
+
+        @Override
+        Comparator<Object> order() {
+            return APPOINTMENT_ORDER;
+        }
+    };
+
+    private static final Comparator<Object> PATIENT_ORDER = new Comparator<Object>() {
+        @Override
+        public int compare(Object a, Object b) {
+            return compareNullsLast(((Patient) b).getCreatedAt(), ((Patient) a).getCreatedAt());
+        }
+    };
+
+    private static final Comparator<Object> DOCTOR_ORDER = new Comparator<Object>() {
+        @Override
+        public int compare(Object a, Object b) {
+            return DoctorDAO.BY_NAME.compare((Doctor) a, (Doctor) b);
+        }
+    };
+
+    private static final Comparator<Object> APPOINTMENT_ORDER = new Comparator<Object>() {
+        @Override
+        public int compare(Object a, Object b) {
+            Appointment x = (Appointment) a;
+            Appointment y = (Appointment) b;
+            int byDate = y.getAppointmentDate().compareTo(x.getAppointmentDate());
+            return byDate != 0 ? byDate : y.getAppointmentTime().compareTo(x.getAppointmentTime());
+        }
+    };
+
+    // Rows not yet stamped by the database (null) sort as newest
+    private static <T extends Comparable<? super T>> int compareNullsLast(T a, T b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? 1 : -1);
+        }
+        return a.compareTo(b);
+    }
+}
@@ -0,0 +1,220 @@
+package gui;
+
+import model.TaskExecutors;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+// Text field that looks up matching records as the user types and offers them in a
+// drop-down list. Nothing is loaded until the user types, and each lookup fetches at
+// most MAX_RESULTS rows on the background executor. The picked record is remembered
+// by id, so callers never parse the display text.
+public class EntityPicker<T> extends JTextField {
+    private static final int SEARCH_DELAY_MS = 200;
+    private static final int MAX_RESULTS = 20;
+    private static final int VISIBLE_ROWS = 8;
+
+    public interface Source<T> {
+        // Called off the EDT
+        List<T> search(String term, int limit);
+
+        String idOf(T item);
+
+        String labelOf(T item);
+    }
+
+    private final Source<T> source;
+    private final DefaultListModel<T> matches = new DefaultListModel<>();
+    private final JList<T> matchList = new JList<>(matches);
+    private final JPopupMenu popup = new JPopupMenu();
+    private final Timer searchTimer;
+    private int searchSequence;
+    private String selectedId;
+    private boolean settingText;
+
+    public EntityPicker(Source<T> source, int columns) {
+        super(columns);
+        this.source = source;
+
+        matchList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        matchList.setFocusable(false);
+        matchList.setVisibleRowCount(VISIBLE_ROWS);
+        matchList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                return super.getListCellRendererComponent(list, EntityPicker.this.source.labelOf((T) value),
+                                                          index, isSelected, cellHasFocus);
+            }
+        });
+        JScrollPane scroll = new JScrollPane(matchList);
+        scroll.setBorder(null);
+        popup.setFocusable(false);
+        popup.add(scroll);
+
+        searchTimer = new Timer(SEARCH_DELAY_MS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                search();
+            }
+        });
+        searchTimer.setRepeats(false);
+
+        getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                textEdited();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                textEdited();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                textEdited();
+            }
+        });
+
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!popup.isVisible()) {
+                    return;
+                }
+                int index = matchList.getSelectedIndex();
+                if (e.getKeyCode() == KeyEvent.VK_DOWN) {
+                    selectMatch(Math.min(index + 1, matches.size() - 1));
+                    e.consume();
+                } else if (e.getKeyCode() == KeyEvent.VK_UP) {
+                    selectMatch(Math.max(index - 1, 0));
+                    e.consume();
+                } else if (e.getKeyCode() == KeyEvent.VK_ENTER && index >= 0) {
+                    pick(matches.get(index));
+                    e.consume();
+                } else if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    popup.setVisible(false);
+                    e.consume();
+                }
+            }
+        });
+
+        matchList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = matchList.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    pick(matches.get(index));
+                }
+            }
+        });
+
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                searchTimer.stop();
+                popup.setVisible(false);
+            }
+        });
+    }
+
+    // Id of the picked record, or null while the text doesn't correspond to a pick
+    public String getSelectedId() {
+        return selectedId;
+    }
+
+    // Shows an already known record without looking it up
+    public void setSelection(String id, String label) {
+        setDisplayText(label);
+        selectedId = id;
+    }
+
+    private void textEdited() {
+        if (settingText) {
+            return;
+        }
+        selectedId = null;
+        searchTimer.restart();
+    }
+
+    private void search() {
+        final int sequence = ++searchSequence;
+        final String term = getText().trim();
+        if (term.isEmpty()) {
+            popup.setVisible(false);
+            return;
+        }
+
+        TaskExecutors.background().execute(new SwingWorker<List<T>, Void>() {
+            @Override
+            protected List<T> doInBackground() {
+                return source.search(term, MAX_RESULTS);
+            }
+
+            @Override
+            protected void done() {
+                // A newer search has started, or the user picked something meanwhile
+                if (sequence != searchSequence || selectedId != null) {
+                    return;
+                }
+                try {
+                    showMatches(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error looking up matches: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void showMatches(List<T> results) {
+        matches.clear();
+        for (T item : results) {
+            matches.addElement(item);
+        }
+        if (matches.isEmpty() || !isShowing()) {
+            popup.setVisible(false);
+            return;
+        }
+        selectMatch(0);
+        matchList.setVisibleRowCount(Math.min(VISIBLE_ROWS, matches.size()));
+        popup.setPopupSize(Math.max(getWidth(), matchList.getPreferredScrollableViewportSize().width + 20),
+                           matchList.getPreferredScrollableViewportSize().height + 4);
+        popup.show(this, 0, getHeight());
+        requestFocusInWindow();
+    }
+
+    private void selectMatch(int index) {
+        matchList.setSelectedIndex(index);
+        matchList.ensureIndexIsVisible(index);
+    }
+
+    private void pick(T item) {
+        searchTimer.stop();
+        searchSequence++;
+        popup.setVisible(false);
+        setSelection(source.idOf(item), source.labelOf(item));
+        fireActionPerformed();
+    }
+
+    private void setDisplayText(String text) {
+        settingText = true;
+        try {
+            setText(text);
+        } finally {
+            settingText = false;
+        }
+    }
+}
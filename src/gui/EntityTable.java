@@ -0,0 +1,85 @@
+package gui;
+
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableModel;
+import java.awt.Component;
+
+// JTable that paints the INT and DECIMAL columns of a ColumnarTableModel straight from
+// the primitive arrays. The stock path calls getValueAt, which boxes every number on
+// every repaint, and then formats it into a new String; here common values come from
+// a cache of ready-made strings.
+public class EntityTable extends JTable {
+
+    public EntityTable(TableModel model) {
+        super(model);
+        NumberCellRenderer numbers = new NumberCellRenderer();
+        setDefaultRenderer(Integer.class, numbers);
+        setDefaultRenderer(Double.class, numbers);
+    }
+
+    @Override
+    public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
+        if (!(renderer instanceof NumberCellRenderer) || !(getModel() instanceof ColumnarTableModel)) {
+            return super.prepareRenderer(renderer, row, column);
+        }
+        ColumnarTableModel model = (ColumnarTableModel) getModel();
+        int modelRow = convertRowIndexToModel(row);
+        int modelColumn = convertColumnIndexToModel(column);
+        if (!model.isRowAvailable(modelRow)) {
+            return super.prepareRenderer(renderer, row, column);
+        }
+
+        // Same selection and focus rules as JTable.prepareRenderer
+        boolean selected = false;
+        boolean focused = false;
+        if (!isPaintingForPrint()) {
+            selected = isCellSelected(row, column);
+            focused = selectionModel.getLeadSelectionIndex() == row
+                && columnModel.getSelectionModel().getLeadSelectionIndex() == column
+                && isFocusOwner();
+        }
+
+        String text;
+        switch (model.getColumnKind(modelColumn)) {
+            case INT:
+                text = NumberCellRenderer.format(model.getIntAt(modelRow, modelColumn));
+                break;
+            case DECIMAL:
+                text = NumberCellRenderer.format(model.getDecimalAt(modelRow, modelColumn));
+                break;
+            default:
+                return super.prepareRenderer(renderer, row, column);
+        }
+        return renderer.getTableCellRendererComponent(this, text, selected, focused, row, column);
+    }
+
+    // Numbers shown the way Integer.toString/Double.toString would, aligned like the other
+    // columns as the tables always have been
+    static class NumberCellRenderer extends DefaultTableCellRenderer {
+        // Ages, experience years and whole-number fees all fall in this range
+        private static final int CACHED_VALUES = 10000;
+        private static final String[] INT_TEXT = new String[CACHED_VALUES];
+        private static final String[] WHOLE_DECIMAL_TEXT = new String[CACHED_VALUES];
+
+        static {
+            for (int i = 0; i < CACHED_VALUES; i++) {
+                INT_TEXT[i] = Integer.toString(i);
+                WHOLE_DECIMAL_TEXT[i] = Double.toString(i);
+            }
+        }
+
+        static String format(int value) {
+            return value >= 0 && value < CACHED_VALUES ? INT_TEXT[value] : Integer.toString(value);
+        }
+
+        static String format(double value) {
+            int whole = (int) value;
+            if (whole == value && whole >= 0 && whole < CACHED_VALUES) {
+                return WHOLE_DECIMAL_TEXT[whole];
+            }
+            return Double.toString(value);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package gui;
+
+import javax.swing.table.TableModel;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Common operations MainFrame needs from both the fully loaded and the lazily paged table models
+public interface EntityTableModel extends TableModel {
+    
+    Object getItemAt(int rowIndex);
+    
+    void upsertRow(Object item);
+    
+    boolean removeRow(String key);
+    
+    int removeRowsIf(Predicate<Object> filter);
+    
+    // Applies the change to every loaded row matching the filter and repaints those rows
+    int updateRowsIf(Predicate<Object> filter, Consumer<Object> change);
+    
+    LocalDateTime getLatestUpdate();
+}
@@ -0,0 +1,442 @@
+package gui;
+
+import model.TaskExecutors;
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Table model that only keeps the pages the user is looking at. Rows are fetched a page
+// at a time with keyset-paginated DAO queries as the viewport scrolls, and only a bounded
+// number of pages stay resident. The row count comes from a separate count query.
+// Each page is converted to columnar storage on the loader thread (see ColumnarRows).
+public class LazyTableModel<T> extends AbstractTableModel implements EntityTableModel, ColumnarTableModel {
+
+    // Backed by DAO queries; every method is called off the EDT
+    public interface PageSource<T> {
+        // Rows following the given one in list order (null for the first page)
+        List<T> fetchAfter(T last, int limit);
+
+        // Row at an absolute position, used as the seek anchor for random jumps
+        T fetchAt(int offset);
+
+        int count();
+
+        LocalDateTime latestUpdate();
+    }
+
+    // Result of a background reload, applied on the EDT
+    public static class Snapshot<T> {
+        final int rowCount;
+        final LocalDateTime latestUpdate;
+        final ColumnarRows firstPage;
+
+        Snapshot(int rowCount, LocalDateTime latestUpdate, ColumnarRows firstPage) {
+            this.rowCount = rowCount;
+            this.latestUpdate = latestUpdate;
+            this.firstPage = firstPage;
+        }
+    }
+
+    private static final String LOADING = "Loading...";
+
+    private final String[] columnNames;
+    private final EntityColumns columns;
+    private final PageSource<T> source;
+    private final int pageSize;
+    private final ExecutorService loader = TaskExecutors.background();
+
+    // All state below is only touched on the EDT
+    private final LinkedHashMap<Integer, ColumnarRows> pages;
+    private final Set<Integer> pendingPages = new HashSet<>();
+    private int rowCount;
+    private LocalDateTime latestUpdate;
+    // Rows created after the last reload's watermark are new unless already inserted
+    private LocalDateTime loadedThrough;
+    private final Set<String> insertedKeys = new HashSet<>();
+    private int generation;
+    private boolean reloadInFlight;
+    private boolean reloadAgain;
+
+    public LazyTableModel(String[] columnNames, Class<?> dataType, PageSource<T> source,
+                          int pageSize, final int maxResidentPages) {
+        this.columnNames = columnNames;
+        this.columns = EntityColumns.forType(dataType);
+        this.source = source;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<Integer, ColumnarRows>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ColumnarRows> eldest) {
+                return size() > maxResidentPages;
+            }
+        };
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return CustomTableModel.columnClassOf(columns.getKind(columnIndex));
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        ColumnarRows page = residentPage(rowIndex);
+        if (page == null) {
+            return columnIndex == 0 ? LOADING : null;
+        }
+        return page.valueAt(rowIndex % pageSize, columnIndex);
+    }
+
+    @Override
+    public EntityColumns.Kind getColumnKind(int column) {
+        return columns.getKind(column);
+    }
+
+    // Requests the page when it is missing, like getValueAt
+    @Override
+    public boolean isRowAvailable(int rowIndex) {
+        return residentPage(rowIndex) != null;
+    }
+
+    // Rows still loading read as 0, like the blank cells getValueAt gives them
+    @Override
+    public int getIntAt(int rowIndex, int columnIndex) {
+        ColumnarRows page = residentPage(rowIndex);
+        if (page == null) {
+            return 0;
+        }
+        return page.intAt(rowIndex % pageSize, columnIndex);
+    }
+
+    @Override
+    public double getDecimalAt(int rowIndex, int columnIndex) {
+        ColumnarRows page = residentPage(rowIndex);
+        if (page == null) {
+            return 0;
+        }
+        return page.decimalAt(rowIndex % pageSize, columnIndex);
+    }
+
+    // Never triggers a fetch; rows that are not resident return null
+    @Override
+    public Object getItemAt(int rowIndex) {
+        ColumnarRows page = pages.get(rowIndex / pageSize);
+        int offset = rowIndex % pageSize;
+        return page != null && offset < page.size() ? page.itemAt(offset) : null;
+    }
+
+    // Page holding the row, or null after requesting it; also prefetches the next page
+    // while the user scrolls through the end of this one
+    private ColumnarRows residentPage(int rowIndex) {
+        int pageIndex = rowIndex / pageSize;
+        ColumnarRows page = pages.get(pageIndex);
+        if (page == null || rowIndex % pageSize >= page.size()) {
+            requestPage(pageIndex);
+            return null;
+        }
+        if (rowIndex % pageSize >= pageSize * 3 / 4 && (pageIndex + 1) * pageSize < rowCount) {
+            requestPage(pageIndex + 1);
+        }
+        return page;
+    }
+
+    private void requestPage(final int pageIndex) {
+        if (pages.containsKey(pageIndex) || !pendingPages.add(pageIndex)) {
+            return;
+        }
+        // Sequential scrolling seeks from the previous page's last row; jumps need an anchor query
+        ColumnarRows previous = pageIndex > 0 ? pages.get(pageIndex - 1) : null;
+        @SuppressWarnings("unchecked")
+        final T anchor = previous != null && previous.size() > 0 ? (T) previous.itemAt(previous.size() - 1) : null;
+        final int requestGeneration = generation;
+
+        loader.execute(new SwingWorker<ColumnarRows, Void>() {
+            @Override
+            protected ColumnarRows doInBackground() {
+                T last = anchor;
+                if (last == null && pageIndex > 0) {
+                    last = source.fetchAt(pageIndex * pageSize - 1);
+                    if (last == null) {
+                        return new ColumnarRows(columns);
+                    }
+                }
+                return toPage(source.fetchAfter(last, pageSize));
+            }
+
+            @Override
+            protected void done() {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                pendingPages.remove(pageIndex);
+                try {
+                    pages.put(pageIndex, get());
+                    int first = pageIndex * pageSize;
+                    int last = Math.min(first + pageSize, rowCount) - 1;
+                    if (first <= last) {
+                        fireTableRowsUpdated(first, last);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error loading page " + pageIndex + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    // Runs on a background thread: count, watermark and first page in one go
+    public Snapshot<T> fetchSnapshot() {
+        int count = source.count();
+        LocalDateTime latest = source.latestUpdate();
+        ColumnarRows firstPage = toPage(source.fetchAfter(null, pageSize));
+        return new Snapshot<T>(Math.max(count, firstPage.size()), latest, firstPage);
+    }
+
+    private ColumnarRows toPage(List<T> items) {
+        ColumnarRows page = new ColumnarRows(columns, items.size());
+        page.addAll(items);
+        return page;
+    }
+
+    public void applySnapshot(Snapshot<T> snapshot) {
+        generation++;
+        pages.clear();
+        pendingPages.clear();
+        rowCount = snapshot.rowCount;
+        latestUpdate = snapshot.latestUpdate;
+        loadedThrough = snapshot.latestUpdate;
+        insertedKeys.clear();
+        pages.put(0, snapshot.firstPage);
+        fireTableDataChanged();
+    }
+
+    // Re-counts and drops resident pages; visible pages are fetched again on the next paint.
+    // Bursts of calls (e.g. many changed rows) collapse into at most one extra reload.
+    public void reload() {
+        if (reloadInFlight) {
+            reloadAgain = true;
+            return;
+        }
+        reloadInFlight = true;
+        loader.execute(new SwingWorker<Snapshot<T>, Void>() {
+            @Override
+            protected Snapshot<T> doInBackground() {
+                return fetchSnapshot();
+            }
+
+            @Override
+            protected void done() {
+                reloadInFlight = false;
+                try {
+                    applySnapshot(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error reloading table: " + e.getMessage());
+                }
+                if (reloadAgain) {
+                    reloadAgain = false;
+                    reload();
+                }
+            }
+        });
+    }
+
+    // A resident row whose sort key is unchanged is patched in place and a new row is
+    // inserted at its keyset position. Neither resets the selection or scroll position.
+    @Override
+    public void upsertRow(Object item) {
+        advanceLatestUpdate(item);
+        String key = columns.keyOf(item);
+        int index = indexOfKey(key);
+        if (index >= 0) {
+            ColumnarRows page = pages.get(index / pageSize);
+            Object current = page.itemAt(index % pageSize);
+            if (columns.order().compare(current, item) == 0) {
+                page.set(index % pageSize, item);
+                fireTableRowsUpdated(index, index);
+            } else {
+                // Moved: the rows between its old and new position shift by one
+                refetchFrom(Math.min(index, insertionPoint(item)));
+            }
+            return;
+        }
+        LocalDateTime createdAt = columns.createdAtOf(item);
+        boolean created = createdAt == null || loadedThrough == null || createdAt.isAfter(loadedThrough);
+        if (created && insertedKeys.add(key)) {
+            insertRow(item);
+            return;
+        }
+        // A row outside the window we hold; only if it moved into the window do we see it
+        int point = insertionPoint(item);
+        if (isExactPoint(point) && point < rowCount) {
+            refetchFrom(0);
+        }
+    }
+
+    private void insertRow(Object item) {
+        int row = insertionPoint(item);
+        int pageIndex = row / pageSize;
+        // Rows from here on shift down a place; later pages are fetched again on demand
+        boolean exact = isExactPoint(row);
+        dropPagesFrom(pageIndex + 1);
+        ColumnarRows page = pages.get(pageIndex);
+        if (exact && page != null) {
+            page.insert(row % pageSize, item);
+            if (page.size() > pageSize) {
+                page.remove(pageSize);
+            }
+        } else {
+            // It belongs somewhere in the gap before this page, not at its top
+            pages.remove(pageIndex);
+        }
+        rowCount++;
+        fireTableRowsInserted(row, row);
+    }
+
+    // First resident row the item sorts before, or rowCount when it follows all of them
+    private int insertionPoint(Object item) {
+        int point = rowCount;
+        for (Map.Entry<Integer, ColumnarRows> entry : pages.entrySet()) {
+            ColumnarRows page = entry.getValue();
+            for (int i = 0; i < page.size(); i++) {
+                if (columns.order().compare(item, page.itemAt(i)) < 0) {
+                    point = Math.min(point, entry.getKey() * pageSize + i);
+                    break;
+                }
+            }
+        }
+        return point;
+    }
+
+    // True when the row before the point is resident, so the point is the keyset
+    // position itself rather than the end of a gap of pages we don't hold
+    private boolean isExactPoint(int row) {
+        if (row == 0) {
+            return true;
+        }
+        ColumnarRows page = pages.get((row - 1) / pageSize);
+        return page != null && (row - 1) % pageSize < page.size();
+    }
+
+    private void refetchFrom(int row) {
+        dropPagesFrom(row / pageSize);
+        if (row < rowCount) {
+            fireTableRowsUpdated(row, rowCount - 1);
+        }
+    }
+
+    // Resident row with the key, or null when its page is not loaded
+    public Object getItemByKey(String key) {
+        int index = indexOfKey(key);
+        return index >= 0 ? getItemAt(index) : null;
+    }
+
+    @Override
+    public boolean removeRow(String key) {
+        int index = indexOfKey(key);
+        if (index < 0) {
+            reload();
+            return false;
+        }
+        // Rows from the deleted one onwards shift up: drop those pages and refetch on demand
+        dropPagesFrom(index / pageSize);
+        rowCount--;
+        fireTableRowsDeleted(index, index);
+        return true;
+    }
+
+    @Override
+    public int removeRowsIf(Predicate<Object> filter) {
+        int removed = 0;
+        for (ColumnarRows page : pages.values()) {
+            for (int i = 0; i < page.size(); i++) {
+                if (filter.test(page.itemAt(i))) {
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            reload();
+        }
+        return removed;
+    }
+
+    @Override
+    public int updateRowsIf(Predicate<Object> filter, Consumer<Object> change) {
+        int updated = 0;
+        for (Map.Entry<Integer, ColumnarRows> entry : pages.entrySet()) {
+            ColumnarRows page = entry.getValue();
+            for (int i = 0; i < page.size(); i++) {
+                Object item = page.itemAt(i);
+                if (filter.test(item)) {
+                    change.accept(item);
+                    page.set(i, item);
+                    int row = entry.getKey() * pageSize + i;
+                    fireTableRowsUpdated(row, row);
+                    updated++;
+                }
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public LocalDateTime getLatestUpdate() {
+        return latestUpdate;
+    }
+
+    public int getResidentPageCount() {
+        return pages.size();
+    }
+
+    private int indexOfKey(String key) {
+        if (key == null) {
+            return -1;
+        }
+        for (Map.Entry<Integer, ColumnarRows> entry : pages.entrySet()) {
+            int index = entry.getValue().indexOfKey(key);
+            if (index >= 0) {
+                return entry.getKey() * pageSize + index;
+            }
+        }
+        return -1;
+    }
+
+    private void dropPagesFrom(int firstPage) {
+        generation++;
+        pendingPages.clear();
+        pages.keySet().removeIf(new Predicate<Integer>() {
+            @Override
+            public boolean test(Integer pageIndex) {
+                return pageIndex >= firstPage;
+            }
+        });
+    }
+
+    private void advanceLatestUpdate(Object item) {
+        LocalDateTime updatedAt = columns.updatedAtOf(item);
+        if (updatedAt != null && (latestUpdate == null || updatedAt.isAfter(latestUpdate))) {
+            latestUpdate = updatedAt;
+        }
+    }
+}
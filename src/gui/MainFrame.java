@@ -6,23 +6,89 @@ import model.Appointment;
 import dao.PatientDAO;
 import dao.DoctorDAO;
 import dao.AppointmentDAO;
+import dao.AvailabilityIndex;
+import dao.ChangeCoalescer;
+import dao.ChangeFeed;
+import dao.DeletedRows;
+import dao.ScheduleCache;
+import dao.StatusTransition;
+import model.TaskExecutors;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class MainFrame extends JFrame {
     private JTabbedPane tabbedPane;
     private JTable patientsTable, doctorsTable, appointmentsTable;
-    private CustomTableModel patientsModel, doctorsModel, appointmentsModel;
+    private LazyTableModel<Patient> patientsModel;
+    private CustomTableModel patientSearchModel;
+    private JTextField patientSearchField;
+    private CustomTableModel doctorsModel;
+    private LazyTableModel<Appointment> appointmentsModel;
+    private SchedulePanel schedulePanel;
     private JButton addPatientBtn, editPatientBtn, deletePatientBtn;
     private JButton addDoctorBtn, editDoctorBtn, deleteDoctorBtn;
-    private JButton addAppointmentBtn, editAppointmentBtn, deleteAppointmentBtn, refreshBtn;
+    private JButton addAppointmentBtn, editAppointmentBtn, deleteAppointmentBtn, markNoShowsBtn, refreshBtn, diagnosticsBtn;
+    private JProgressBar loadingBar;
+    private JLabel loadingLabel;
     
     private PatientDAO patientDAO;
     private DoctorDAO doctorDAO;
     private AppointmentDAO appointmentDAO;
+    
+    // Table loads run off the EDT; only touched from the EDT
+    private final ExecutorService loader = TaskExecutors.background();
+    private final Map<EntityTableModel, SwingWorker<?, ?>> activeLoads = new HashMap<>();
+    
+    // Patients and appointments grow with hospital history, so they are paged in lazily
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_RESIDENT_PAGES = 20;
+    
+    // Incremental refresh: newest updated_at each table has seen from the database
+    private static final int RECONCILE_INTERVAL_MS = Integer.getInteger("hms.reconcileIntervalMs", 15000);
+    private static final long WATERMARK_OVERLAP_SECONDS = 5;
+    private static final LocalDateTime EMPTY_TABLE_WATERMARK = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private final Map<EntityTableModel, LocalDateTime> watermarks = new HashMap<>();
+    private Timer reconcileTimer;
+    private boolean reconcileInFlight;
+    // A reconcile was asked for while a load or another reconcile was running
+    private boolean reconcilePending;
+    // Tombstones already applied per table, so the watermark overlap doesn't replay them
+    private final Map<EntityTableModel, Map<String, LocalDateTime>> appliedDeletes = new HashMap<>();
+    
+    // Other workstations' changes are pushed through LISTEN/NOTIFY; polling is only the
+    // fallback while the feed is disconnected
+    private ChangeCoalescer changeCoalescer;
+    
+    // Days ahead of today whose bookings are loaded into the availability index at startup
+    private static final int AVAILABILITY_WARM_DAYS = 90;
+    private final AvailabilityIndex availability = AvailabilityIndex.getInstance();
+    
+    // As-you-type patient search: runs once typing pauses; older results are dropped
+    private static final int PATIENT_SEARCH_DELAY_MS = 250;
+    private static final int PATIENT_SEARCH_LIMIT = 50;
+    private Timer patientSearchTimer;
+    private int patientSearchSequence;
+    
+    // Days of appointments the schedule tab keeps around the range on screen
+    private static final int SCHEDULE_CACHE_DAYS = Integer.getInteger("schedule.cacheDays", 63);
 
     public MainFrame() {
         super("Hospital Management System");
@@ -34,6 +100,10 @@ public class MainFrame extends JFrame {
         setupLayout();
         setupEventHandlers();
         refreshAllTables();
+        startReconcileTimer();
+        startChangeFeed();
+        warmAvailabilityIndex();
+        buildPatientSearchIndex();
         
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(1000, 700);
@@ -48,6 +118,7 @@ public class MainFrame extends JFrame {
         initializePatientsTab();
         initializeDoctorsTab();
         initializeAppointmentsTab();
+        schedulePanel = new SchedulePanel(this, new ScheduleCache(appointmentDAO, loader, SCHEDULE_CACHE_DAYS), loader);
         
         // Initialize buttons
         addPatientBtn = new JButton("Add Patient");
@@ -61,31 +132,89 @@ public class MainFrame extends JFrame {
         addAppointmentBtn = new JButton("Schedule Appointment");
         editAppointmentBtn = new JButton("Edit Appointment");
         deleteAppointmentBtn = new JButton("Cancel Appointment");
+        markNoShowsBtn = new JButton("Mark No-Shows");
         refreshBtn = new JButton("Refresh All");
+        diagnosticsBtn = new JButton("Diagnostics");
+        
+        loadingBar = new JProgressBar();
+        loadingBar.setIndeterminate(true);
+        loadingBar.setVisible(false);
+        loadingLabel = new JLabel("Loading...");
+        loadingLabel.setVisible(false);
     }
 
     private void initializePatientsTab() {
         String[] patientColumns = {"Patient ID", "Name", "Age", "Gender", "Phone", "Email", "Blood Group"};
-        patientsModel = new CustomTableModel(patientDAO.getAllPatients(), patientColumns, Patient.class);
-        patientsTable = new JTable(patientsModel);
+        patientsModel = new LazyTableModel<Patient>(patientColumns, Patient.class, new LazyTableModel.PageSource<Patient>() {
+            @Override
+            public List<Patient> fetchAfter(Patient last, int limit) {
+                return patientDAO.getPatientsAfter(last, limit);
+            }
+            
+            @Override
+            public Patient fetchAt(int offset) {
+                return patientDAO.getPatientAtOffset(offset);
+            }
+            
+            @Override
+            public int count() {
+                return patientDAO.countPatients();
+            }
+            
+            @Override
+            public LocalDateTime latestUpdate() {
+                return patientDAO.getLatestPatientUpdate();
+            }
+        }, PAGE_SIZE, MAX_RESIDENT_PAGES);
+        patientsTable = new EntityTable(patientsModel);
         patientsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        patientsTable.setAutoCreateRowSorter(true);
+        // No row sorter: sorting would force every page to load
+        
+        // Search results replace the lazy model in the table while the search field has text
+        patientSearchModel = new CustomTableModel(new ArrayList<Patient>(), patientColumns, Patient.class);
+        patientSearchField = new JTextField(18);
+        patientSearchTimer = new Timer(PATIENT_SEARCH_DELAY_MS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                searchPatients();
+            }
+        });
+        patientSearchTimer.setRepeats(false);
     }
 
     private void initializeDoctorsTab() {
         String[] doctorColumns = {"Doctor ID", "Name", "Specialization", "Phone", "Email", "Qualification", "Experience", "Fee", "Available"};
-        doctorsModel = new CustomTableModel(doctorDAO.getAllDoctors(), doctorColumns, Doctor.class);
-        doctorsTable = new JTable(doctorsModel);
+        doctorsModel = new CustomTableModel(new ArrayList<Doctor>(), doctorColumns, Doctor.class);
+        doctorsTable = new EntityTable(doctorsModel);
         doctorsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         doctorsTable.setAutoCreateRowSorter(true);
     }
 
     private void initializeAppointmentsTab() {
         String[] appointmentColumns = {"Appointment ID", "Patient", "Doctor", "Date", "Time", "Status", "Reason"};
-        appointmentsModel = new CustomTableModel(appointmentDAO.getAllAppointments(), appointmentColumns, Appointment.class);
-        appointmentsTable = new JTable(appointmentsModel);
+        appointmentsModel = new LazyTableModel<Appointment>(appointmentColumns, Appointment.class, new LazyTableModel.PageSource<Appointment>() {
+            @Override
+            public List<Appointment> fetchAfter(Appointment last, int limit) {
+                return appointmentDAO.getAppointmentsAfter(last, limit);
+            }
+            
+            @Override
+            public Appointment fetchAt(int offset) {
+                return appointmentDAO.getAppointmentAtOffset(offset);
+            }
+            
+            @Override
+            public int count() {
+                return appointmentDAO.countAppointments();
+            }
+            
+            @Override
+            public LocalDateTime latestUpdate() {
+                return appointmentDAO.getLatestAppointmentUpdate();
+            }
+        }, PAGE_SIZE, MAX_RESIDENT_PAGES);
+        appointmentsTable = new EntityTable(appointmentsModel);
         appointmentsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        appointmentsTable.setAutoCreateRowSorter(true);
     }
 
     private void setupLayout() {
@@ -102,12 +231,16 @@ public class MainFrame extends JFrame {
         setupPatientsTab();
         setupDoctorsTab();
         setupAppointmentsTab();
+        tabbedPane.addTab("Schedule", schedulePanel);
         
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
         
         // Global refresh button
         JPanel globalPanel = new JPanel();
         globalPanel.add(refreshBtn);
+        globalPanel.add(diagnosticsBtn);
+        globalPanel.add(loadingBar);
+        globalPanel.add(loadingLabel);
         mainPanel.add(globalPanel, BorderLayout.SOUTH);
         
         add(mainPanel);
@@ -121,13 +254,15 @@ public class MainFrame extends JFrame {
         patientButtonPanel.add(addPatientBtn);
         patientButtonPanel.add(editPatientBtn);
         patientButtonPanel.add(deletePatientBtn);
+        patientButtonPanel.add(new JLabel("Search:"));
+        patientButtonPanel.add(patientSearchField);
         
         patientPanel.add(patientButtonPanel, BorderLayout.NORTH);
         patientPanel.add(new JScrollPane(patientsTable), BorderLayout.CENTER);
         
         // Status panel
         JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        statusPanel.add(new JLabel("Total Patients: " + patientsTable.getRowCount()));
+        statusPanel.add(new JLabel("Total Patients: " + patientsModel.getRowCount()));
         patientPanel.add(statusPanel, BorderLayout.SOUTH);
         
         tabbedPane.addTab("Patients", patientPanel);
@@ -161,6 +296,7 @@ public class MainFrame extends JFrame {
         appointmentButtonPanel.add(addAppointmentBtn);
         appointmentButtonPanel.add(editAppointmentBtn);
         appointmentButtonPanel.add(deleteAppointmentBtn);
+        appointmentButtonPanel.add(markNoShowsBtn);
         
         appointmentPanel.add(appointmentButtonPanel, BorderLayout.NORTH);
         appointmentPanel.add(new JScrollPane(appointmentsTable), BorderLayout.CENTER);
@@ -189,6 +325,23 @@ public class MainFrame extends JFrame {
             }
         });
         
+        patientSearchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                patientSearchTimer.restart();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                patientSearchTimer.restart();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                patientSearchTimer.restart();
+            }
+        });
+        
         deletePatientBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -240,6 +393,13 @@ public class MainFrame extends JFrame {
             }
         });
         
+        markNoShowsBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                markNoShows();
+            }
+        });
+        
         // Refresh button
         refreshBtn.addActionListener(new ActionListener() {
             @Override
@@ -248,6 +408,23 @@ public class MainFrame extends JFrame {
             }
         });
         
+        diagnosticsBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                new DiagnosticsDialog(MainFrame.this).setVisible(true);
+            }
+        });
+        
+        // The schedule is only read once its tab is opened
+        tabbedPane.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                if (tabbedPane.getSelectedComponent() == schedulePanel) {
+                    schedulePanel.activate();
+                }
+            }
+        });
+        
         // Double-click listeners for tables
         patientsTable.addMouseListener(new java.awt.event.MouseAdapter() {
             public void mouseClicked(java.awt.event.MouseEvent evt) {
@@ -285,7 +462,10 @@ public class MainFrame extends JFrame {
                 return;
             }
             int modelRow = patientsTable.convertRowIndexToModel(selectedRow);
-            Patient patient = (Patient) patientsModel.getItemAt(modelRow);
+            Patient patient = (Patient) ((EntityTableModel) patientsTable.getModel()).getItemAt(modelRow);
+            if (patient == null) {
+                return; // row is still loading
+            }
             PatientManagementDialog dialog = new PatientManagementDialog(this, patient);
             dialog.setVisible(true);
         } else {
@@ -326,6 +506,9 @@ public class MainFrame extends JFrame {
             }
             int modelRow = appointmentsTable.convertRowIndexToModel(selectedRow);
             Appointment appointment = (Appointment) appointmentsModel.getItemAt(modelRow);
+            if (appointment == null) {
+                return; // row is still loading
+            }
             AppointmentDialog dialog = new AppointmentDialog(this, appointment);
             dialog.setVisible(true);
         } else {
@@ -345,7 +528,10 @@ public class MainFrame extends JFrame {
         }
         
         int modelRow = patientsTable.convertRowIndexToModel(selectedRow);
-        Patient patient = (Patient) patientsModel.getItemAt(modelRow);
+        Patient patient = (Patient) ((EntityTableModel) patientsTable.getModel()).getItemAt(modelRow);
+        if (patient == null) {
+            return; // row is still loading
+        }
         
         int confirm = JOptionPane.showConfirmDialog(this, 
             "Are you sure you want to delete patient: " + patient.getName() + "?\n" +
@@ -360,7 +546,7 @@ public class MainFrame extends JFrame {
                     "Patient deleted successfully!", 
                     "Success", 
                     JOptionPane.INFORMATION_MESSAGE);
-                refreshAllTables();
+                patientDeleted(patient.getPatientId());
             } else {
                 JOptionPane.showMessageDialog(this, 
                     "Failed to delete patient!\n" +
@@ -397,7 +583,7 @@ public class MainFrame extends JFrame {
                     "Doctor deleted successfully!", 
                     "Success", 
                     JOptionPane.INFORMATION_MESSAGE);
-                refreshAllTables();
+                doctorDeleted(doctor.getDoctorId());
             } else {
                 JOptionPane.showMessageDialog(this, 
                     "Failed to delete doctor!\n" +
@@ -420,6 +606,9 @@ public class MainFrame extends JFrame {
         
         int modelRow = appointmentsTable.convertRowIndexToModel(selectedRow);
         Appointment appointment = (Appointment) appointmentsModel.getItemAt(modelRow);
+        if (appointment == null) {
+            return; // row is still loading
+        }
         
         int confirm = JOptionPane.showConfirmDialog(this, 
             "Are you sure you want to cancel appointment: " + appointment.getAppointmentId() + "?\n" +
@@ -435,7 +624,7 @@ public class MainFrame extends JFrame {
                     "Appointment cancelled successfully!", 
                     "Success", 
                     JOptionPane.INFORMATION_MESSAGE);
-                refreshAllTables();
+                appointmentDeleted(appointment.getAppointmentId());
             } else {
                 JOptionPane.showMessageDialog(this, 
                     "Failed to cancel appointment!", 
@@ -445,31 +634,557 @@ public class MainFrame extends JFrame {
         }
     }
 
+    // End-of-day sweep: every appointment still Scheduled whose time has passed becomes
+    // No-Show, in a few set-based updates rather than one round trip per row
+    private void markNoShows() {
+        final LocalDateTime now = LocalDateTime.now().withSecond(0).withNano(0);
+        int confirm = JOptionPane.showConfirmDialog(this,
+            "Mark every Scheduled appointment before " + now.toLocalTime() + " today (and on earlier days) as No-Show?",
+            "Mark No-Shows",
+            JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+        
+        markNoShowsBtn.setEnabled(false);
+        loader.execute(new SwingWorker<StatusTransition.Result, Void>() {
+            @Override
+            protected StatusTransition.Result doInBackground() throws Exception {
+                StatusTransition.Criteria criteria = new StatusTransition.Criteria("Scheduled");
+                criteria.setStartedBefore(now);
+                return new StatusTransition(StatusTransition.DEFAULT_CHUNK_SIZE, 2, null).run(criteria, "No-Show");
+            }
+            
+            @Override
+            protected void done() {
+                markNoShowsBtn.setEnabled(true);
+                try {
+                    StatusTransition.Result result = get();
+                    if (result.getChanged() > 0) {
+                        refreshAppointmentTable();
+                        schedulePanel.reload();
+                    }
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        result.getChanged() + " appointments marked as No-Show.");
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Error marking no-shows: " + cause.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+    }
+    
+    // Loads all three tables in parallel without blocking the EDT
     public void refreshAllTables() {
-        try {
-            // Refresh patients table
-            List<Patient> patients = patientDAO.getAllPatients();
-            patientsModel.updateData(patients);
+        refreshPatientTable();
+        refreshDoctorTable();
+        refreshAppointmentTable();
+        schedulePanel.reload();
+    }
+    
+    // Runs the query on the background executor and publishes the result on the EDT.
+    // A newer load for the same table supersedes one that is still in flight.
+    private <R> void loadTableAsync(final EntityTableModel model, final Callable<R> query, final Consumer<R> apply) {
+        SwingWorker<?, ?> previous = activeLoads.get(model);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        
+        SwingWorker<R, Void> worker = new SwingWorker<R, Void>() {
+            @Override
+            protected R doInBackground() throws Exception {
+                return query.call();
+            }
             
-            // Refresh doctors table
-            List<Doctor> doctors = doctorDAO.getAllDoctors();
-            doctorsModel.updateData(doctors);
+            @Override
+            protected void done() {
+                if (activeLoads.get(model) != this) {
+                    return;
+                }
+                activeLoads.remove(model);
+                updateLoadingState();
+                try {
+                    apply.accept(get());
+                    LocalDateTime latest = model.getLatestUpdate();
+                    watermarks.put(model, latest != null ? latest : EMPTY_TABLE_WATERMARK);
+                    updateStatusLabels();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                        "Error refreshing data: " + cause.getMessage(),
+                        "Refresh Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+                // Only now has this table a watermark to catch up from
+                if (activeLoads.isEmpty() && reconcilePending) {
+                    reconcileChanges();
+                }
+            }
+        };
+        activeLoads.put(model, worker);
+        updateLoadingState();
+        loader.execute(worker);
+    }
+    
+    // Called by the dialogs after a successful save: fetch just that row and patch it in
+    public void patientSaved(final String patientId) {
+        loadRowAsync(new Callable<Patient>() {
+            @Override
+            public Patient call() {
+                return patientDAO.getPatientById(patientId);
+            }
+        }, new Consumer<Patient>() {
+            @Override
+            public void accept(Patient patient) {
+                applyPatient(patient);
+            }
+        });
+    }
+    
+    public void doctorSaved(final String doctorId) {
+        loadRowAsync(new Callable<Doctor>() {
+            @Override
+            public Doctor call() {
+                return doctorDAO.getDoctorById(doctorId);
+            }
+        }, new Consumer<Doctor>() {
+            @Override
+            public void accept(Doctor doctor) {
+                applyDoctor(doctor);
+            }
+        });
+    }
+    
+    public void appointmentSaved(final String appointmentId) {
+        loadRowAsync(new Callable<Appointment>() {
+            @Override
+            public Appointment call() {
+                return appointmentDAO.getAppointmentById(appointmentId);
+            }
+        }, new Consumer<Appointment>() {
+            @Override
+            public void accept(Appointment appointment) {
+                appointmentsModel.upsertRow(appointment);
+                schedulePanel.appointmentChanged(appointment);
+            }
+        });
+    }
+    
+    // Deleting a patient or doctor cascades to their appointments in the database
+    public void patientDeleted(final String patientId) {
+        patientsModel.removeRow(patientId);
+        patientSearchModel.removeRow(patientId);
+        Predicate<Object> ofPatient = new Predicate<Object>() {
+            @Override
+            public boolean test(Object item) {
+                return patientId.equals(((Appointment) item).getPatientId());
+            }
+        };
+        appointmentsModel.removeRowsIf(ofPatient);
+        schedulePanel.removeAppointmentsIf(ofPatient);
+        updateStatusLabels();
+    }
+    
+    public void doctorDeleted(final String doctorId) {
+        doctorsModel.removeRow(doctorId);
+        Predicate<Object> ofDoctor = new Predicate<Object>() {
+            @Override
+            public boolean test(Object item) {
+                return doctorId.equals(((Appointment) item).getDoctorId());
+            }
+        };
+        appointmentsModel.removeRowsIf(ofDoctor);
+        schedulePanel.removeAppointmentsIf(ofDoctor);
+        updateStatusLabels();
+    }
+    
+    public void appointmentDeleted(String appointmentId) {
+        appointmentsModel.removeRow(appointmentId);
+        schedulePanel.appointmentDeleted(appointmentId);
+        updateStatusLabels();
+    }
+    
+    private void applyPatient(final Patient patient) {
+        patientsModel.upsertRow(patient);
+        // The edit may change whether or where the patient matches the current search
+        if (isPatientSearchActive()) {
+            patientSearchTimer.restart();
+        }
+        // Keep the denormalised patient name on appointment rows in step
+        Predicate<Object> renamed = new Predicate<Object>() {
+            @Override
+            public boolean test(Object item) {
+                Appointment appointment = (Appointment) item;
+                return patient.getPatientId().equals(appointment.getPatientId()) &&
+                    !patient.getName().equals(appointment.getPatientName());
+            }
+        };
+        Consumer<Object> rename = new Consumer<Object>() {
+            @Override
+            public void accept(Object item) {
+                ((Appointment) item).setPatientName(patient.getName());
+            }
+        };
+        appointmentsModel.updateRowsIf(renamed, rename);
+        schedulePanel.updateAppointmentsIf(renamed, rename);
+    }
+    
+    private void applyDoctor(final Doctor doctor) {
+        doctorsModel.upsertRow(doctor);
+        Predicate<Object> renamed = new Predicate<Object>() {
+            @Override
+            public boolean test(Object item) {
+                Appointment appointment = (Appointment) item;
+                return doctor.getDoctorId().equals(appointment.getDoctorId()) &&
+                    !doctor.getName().equals(appointment.getDoctorName());
+            }
+        };
+        Consumer<Object> rename = new Consumer<Object>() {
+            @Override
+            public void accept(Object item) {
+                ((Appointment) item).setDoctorName(doctor.getName());
+            }
+        };
+        appointmentsModel.updateRowsIf(renamed, rename);
+        schedulePanel.updateAppointmentsIf(renamed, rename);
+    }
+    
+    private <T> void loadRowAsync(final Callable<T> query, final Consumer<T> apply) {
+        loader.execute(new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return query.call();
+            }
             
-            // Refresh appointments table
-            List<Appointment> appointments = appointmentDAO.getAllAppointments();
-            appointmentsModel.updateData(appointments);
+            @Override
+            protected void done() {
+                try {
+                    T row = get();
+                    if (row != null) {
+                        apply.accept(row);
+                        updateStatusLabels();
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error loading changed row: " + e.getMessage());
+                }
+            }
+        });
+    }
+    
+    // Preloads upcoming bookings so slot checks while scheduling don't hit the database
+    private void warmAvailabilityIndex() {
+        loader.execute(new Runnable() {
+            @Override
+            public void run() {
+                LocalDate today = LocalDate.now();
+                appointmentDAO.warmAvailabilityIndex(today, today.plusDays(AVAILABILITY_WARM_DAYS));
+            }
+        });
+    }
+    
+    private void buildPatientSearchIndex() {
+        loader.execute(new Runnable() {
+            @Override
+            public void run() {
+                patientDAO.buildSearchIndex();
+            }
+        });
+    }
+    
+    private boolean isPatientSearchActive() {
+        return !patientSearchField.getText().trim().isEmpty();
+    }
+    
+    // Shows the top matches for the search text, or the full list again when it is cleared
+    private void searchPatients() {
+        final int sequence = ++patientSearchSequence;
+        final String term = patientSearchField.getText().trim();
+        if (term.isEmpty()) {
+            if (patientsTable.getModel() != patientsModel) {
+                patientsTable.setModel(patientsModel);
+                updateStatusLabels();
+            }
+            return;
+        }
+        
+        loader.execute(new SwingWorker<List<Patient>, Void>() {
+            @Override
+            protected List<Patient> doInBackground() {
+                return patientDAO.searchPatients(term, PATIENT_SEARCH_LIMIT);
+            }
             
-            // Update status labels
-            updateStatusLabels();
+            @Override
+            protected void done() {
+                if (sequence != patientSearchSequence) {
+                    return;
+                }
+                try {
+                    patientSearchModel.updateData(get());
+                    if (patientsTable.getModel() != patientSearchModel) {
+                        patientsTable.setModel(patientSearchModel);
+                    }
+                    updateStatusLabels();
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error searching patients: " + e.getMessage());
+                }
+            }
+        });
+    }
+    
+    // Periodically pulls rows other workstations changed since our watermark, unless
+    // the change feed is pushing them
+    private void startReconcileTimer() {
+        reconcileTimer = new Timer(RECONCILE_INTERVAL_MS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (!ChangeFeed.getInstance().isConnected()) {
+                    reconcileChanges();
+                }
+            }
+        });
+        reconcileTimer.start();
+    }
+    
+    // Listens for rows other workstations change. Bursts are coalesced, the changed rows
+    // re-read off the EDT and patched into the tables row by row.
+    private void startChangeFeed() {
+        changeCoalescer = new ChangeCoalescer(ChangeCoalescer.DEFAULT_WINDOW_MS, ChangeCoalescer.DEFAULT_MAX_PENDING,
+            new Consumer<ChangeCoalescer.Batch>() {
+                @Override
+                public void accept(ChangeCoalescer.Batch batch) {
+                    loadPushedChanges(batch);
+                }
+            });
+        ChangeFeed.getInstance().addListener(changeCoalescer);
+        ChangeFeed.getInstance().start();
+    }
+    
+    // Runs on the coalescer's thread, which is not the EDT
+    private void loadPushedChanges(ChangeCoalescer.Batch batch) {
+        final ChangeSet changes = new ChangeSet();
+        changes.patients = patientDAO.getChangedPatients(changedIds(batch, "patients", false));
+        changes.doctors = new ArrayList<>();
+        for (String doctorId : changedIds(batch, "doctors", false)) {
+            Doctor doctor = doctorDAO.getDoctorById(doctorId);
+            if (doctor != null) {
+                changes.doctors.add(doctor);
+            }
+        }
+        changes.appointments = appointmentDAO.getChangedAppointments(changedIds(batch, "appointments", false));
+        changes.deletedPatientIds = changedIds(batch, "patients", true);
+        changes.deletedDoctorIds = changedIds(batch, "doctors", true);
+        changes.deletedAppointmentIds = changedIds(batch, "appointments", true);
+        // Counts are only needed when rows were not listed individually
+        changes.patientCount = changes.doctorCount = changes.appointmentCount = -1;
+        final boolean reconcile = batch.isReloadRequired("patients") || batch.isReloadRequired("doctors") ||
+            batch.isReloadRequired("appointments");
+        
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                applyChanges(changes);
+                if (reconcile) {
+                    reconcileChanges();
+                }
+            }
+        });
+    }
+    
+    private static List<String> changedIds(ChangeCoalescer.Batch batch, String table, boolean deleted) {
+        List<String> ids = new ArrayList<>();
+        for (ChangeFeed.Change change : batch.getChanges(table)) {
+            if ((change.getOperation() == 'D') == deleted) {
+                ids.add(change.getId());
+            }
+        }
+        return ids;
+    }
+    
+    private void reconcileChanges() {
+        if (reconcileInFlight || !activeLoads.isEmpty()) {
+            reconcilePending = true;
+            return;
+        }
+        final LocalDateTime patientsSince = overlapped(watermarks.get(patientsModel));
+        final LocalDateTime doctorsSince = overlapped(watermarks.get(doctorsModel));
+        final LocalDateTime appointmentsSince = overlapped(watermarks.get(appointmentsModel));
+        if (patientsSince == null || doctorsSince == null || appointmentsSince == null) {
+            // A table has not finished its first load; its done() comes back here
+            reconcilePending = true;
+            return;
+        }
+        
+        reconcilePending = false;
+        reconcileInFlight = true;
+        loader.execute(new SwingWorker<ChangeSet, Void>() {
+            @Override
+            protected ChangeSet doInBackground() {
+                ChangeSet changes = new ChangeSet();
+                changes.patients = patientDAO.getPatientsChangedSince(patientsSince);
+                changes.doctors = doctorDAO.getDoctorsChangedSince(doctorsSince);
+                changes.appointments = appointmentDAO.getAppointmentsChangedSince(appointmentsSince);
+                changes.patientTombstones = DeletedRows.deletedSince(DeletedRows.PATIENTS, patientsSince);
+                changes.doctorTombstones = DeletedRows.deletedSince(DeletedRows.DOCTORS, doctorsSince);
+                changes.appointmentTombstones = DeletedRows.deletedSince(DeletedRows.APPOINTMENTS, appointmentsSince);
+                changes.patientCount = patientDAO.countPatients();
+                changes.doctorCount = doctorDAO.countDoctors();
+                changes.appointmentCount = appointmentDAO.countAppointments();
+                return changes;
+            }
             
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Error refreshing data: " + e.getMessage(),
-                "Refresh Error",
-                JOptionPane.ERROR_MESSAGE);
+            @Override
+            protected void done() {
+                reconcileInFlight = false;
+                try {
+                    applyChanges(get());
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error reconciling changes: " + e.getMessage());
+                }
+                if (reconcilePending) {
+                    reconcileChanges();
+                }
+            }
+        });
+    }
+    
+    private void applyChanges(ChangeSet changes) {
+        if (!activeLoads.isEmpty()) {
+            // A reload is running and may have read before these changes; catch up afterwards
+            reconcilePending = true;
+            return;
+        }
+        changes.deletedPatientIds.addAll(newDeletes(patientsModel, changes.patientTombstones));
+        changes.deletedDoctorIds.addAll(newDeletes(doctorsModel, changes.doctorTombstones));
+        changes.deletedAppointmentIds.addAll(newDeletes(appointmentsModel, changes.appointmentTombstones));
+        for (String appointmentId : changes.deletedAppointmentIds) {
+            releaseSlot(appointmentId);
+            appointmentDeleted(appointmentId);
+        }
+        for (String patientId : changes.deletedPatientIds) {
+            // The cascade may have taken appointments we hold no copy of
+            availability.clear();
+            patientDeleted(patientId);
+        }
+        for (String doctorId : changes.deletedDoctorIds) {
+            availability.removeDoctor(doctorId);
+            doctorDeleted(doctorId);
+        }
+        for (Doctor doctor : changes.doctors) {
+            applyDoctor(doctor);
+            advanceWatermark(doctorsModel, doctor.getUpdatedAt());
+        }
+        for (Patient patient : changes.patients) {
+            applyPatient(patient);
+            advanceWatermark(patientsModel, patient.getUpdatedAt());
+        }
+        for (Appointment appointment : changes.appointments) {
+            appointmentsModel.upsertRow(appointment);
+            schedulePanel.appointmentChanged(appointment);
+            advanceWatermark(appointmentsModel, appointment.getUpdatedAt());
+        }
+        
+        // Tombstones cover deletes; a count mismatch still catches any they missed (pruned,
+        // or a database without the deleted_rows table)
+        if (changes.patientCount >= 0 && changes.patientCount != patientsModel.getRowCount()) {
+            refreshPatientTable();
+        }
+        if (changes.doctorCount >= 0 && changes.doctorCount != doctorsModel.getRowCount()) {
+            refreshDoctorTable();
+        }
+        if (changes.appointmentCount >= 0 && changes.appointmentCount != appointmentsModel.getRowCount()) {
+            refreshAppointmentTable();
+            schedulePanel.reload();
+            // Deletes we never saw may have freed slots
+            availability.clear();
+        }
+        updateStatusLabels();
+    }
+    
+    // Changed appointments reach the availability index as getChangedAppointments
+    // re-reads them. Deletes carry only the id, so the slot a deleted row held comes
+    // from our cached copy, read before the caches are patched.
+    private Appointment cachedAppointment(String appointmentId) {
+        Appointment cached = (Appointment) appointmentsModel.getItemByKey(appointmentId);
+        return cached != null ? cached : schedulePanel.findAppointment(appointmentId);
+    }
+    
+    private void releaseSlot(String appointmentId) {
+        Appointment cached = cachedAppointment(appointmentId);
+        if (cached == null) {
+            // No copy says which slot it held: drop the index, days reload as they are checked
+            availability.clear();
+        } else if (!"Cancelled".equals(cached.getStatus())) {
+            availability.markFree(cached.getDoctorId(), cached.getAppointmentDate(), cached.getAppointmentTime());
+        }
+    }
+    
+    private void advanceWatermark(EntityTableModel model, LocalDateTime updatedAt) {
+        LocalDateTime current = watermarks.get(model);
+        if (updatedAt != null && (current == null || updatedAt.isAfter(current))) {
+            watermarks.put(model, updatedAt);
         }
     }
     
+    // Re-read a small window behind the watermark so rows from transactions that
+    // committed late with an earlier timestamp are not missed; upserts are idempotent
+    private static LocalDateTime overlapped(LocalDateTime watermark) {
+        if (watermark == null) {
+            return null;
+        }
+        return watermark.minusSeconds(WATERMARK_OVERLAP_SECONDS);
+    }
+    
+    // Ids among the tombstones not applied yet. The tombstones also advance the watermark,
+    // so once a delete falls behind the overlap window it is forgotten here.
+    private List<String> newDeletes(EntityTableModel model, Map<String, LocalDateTime> tombstones) {
+        Map<String, LocalDateTime> applied = appliedDeletes.get(model);
+        if (applied == null) {
+            applied = new HashMap<>();
+            appliedDeletes.put(model, applied);
+        }
+        List<String> ids = new ArrayList<>();
+        for (Map.Entry<String, LocalDateTime> tombstone : tombstones.entrySet()) {
+            if (applied.put(tombstone.getKey(), tombstone.getValue()) == null) {
+                ids.add(tombstone.getKey());
+            }
+            advanceWatermark(model, tombstone.getValue());
+        }
+        LocalDateTime since = overlapped(watermarks.get(model));
+        if (since != null) {
+            Iterator<LocalDateTime> deletedAt = applied.values().iterator();
+            while (deletedAt.hasNext()) {
+                if (!deletedAt.next().isAfter(since)) {
+                    deletedAt.remove();
+                }
+            }
+        }
+        return ids;
+    }
+    
+    private static class ChangeSet {
+        List<Patient> patients;
+        List<Doctor> doctors;
+        List<Appointment> appointments;
+        List<String> deletedPatientIds = new ArrayList<>();
+        List<String> deletedDoctorIds = new ArrayList<>();
+        List<String> deletedAppointmentIds = new ArrayList<>();
+        Map<String, LocalDateTime> patientTombstones = new HashMap<>();
+        Map<String, LocalDateTime> doctorTombstones = new HashMap<>();
+        Map<String, LocalDateTime> appointmentTombstones = new HashMap<>();
+        int patientCount;
+        int doctorCount;
+        int appointmentCount;
+    }
+    
+    private void updateLoadingState() {
+        boolean loading = !activeLoads.isEmpty();
+        loadingBar.setVisible(loading);
+        loadingLabel.setVisible(loading);
+    }
+    
     private void updateStatusLabels() {
         // Update patient count
         Component patientTab = tabbedPane.getComponentAt(0);
@@ -484,7 +1199,7 @@ public class MainFrame extends JFrame {
                         if (southComp instanceof JLabel) {
                             JLabel label = (JLabel) southComp;
                             if (label.getText().startsWith("Total Patients:")) {
-                                label.setText("Total Patients: " + patientsTable.getRowCount());
+                                label.setText("Total Patients: " + patientsModel.getRowCount());
                             }
                         }
                     }
@@ -537,20 +1252,44 @@ public class MainFrame extends JFrame {
     
     // Public method to refresh tables from other dialogs
     public void refreshPatientTable() {
-        List<Patient> patients = patientDAO.getAllPatients();
-        patientsModel.updateData(patients);
-        updateStatusLabels();
+        loadTableAsync(patientsModel, new Callable<LazyTableModel.Snapshot<Patient>>() {
+            @Override
+            public LazyTableModel.Snapshot<Patient> call() {
+                return patientsModel.fetchSnapshot();
+            }
+        }, new Consumer<LazyTableModel.Snapshot<Patient>>() {
+            @Override
+            public void accept(LazyTableModel.Snapshot<Patient> snapshot) {
+                patientsModel.applySnapshot(snapshot);
+            }
+        });
     }
     
     public void refreshDoctorTable() {
-        List<Doctor> doctors = doctorDAO.getAllDoctors();
-        doctorsModel.updateData(doctors);
-        updateStatusLabels();
+        loadTableAsync(doctorsModel, new Callable<List<Doctor>>() {
+            @Override
+            public List<Doctor> call() {
+                return doctorDAO.getAllDoctors();
+            }
+        }, new Consumer<List<Doctor>>() {
+            @Override
+            public void accept(List<Doctor> doctors) {
+                doctorsModel.updateData(doctors);
+            }
+        });
     }
     
     public void refreshAppointmentTable() {
-        List<Appointment> appointments = appointmentDAO.getAllAppointments();
-        appointmentsModel.updateData(appointments);
-        updateStatusLabels();
+        loadTableAsync(appointmentsModel, new Callable<LazyTableModel.Snapshot<Appointment>>() {
+            @Override
+            public LazyTableModel.Snapshot<Appointment> call() {
+                return appointmentsModel.fetchSnapshot();
+            }
+        }, new Consumer<LazyTableModel.Snapshot<Appointment>>() {
+            @Override
+            public void accept(LazyTableModel.Snapshot<Appointment> snapshot) {
+                appointmentsModel.applySnapshot(snapshot);
+            }
+        });
     }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package gui;
 
 import model.Patient;
+import model.RecordValidator;
+import dao.IdGenerator;
 import dao.PatientDAO;
 import javax.swing.*;
 import java.awt.*;
@@ -178,7 +180,7 @@ public class PatientManagementDialog extends JDialog {
     }
 
     private String generatePatientId() {
-        return "PAT" + String.format("%03d", (int)(Math.random() * 1000));
+        return IdGenerator.patients().nextId();
     }
 
     private void savePatient() {
@@ -203,6 +205,11 @@ public class PatientManagementDialog extends JDialog {
                 bloodGroupField.getText().trim(),
                 emergencyContactField.getText().trim()
             );
+            String error = RecordValidator.validatePatient(patient);
+            if (error != null) {
+                JOptionPane.showMessageDialog(this, error, "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
 
             boolean success;
             if (isEditMode) {
@@ -215,7 +222,7 @@ public class PatientManagementDialog extends JDialog {
                 JOptionPane.showMessageDialog(this, 
                     isEditMode ? "Patient updated successfully!" : "Patient added successfully!", 
                     "Success", JOptionPane.INFORMATION_MESSAGE);
-                parentFrame.refreshAllTables();
+                parentFrame.patientSaved(patient.getPatientId());
                 dispose();
             } else {
                 JOptionPane.showMessageDialog(this, 
@@ -0,0 +1,278 @@
+package gui;
+
+import dao.ScheduleCache;
+import model.Appointment;
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Day or week calendar of appointments with a column per doctor. Ranges come from a
+// ScheduleCache; once one is shown, the previous and next ranges are prefetched, so
+// Previous/Next page from memory instead of waiting for the database.
+public class SchedulePanel extends JPanel {
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("EEEE d MMMM yyyy");
+    private static final int COLUMN_WIDTH = 170;
+
+    private final MainFrame parent;
+    private final ScheduleCache cache;
+    private final ExecutorService loader;
+    private final ScheduleTableModel model = new ScheduleTableModel();
+    private JTable table;
+    private JButton previousBtn, todayBtn, nextBtn;
+    private JComboBox<String> viewCombo;
+    private JLabel rangeLabel, statusLabel;
+
+    // Only touched from the EDT
+    private LocalDate start = LocalDate.now();
+    private boolean shown;
+    private boolean redisplayPending;
+    private int loadSequence;
+
+    public SchedulePanel(MainFrame parent, ScheduleCache cache, ExecutorService loader) {
+        super(new BorderLayout());
+        this.parent = parent;
+        this.cache = cache;
+        this.loader = loader;
+        initializeComponents();
+        setupLayout();
+        setupEventHandlers();
+    }
+
+    private void initializeComponents() {
+        table = new JTable(model);
+        table.setRowHeight(22);
+        table.setCellSelectionEnabled(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.setDefaultRenderer(Appointment.class, new AppointmentCellRenderer());
+
+        previousBtn = new JButton("< Previous");
+        todayBtn = new JButton("Today");
+        nextBtn = new JButton("Next >");
+        viewCombo = new JComboBox<>(new String[] {"Day", "Week"});
+        rangeLabel = new JLabel();
+        rangeLabel.setFont(rangeLabel.getFont().deriveFont(Font.BOLD));
+        statusLabel = new JLabel(" ");
+    }
+
+    private void setupLayout() {
+        JPanel navigationPanel = new JPanel();
+        navigationPanel.add(previousBtn);
+        navigationPanel.add(todayBtn);
+        navigationPanel.add(nextBtn);
+        navigationPanel.add(viewCombo);
+        navigationPanel.add(rangeLabel);
+        add(navigationPanel, BorderLayout.NORTH);
+
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        statusPanel.add(statusLabel);
+        add(statusPanel, BorderLayout.SOUTH);
+    }
+
+    private void setupEventHandlers() {
+        previousBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                start = start.minusDays(rangeDays());
+                showRange();
+            }
+        });
+
+        todayBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                start = LocalDate.now();
+                showRange();
+            }
+        });
+
+        nextBtn.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                start = start.plusDays(rangeDays());
+                showRange();
+            }
+        });
+
+        viewCombo.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showRange();
+            }
+        });
+
+        table.addMouseListener(new java.awt.event.MouseAdapter() {
+            public void mouseClicked(java.awt.event.MouseEvent evt) {
+                if (evt.getClickCount() == 2) {
+                    int row = table.rowAtPoint(evt.getPoint());
+                    int column = table.columnAtPoint(evt.getPoint());
+                    if (row >= 0 && column >= 0) {
+                        Appointment appointment = model.getAppointmentAt(row, table.convertColumnIndexToModel(column));
+                        if (appointment != null) {
+                            new AppointmentDialog(parent, appointment).setVisible(true);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    // Called when the tab is selected; the first visit loads today
+    public void activate() {
+        if (!shown) {
+            showRange();
+        }
+    }
+
+    // Drops everything cached and reads the current range again (Refresh All)
+    public void reload() {
+        cache.clear();
+        if (shown) {
+            showRange();
+        }
+    }
+
+    private boolean isWeekView() {
+        return viewCombo.getSelectedIndex() == 1;
+    }
+
+    private int rangeDays() {
+        return isWeekView() ? 7 : 1;
+    }
+
+    private LocalDate rangeStart() {
+        return isWeekView() ? start.with(DayOfWeek.MONDAY) : start;
+    }
+
+    private void showRange() {
+        shown = true;
+        final int sequence = ++loadSequence;
+        final LocalDate from = rangeStart();
+        final LocalDate to = from.plusDays(rangeDays() - 1);
+        rangeLabel.setText(isWeekView()
+            ? DAY_FORMAT.format(from) + " - " + DAY_FORMAT.format(to)
+            : DAY_FORMAT.format(from));
+
+        List<Appointment> cached = cache.getCached(from, to);
+        if (cached != null) {
+            display(cached);
+            prefetchAround(from, to);
+            return;
+        }
+
+        statusLabel.setText("Loading...");
+        loader.execute(new SwingWorker<List<Appointment>, Void>() {
+            @Override
+            protected List<Appointment> doInBackground() {
+                return cache.load(from, to);
+            }
+
+            @Override
+            protected void done() {
+                if (sequence != loadSequence) {
+                    return;
+                }
+                try {
+                    display(get());
+                    prefetchAround(from, to);
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    statusLabel.setText("Error loading schedule: " + cause.getMessage());
+                }
+            }
+        });
+    }
+
+    private void prefetchAround(LocalDate from, LocalDate to) {
+        int days = rangeDays();
+        cache.prefetch(to.plusDays(1), to.plusDays(days));
+        cache.prefetch(from.minusDays(days), from.minusDays(1));
+    }
+
+    private void display(List<Appointment> appointments) {
+        model.setAppointments(appointments, isWeekView());
+        boolean wide = model.getColumnCount() * COLUMN_WIDTH > table.getParent().getWidth();
+        table.setAutoResizeMode(wide ? JTable.AUTO_RESIZE_OFF : JTable.AUTO_RESIZE_ALL_COLUMNS);
+        for (int i = 1; i < table.getColumnCount(); i++) {
+            table.getColumnModel().getColumn(i).setPreferredWidth(COLUMN_WIDTH);
+        }
+        table.getColumnModel().getColumn(0).setPreferredWidth(60);
+        int count = model.getAppointmentCount();
+        statusLabel.setText(count == 0 ? "No appointments" : count + " appointments, " +
+                            (model.getColumnCount() - 1) + (isWeekView() ? " doctor-days" : " doctors"));
+    }
+
+    // Re-renders once a burst of changes is applied, if the range on screen is fully
+    // cached; otherwise the next visit reads it
+    private void redisplay() {
+        if (!shown || redisplayPending) {
+            return;
+        }
+        redisplayPending = true;
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                redisplayPending = false;
+                LocalDate from = rangeStart();
+                List<Appointment> cached = cache.getCached(from, from.plusDays(rangeDays() - 1));
+                if (cached != null) {
+                    display(cached);
+                }
+            }
+        });
+    }
+
+    // Change hooks, called by MainFrame on the EDT as it patches the other tables
+    public void appointmentChanged(Appointment appointment) {
+        cache.appointmentChanged(appointment);
+        redisplay();
+    }
+
+    public void appointmentDeleted(String appointmentId) {
+        cache.appointmentDeleted(appointmentId);
+        redisplay();
+    }
+
+    public Appointment findAppointment(String appointmentId) {
+        return cache.find(appointmentId);
+    }
+
+    public void removeAppointmentsIf(Predicate<Object> filter) {
+        cache.removeIf(filter);
+        redisplay();
+    }
+
+    public void updateAppointmentsIf(Predicate<Object> filter, Consumer<Object> update) {
+        cache.updateIf(filter, update);
+        redisplay();
+    }
+
+    // "Patient name (status)", cancelled bookings greyed out
+    private static class AppointmentCellRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            Appointment appointment = (Appointment) value;
+            String text = appointment == null ? "" : appointment.getPatientName() + " (" + appointment.getStatus() + ")";
+            super.getTableCellRendererComponent(table, text, isSelected, hasFocus, row, column);
+            setToolTipText(appointment == null ? null : appointment.getAppointmentId() + ": " + appointment.getReason());
+            if (!isSelected) {
+                setForeground(appointment != null && "Cancelled".equals(appointment.getStatus())
+                    ? Color.GRAY : table.getForeground());
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package gui;
+
+import model.Appointment;
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Calendar grid for the schedule view: one row per appointment time, then one column
+// per doctor and day that has bookings, days in order and doctors by name within a day.
+// Cells hold the Appointment at that time, or null.
+public class ScheduleTableModel extends AbstractTableModel {
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("EEE d MMM");
+
+    private boolean showDates;
+    private List<LocalTime> times = new ArrayList<>();
+    private List<Column> columns = new ArrayList<>();
+
+    // showDates puts the day in the column headers (week view)
+    public void setAppointments(List<Appointment> appointments, boolean showDates) {
+        this.showDates = showDates;
+        TreeSet<LocalTime> distinctTimes = new TreeSet<>();
+        Map<String, Column> byKey = new LinkedHashMap<>();
+        for (Appointment appointment : appointments) {
+            distinctTimes.add(appointment.getAppointmentTime());
+            String key = appointment.getAppointmentDate() + "\n" + appointment.getDoctorId();
+            Column column = byKey.get(key);
+            if (column == null) {
+                column = new Column(appointment.getAppointmentDate(), appointment.getDoctorId(),
+                                    appointment.getDoctorName());
+                byKey.put(key, column);
+            }
+            // Keep a live booking over a cancelled one in the same slot
+            Appointment previous = column.slots.get(appointment.getAppointmentTime());
+            if (previous == null || "Cancelled".equals(previous.getStatus())) {
+                column.slots.put(appointment.getAppointmentTime(), appointment);
+            }
+        }
+        times = new ArrayList<>(distinctTimes);
+        columns = new ArrayList<>(byKey.values());
+        Collections.sort(columns, new Comparator<Column>() {
+            @Override
+            public int compare(Column a, Column b) {
+                int byDate = a.date.compareTo(b.date);
+                if (byDate != 0) {
+                    return byDate;
+                }
+                int byName = String.valueOf(a.doctorName).compareToIgnoreCase(String.valueOf(b.doctorName));
+                return byName != 0 ? byName : a.doctorId.compareTo(b.doctorId);
+            }
+        });
+        fireTableStructureChanged();
+    }
+
+    public int getAppointmentCount() {
+        int count = 0;
+        for (Column column : columns) {
+            count += column.slots.size();
+        }
+        return count;
+    }
+
+    // null for the time column and empty slots
+    public Appointment getAppointmentAt(int row, int column) {
+        if (column == 0) {
+            return null;
+        }
+        return columns.get(column - 1).slots.get(times.get(row));
+    }
+
+    @Override
+    public int getRowCount() {
+        return times.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size() + 1;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (column == 0) {
+            return "Time";
+        }
+        Column c = columns.get(column - 1);
+        String doctor = c.doctorName != null ? c.doctorName : c.doctorId;
+        return showDates ? DAY_FORMAT.format(c.date) + " \u00b7 " + doctor : doctor;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 ? LocalTime.class : Appointment.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return column == 0 ? times.get(row) : getAppointmentAt(row, column);
+    }
+
+    private static final class Column {
+        final LocalDate date;
+        final String doctorId;
+        final String doctorName;
+        final Map<LocalTime, Appointment> slots = new HashMap<>();
+
+        Column(LocalDate date, String doctorId, String doctorName) {
+            this.date = date;
+            this.doctorId = doctorId;
+            this.doctorName = doctorName;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package gui;
+
+import dao.AppointmentDAO;
+import dao.DoctorDAO;
+import dao.SlotFinder;
+import model.Doctor;
+import model.TaskExecutors;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+// Lists the earliest free slots of one doctor, or of every available doctor with a
+// specialization, so a booking can be picked instead of guessed. The chosen slot is
+// handed to the listener and the dialog closes.
+public class SlotFinderDialog extends JDialog {
+    private static final int RESULT_COUNT = 10;
+    private static final String SELECTED_DOCTOR = "(selected doctor)";
+
+    private final String doctorId;
+    private final Consumer<SlotFinder.Slot> listener;
+    private final DoctorDAO doctorDAO;
+    private final SlotFinder finder;
+    private JComboBox<String> specializationCombo;
+    private JTextField fromField, dayStartField, dayEndField, slotMinutesField;
+    private DefaultListModel<SlotFinder.Slot> resultModel;
+    private JList<SlotFinder.Slot> resultList;
+    private JButton searchButton, useButton, cancelButton;
+    private JLabel statusLabel;
+    private int searchSequence;
+
+    // doctorId is the doctor already picked in the booking dialog, or null
+    public SlotFinderDialog(Dialog parent, DoctorDAO doctorDAO, String doctorId, LocalDate from,
+                            Consumer<SlotFinder.Slot> listener) {
+        super(parent, "Find Free Slot", true);
+        this.doctorId = doctorId;
+        this.listener = listener;
+        this.doctorDAO = doctorDAO;
+        this.finder = new SlotFinder(new AppointmentDAO(), doctorDAO);
+        initializeComponents(from);
+        setupLayout();
+        setupEventHandlers();
+        loadSpecializations();
+        pack();
+        setLocationRelativeTo(parent);
+    }
+
+    private void initializeComponents(LocalDate from) {
+        specializationCombo = new JComboBox<>();
+        if (doctorId != null) {
+            specializationCombo.addItem(SELECTED_DOCTOR);
+        }
+        fromField = new JTextField(from.toString(), 10);
+        dayStartField = new JTextField(SlotFinder.DEFAULT_DAY_START.toString(), 5);
+        dayEndField = new JTextField(SlotFinder.DEFAULT_DAY_END.toString(), 5);
+        slotMinutesField = new JTextField(String.valueOf(SlotFinder.DEFAULT_SLOT_MINUTES), 4);
+
+        resultModel = new DefaultListModel<>();
+        resultList = new JList<>(resultModel);
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultList.setVisibleRowCount(RESULT_COUNT);
+
+        searchButton = new JButton("Search");
+        useButton = new JButton("Use Slot");
+        useButton.setEnabled(false);
+        cancelButton = new JButton("Cancel");
+        statusLabel = new JLabel(" ");
+    }
+
+    private void setupLayout() {
+        JPanel criteriaPanel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(4, 4, 4, 4);
+        gbc.anchor = GridBagConstraints.WEST;
+
+        gbc.gridx = 0; gbc.gridy = 0;
+        criteriaPanel.add(new JLabel("Doctor / specialization:"), gbc);
+        gbc.gridx = 1; gbc.gridwidth = 3;
+        criteriaPanel.add(specializationCombo, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 1; gbc.gridwidth = 1;
+        criteriaPanel.add(new JLabel("From (YYYY-MM-DD):"), gbc);
+        gbc.gridx = 1;
+        criteriaPanel.add(fromField, gbc);
+        gbc.gridx = 2;
+        criteriaPanel.add(new JLabel("Slot (minutes):"), gbc);
+        gbc.gridx = 3;
+        criteriaPanel.add(slotMinutesField, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 2;
+        criteriaPanel.add(new JLabel("Working hours:"), gbc);
+        gbc.gridx = 1;
+        JPanel hoursPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        hoursPanel.add(dayStartField);
+        hoursPanel.add(new JLabel(" - "));
+        hoursPanel.add(dayEndField);
+        criteriaPanel.add(hoursPanel, gbc);
+        gbc.gridx = 3;
+        criteriaPanel.add(searchButton, gbc);
+
+        JPanel buttonPanel = new JPanel(new BorderLayout());
+        buttonPanel.add(statusLabel, BorderLayout.WEST);
+        JPanel buttons = new JPanel();
+        buttons.add(useButton);
+        buttons.add(cancelButton);
+        buttonPanel.add(buttons, BorderLayout.EAST);
+
+        JPanel panel = new JPanel(new BorderLayout(4, 4));
+        panel.setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
+        panel.add(criteriaPanel, BorderLayout.NORTH);
+        panel.add(new JScrollPane(resultList), BorderLayout.CENTER);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        add(panel);
+    }
+
+    private void setupEventHandlers() {
+        searchButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                search();
+            }
+        });
+
+        useButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                useSelected();
+            }
+        });
+
+        cancelButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+
+        resultList.addListSelectionListener(new javax.swing.event.ListSelectionListener() {
+            @Override
+            public void valueChanged(javax.swing.event.ListSelectionEvent e) {
+                useButton.setEnabled(resultList.getSelectedValue() != null);
+            }
+        });
+
+        resultList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent evt) {
+                if (evt.getClickCount() == 2 && resultList.getSelectedValue() != null) {
+                    useSelected();
+                }
+            }
+        });
+
+        getRootPane().setDefaultButton(searchButton);
+    }
+
+    // Distinct specializations of available doctors, from the shared doctor cache
+    private void loadSpecializations() {
+        TaskExecutors.background().execute(new SwingWorker<List<String>, Void>() {
+            @Override
+            protected List<String> doInBackground() {
+                TreeSet<String> specializations = new TreeSet<>();
+                for (Doctor doctor : doctorDAO.getAllDoctors()) {
+                    if (doctor.isAvailable() && doctor.getSpecialization() != null) {
+                        specializations.add(doctor.getSpecialization());
+                    }
+                }
+                return new ArrayList<>(specializations);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    for (String specialization : get()) {
+                        specializationCombo.addItem(specialization);
+                    }
+                    pack();
+                } catch (InterruptedException | ExecutionException e) {
+                    statusLabel.setText("Error loading specializations");
+                }
+            }
+        });
+    }
+
+    private void search() {
+        final Object selected = specializationCombo.getSelectedItem();
+        if (selected == null) {
+            statusLabel.setText("Pick a doctor or a specialization first");
+            return;
+        }
+        final LocalDateTime notBefore;
+        try {
+            LocalDate from = LocalDate.parse(fromField.getText().trim());
+            finder.setWorkingHours(LocalTime.parse(dayStartField.getText().trim()),
+                                   LocalTime.parse(dayEndField.getText().trim()));
+            finder.setSlotMinutes(Integer.parseInt(slotMinutesField.getText().trim()));
+            // No slots in the past when searching from today
+            LocalDateTime now = LocalDateTime.now();
+            notBefore = from.atStartOfDay().isBefore(now) ? now : from.atStartOfDay();
+        } catch (Exception e) {
+            statusLabel.setText("Invalid search: " + e.getMessage());
+            return;
+        }
+
+        final int sequence = ++searchSequence;
+        resultModel.clear();
+        statusLabel.setText("Searching...");
+        TaskExecutors.background().execute(new SwingWorker<List<SlotFinder.Slot>, Void>() {
+            private long elapsedMillis;
+
+            @Override
+            protected List<SlotFinder.Slot> doInBackground() {
+                long started = System.nanoTime();
+                List<SlotFinder.Slot> slots = SELECTED_DOCTOR.equals(selected)
+                    ? finder.findForDoctor(doctorId, notBefore, RESULT_COUNT)
+                    : finder.findForSpecialization((String) selected, notBefore, RESULT_COUNT);
+                elapsedMillis = (System.nanoTime() - started) / 1000000;
+                return slots;
+            }
+
+            @Override
+            protected void done() {
+                if (sequence != searchSequence) {
+                    return;
+                }
+                try {
+                    List<SlotFinder.Slot> slots = get();
+                    for (SlotFinder.Slot slot : slots) {
+                        resultModel.addElement(slot);
+                    }
+                    statusLabel.setText(slots.isEmpty()
+                        ? "No free slots in the next " + SlotFinder.DEFAULT_HORIZON_DAYS + " days"
+                        : slots.size() + " slots (" + elapsedMillis + " ms)");
+                    if (!slots.isEmpty()) {
+                        resultList.setSelectedIndex(0);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    statusLabel.setText("Error finding slots: " + cause.getMessage());
+                }
+            }
+        });
+    }
+
+    private void useSelected() {
+        SlotFinder.Slot slot = resultList.getSelectedValue();
+        if (slot != null) {
+            listener.accept(slot);
+            dispose();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package main;
+
+import api.HospitalApi;
+import model.DatabaseConnection;
+import model.TaskExecutors;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+// Runs the REST/JSON service without the GUI, e.g.
+//   java -Dapi.port=8080 -cp ".:bin:lib/*" main.ApiTool
+// Listens on localhost unless -Dapi.host says otherwise; stops on Ctrl+C.
+public class ApiTool {
+    public static void main(String[] args) {
+        String host = System.getProperty("api.host", "127.0.0.1");
+        int port = Integer.getInteger("api.port", 8080);
+        int backlog = Integer.getInteger("api.backlog", 0);
+
+        final HospitalApi api;
+        try {
+            api = new HospitalApi(new InetSocketAddress(host, port), backlog);
+        } catch (IOException e) {
+            System.err.println("Cannot listen on " + host + ":" + port + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                api.stop(2);
+                DatabaseConnection.closeConnection();
+            }
+        }, "api-shutdown"));
+        api.start();
+        System.out.println("Hospital API listening on http://" + host + ":" + api.getAddress().getPort() + "/api/" +
+                           (TaskExecutors.isVirtualThreadSupported() ? " (virtual threads)" : " (thread pool)"));
+    }
+}
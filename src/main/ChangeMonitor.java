@@ -0,0 +1,42 @@
+package main;
+
+import dao.ChangeCoalescer;
+import dao.ChangeFeed;
+import java.time.LocalTime;
+import java.util.function.Consumer;
+
+// Prints the change feed as the GUI would receive it, e.g.
+//   java -cp ".:bin:lib/*" main.ChangeMonitor
+// Handy for checking the notify triggers against a local database: edit rows in psql
+// or another workstation and watch the coalesced batches arrive. Stop with Ctrl+C.
+public class ChangeMonitor {
+    private static final String[] TABLES = {"patients", "doctors", "appointments"};
+
+    public static void main(String[] args) throws InterruptedException {
+        long windowMs = Long.getLong("changes.windowMs", ChangeCoalescer.DEFAULT_WINDOW_MS);
+        int maxPending = Integer.getInteger("changes.maxPending", ChangeCoalescer.DEFAULT_MAX_PENDING);
+
+        ChangeFeed.getInstance().addListener(new ChangeCoalescer(windowMs, maxPending, new Consumer<ChangeCoalescer.Batch>() {
+            @Override
+            public void accept(ChangeCoalescer.Batch batch) {
+                StringBuilder line = new StringBuilder(LocalTime.now().toString());
+                if (batch.isResync()) {
+                    line.append(" resync (listening started or reconnected)");
+                }
+                for (String table : TABLES) {
+                    if (!batch.isResync() && batch.isReloadRequired(table)) {
+                        line.append(" ").append(table).append(": reload");
+                    }
+                    for (ChangeFeed.Change change : batch.getChanges(table)) {
+                        line.append(" [").append(change).append("]");
+                    }
+                }
+                System.out.println(line);
+            }
+        }));
+        ChangeFeed.getInstance().start();
+        System.out.println("Listening on " + ChangeFeed.CHANNEL + " (window " + windowMs + " ms, at most " +
+                           maxPending + " pending rows)...");
+        Thread.currentThread().join();
+    }
+}
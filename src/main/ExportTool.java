@@ -0,0 +1,49 @@
+package main;
+
+import dao.AppointmentExporter;
+import dao.DataAccessException;
+import model.DatabaseConnection;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Command-line export of the appointment history, e.g.
+//   java -cp ".:bin:lib/*" main.ExportTool csv.gz appointments.csv.gz
+// Formats: csv, csv.gz (COPY TO STDOUT) and columnar (see dao.ColumnarWriter).
+// Row group size for the columnar format comes from -Dexport.rowGroupSize.
+public class ExportTool {
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: ExportTool <csv|csv.gz|columnar> <output file>");
+            System.exit(1);
+        }
+        String format = args[0];
+        Path output = Paths.get(args[1]);
+        int rowGroupSize = Integer.getInteger("export.rowGroupSize", AppointmentExporter.DEFAULT_ROW_GROUP_SIZE);
+
+        int exitCode = 0;
+        try {
+            AppointmentExporter exporter = new AppointmentExporter();
+            long started = System.currentTimeMillis();
+            long rows;
+            if ("csv".equals(format)) {
+                rows = exporter.exportCsv(output, false);
+            } else if ("csv.gz".equals(format)) {
+                rows = exporter.exportCsv(output, true);
+            } else if ("columnar".equals(format)) {
+                rows = exporter.exportColumnar(output, rowGroupSize);
+            } else {
+                throw new IllegalArgumentException("Unknown format '" + format + "'");
+            }
+            long elapsed = Math.max(1, System.currentTimeMillis() - started);
+            System.out.println(String.format("Exported %d appointments to %s in %.1fs (%.0f rows/s)",
+                                             rows, output, elapsed / 1000.0, rows * 1000.0 / elapsed));
+        } catch (IOException | DataAccessException | IllegalArgumentException e) {
+            System.err.println("Export failed: " + e.getMessage());
+            exitCode = 1;
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,61 @@
+package main;
+
+import dao.DataAccessException;
+import dao.DataGenerator;
+import model.DatabaseConnection;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.function.Consumer;
+
+// Fills the database with synthetic data for load and scale testing, e.g.
+//   java -Dgenerate.seed=7 -cp ".:bin:lib/*" main.GenerateTool 500 1000000 3000000
+// (doctors, patients, appointments). The same seed and settings always produce the
+// same rows. Settings come from -Dgenerate.* properties; see the README.
+public class GenerateTool {
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: GenerateTool <doctors> <patients> <appointments>");
+            System.exit(1);
+        }
+
+        int exitCode = 0;
+        try {
+            int doctors = Integer.parseInt(args[0]);
+            int patients = Integer.parseInt(args[1]);
+            long appointments = Long.parseLong(args[2]);
+            long seed = Long.getLong("generate.seed", 1);
+            int threads = Integer.getInteger("generate.threads", Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+            DataGenerator generator = new DataGenerator(seed, threads);
+            generator.setChunkSize(Integer.getInteger("generate.chunkSize", DataGenerator.DEFAULT_CHUNK_SIZE));
+            generator.setDateRange(LocalDate.parse(System.getProperty("generate.startDate", DataGenerator.DEFAULT_START_DATE.toString())),
+                                   Integer.getInteger("generate.days", DataGenerator.DEFAULT_DAYS));
+            generator.setDoctorSkew(Double.parseDouble(System.getProperty("generate.doctorSkew",
+                                                                          String.valueOf(DataGenerator.DEFAULT_DOCTOR_SKEW))));
+            generator.setDateSkew(Double.parseDouble(System.getProperty("generate.dateSkew",
+                                                                        String.valueOf(DataGenerator.DEFAULT_DATE_SKEW))));
+            generator.setProgressListener(new Consumer<DataGenerator.Result>() {
+                @Override
+                public void accept(DataGenerator.Result progress) {
+                    System.out.println("  " + progress);
+                }
+            });
+
+            if (Boolean.getBoolean("generate.truncate")) {
+                System.out.println("Truncating doctors, patients and appointments...");
+                DataGenerator.truncateAll();
+            }
+            System.out.println("Generating " + doctors + " doctors, " + patients + " patients and " + appointments +
+                               " appointments (seed " + seed + ", " + threads + " threads)...");
+            for (DataGenerator.Result result : generator.generate(doctors, patients, appointments)) {
+                System.out.println("Loaded " + result);
+            }
+        } catch (DataAccessException | IllegalArgumentException | DateTimeParseException e) {
+            System.err.println("Generation failed: " + e.getMessage());
+            exitCode = 1;
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+        System.exit(exitCode);
+    }
+}
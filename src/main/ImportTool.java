@@ -0,0 +1,68 @@
+package main;
+
+import dao.BulkImporter;
+import dao.DataAccessException;
+import dao.RecordReader;
+import model.DatabaseConnection;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+// Command-line bulk import, e.g.
+//   java -cp ".:bin:lib/*" main.ImportTool patients clinic_patients.csv
+// Chunk size comes from -Dimport.chunkSize (default 1000). Rejected rows go to
+// <input>.errors.csv unless an error file is given as the third argument.
+public class ImportTool {
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: ImportTool <patients|doctors|appointments> <file.csv|file.json> [errors.csv]");
+            System.exit(1);
+        }
+        String entity = args[0];
+        File input = new File(args[1]);
+        File errorFile = new File(args.length == 3 ? args[2] : args[1] + ".errors.csv");
+        int chunkSize = Integer.getInteger("import.chunkSize", BulkImporter.DEFAULT_CHUNK_SIZE);
+
+        int exitCode = 0;
+        try (RecordReader reader = RecordReader.open(input);
+             Writer errors = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(errorFile), StandardCharsets.UTF_8))) {
+
+            BulkImporter importer = new BulkImporter(chunkSize, errors);
+            importer.setProgressListener(new Consumer<BulkImporter.ImportResult>() {
+                @Override
+                public void accept(BulkImporter.ImportResult progress) {
+                    System.out.println("  " + progress);
+                }
+            });
+
+            System.out.println("Importing " + entity + " from " + input + " in chunks of " + chunkSize + "...");
+            BulkImporter.ImportResult result;
+            if ("patients".equals(entity)) {
+                result = importer.importPatients(reader);
+            } else if ("doctors".equals(entity)) {
+                result = importer.importDoctors(reader);
+            } else if ("appointments".equals(entity)) {
+                result = importer.importAppointments(reader);
+            } else {
+                throw new IllegalArgumentException("Unknown entity '" + entity + "'");
+            }
+
+            System.out.println("Import finished: " + result);
+            if (result.getRejected() > 0) {
+                System.out.println("Rejected rows written to " + errorFile);
+                exitCode = 2;
+            }
+        } catch (IOException | DataAccessException | IllegalArgumentException e) {
+            System.err.println("Import failed: " + e.getMessage());
+            exitCode = 1;
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+        System.exit(exitCode);
+    }
+}
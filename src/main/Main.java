@@ -1,6 +1,8 @@
 package main;
 
+import gui.EdtWatchdog;
 import gui.MainFrame;
+import model.Metrics;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.JOptionPane;  // Add this import
@@ -15,6 +17,11 @@ public class Main {
             e.printStackTrace();
         }
         
+        // Count database time spent on the Event Dispatch Thread (edt.blocked)
+        Metrics.watchEventDispatchThread();
+        // Record which interactions freeze the UI (Diagnostics window, -Dedt.stallReportFile)
+        EdtWatchdog.install();
+        
         // Create and show GUI on Event Dispatch Thread
         SwingUtilities.invokeLater(new Runnable() {
             @Override
@@ -0,0 +1,119 @@
+package main;
+
+import dao.DataAccessException;
+import dao.StatusTransition;
+import model.DatabaseConnection;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// End-of-day status sweep without the GUI, e.g.
+//   java -cp ".:bin:lib/*" main.SweepTool
+// marks every Scheduled appointment that started over sweep.graceMinutes ago as No-Show.
+// Statuses, dates and doctor come from -Dsweep.* properties (see the README). Changed
+// rows are appended to sweep.logFile. With -Dsweep.nightlyAt=HH:mm the tool keeps
+// running and sweeps every day at that time instead of once.
+public class SweepTool {
+    public static void main(String[] args) {
+        if (args.length != 0) {
+            System.err.println("Usage: SweepTool (settings come from -Dsweep.* properties)");
+            System.exit(1);
+        }
+
+        String nightlyAt = System.getProperty("sweep.nightlyAt");
+        if (nightlyAt == null) {
+            int exitCode = sweep() ? 0 : 1;
+            DatabaseConnection.closeConnection();
+            System.exit(exitCode);
+        }
+
+        final LocalTime at;
+        try {
+            at = LocalTime.parse(nightlyAt);
+        } catch (DateTimeParseException e) {
+            System.err.println("Invalid sweep.nightlyAt '" + nightlyAt + "': expected HH:mm");
+            System.exit(1);
+            return;
+        }
+        // Not a daemon thread: it keeps the tool running between sweeps
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                scheduler.shutdownNow();
+                DatabaseConnection.closeConnection();
+            }
+        }, "sweep-shutdown"));
+        scheduleNext(scheduler, at);
+    }
+
+    // Recomputed after every run, so clock changes don't shift the time of day
+    private static void scheduleNext(final ScheduledExecutorService scheduler, final LocalTime at) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(at);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        System.out.println("Next sweep at " + next);
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                // A failed night is logged and retried the next night
+                sweep();
+                scheduleNext(scheduler, at);
+            }
+        }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean sweep() {
+        File logFile = new File(System.getProperty("sweep.logFile", "status-changes.csv"));
+        boolean newLog = !logFile.exists() || logFile.length() == 0;
+        try (Writer log = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(logFile, true), StandardCharsets.UTF_8))) {
+            if (newLog) {
+                log.write(StatusTransition.CHANGE_LOG_HEADER);
+            }
+            StatusTransition.Criteria criteria =
+                new StatusTransition.Criteria(System.getProperty("sweep.fromStatus", "Scheduled").split("\\s*,\\s*"));
+            criteria.setDateRange(date("sweep.fromDate"), date("sweep.toDate"));
+            criteria.setDoctorId(System.getProperty("sweep.doctorId"));
+            criteria.setStartedBefore(LocalDateTime.now().minusMinutes(Long.getLong("sweep.graceMinutes", 60)));
+            String toStatus = System.getProperty("sweep.toStatus", "No-Show");
+
+            int threads = Integer.getInteger("sweep.threads", Math.min(4, Runtime.getRuntime().availableProcessors()));
+            StatusTransition transition = new StatusTransition(
+                Integer.getInteger("sweep.chunkSize", StatusTransition.DEFAULT_CHUNK_SIZE), threads, log);
+            transition.setProgressListener(new Consumer<StatusTransition.Result>() {
+                @Override
+                public void accept(StatusTransition.Result progress) {
+                    System.out.println("  " + progress);
+                }
+            });
+
+            System.out.println("Marking " + criteria + " as " + toStatus + " (" + threads + " threads)...");
+            StatusTransition.Result result = transition.run(criteria, toStatus);
+            System.out.println("Sweep finished: " + result + "; changes appended to " + logFile);
+            return true;
+        } catch (IOException | DataAccessException | IllegalArgumentException | DateTimeParseException e) {
+            System.err.println("Sweep failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static LocalDate date(String property) {
+        String value = System.getProperty(property);
+        return value == null ? null : LocalDate.parse(value);
+    }
+}
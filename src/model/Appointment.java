@@ -17,6 +17,7 @@ public class Appointment {
     private String prescription;
     private double fee;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
     
     // Additional fields for display
     private String patientName;
@@ -73,6 +74,9 @@ public class Appointment {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
     public String getPatientName() { return patientName; }
     public void setPatientName(String patientName) { this.patientName = patientName; }
     
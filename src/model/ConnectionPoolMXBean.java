@@ -0,0 +1,13 @@
+package model;
+
+// JMX view of the connection pool (hms:type=ConnectionPool); the time callers wait
+// for a connection is the pool.acquire operation
+public interface ConnectionPoolMXBean {
+    int getMaxSize();
+    int getActiveCount();
+    int getIdleCount();
+    int getTotalCount();
+    boolean isShutdown();
+    long getStatementCacheHitCount();
+    long getStatementCacheMissCount();
+}
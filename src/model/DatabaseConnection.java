@@ -1,30 +1,51 @@
 package model;
 
+import java.security.SecureRandom;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Properties;
 import javax.swing.JOptionPane;
 
 public class DatabaseConnection {
-    // PostgreSQL connection details
-    private static final String URL = "jdbc:postgresql://localhost:5432/hospital_management";
-    private static final String USERNAME = "postgres";
-    private static final String PASSWORD = "123456789";
+    // PostgreSQL connection details; -Ddb.url, -Ddb.user and -Ddb.password point the
+    // application (or the benchmarks) at another database
+    private static final String URL = System.getProperty("db.url", "jdbc:postgresql://localhost:5432/hospital_management");
+    private static final String USERNAME = System.getProperty("db.user", "postgres");
+    private static final String PASSWORD = System.getProperty("db.password", "123456789");
     
-    private static Connection connection;
+    // Pool settings, overridable with -Ddb.pool.* system properties
+    private static final int POOL_MAX_SIZE = Integer.getInteger("db.pool.maxSize", 10);
+    private static final int POOL_MIN_IDLE = Integer.getInteger("db.pool.minIdle", 2);
+    private static final long POOL_ACQUIRE_TIMEOUT_MS = Long.getLong("db.pool.acquireTimeoutMs", 5000);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("db.pool.idleTimeoutMs", 300000);
+    private static final long POOL_LEAK_THRESHOLD_MS = Long.getLong("db.pool.leakThresholdMs", 60000);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("db.pool.statementCacheSize", 64);
+    
+    // Sent as application_name on every connection; change notifications carry it, so a
+    // workstation can recognise (and skip) changes it made itself. Only fixed for checks
+    // such as database/verify_change_feed.sh; two processes must never share one.
+    private static final String APPLICATION_NAME = System.getProperty("db.applicationName",
+        String.format("hms-%08x", new SecureRandom().nextInt()));
+    
+    private static final String POOL_MBEAN_NAME = "hms:type=ConnectionPool";
+    
+    private static volatile ConnectionPool pool;
+    private static volatile boolean announced;
     
     private DatabaseConnection() {}
     
-    public static Connection getConnection() {
+    // Returns a pooled connection; closing it hands it back to the pool. Failures are
+    // thrown, never returned as null, so callers report them like any other SQLException.
+    public static Connection getConnection() throws SQLException {
         try {
-            if (connection == null || connection.isClosed()) {
-                // Load PostgreSQL JDBC Driver
-                Class.forName("org.postgresql.Driver");
-                
-                // Establish connection
-                connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+            Connection connection = getPool().borrow();
+            if (!announced) {
+                announced = true;
                 System.out.println("Hospital Management Database (PostgreSQL) connected successfully!");
             }
+            return connection;
         } catch (ClassNotFoundException e) {
             System.err.println("PostgreSQL JDBC Driver not found!");
             e.printStackTrace();
@@ -32,6 +53,11 @@ public class DatabaseConnection {
                 "PostgreSQL JDBC Driver not found.\n" +
                 "Please ensure PostgreSQL JDBC driver is in the classpath.\n" +
                 "Download from: https://jdbc.postgresql.org/download.html");
+            throw new SQLException("PostgreSQL JDBC Driver not found", e);
+        } catch (SQLTransientConnectionException e) {
+            // Pool exhausted: the server is fine, every connection is simply in use
+            System.err.println("Database connection pool busy: " + e.getMessage());
+            throw e;
         } catch (SQLException e) {
             System.err.println("Failed to connect to hospital database!");
             e.printStackTrace();
@@ -42,8 +68,55 @@ public class DatabaseConnection {
                 "2. Database 'hospital_management' exists\n" +
                 "3. Username and password are correct\n" +
                 "4. Port 5432 is accessible");
+            throw e;
         }
-        return connection;
+    }
+    
+    private static ConnectionPool getPool() throws ClassNotFoundException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    // Load PostgreSQL JDBC Driver once for the lifetime of the pool
+                    Class.forName("org.postgresql.Driver");
+                    
+                    Properties properties = connectionProperties();
+                    // Cached statements are reused, so switch to a named server-side plan right away
+                    properties.setProperty("prepareThreshold", "1");
+                    // Let the driver fold batched INSERTs into multi-row statements (bulk import)
+                    properties.setProperty("reWriteBatchedInserts", "true");
+                    current = new ConnectionPool(URL, properties, POOL_MAX_SIZE, POOL_MIN_IDLE,
+                        POOL_ACQUIRE_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS, POOL_LEAK_THRESHOLD_MS,
+                        STATEMENT_CACHE_SIZE);
+                    pool = current;
+                    Metrics.registerMBean(POOL_MBEAN_NAME, current);
+                }
+            }
+        }
+        return current;
+    }
+    
+    private static Properties connectionProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("user", USERNAME);
+        properties.setProperty("password", PASSWORD);
+        properties.setProperty("ApplicationName", APPLICATION_NAME);
+        return properties;
+    }
+    
+    // Unpooled connection for long-lived sessions such as LISTEN; the caller closes it
+    public static Connection openDedicatedConnection() throws SQLException {
+        try {
+            Class.forName("org.postgresql.Driver");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("PostgreSQL JDBC Driver not found", e);
+        }
+        return DriverManager.getConnection(URL, connectionProperties());
+    }
+    
+    public static String getApplicationName() {
+        return APPLICATION_NAME;
     }
     
     private static void showErrorDialog(String title, String message) {
@@ -58,15 +131,13 @@ public class DatabaseConnection {
         }
     }
     
-    public static void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-                System.out.println("Database connection closed!");
-            } catch (SQLException e) {
-                System.err.println("Error closing database connection!");
-                e.printStackTrace();
-            }
+    // Shuts the pool down and closes every idle physical connection
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+            Metrics.unregisterMBean(POOL_MBEAN_NAME);
+            System.out.println("Database connection pool closed!");
         }
     }
     
@@ -82,14 +153,12 @@ public class DatabaseConnection {
     
     // Get database info for debugging
     public static String getConnectionInfo() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                return "Connected to PostgreSQL: " + URL + " as " + USERNAME;
-            } else {
-                return "Not connected to database";
-            }
-        } catch (SQLException e) {
-            return "Connection error: " + e.getMessage();
+        ConnectionPool current = pool;
+        if (current != null && !current.isShutdown() && current.getTotalCount() > 0) {
+            return "Connected to PostgreSQL: " + URL + " as " + USERNAME + " " + current +
+                " " + StatementCache.getStatistics();
+        } else {
+            return "Not connected to database";
         }
     }
 }
\ No newline at end of file
@@ -14,6 +14,7 @@ public class Doctor {
     private double consultationFee;
     private boolean available;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
     
     // Constructors
     public Doctor() {}
@@ -65,6 +66,9 @@ public class Doctor {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
     @Override
     public String toString() {
         return String.format("Dr. %s (%s)", name, specialization);
@@ -0,0 +1,144 @@
+package model;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+// Statement proxy that times every execute* call into the calling DAO method's
+// OperationStats. Result sets are wrapped to count the rows read; the count is
+// recorded when the result set, or the statement that produced it, is closed.
+final class InstrumentedStatement implements InvocationHandler {
+    private final Statement target;
+    private final String preparedSql;
+    private RowCounter openResult;
+
+    private InstrumentedStatement(Statement target, String preparedSql) {
+        this.target = target;
+        this.preparedSql = preparedSql;
+    }
+
+    static Statement wrap(Statement statement, String sql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+            : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+            new InstrumentedStatement(statement, sql));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if ("equals".equals(name)) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(name)) {
+            return System.identityHashCode(proxy);
+        }
+        if (!name.startsWith("execute")) {
+            if ("close".equals(name)) {
+                finishResult();
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        // Running the statement again implicitly closes its previous result set
+        finishResult();
+        String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+        OperationStats stats = Metrics.operationFor(sql);
+        long started = System.nanoTime();
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Metrics.recordQuery(stats, sql, System.nanoTime() - started, 0, true);
+            throw e.getCause();
+        }
+        long elapsed = System.nanoTime() - started;
+        if (result instanceof ResultSet) {
+            Metrics.recordQuery(stats, sql, elapsed, 0, false);
+            openResult = new RowCounter((ResultSet) result, stats);
+            return openResult.newHandle();
+        }
+        Metrics.recordQuery(stats, sql, elapsed, updateCount(result), false);
+        return result;
+    }
+
+    private void finishResult() {
+        if (openResult != null) {
+            openResult.finish();
+            openResult = null;
+        }
+    }
+
+    private static long updateCount(Object result) {
+        if (result instanceof Number) {
+            return Math.max(0, ((Number) result).longValue());
+        }
+        long total = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                total += Math.max(0, count);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                total += Math.max(0, count);
+            }
+        }
+        return total;
+    }
+
+    private static final class RowCounter implements InvocationHandler {
+        private final ResultSet target;
+        private final OperationStats stats;
+        private long rows;
+        private boolean finished;
+
+        RowCounter(ResultSet target, OperationStats stats) {
+            this.target = target;
+            this.stats = stats;
+        }
+
+        ResultSet newHandle() {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, this);
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                stats.addRows(rows);
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("close".equals(name)) {
+                finish();
+            }
+            try {
+                Object result = method.invoke(target, args);
+                if ("next".equals(name) && Boolean.TRUE.equals(result)) {
+                    rows++;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
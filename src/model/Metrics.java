@@ -0,0 +1,304 @@
+package model;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Timing for every database call. Statements handed out by the pool are wrapped (see
+// InstrumentedStatement), so each DAO method gets a latency histogram, a row count and
+// an error count without any change to the DAO code. Operations are published over JMX
+// under the "hms" domain and, with -Dmetrics.dumpIntervalMs, written out periodically
+// as a log line or a CSV row per operation so workstations can be compared.
+public final class Metrics {
+    public static final String POOL_ACQUIRE = "pool.acquire";
+    public static final String EDT_BLOCKED = "edt.blocked";
+    private static final String OTHER = "other";
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("metrics.enabled", "true"));
+    private static final long DUMP_INTERVAL_MS = Long.getLong("metrics.dumpIntervalMs", 0);
+    private static final String CSV_FILE = System.getProperty("metrics.csvFile");
+    private static final long SLOW_QUERY_MS = Long.getLong("metrics.slowQueryMs", 1000);
+
+    // DAO methods number in the dozens; anything beyond this is lumped together
+    private static final int MAX_OPERATIONS = 500;
+    private static final int MAX_LABELS = 2000;
+
+    private static final ConcurrentHashMap<String, OperationStats> OPERATIONS = new ConcurrentHashMap<>();
+    // SQL text -> operation label, so the stack is only walked once per statement
+    private static final ConcurrentHashMap<String, String> LABELS = new ConcurrentHashMap<>();
+    // Totals at the previous dump, to report each interval on its own
+    private static final Map<String, Sample> LAST_DUMP = new HashMap<>();
+
+    private static volatile boolean watchingEventDispatchThread;
+
+    static {
+        if (ENABLED && DUMP_INTERVAL_MS > 0) {
+            ScheduledExecutorService dumper =
+                Executors.newSingleThreadScheduledExecutor(TaskExecutors.daemonThreadFactory("metrics-dump"));
+            dumper.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    dump();
+                }
+            }, DUMP_INTERVAL_MS, DUMP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            // The last partial interval would otherwise be lost on exit
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    dump();
+                }
+            }, "metrics-final-dump"));
+        }
+    }
+
+    private Metrics() {}
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // Called by the Swing front end; database time spent on the Event Dispatch Thread is
+    // then also recorded as edt.blocked. Command-line tools never touch AWT.
+    public static void watchEventDispatchThread() {
+        watchingEventDispatchThread = true;
+    }
+
+    public static OperationStats operation(String name) {
+        OperationStats stats = OPERATIONS.get(name);
+        if (stats != null) {
+            return stats;
+        }
+        if (OPERATIONS.size() >= MAX_OPERATIONS && !OTHER.equals(name)) {
+            return operation(OTHER);
+        }
+        OperationStats created = new OperationStats(name);
+        stats = OPERATIONS.putIfAbsent(name, created);
+        if (stats != null) {
+            return stats;
+        }
+        registerMBean("hms:type=Operation,name=" + ObjectName.quote(name), created);
+        return created;
+    }
+
+    // Most frequent first
+    public static List<OperationStats> getOperations() {
+        List<OperationStats> operations = new ArrayList<>(OPERATIONS.values());
+        Collections.sort(operations, new Comparator<OperationStats>() {
+            @Override
+            public int compare(OperationStats a, OperationStats b) {
+                return Long.compare(b.getCount(), a.getCount());
+            }
+        });
+        return operations;
+    }
+
+    // For timings taken outside the JDBC layer, e.g. whole REST requests
+    public static void record(String operation, long nanos, boolean failed) {
+        if (!ENABLED) {
+            return;
+        }
+        OperationStats stats = operation(operation);
+        stats.record(nanos);
+        if (failed) {
+            stats.recordError();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <S extends Statement> S instrument(S statement, String sql) {
+        if (!ENABLED || statement == null) {
+            return statement;
+        }
+        return (S) InstrumentedStatement.wrap(statement, sql);
+    }
+
+    static void recordAcquire(long nanos, boolean failed) {
+        if (!ENABLED) {
+            return;
+        }
+        OperationStats stats = operation(POOL_ACQUIRE);
+        stats.record(nanos);
+        if (failed) {
+            stats.recordError();
+        }
+        recordBlocking(nanos);
+    }
+
+    static void recordQuery(OperationStats stats, String sql, long nanos, long rows, boolean failed) {
+        stats.record(nanos);
+        stats.addRows(rows);
+        if (failed) {
+            stats.recordError();
+        }
+        recordBlocking(nanos);
+        if (SLOW_QUERY_MS > 0 && nanos >= TimeUnit.MILLISECONDS.toNanos(SLOW_QUERY_MS)) {
+            System.err.println("Slow query: " + stats.getName() + " took " + TimeUnit.NANOSECONDS.toMillis(nanos) +
+                "ms on " + Thread.currentThread().getName() + ": " + abbreviate(sql));
+        }
+    }
+
+    private static void recordBlocking(long nanos) {
+        if (watchingEventDispatchThread && EventQueue.isDispatchThread()) {
+            operation(EDT_BLOCKED).record(nanos);
+        }
+    }
+
+    static OperationStats operationFor(String sql) {
+        if (sql == null) {
+            return operation(callerLabel());
+        }
+        String label = LABELS.get(sql);
+        if (label == null) {
+            label = callerLabel();
+            if (LABELS.size() < MAX_LABELS) {
+                // The first caller names a statement shared by several methods
+                LABELS.putIfAbsent(sql, label);
+            }
+        }
+        return operation(label);
+    }
+
+    // The innermost application frame, e.g. "PatientDAO.getPatientById"
+    private static String callerLabel() {
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String className = frame.getClassName();
+            if (className.startsWith("model.") || className.startsWith("java.") || className.startsWith("javax.")
+                    || className.startsWith("sun.") || className.startsWith("jdk.") || className.startsWith("com.sun.")
+                    || className.startsWith("org.postgresql.") || className.contains("$Proxy")
+                    || className.equals("dao.ResultStreams") || className.startsWith("dao.ResultStreams$")) {
+                continue;
+            }
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            int nested = simpleName.indexOf('$');
+            if (nested > 0) {
+                simpleName = simpleName.substring(0, nested);
+            }
+            return simpleName + "." + frame.getMethodName();
+        }
+        return OTHER;
+    }
+
+    private static String abbreviate(String sql) {
+        if (sql == null) {
+            return "(unknown statement)";
+        }
+        String flat = sql.replaceAll("\\s+", " ").trim();
+        return flat.length() > 200 ? flat.substring(0, 200) + "..." : flat;
+    }
+
+    static void registerMBean(String name, Object bean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(bean, objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("Error registering " + name + " with JMX: " + e.getMessage());
+        }
+    }
+
+    static void unregisterMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("Error unregistering " + name + " from JMX: " + e.getMessage());
+        }
+    }
+
+    // Writes what happened since the previous dump, one row per active operation
+    public static synchronized void dump() {
+        String timestamp = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").format(new Date());
+        String workstation = DatabaseConnection.getApplicationName();
+        List<String> lines = new ArrayList<>();
+        for (OperationStats stats : OPERATIONS.values()) {
+            Sample now = new Sample(stats);
+            Sample previous = LAST_DUMP.put(stats.getName(), now);
+            Sample interval = previous == null ? now : now.minus(previous);
+            if (interval.latency.getCount() == 0) {
+                continue;
+            }
+            LatencyHistogram.Snapshot latency = interval.latency;
+            if (CSV_FILE != null) {
+                lines.add(String.format("%s,%s,%s,%d,%d,%d,%.1f,%d,%d,%d,%d,%d", timestamp, workstation,
+                    csvField(stats.getName()), latency.getCount(), interval.errors, interval.rows, latency.getMean(),
+                    latency.getValueAtPercentile(50), latency.getValueAtPercentile(90),
+                    latency.getValueAtPercentile(99), latency.getValueAtPercentile(99.9), latency.getMax()));
+            } else {
+                lines.add(String.format("Metrics %s: count=%d, errors=%d, rows=%d, mean=%.1fus, p50=%dus, p90=%dus, " +
+                    "p99=%dus, p99.9=%dus, max=%dus", stats.getName(), latency.getCount(), interval.errors,
+                    interval.rows, latency.getMean(), latency.getValueAtPercentile(50),
+                    latency.getValueAtPercentile(90), latency.getValueAtPercentile(99),
+                    latency.getValueAtPercentile(99.9), latency.getMax()));
+            }
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+        Collections.sort(lines);
+        if (CSV_FILE == null) {
+            for (String line : lines) {
+                System.out.println(line);
+            }
+            return;
+        }
+        boolean newFile = !new File(CSV_FILE).exists();
+        try (PrintWriter out = new PrintWriter(new FileWriter(CSV_FILE, true))) {
+            if (newFile) {
+                out.println("timestamp,workstation,operation,count,errors,rows,mean_us,p50_us,p90_us,p99_us,p999_us,max_us");
+            }
+            for (String line : lines) {
+                out.println(line);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing metrics to " + CSV_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private static String csvField(String value) {
+        return value.indexOf(',') < 0 && value.indexOf('"') < 0 ? value : "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static final class Sample {
+        final LatencyHistogram.Snapshot latency;
+        final long rows;
+        final long errors;
+
+        Sample(OperationStats stats) {
+            this(stats.getLatency(), stats.getRows(), stats.getErrors());
+        }
+
+        Sample(LatencyHistogram.Snapshot latency, long rows, long errors) {
+            this.latency = latency;
+            this.rows = rows;
+            this.errors = errors;
+        }
+
+        Sample minus(Sample earlier) {
+            return new Sample(latency.minus(earlier.latency), rows - earlier.rows, errors - earlier.errors);
+        }
+    }
+}
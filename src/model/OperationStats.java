@@ -0,0 +1,54 @@
+package model;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Latency distribution, row count and error count of one operation: a DAO method, the
+// wait for a pooled connection, or time the UI thread spent blocked on the database
+public class OperationStats implements OperationStatsMXBean {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos) {
+        latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    void addRows(long count) {
+        if (count > 0) {
+            rows.addAndGet(count);
+        }
+    }
+
+    void recordError() {
+        errors.incrementAndGet();
+    }
+
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    @Override public String getName() { return name; }
+    @Override public long getCount() { return latency.getCount(); }
+    @Override public long getErrors() { return errors.get(); }
+    @Override public long getRows() { return rows.get(); }
+    @Override public double getMeanMicros() { return latency.snapshot().getMean(); }
+    @Override public long getP50Micros() { return latency.snapshot().getValueAtPercentile(50); }
+    @Override public long getP90Micros() { return latency.snapshot().getValueAtPercentile(90); }
+    @Override public long getP99Micros() { return latency.snapshot().getValueAtPercentile(99); }
+    @Override public long getP999Micros() { return latency.snapshot().getValueAtPercentile(99.9); }
+    @Override public long getMaxMicros() { return latency.snapshot().getMax(); }
+
+    @Override
+    public String toString() {
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        return String.format("%s[count=%d, errors=%d, rows=%d, p50=%dus, p99=%dus, max=%dus]",
+                           name, snapshot.getCount(), errors.get(), rows.get(),
+                           snapshot.getValueAtPercentile(50), snapshot.getValueAtPercentile(99), snapshot.getMax());
+    }
+}
@@ -0,0 +1,16 @@
+package model;
+
+// JMX view of one instrumented operation (hms:type=Operation,name=...). Latencies are
+// in microseconds and cover everything recorded since the application started.
+public interface OperationStatsMXBean {
+    String getName();
+    long getCount();
+    long getErrors();
+    long getRows();
+    double getMeanMicros();
+    long getP50Micros();
+    long getP90Micros();
+    long getP99Micros();
+    long getP999Micros();
+    long getMaxMicros();
+}
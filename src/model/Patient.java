@@ -14,6 +14,7 @@ public class Patient {
     private String bloodGroup;
     private String emergencyContact;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
     
     // Constructors
     public Patient() {}
@@ -65,6 +66,9 @@ public class Patient {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
     @Override
     public String toString() {
         return String.format("Patient[ID=%s, Name=%s, Age=%d]", patientId, name, age);
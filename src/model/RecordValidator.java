@@ -0,0 +1,78 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Field rules shared by the management dialogs and the bulk importer, mirroring the
+// table constraints in schema_postgresql.sql. Each method returns null when the
+// record is valid, otherwise a message that can be shown to the user.
+public class RecordValidator {
+    public static final List<String> GENDERS = Arrays.asList("Male", "Female", "Other");
+    public static final List<String> APPOINTMENT_STATUSES =
+        Arrays.asList("Scheduled", "Completed", "Cancelled", "No-Show");
+
+    private RecordValidator() {}
+
+    public static String validatePatient(Patient patient) {
+        String error = required("Patient ID", patient.getPatientId(), 20);
+        if (error == null) error = required("Name", patient.getName(), 100);
+        if (error == null) error = required("Phone", patient.getPhone(), 15);
+        if (error == null) error = optional("Email", patient.getEmail(), 100);
+        if (error == null) error = optional("Blood group", patient.getBloodGroup(), 5);
+        if (error == null) error = optional("Emergency contact", patient.getEmergencyContact(), 15);
+        if (error == null && (patient.getAge() < 0 || patient.getAge() > 150)) {
+            error = "Age must be between 0 and 150";
+        }
+        if (error == null && patient.getGender() != null && !GENDERS.contains(patient.getGender())) {
+            error = "Gender must be one of " + GENDERS;
+        }
+        return error;
+    }
+
+    public static String validateDoctor(Doctor doctor) {
+        String error = required("Doctor ID", doctor.getDoctorId(), 20);
+        if (error == null) error = required("Name", doctor.getName(), 100);
+        if (error == null) error = required("Specialization", doctor.getSpecialization(), 100);
+        if (error == null) error = required("Phone", doctor.getPhone(), 15);
+        if (error == null) error = optional("Email", doctor.getEmail(), 100);
+        if (error == null) error = required("Qualification", doctor.getQualification(), 100);
+        if (error == null && doctor.getExperienceYears() < 0) {
+            error = "Experience cannot be negative";
+        }
+        if (error == null && doctor.getConsultationFee() < 0) {
+            error = "Consultation fee cannot be negative";
+        }
+        return error;
+    }
+
+    public static String validateAppointment(Appointment appointment) {
+        String error = required("Appointment ID", appointment.getAppointmentId(), 20);
+        if (error == null) error = required("Patient ID", appointment.getPatientId(), 20);
+        if (error == null) error = required("Doctor ID", appointment.getDoctorId(), 20);
+        if (error == null) error = required("Reason", appointment.getReason(), Integer.MAX_VALUE);
+        if (error == null && appointment.getAppointmentDate() == null) {
+            error = "Date is required";
+        }
+        if (error == null && appointment.getAppointmentTime() == null) {
+            error = "Time is required";
+        }
+        if (error == null && !APPOINTMENT_STATUSES.contains(appointment.getStatus())) {
+            error = "Status must be one of " + APPOINTMENT_STATUSES;
+        }
+        return error;
+    }
+
+    private static String required(String field, String value, int maxLength) {
+        if (value == null || value.trim().isEmpty()) {
+            return field + " is required";
+        }
+        return optional(field, value, maxLength);
+    }
+
+    private static String optional(String field, String value, int maxLength) {
+        if (value != null && value.length() > maxLength) {
+            return field + " must be at most " + maxLength + " characters";
+        }
+        return null;
+    }
+}
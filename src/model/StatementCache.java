@@ -0,0 +1,227 @@
+package model;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// LRU cache of prepared statements for one physical connection, keyed by SQL text.
+// Statements handed out are proxies whose close() parks the statement back in the
+// cache, so the driver can keep the server-side prepared plan alive between calls.
+public class StatementCache {
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    private final Connection physical;
+    private final LinkedHashMap<String, CachedStatement> entries;
+
+    public StatementCache(Connection physical, final int capacity) {
+        this.physical = physical;
+        this.entries = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                EVICTIONS.incrementAndGet();
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    public synchronized PreparedStatement prepare(Connection owner, String sql) throws SQLException {
+        CachedStatement cached = entries.get(sql);
+        if (cached != null && !cached.inUse) {
+            HITS.incrementAndGet();
+            cached.inUse = true;
+            return cached.newHandle(owner);
+        }
+        MISSES.incrementAndGet();
+        PreparedStatement statement = physical.prepareStatement(sql);
+        if (cached != null) {
+            // Same SQL already open on this connection (nested use); don't cache the second copy
+            return statement;
+        }
+        cached = new CachedStatement(sql, statement);
+        cached.inUse = true;
+        entries.put(sql, cached);
+        return cached.newHandle(owner);
+    }
+
+    private synchronized void giveBack(CachedStatement cached) {
+        cached.inUse = false;
+        if (cached.evicted) {
+            entries.remove(cached.sql, cached);
+            cached.closeQuietly();
+        }
+    }
+
+    public synchronized void closeAll() {
+        Iterator<CachedStatement> it = entries.values().iterator();
+        while (it.hasNext()) {
+            it.next().closeQuietly();
+            it.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public static long getHitCount() { return HITS.get(); }
+    public static long getMissCount() { return MISSES.get(); }
+    public static long getEvictionCount() { return EVICTIONS.get(); }
+
+    public static String getStatistics() {
+        long hits = HITS.get();
+        long total = hits + MISSES.get();
+        return String.format("StatementCache[hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%]",
+                           hits, MISSES.get(), EVICTIONS.get(), total == 0 ? 0.0 : hits * 100.0 / total);
+    }
+
+    private final class CachedStatement {
+        final String sql;
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+        }
+
+        PreparedStatement newHandle(Connection owner) {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, new Handle(this, owner));
+        }
+
+        // Called with the cache lock held; a statement still in use is closed when handed back
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing cached statement: " + e.getMessage());
+            }
+        }
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private final List<ResultSet> openResults = new ArrayList<>(1);
+        private boolean released;
+
+        Handle(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                if (!released) {
+                    released = true;
+                    reset();
+                    giveBack(cached);
+                }
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return released || cached.statement.isClosed();
+            }
+            if ("getConnection".equals(name)) {
+                return owner;
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if (released) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                Object result = method.invoke(cached.statement, args);
+                if (result instanceof ResultSet) {
+                    openResults.add((ResultSet) result);
+                    return wrapResults((ResultSet) result, (PreparedStatement) proxy);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        // The result set reports this handle as its statement, so a caller closing
+        // rs.getStatement() parks the statement instead of closing the cached one
+        private ResultSet wrapResults(final ResultSet results, final PreparedStatement handle) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        String name = method.getName();
+                        if ("getStatement".equals(name)) {
+                            return handle;
+                        }
+                        if ("equals".equals(name)) {
+                            return proxy == args[0];
+                        }
+                        if ("hashCode".equals(name)) {
+                            return System.identityHashCode(proxy);
+                        }
+                        try {
+                            return method.invoke(results, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+        }
+
+        // Leave the statement exactly as a fresh prepareStatement() would
+        private void reset() {
+            PreparedStatement statement = cached.statement;
+            try {
+                for (ResultSet rs : openResults) {
+                    rs.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                if (statement.getFetchSize() != 0) {
+                    statement.setFetchSize(0);
+                }
+                if (statement.getMaxRows() != 0) {
+                    statement.setMaxRows(0);
+                }
+                if (statement.getQueryTimeout() != 0) {
+                    statement.setQueryTimeout(0);
+                }
+            } catch (SQLException e) {
+                cached.evicted = true;
+            } finally {
+                openResults.clear();
+            }
+        }
+    }
+}
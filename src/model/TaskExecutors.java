@@ -0,0 +1,70 @@
+package model;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executors for blocking database work. On Java 21+ every task gets its own virtual
+// thread; older runtimes fall back to a cached pool of daemon threads. Concurrency
+// against the database is bounded by the connection pool either way.
+public class TaskExecutors {
+    private static volatile ExecutorService shared;
+
+    private TaskExecutors() {}
+
+    // Process-wide executor for background loads
+    public static ExecutorService background() {
+        ExecutorService current = shared;
+        if (current == null) {
+            synchronized (TaskExecutors.class) {
+                current = shared;
+                if (current == null) {
+                    current = newExecutor("db-task");
+                    shared = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public static ExecutorService newExecutor(String namePrefix) {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        if (virtual != null) {
+            return virtual;
+        }
+        return Executors.newCachedThreadPool(daemonThreadFactory(namePrefix));
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    public static ThreadFactory daemonThreadFactory(final String namePrefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, namePrefix + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    // Looked up reflectively so the sources still compile for older Java releases
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}